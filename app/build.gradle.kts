@@ -35,6 +35,13 @@ android {
     buildFeatures {
         viewBinding = true
     }
+
+    testOptions {
+        unitTests.all {
+            // Benchmarks in app/src/test are skipped unless run with -Pbenchmark
+            it.systemProperty("benchmark", project.hasProperty("benchmark").toString())
+        }
+    }
     
     packaging {
         resources {
@@ -61,8 +68,12 @@ dependencies {
     // Room Database
     implementation("androidx.room:room-runtime:2.6.1")
     implementation("androidx.room:room-ktx:2.6.1")
+    implementation("androidx.room:room-paging:2.6.1")
     ksp("androidx.room:room-compiler:2.6.1")
     
+    // Paging for large lists
+    implementation("androidx.paging:paging-runtime-ktx:3.2.1")
+    
     // Retrofit for API calls
     implementation("com.squareup.retrofit2:retrofit:2.9.0")
     implementation("com.squareup.retrofit2:converter-gson:2.9.0")
@@ -77,5 +88,8 @@ dependencies {
     
     // Coroutines
     implementation("org.jetbrains.kotlinx:kotlinx-coroutines-android:1.7.3")
+    
+    // Local JVM unit tests (app/src/test)
+    testImplementation("junit:junit:4.13.2")
 }
 
@@ -10,16 +10,21 @@ import androidx.core.view.isVisible
 import androidx.fragment.app.Fragment
 import androidx.lifecycle.lifecycleScope
 import com.example.perfectfit.database.AppDatabase
+import com.example.perfectfit.database.StageCount
+import com.example.perfectfit.database.StageWithOrder
 import com.example.perfectfit.databinding.FragmentAnalyticsBinding
 import com.example.perfectfit.models.Customer
 import com.example.perfectfit.models.Order
 import com.example.perfectfit.models.ProductionStage
+import com.example.perfectfit.models.StageEffortStats
 import com.example.perfectfit.models.WorkloadConfig
+import com.example.perfectfit.utils.DateCodec
+import com.example.perfectfit.utils.EffortModel
+import com.example.perfectfit.utils.WorkerAssignmentEngine
 import com.example.perfectfit.utils.WorkloadHelper
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
-import java.text.SimpleDateFormat
 import java.util.*
 
 /**
@@ -28,12 +33,13 @@ import java.util.*
  * Features:
  * - Customer Lifetime Value (CLV) rankings
  * - Production bottleneck identification
+ * - Per-tailor load and delayed stages
  * - Capacity utilization status
  * - Slow-moving order alerts
  * - Upcoming birthday reminders
  * 
  * Data Sources:
- * - Customer CLV from Order.amount totals
+ * - Customer CLV from trigger-maintained Customer.totalOrdersValue
  * - Production stages from ProductionStage table
  * - Workload from active orders
  * - Birthday data from Customer.birthDate
@@ -80,8 +86,19 @@ class AnalyticsFragment : Fragment() {
     private fun loadAnalytics() {
         lifecycleScope.launch {
             loadTopCustomers()
+            
+            // One JOIN feeds both the bottleneck and capacity sections
+            val activeStages = try {
+                withContext(Dispatchers.IO) {
+                    database.productionStageDao().getActiveStagesWithOrders()
+                }
+            } catch (e: Exception) {
+                e.printStackTrace()
+                emptyList()
+            }
             loadProductionBottlenecks()
-            loadCapacityStatus()
+            loadCapacityStatus(activeStages)
+            
             loadUpcomingBirthdays()
         }
     }
@@ -91,16 +108,11 @@ class AnalyticsFragment : Fragment() {
      */
     private suspend fun loadTopCustomers() {
         try {
-            val customers = withContext(Dispatchers.IO) {
-                database.customerDao().getAllCustomersList()
+            // Ranked in SQL through the lifetime value index
+            val topCustomers = withContext(Dispatchers.IO) {
+                database.customerDao().getTopCustomersByValue(TOP_CUSTOMERS_LIMIT)
             }
             
-            // Sort by CLV and take top 10
-            val topCustomers = customers
-                .sortedByDescending { it.totalOrdersValue }
-                .take(10)
-                .filter { it.totalOrdersValue > 0 }
-            
             withContext(Dispatchers.Main) {
                 displayTopCustomers(topCustomers)
             }
@@ -154,8 +166,12 @@ class AnalyticsFragment : Fragment() {
      */
     private suspend fun loadProductionBottlenecks() {
         try {
-            val allStages = withContext(Dispatchers.IO) {
-                database.productionStageDao().getAllActiveStages()
+            // Counts per stage and rolling duration stats: one row per stage each
+            val stageCounts = withContext(Dispatchers.IO) {
+                database.productionStageDao().getStageDistribution()
+            }
+            val stageStats = withContext(Dispatchers.IO) {
+                database.stageEffortStatsDao().getAllTypesStats()
             }
             
             val slowOrders = withContext(Dispatchers.IO) {
@@ -163,8 +179,18 @@ class AnalyticsFragment : Fragment() {
                 database.orderStageHistoryDao().getSlowMovingOrders(threshold)
             }
             
+            // Per-tailor queues, maintained incrementally by the assignment engine
+            val storedConfig = withContext(Dispatchers.IO) {
+                database.workloadConfigDao().getConfig() ?: WorkloadConfig()
+            }
+            WorkerAssignmentEngine.ensureLoaded(database, storedConfig)
+            val workerLoads = WorkerAssignmentEngine.getWorkerLoads()
+            val unassignedCount = if (workerLoads.isNotEmpty()) WorkerAssignmentEngine.getUnassignedCount() else 0
+            
             withContext(Dispatchers.Main) {
-                displayBottlenecks(allStages, slowOrders.size)
+                displayBottlenecks(stageCounts, slowOrders.size)
+                displayStageDurations(stageStats)
+                displayWorkerLoads(workerLoads, unassignedCount)
             }
         } catch (e: Exception) {
             e.printStackTrace()
@@ -174,16 +200,16 @@ class AnalyticsFragment : Fragment() {
     /**
      * Displays bottleneck information.
      */
-    private fun displayBottlenecks(stages: List<ProductionStage>, slowOrderCount: Int) {
+    private fun displayBottlenecks(stageCounts: List<StageCount>, slowOrderCount: Int) {
         binding.bottlenecksContainer.removeAllViews()
         
-        // Group stages by type
-        val stageGroups = stages.groupBy { it.currentStage }
+        val countsByStage = stageCounts.associate { it.currentStage to it.count }
         
         var hasBottlenecks = false
         
         ProductionStage.getAllStages().forEach { stageName ->
-            val count = stageGroups[stageName]?.size ?: 0
+            if (stageName == ProductionStage.STAGE_DELIVERED) return@forEach
+            val count = countsByStage[stageName] ?: 0
             
             if (count > 3) { // Threshold for bottleneck
                 hasBottlenecks = true
@@ -220,21 +246,88 @@ class AnalyticsFragment : Fragment() {
     }
 
     /**
-     * Loads and displays capacity utilization status.
+     * Adds a line per work stage with its learned duration: average, spread,
+     * and how often it ran over the expected time. Stages that usually run
+     * over are highlighted.
      */
-    private suspend fun loadCapacityStatus() {
-        try {
-            val activeOrders = withContext(Dispatchers.IO) {
-                val stages = database.productionStageDao().getAllActiveStages()
-                stages.mapNotNull { stage ->
-                    database.orderDao().getOrderById(stage.orderId)
+    private fun displayStageDurations(stats: List<StageEffortStats>) {
+        val statsByStage = stats.associateBy { it.stageName }
+        
+        EffortModel.WORK_STAGES.forEach { stageName ->
+            val stageStats = statsByStage[stageName]?.takeIf { it.count > 0 } ?: return@forEach
+            val delayedPercent = (stageStats.delayedFraction * 100).toInt()
+            val textView = TextView(requireContext()).apply {
+                text = "⏱️ ${ProductionStage.getStageDisplayName(stageName)}: " +
+                    "avg ${String.format("%.1f", stageStats.meanHours)}h " +
+                    "±${String.format("%.1f", stageStats.stdDevHours)}h, " +
+                    "$delayedPercent% over ${String.format("%.0f", ProductionStage.getExpectedDuration(stageName))}h " +
+                    "(${stageStats.count} done)"
+                textSize = 14f
+                val color = if (stageStats.delayedFraction > SLOW_STAGE_DELAYED_FRACTION) {
+                    android.R.color.holo_orange_dark
+                } else {
+                    android.R.color.darker_gray
                 }
+                setTextColor(ContextCompat.getColor(requireContext(), color))
+                setPadding(0, 8, 0, 8)
             }
-            
-            val config = withContext(Dispatchers.IO) {
-                database.workloadConfigDao().getConfig() ?: WorkloadConfig()
+            binding.bottlenecksContainer.addView(textView)
+        }
+    }
+
+    /**
+     * Adds one line per tailor to the bottleneck section: queued hours,
+     * utilization of their own week, and any delayed stages.
+     */
+    private fun displayWorkerLoads(
+        loads: List<WorkerAssignmentEngine.WorkerLoad>,
+        unassignedCount: Int
+    ) {
+        if (loads.isEmpty()) return
+        
+        loads.forEach { load ->
+            val emoji = WorkloadHelper.getStatusEmoji(load.statusLevel)
+            val busiestStage = load.stageCounts.maxByOrNull { it.value }?.key
+            val textView = TextView(requireContext()).apply {
+                text = buildString {
+                    append("$emoji ${load.worker.name}: ${load.activeStages} stages, ")
+                    append("${String.format("%.1f", load.queuedHours)}h queued (${load.utilizationPercentage}%)")
+                    busiestStage?.let { append(" · mostly ${ProductionStage.getStageDisplayName(it)}") }
+                    if (load.delayedStages > 0) append(" · ${load.delayedStages} delayed")
+                }
+                textSize = 14f
+                val color = when (load.statusLevel) {
+                    WorkloadHelper.StatusLevel.OVERBOOKED -> android.R.color.holo_red_dark
+                    WorkloadHelper.StatusLevel.BUSY -> android.R.color.holo_orange_dark
+                    WorkloadHelper.StatusLevel.AVAILABLE -> android.R.color.holo_green_dark
+                }
+                setTextColor(ContextCompat.getColor(requireContext(), color))
+                setPadding(0, 8, 0, 8)
+            }
+            binding.bottlenecksContainer.addView(textView)
+        }
+        
+        if (unassignedCount > 0) {
+            val textView = TextView(requireContext()).apply {
+                text = "👤 $unassignedCount active orders not assigned to a tailor"
+                textSize = 14f
+                setTextColor(ContextCompat.getColor(requireContext(), android.R.color.holo_orange_dark))
+                setPadding(0, 8, 0, 8)
             }
+            binding.bottlenecksContainer.addView(textView)
+        }
+    }
+
+    /**
+     * Loads and displays capacity utilization status.
+     */
+    private suspend fun loadCapacityStatus(activeStages: List<StageWithOrder>) {
+        try {
+            val activeOrders = activeStages.map { it.order }
+            
+            val config = WorkerAssignmentEngine.shopConfig(database)
             
+            EffortModel.ensureLoaded(database)
             val status = WorkloadHelper.calculateWorkloadStatus(activeOrders, config)
             
             withContext(Dispatchers.Main) {
@@ -298,14 +391,13 @@ class AnalyticsFragment : Fragment() {
      */
     private suspend fun loadUpcomingBirthdays() {
         try {
-            val customers = withContext(Dispatchers.IO) {
-                database.customerDao().getAllCustomersList()
-            }
-            
-            val upcomingBirthdays = customers.filter { customer ->
-                isUpcomingBirthday(customer.birthDate, 30)
-            }.sortedBy { customer ->
-                getDaysUntilBirthday(customer.birthDate)
+            // Range read on the birthday index, already soonest first
+            val today = DateCodec.today()
+            val upcomingBirthdays = withContext(Dispatchers.IO) {
+                database.customerDao().getUpcomingBirthdays(
+                    DateCodec.monthDayOf(today),
+                    DateCodec.monthDayOf(today + UPCOMING_BIRTHDAY_DAYS)
+                )
             }
             
             withContext(Dispatchers.Main) {
@@ -316,47 +408,14 @@ class AnalyticsFragment : Fragment() {
         }
     }
 
-    /**
-     * Checks if a birthday is within the next specified days.
-     */
-    private fun isUpcomingBirthday(birthDate: String, withinDays: Int): Boolean {
-        return try {
-            val daysUntil = getDaysUntilBirthday(birthDate)
-            daysUntil in 0..withinDays
-        } catch (e: Exception) {
-            false
-        }
-    }
-
     /**
      * Calculates days until next birthday.
      */
     private fun getDaysUntilBirthday(birthDate: String): Int {
-        return try {
-            val format = SimpleDateFormat("dd/MM/yyyy", Locale.getDefault())
-            val birth = format.parse(birthDate) ?: return Int.MAX_VALUE
-            
-            val birthCal = Calendar.getInstance().apply { time = birth }
-            val today = Calendar.getInstance()
-            
-            // Set birthday to this year
-            val nextBirthday = Calendar.getInstance().apply {
-                set(Calendar.DAY_OF_MONTH, birthCal.get(Calendar.DAY_OF_MONTH))
-                set(Calendar.MONTH, birthCal.get(Calendar.MONTH))
-                set(Calendar.YEAR, today.get(Calendar.YEAR))
-            }
-            
-            // If birthday already passed this year, use next year
-            if (nextBirthday.before(today)) {
-                nextBirthday.add(Calendar.YEAR, 1)
-            }
-            
-            val diffMs = nextBirthday.timeInMillis - today.timeInMillis
-            (diffMs / (1000 * 60 * 60 * 24)).toInt()
-            
-        } catch (e: Exception) {
-            Int.MAX_VALUE
-        }
+        val birthDay = DateCodec.parseEpochDay(birthDate)
+        if (birthDay == DateCodec.INVALID) return Int.MAX_VALUE
+        
+        return DateCodec.daysUntilAnniversary(birthDay, DateCodec.today())
     }
 
     /**
@@ -399,6 +458,12 @@ class AnalyticsFragment : Fragment() {
     }
 
     companion object {
+        private const val TOP_CUSTOMERS_LIMIT = 10
+        private const val UPCOMING_BIRTHDAY_DAYS = 30
+        
+        /** Share of over-time completions above which a stage is highlighted */
+        private const val SLOW_STAGE_DELAYED_FRACTION = 0.5
+        
         fun newInstance(): AnalyticsFragment {
             return AnalyticsFragment()
         }
@@ -13,7 +13,13 @@ import com.example.perfectfit.database.AppDatabase
 import com.example.perfectfit.databinding.FragmentCreateOrderBinding
 import com.example.perfectfit.models.Customer
 import com.example.perfectfit.models.Order
-import com.example.perfectfit.models.WorkloadConfig
+import com.example.perfectfit.utils.DateCodec
+import com.example.perfectfit.utils.DeliveryAlertRefresher
+import com.example.perfectfit.utils.DeliveryConfidenceEstimator
+import com.example.perfectfit.utils.EffortModel
+import com.example.perfectfit.utils.HybridLogicalClock
+import com.example.perfectfit.utils.ProductionScheduler
+import com.example.perfectfit.utils.WorkerAssignmentEngine
 import com.example.perfectfit.utils.WorkloadHelper
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.launch
@@ -30,6 +36,8 @@ class CreateOrderFragment : Fragment() {
     private var customer: Customer? = null
     private lateinit var database: AppDatabase
     private var selectedDeliveryDate: Calendar? = null
+    private var deliveryDatePickedManually = false
+    private var deliveryConfidence: DeliveryConfidenceEstimator.DeliveryConfidence? = null
 
     override fun onCreate(savedInstanceState: Bundle?) {
         super.onCreate(savedInstanceState)
@@ -70,9 +78,7 @@ class CreateOrderFragment : Fragment() {
         }
 
         // Pre-populate order date with today's date
-        val today = Calendar.getInstance()
-        val dateFormat = SimpleDateFormat("dd/MM/yyyy", Locale.getDefault())
-        binding.orderDateInput.setText(dateFormat.format(today.time))
+        binding.orderDateInput.setText(DateCodec.formatToday())
 
         // Setup order type dropdown
         val orderTypes = arrayOf(
@@ -97,6 +103,11 @@ class CreateOrderFragment : Fragment() {
             showDatePicker()
         }
 
+        // Re-estimate with the learned effort for the chosen garment type
+        binding.orderTypeDropdown.setOnItemClickListener { _, _, _, _ ->
+            updateEstimateForOrderType(binding.orderTypeDropdown.text.toString())
+        }
+
         // Save order button
         binding.saveOrderButton.setOnClickListener {
             saveOrder()
@@ -119,6 +130,7 @@ class CreateOrderFragment : Fragment() {
                     set(Calendar.MONTH, month)
                     set(Calendar.DAY_OF_MONTH, dayOfMonth)
                 }
+                deliveryDatePickedManually = true
                 updateDeliveryDate()
             },
             calendar.get(Calendar.YEAR),
@@ -133,8 +145,8 @@ class CreateOrderFragment : Fragment() {
 
     private fun updateDeliveryDate() {
         selectedDeliveryDate?.let { deliveryDate ->
-            val dateFormat = SimpleDateFormat("dd/MM/yyyy", Locale.getDefault())
-            binding.estimatedDeliveryInput.setText(dateFormat.format(deliveryDate.time))
+            val deliveryDateStr = DateCodec.format(deliveryDate)
+            binding.estimatedDeliveryInput.setText(deliveryDateStr)
             
             // Calculate days difference
             val today = Calendar.getInstance()
@@ -142,18 +154,37 @@ class CreateOrderFragment : Fragment() {
             val daysUntilDelivery = TimeUnit.MILLISECONDS.toDays(diffInMillis).toInt()
             
             // Update delivery info text
-            val deliveryDateStr = dateFormat.format(deliveryDate.time)
             binding.deliveryInfoText.text = "Your estimated delivery date is in $daysUntilDelivery days on $deliveryDateStr"
             binding.deliveryInfoText.visibility = View.VISIBLE
         }
+        showDeliveryConfidence()
+    }
+
+    /**
+     * Shows the simulated on-time probability for the selected delivery date,
+     * with the P50/P80/P95 finish dates. Cheap enough to rerun on every date change.
+     */
+    private fun showDeliveryConfidence() {
+        val confidence = deliveryConfidence ?: return
+        val deliveryDate = selectedDeliveryDate ?: return
+        
+        val probability = confidence.onTimeProbability(deliveryDate)
+        val level = WorkloadHelper.getConfidenceLevel(probability)
+        val dateFormat = SimpleDateFormat("MMM dd", Locale.getDefault())
+        
+        binding.confidenceIndicatorCard.visibility = View.VISIBLE
+        binding.confidenceEmoji.text = WorkloadHelper.getConfidenceEmoji(level)
+        binding.confidenceLevelText.text = "${(probability * 100).toInt()}% chance of being ready on time"
+        binding.confidenceDetailText.text = "Likely ready: " +
+            "${dateFormat.format(confidence.dateOf(confidence.p50Day).time)} (50%) · " +
+            "${dateFormat.format(confidence.dateOf(confidence.p80Day).time)} (80%) · " +
+            "${dateFormat.format(confidence.dateOf(confidence.p95Day).time)} (95%)"
     }
 
     private fun calculateAndSetEstimatedDeliveryDate() {
         lifecycleScope.launch {
             try {
-                val config = withContext(Dispatchers.IO) {
-                    database.workloadConfigDao().getConfig() ?: WorkloadConfig()
-                }
+                val config = WorkerAssignmentEngine.shopConfig(database)
                 
                 val pendingOrders = withContext(Dispatchers.IO) {
                     database.orderDao().getAllOrders().filter { 
@@ -163,6 +194,7 @@ class CreateOrderFragment : Fragment() {
                 }
                 
                 // Check workload status and show warning if overbooked
+                EffortModel.ensureLoaded(database)
                 val status = WorkloadHelper.calculateWorkloadStatus(pendingOrders, config)
                 
                 withContext(Dispatchers.Main) {
@@ -192,28 +224,27 @@ class CreateOrderFragment : Fragment() {
                     }
                 }
                 
-                // ✨ IMPROVED: Use realistic estimates instead of optimistic
-                val estimates = WorkloadHelper.calculateDeliveryEstimates(pendingOrders.size, config)
+                // ✨ IMPROVED: Use realistic estimates instead of optimistic,
+                // slotted behind the work already scheduled
+                ProductionScheduler.ensureLoaded(database, config)
+                val orderType = binding.orderTypeDropdown.text.toString().ifEmpty { null }
+                val scheduledDate = ProductionScheduler.estimateNewOrderDelivery(config, orderType)
+                val estimates = WorkloadHelper.calculateDeliveryEstimates(pendingOrders.size, config, scheduledDate)
                 selectedDeliveryDate = estimates.realisticDate
                 
-                // ✨ QUICK WIN 1: Get confidence level
-                val confidenceLevel = WorkloadHelper.getConfidenceLevel(pendingOrders.size)
+                // Simulated confidence that the suggested date holds
+                val confidence = DeliveryConfidenceEstimator.estimate(database, config, orderType)
+                deliveryConfidence = confidence
+                val confidenceLevel = WorkloadHelper.getConfidenceLevel(
+                    confidence.onTimeProbability(estimates.realisticDate)
+                )
                 val confidenceEmoji = WorkloadHelper.getConfidenceEmoji(confidenceLevel)
                 val confidenceText = WorkloadHelper.getConfidenceText(confidenceLevel)
                 
                 withContext(Dispatchers.Main) {
+                    // Also fills the confidence card
                     updateDeliveryDate()
                     
-                    // ✨ NEW: Display confidence in UI card!
-                    binding.confidenceIndicatorCard.visibility = View.VISIBLE
-                    binding.confidenceEmoji.text = confidenceEmoji
-                    binding.confidenceLevelText.text = confidenceText
-                    binding.confidenceDetailText.text = if (estimates.daysDifference > 0) {
-                        "Buffer: +${estimates.daysDifference} days | ${pendingOrders.size} pending orders"
-                    } else {
-                        "${pendingOrders.size} pending orders"
-                    }
-                    
                     // Show comparison with visual confidence indicator
                     val dateFormat = SimpleDateFormat("MMM dd, yyyy", Locale.getDefault())
                     val optimisticStr = dateFormat.format(estimates.optimisticDate.time)
@@ -254,34 +285,27 @@ class CreateOrderFragment : Fragment() {
         }
     }
 
-    private fun calculateDeliveryDate(pendingOrdersCount: Int, config: WorkloadConfig): Calendar {
-        // Calculate total hours needed for all pending orders + this new order
-        val totalOrdersToComplete = pendingOrdersCount + 1
-        val totalHoursNeeded = totalOrdersToComplete * config.timePerOrderHours
-        
-        val currentDate = Calendar.getInstance()
-        var hoursRemaining = totalHoursNeeded
-        var daysChecked = 0
-        val maxDaysToCheck = 365 // Safety limit
-        
-        // Start from today and add working hours day by day
-        while (hoursRemaining > 0 && daysChecked < maxDaysToCheck) {
-            val dayOfWeek = currentDate.get(Calendar.DAY_OF_WEEK)
-            val workingHoursToday = config.getHoursForDay(dayOfWeek)
+    /**
+     * Re-runs the confidence simulation for the selected order type and moves
+     * the suggested delivery date to match its learned effort, unless the user
+     * already picked a date.
+     */
+    private fun updateEstimateForOrderType(orderType: String) {
+        lifecycleScope.launch {
+            val config = WorkerAssignmentEngine.shopConfig(database)
+            deliveryConfidence = DeliveryConfidenceEstimator.estimate(database, config, orderType)
             
-            // Deduct the working hours for this day
-            hoursRemaining -= workingHoursToday
+            val scheduledDate = if (!deliveryDatePickedManually) {
+                ProductionScheduler.ensureLoaded(database, config)
+                ProductionScheduler.estimateNewOrderDelivery(config, orderType)
+            } else null
             
-            // If we still have hours remaining, move to the next day
-            if (hoursRemaining > 0) {
-                currentDate.add(Calendar.DAY_OF_MONTH, 1)
+            if (_binding == null) return@launch
+            if (scheduledDate != null && !deliveryDatePickedManually) {
+                selectedDeliveryDate = scheduledDate
             }
-            
-            daysChecked++
+            updateDeliveryDate()
         }
-        
-        // If we've exhausted the working hours or reached the limit, return the calculated date
-        return currentDate
     }
 
     private fun saveOrder() {
@@ -327,14 +351,17 @@ class CreateOrderFragment : Fragment() {
                 estimatedDeliveryDate = deliveryDate,
                 instructions = instructions,
                 amount = amount,
-                status = "Pending"
+                status = "Pending",
+                version = HybridLogicalClock.now()
             )
 
             lifecycleScope.launch {
                 try {
-                    withContext(Dispatchers.IO) {
+                    val orderId = withContext(Dispatchers.IO) {
                         database.orderDao().insert(order)
                     }
+                    ProductionScheduler.onOrderChanged(database, orderId.toInt())
+                    DeliveryAlertRefresher.refreshOrder(database, orderId.toInt())
                     
                     withContext(Dispatchers.Main) {
                         Toast.makeText(requireContext(), "Order created successfully!", Toast.LENGTH_SHORT).show()
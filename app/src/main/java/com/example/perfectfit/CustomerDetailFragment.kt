@@ -10,9 +10,7 @@ import android.widget.Toast
 import androidx.fragment.app.Fragment
 import com.example.perfectfit.databinding.FragmentCustomerDetailBinding
 import com.example.perfectfit.models.Customer
-import java.text.SimpleDateFormat
-import java.util.Calendar
-import java.util.Locale
+import com.example.perfectfit.utils.DateCodec
 
 class CustomerDetailFragment : Fragment() {
 
@@ -105,30 +103,20 @@ class CustomerDetailFragment : Fragment() {
     }
 
     private fun calculateAge(birthDateStr: String): Int {
-        return try {
-            val dateFormat = SimpleDateFormat("dd/MM/yyyy", Locale.getDefault())
-            val birthDate = dateFormat.parse(birthDateStr)
-            
-            if (birthDate != null) {
-                val birthCalendar = Calendar.getInstance()
-                birthCalendar.time = birthDate
-                
-                val today = Calendar.getInstance()
-                
-                var age = today.get(Calendar.YEAR) - birthCalendar.get(Calendar.YEAR)
-                
-                // Check if birthday hasn't occurred yet this year
-                if (today.get(Calendar.DAY_OF_YEAR) < birthCalendar.get(Calendar.DAY_OF_YEAR)) {
-                    age--
-                }
-                
-                age
-            } else {
-                0
-            }
-        } catch (e: Exception) {
-            0
+        val birthDay = DateCodec.parseEpochDay(birthDateStr)
+        if (birthDay == DateCodec.INVALID) return 0
+        
+        val birth = DateCodec.toYearMonthDay(birthDay)
+        val today = DateCodec.toYearMonthDay(DateCodec.today())
+        
+        var age = DateCodec.yearOf(today) - DateCodec.yearOf(birth)
+        
+        // Check if birthday hasn't occurred yet this year (compare MMdd)
+        if (today % 10000 < birth % 10000) {
+            age--
         }
+        
+        return age
     }
 
     private fun setupButtons() {
@@ -14,6 +14,7 @@ import com.example.perfectfit.databinding.FragmentEditMeasurementsBinding
 import com.example.perfectfit.models.Customer
 import com.example.perfectfit.models.EditableMeasurementField
 import com.example.perfectfit.models.Measurement
+import com.example.perfectfit.utils.HybridLogicalClock
 import kotlinx.coroutines.launch
 
 class EditMeasurementsFragment : Fragment() {
@@ -204,6 +205,7 @@ class EditMeasurementsFragment : Fragment() {
                     val measurement = Measurement(
                         id = existingMeasurement?.id ?: 0,
                         customerId = cust.id,
+                        serverId = existingMeasurement?.serverId,
                         // Kurti measurements
                         kurtiLength = kurtiFields.find { it.fieldId == "kurtiLength" }?.value ?: "",
                         fullShoulder = kurtiFields.find { it.fieldId == "fullShoulder" }?.value ?: "",
@@ -246,7 +248,8 @@ class EditMeasurementsFragment : Fragment() {
                         blouseSleevesHeightThreeQuarter = blouseFields.find { it.fieldId == "blouseSleevesHeightThreeQuarter" }?.value ?: "",
                         blouseSleevesRound = blouseFields.find { it.fieldId == "blouseSleevesRound" }?.value ?: "",
                         blouseHookOn = blouseFields.find { it.fieldId == "blouseHookOn" }?.value ?: "",
-                        lastUpdated = System.currentTimeMillis()
+                        lastUpdated = System.currentTimeMillis(),
+                        version = HybridLogicalClock.now()
                     )
                     
                     database.measurementDao().insertMeasurement(measurement)
@@ -14,6 +14,10 @@ import com.example.perfectfit.databinding.FragmentHomeBinding
 import com.example.perfectfit.models.Order
 import com.example.perfectfit.models.WorkloadConfig
 import com.example.perfectfit.sync.SyncRepository
+import com.example.perfectfit.utils.DeliveryAlertRefresher
+import com.example.perfectfit.utils.EffortModel
+import com.example.perfectfit.utils.ProductionScheduler
+import com.example.perfectfit.utils.WorkerAssignmentEngine
 import com.example.perfectfit.utils.WorkloadHelper
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.launch
@@ -244,6 +248,10 @@ class HomeFragment : Fragment(), NewActionBottomSheet.NewActionListener {
             navigateToWorkloadConfig()
         }
 
+        binding.productionBoardButton.setOnClickListener {
+            navigateToProductionBoard()
+        }
+
         binding.syncNowButton.setOnClickListener {
             performSync()
         }
@@ -349,6 +357,13 @@ class HomeFragment : Fragment(), NewActionBottomSheet.NewActionListener {
             .commit()
     }
     
+    private fun navigateToProductionBoard() {
+        parentFragmentManager.beginTransaction()
+            .replace(R.id.fragment_container, ProductionBoardFragment())
+            .addToBackStack(null)
+            .commit()
+    }
+    
     private fun navigateToAnalytics() {
         val analyticsFragment = AnalyticsFragment()
         parentFragmentManager.beginTransaction()
@@ -452,7 +467,7 @@ class HomeFragment : Fragment(), NewActionBottomSheet.NewActionListener {
     private fun loadWorkloadStatus() {
         viewLifecycleOwner.lifecycleScope.launch {
             try {
-                val config = database.workloadConfigDao().getConfig() ?: WorkloadConfig()
+                val config = WorkerAssignmentEngine.shopConfig(database)
                 val pendingOrders = database.orderDao().getAllOrders().filter {
                     it.status.equals("Pending", ignoreCase = true) ||
                             it.status.equals("In Progress", ignoreCase = true)
@@ -466,12 +481,28 @@ class HomeFragment : Fragment(), NewActionBottomSheet.NewActionListener {
                     return@launch
                 }
 
+                EffortModel.ensureLoaded(database)
                 val status = WorkloadHelper.calculateWorkloadStatus(pendingOrders, config)
 
+                // Per-tailor breakdown when the shop has several workers
+                WorkerAssignmentEngine.ensureLoaded(
+                    database,
+                    database.workloadConfigDao().getConfig() ?: WorkloadConfig()
+                )
+                val workerSummary = WorkerAssignmentEngine.getWorkerLoads().joinToString(" · ") {
+                    "${WorkloadHelper.getStatusEmoji(it.statusLevel)} ${it.worker.name} ${it.utilizationPercentage}%"
+                }
+                
+                if (!isAdded || _binding == null) return@launch
+                
                 binding.workloadStatusCard.visibility = View.VISIBLE
                 binding.workloadPercentage.text = "${status.utilizationPercentage}%"
                 binding.workloadProgressBar.progress = status.utilizationPercentage
-                binding.workloadMessage.text = status.message
+                binding.workloadMessage.text = if (workerSummary.isNotEmpty()) {
+                    "${status.message}\n$workerSummary"
+                } else {
+                    status.message
+                }
 
                 // Update progress bar color based on status
                 val progressColor = when (status.statusLevel) {
@@ -512,7 +543,7 @@ class HomeFragment : Fragment(), NewActionBottomSheet.NewActionListener {
      * - UPCOMING (Blue): Due within 7 days
      * 
      * Features:
-     * - Displays top 5 alerts only
+     * - Displays top 5 alerts only, read from the materialized delivery_alerts table
      * - Color-coded labels for quick visual scanning
      * - Click on alert navigates to order detail
      * - Ripple effect for better affordance
@@ -523,12 +554,8 @@ class HomeFragment : Fragment(), NewActionBottomSheet.NewActionListener {
     private fun loadDeliveryAlerts() {
         viewLifecycleOwner.lifecycleScope.launch {
             try {
-                val pendingOrders = database.orderDao().getAllOrders().filter {
-                    it.status.equals("Pending", ignoreCase = true) ||
-                            it.status.equals("In Progress", ignoreCase = true)
-                }
-
-                val alerts = WorkloadHelper.getDeliveryAlerts(pendingOrders)
+                // Materialized daily; indexed read of the top alerts only
+                val alerts = DeliveryAlertRefresher.getAlerts(database, DeliveryAlertRefresher.HOME_ALERT_LIMIT)
 
                 // Check if view is still attached before accessing binding
                 if (!isAdded || _binding == null) return@launch
@@ -544,8 +571,8 @@ class HomeFragment : Fragment(), NewActionBottomSheet.NewActionListener {
                 // Clear existing alerts
                 binding.deliveryAlertsContainer.removeAllViews()
 
-                // Add alert items (max 5)
-                alerts.take(5).forEach { alert ->
+                // Add alert items (already limited to the top 5)
+                alerts.forEach { alert ->
                     // Check again before each UI operation
                     if (!isAdded || _binding == null) return@launch
                     
@@ -637,10 +664,10 @@ class HomeFragment : Fragment(), NewActionBottomSheet.NewActionListener {
     private fun loadWeeklyCapacity() {
         viewLifecycleOwner.lifecycleScope.launch {
             try {
-                val config = database.workloadConfigDao().getConfig() ?: WorkloadConfig()
-                val allOrders = database.orderDao().getAllOrders()
+                val config = WorkerAssignmentEngine.shopConfig(database)
+                ProductionScheduler.ensureLoaded(database, config)
                 
-                val weeklyData = WorkloadHelper.calculateMultiWeekCapacity(allOrders, config, weeksAhead = 4)
+                val weeklyData = WorkloadHelper.calculateMultiWeekCapacity(config, weeksAhead = 4)
                 
                 // Check if view is still attached before accessing binding
                 if (!isAdded || _binding == null) return@launch
@@ -744,31 +771,23 @@ class HomeFragment : Fragment(), NewActionBottomSheet.NewActionListener {
                 val allOrders = database.orderDao().getAllOrders()
 
                 // Calculate today's revenue
-                val dateFormat = java.text.SimpleDateFormat("dd/MM/yyyy", java.util.Locale.getDefault())
-                val today = dateFormat.format(java.util.Date())
+                val today = com.example.perfectfit.utils.DateCodec.formatToday()
 
                 val todayRevenue = allOrders
                     .filter { it.paymentDate == today && it.paymentStatus == Order.PAYMENT_PAID }
                     .sumOf { it.amount }
 
-                // Calculate this month's revenue
-                val calendar = java.util.Calendar.getInstance()
-                val currentMonth = calendar.get(java.util.Calendar.MONTH)
-                val currentYear = calendar.get(java.util.Calendar.YEAR)
+                // Calculate this month's revenue (packed yyyyMMdd / 100 is yyyyMM)
+                val codec = com.example.perfectfit.utils.DateCodec
+                val currentYearMonth = codec.toYearMonthDay(codec.today()) / 100
 
                 val monthRevenue = allOrders
                     .filter { order ->
                         order.paymentStatus == Order.PAYMENT_PAID &&
-                                order.paymentDate?.let { date ->
-                                    try {
-                                        val paymentCal = java.util.Calendar.getInstance()
-                                        paymentCal.time = dateFormat.parse(date) ?: return@let false
-                                        paymentCal.get(java.util.Calendar.MONTH) == currentMonth &&
-                                                paymentCal.get(java.util.Calendar.YEAR) == currentYear
-                                    } catch (e: Exception) {
-                                        false
-                                    }
-                                } ?: false
+                                codec.parseEpochDay(order.paymentDate).let { day ->
+                                    day != codec.INVALID &&
+                                            codec.toYearMonthDay(day) / 100 == currentYearMonth
+                                }
                     }
                     .sumOf { it.amount }
 
@@ -9,8 +9,11 @@ import androidx.work.ExistingPeriodicWorkPolicy
 import androidx.work.PeriodicWorkRequestBuilder
 import androidx.work.WorkManager
 import com.example.perfectfit.databinding.ActivityMainBinding
+import com.example.perfectfit.utils.HybridLogicalClock
 import com.example.perfectfit.utils.NotificationHelper
 import com.example.perfectfit.workers.BirthdayAlertWorker
+import com.example.perfectfit.workers.DeliveryAlertWorker
+import com.example.perfectfit.workers.SlowOrderWatchdogWorker
 import java.util.Calendar
 import java.util.concurrent.TimeUnit
 
@@ -51,8 +54,11 @@ class MainActivity : AppCompatActivity() {
         setupToolbar()
         
         // Initialize system services
+        HybridLogicalClock.init(this)
         initializeNotificationChannels()
         scheduleBirthdayAlertWorker()
+        DeliveryAlertWorker.schedule(this)
+        SlowOrderWatchdogWorker.schedule(this)
 
         // Configure navigation
         setupBottomNavigation()
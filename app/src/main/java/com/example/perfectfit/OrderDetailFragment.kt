@@ -2,7 +2,6 @@ package com.example.perfectfit
 
 import android.app.AlertDialog
 import android.content.Intent
-import android.graphics.BitmapFactory
 import android.net.Uri
 import android.os.Bundle
 import android.provider.MediaStore
@@ -11,7 +10,6 @@ import android.view.View
 import android.view.ViewGroup
 import android.widget.ArrayAdapter
 import android.widget.EditText
-import android.widget.ImageView
 import android.widget.TextView
 import android.widget.Toast
 import androidx.activity.result.contract.ActivityResultContracts
@@ -28,8 +26,18 @@ import com.example.perfectfit.models.Order
 import com.example.perfectfit.models.OrderImage
 import com.example.perfectfit.models.ProductionStage
 import com.example.perfectfit.models.OrderStageHistory
+import com.example.perfectfit.models.WorkloadConfig
+import com.example.perfectfit.utils.CapacityCalendar
+import com.example.perfectfit.utils.DateCodec
+import com.example.perfectfit.utils.DeliveryAlertRefresher
+import com.example.perfectfit.utils.EffortModel
+import com.example.perfectfit.utils.HybridLogicalClock
 import com.example.perfectfit.utils.ImageHelper
+import com.example.perfectfit.views.TiledImageView
+import com.example.perfectfit.utils.ProductionScheduler
+import com.example.perfectfit.utils.StageTransitions
 import com.example.perfectfit.utils.WhatsAppHelper
+import com.example.perfectfit.utils.WorkerAssignmentEngine
 import com.google.android.material.dialog.MaterialAlertDialogBuilder
 import com.google.android.material.textfield.TextInputEditText
 import com.google.android.material.textfield.TextInputLayout
@@ -119,15 +127,26 @@ class OrderDetailFragment : Fragment() {
     private fun loadOrder(orderId: Int) {
         lifecycleScope.launch {
             try {
-                val loadedOrder = withContext(Dispatchers.IO) {
-                    database.orderDao().getOrderById(orderId)
+                // Order, customer phone and production stage in one query
+                val details = withContext(Dispatchers.IO) {
+                    database.orderDao().getOrderDetails(orderId)
                 }
                 
                 withContext(Dispatchers.Main) {
-                    loadedOrder?.let {
-                        order = it
-                        displayOrderDetails(it)
-                        loadProductionStage(it.id)
+                    details?.let {
+                        order = it.order
+                        customerPhone = it.customerMobile ?: ""
+                        displayOrderDetails(it.order)
+                        
+                        val stage = it.stage
+                        if (stage != null) {
+                            currentStage = stage
+                            displayProductionStage(stage)
+                            loadStageTimeline(it.order.id)
+                        } else {
+                            // Creates the initial stage for orders not tracked yet
+                            loadProductionStage(it.order.id)
+                        }
                     }
                 }
             } catch (e: Exception) {
@@ -155,9 +174,6 @@ class OrderDetailFragment : Fragment() {
         
         // Display payment details
         displayPaymentDetails(order)
-        
-        // Load customer phone number
-        loadCustomerPhone(order.customerId)
     }
     
     private fun displayPaymentDetails(order: Order) {
@@ -193,21 +209,6 @@ class OrderDetailFragment : Fragment() {
         }
     }
     
-    private fun loadCustomerPhone(customerId: Int) {
-        lifecycleScope.launch {
-            try {
-                val customer = withContext(Dispatchers.IO) {
-                    database.customerDao().getCustomerById(customerId)
-                }
-                customer?.let {
-                    customerPhone = it.mobile
-                }
-            } catch (e: Exception) {
-                // Handle silently
-            }
-        }
-    }
-
     private fun setupStatusDropdown() {
         val statuses = arrayOf("Pending", "In Progress", "Completed", "Closed")
         val adapter = ArrayAdapter(requireContext(), android.R.layout.simple_dropdown_item_1line, statuses)
@@ -250,6 +251,10 @@ class OrderDetailFragment : Fragment() {
             showProductionHistory()
         }
         
+        binding.productionAssignedWorker.setOnClickListener {
+            showAssignWorkerDialog()
+        }
+        
         // Order images listeners
         binding.addReferenceImageButton.setOnClickListener {
             pickImage(OrderImage.TYPE_REFERENCE)
@@ -269,6 +274,11 @@ class OrderDetailFragment : Fragment() {
     private fun loadProductionStage(orderId: Int) {
         lifecycleScope.launch {
             try {
+                EffortModel.ensureLoaded(database)
+                WorkerAssignmentEngine.ensureLoaded(
+                    database,
+                    withContext(Dispatchers.IO) { database.workloadConfigDao().getConfig() ?: WorkloadConfig() }
+                )
                 val stage = withContext(Dispatchers.IO) {
                     database.productionStageDao().getStageByOrderId(orderId)
                 }
@@ -276,18 +286,8 @@ class OrderDetailFragment : Fragment() {
                 if (stage == null) {
                     // Create initial production stage
                     withContext(Dispatchers.IO) {
-                        val newStage = ProductionStage(
-                            orderId = orderId,
-                            currentStage = ProductionStage.STAGE_PENDING
-                        )
-                        database.productionStageDao().insert(newStage)
-                        
-                        // Create initial history entry
-                        val history = OrderStageHistory.startStage(
-                            orderId = orderId,
-                            stageName = ProductionStage.STAGE_PENDING
-                        )
-                        database.orderStageHistoryDao().insert(history)
+                        // Stage, first history entry and start event in one transaction
+                        database.stageTransitionDao().startProduction(orderId, System.currentTimeMillis())
                     }
                     loadProductionStage(orderId) // Reload
                 } else {
@@ -316,8 +316,8 @@ class OrderDetailFragment : Fragment() {
             else -> "In stage for: ${timeInStage.toInt()} hours"
         }
         
-        // Check if delayed
-        val expected = ProductionStage.getExpectedDuration(stage.currentStage)
+        // Check if delayed (learned per order type, falling back to defaults)
+        val expected = EffortModel.delayThresholdHours(order?.orderType, stage.currentStage)
         if (expected > 0 && stage.isStageDelayed(expected)) {
             binding.productionTimeInStage.setTextColor(
                 ContextCompat.getColor(requireContext(), android.R.color.holo_red_dark)
@@ -329,10 +329,15 @@ class OrderDetailFragment : Fragment() {
             )
         }
         
-        // Show assigned worker if available
+        // Show assigned worker if available; tappable when tailors are set up
         if (stage.assignedTo.isNotEmpty()) {
             binding.productionAssignedWorker.visibility = View.VISIBLE
             binding.productionAssignedWorker.text = "Assigned to: ${stage.assignedTo}"
+        } else if (WorkerAssignmentEngine.hasWorkers()) {
+            binding.productionAssignedWorker.visibility = View.VISIBLE
+            binding.productionAssignedWorker.text = "Not assigned · tap to assign"
+        } else {
+            binding.productionAssignedWorker.visibility = View.GONE
         }
         
         // Disable next stage button if already delivered
@@ -392,7 +397,7 @@ class OrderDetailFragment : Fragment() {
             subtitle.text = "Started: ${dateFormat.format(Date(stage.stageStartedAt))}"
             subtitle.setTextColor(ContextCompat.getColor(requireContext(), android.R.color.darker_gray))
             
-            if (stage.isDelayed()) {
+            if (stage.isDelayed(EffortModel.delayThresholdHours(order?.orderType, stage.stageName))) {
                 title.text = "${title.text} ⚠️"
                 title.setTextColor(ContextCompat.getColor(requireContext(), android.R.color.holo_red_light))
             }
@@ -424,24 +429,13 @@ class OrderDetailFragment : Fragment() {
     }
     
     private fun moveToNextStage(newStage: String) {
-        val orderId = order?.id ?: return
+        val currentOrder = order ?: return
+        val orderId = currentOrder.id
         
         lifecycleScope.launch {
             try {
-                withContext(Dispatchers.IO) {
-                    // Complete current stage in history
-                    val currentHistory = database.orderStageHistoryDao().getActiveStageHistory(orderId)
-                    currentHistory?.let {
-                        database.orderStageHistoryDao().update(it.complete())
-                    }
-                    
-                    // Create new stage history entry
-                    val newHistory = OrderStageHistory.startStage(orderId, newStage)
-                    database.orderStageHistoryDao().insert(newHistory)
-                    
-                    // Update current stage
-                    database.productionStageDao().updateStage(orderId, newStage, System.currentTimeMillis())
-                }
+                // One transaction, then the effort model, schedule and assignment catch up
+                StageTransitions.moveToStage(database, orderId, currentOrder.orderType, newStage)
                 
                 withContext(Dispatchers.Main) {
                     Toast.makeText(requireContext(), "Stage updated successfully!", Toast.LENGTH_SHORT).show()
@@ -455,6 +449,48 @@ class OrderDetailFragment : Fragment() {
         }
     }
     
+    /**
+     * Lets the user pick a tailor for the current stage, best candidate first
+     * (earliest finish given each tailor's queue and hours).
+     */
+    private fun showAssignWorkerDialog() {
+        val stage = currentStage ?: return
+        val orderId = order?.id ?: return
+        
+        val proposals = WorkerAssignmentEngine.rankWorkers(order?.orderType, stage.currentStage, orderId)
+        if (proposals.isEmpty()) {
+            Toast.makeText(requireContext(), "Add tailors in Workload Settings to assign work", Toast.LENGTH_SHORT).show()
+            return
+        }
+        
+        val today = Calendar.getInstance()
+        val dateFormat = SimpleDateFormat("MMM dd", Locale.getDefault())
+        val labels = proposals.mapIndexed { index, proposal ->
+            val finishDate = (today.clone() as Calendar).apply {
+                add(Calendar.DAY_OF_MONTH, proposal.finishEpochDay - CapacityCalendar.epochDayOf(today))
+            }
+            val suggested = if (index == 0) "⭐ " else ""
+            "$suggested${proposal.worker.name} · done ${dateFormat.format(finishDate.time)} " +
+                "(${String.format("%.1f", proposal.queuedHours)}h queued)"
+        } + "Unassign"
+        
+        MaterialAlertDialogBuilder(requireContext())
+            .setTitle("Assign ${stage.getStageDisplayName()}")
+            .setItems(labels.toTypedArray()) { _, which ->
+                val workerName = proposals.getOrNull(which)?.worker?.name ?: ""
+                lifecycleScope.launch {
+                    try {
+                        WorkerAssignmentEngine.assign(database, orderId, workerName)
+                        loadProductionStage(orderId)
+                    } catch (e: Exception) {
+                        Toast.makeText(requireContext(), "Error assigning: ${e.message}", Toast.LENGTH_SHORT).show()
+                    }
+                }
+            }
+            .setNegativeButton("Cancel", null)
+            .show()
+    }
+    
     private fun showProductionHistory() {
         val orderId = order?.id ?: return
         
@@ -476,7 +512,8 @@ class OrderDetailFragment : Fragment() {
                         } else {
                             "In progress"
                         }
-                        val delayed = if (stage.isDelayed()) " ⚠️ DELAYED" else ""
+                        val threshold = EffortModel.delayThresholdHours(order?.orderType, stage.stageName)
+                        val delayed = if (stage.isDelayed(threshold)) " ⚠️ DELAYED" else ""
                         "${stage.stageName}: $durationText$delayed"
                     }.toTypedArray()
                     
@@ -561,15 +598,17 @@ class OrderDetailFragment : Fragment() {
                     else -> Order.PAYMENT_UNPAID
                 }
                 
-                val dateFormat = SimpleDateFormat("dd/MM/yyyy", Locale.getDefault())
                 val paymentDate = if (newPaymentStatus == Order.PAYMENT_PAID) {
-                    dateFormat.format(Date())
+                    DateCodec.formatToday()
                 } else null
                 
                 val updatedOrder = currentOrder.copy(
                     balancePayment = newBalancePayment,
                     paymentStatus = newPaymentStatus,
-                    paymentDate = paymentDate
+                    paymentDate = paymentDate,
+                    lastModified = System.currentTimeMillis(),
+                    version = HybridLogicalClock.now(),
+                    syncStatus = Order.SYNC_PENDING
                 )
                 
                 withContext(Dispatchers.IO) {
@@ -667,13 +706,21 @@ class OrderDetailFragment : Fragment() {
         }
         
         order?.let { currentOrder ->
-            val updatedOrder = currentOrder.copy(status = newStatus)
+            val updatedOrder = currentOrder.copy(
+                status = newStatus,
+                lastModified = System.currentTimeMillis(),
+                version = HybridLogicalClock.now(),
+                syncStatus = Order.SYNC_PENDING
+            )
             
             lifecycleScope.launch {
                 try {
                     withContext(Dispatchers.IO) {
                         database.orderDao().update(updatedOrder)
                     }
+                    ProductionScheduler.onOrderChanged(database, updatedOrder.id)
+                    WorkerAssignmentEngine.onAssignmentChanged(database, updatedOrder.id)
+                    DeliveryAlertRefresher.refreshOrder(database, updatedOrder.id)
                     
                     withContext(Dispatchers.Main) {
                         order = updatedOrder
@@ -834,12 +881,22 @@ class OrderDetailFragment : Fragment() {
                 }
                 
                 if (filePath != null) {
+                    // Keep the untouched original too when the shop has opted in
+                    val originalPath = withContext(Dispatchers.IO) {
+                        if (imageHelper.isKeepOriginalEnabled()) {
+                            imageHelper.saveOriginal(uri, orderId, imageType)
+                        } else {
+                            null
+                        }
+                    }
+                    
                     // Save to database
                     val orderImage = OrderImage(
                         orderId = orderId,
                         filePath = filePath,
                         imageType = imageType,
-                        uploadedAt = System.currentTimeMillis()
+                        uploadedAt = System.currentTimeMillis(),
+                        originalPath = originalPath
                     )
                     
                     withContext(Dispatchers.IO) {
@@ -870,17 +927,11 @@ class OrderDetailFragment : Fragment() {
      */
     private fun showFullScreenImage(image: OrderImage) {
         val dialog = android.app.Dialog(requireContext(), android.R.style.Theme_Black_NoTitleBar_Fullscreen)
-        val imageView = ImageView(requireContext()).apply {
-            scaleType = ImageView.ScaleType.FIT_CENTER
-            
-            // Load image
-            val fullPath = imageHelper.getFullPath(image.filePath)
-            val bitmap = BitmapFactory.decodeFile(fullPath)
-            if (bitmap != null) {
-                setImageBitmap(bitmap)
-            }
+        val imageView = TiledImageView(requireContext()).apply {
+            // Region decoding keeps memory flat even for full-resolution originals
+            setImageFile(imageHelper.getViewerPath(image))
             
-            // Close on click
+            // Close on tap
             setOnClickListener {
                 dialog.dismiss()
             }
@@ -918,8 +969,9 @@ class OrderDetailFragment : Fragment() {
                     // Delete from database
                     database.orderImageDao().delete(image)
                     
-                    // Delete file
+                    // Delete files
                     imageHelper.deleteImage(image.filePath)
+                    image.originalPath?.let { imageHelper.deleteImage(it) }
                 }
                 
                 withContext(Dispatchers.Main) {
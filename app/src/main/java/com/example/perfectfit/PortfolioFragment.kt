@@ -1,22 +1,27 @@
 package com.example.perfectfit
 
 import android.app.Dialog
-import android.graphics.BitmapFactory
 import android.os.Bundle
 import android.view.LayoutInflater
 import android.view.View
 import android.view.ViewGroup
-import android.widget.ImageView
 import android.widget.Toast
 import androidx.core.view.isVisible
 import androidx.fragment.app.Fragment
 import androidx.lifecycle.lifecycleScope
+import androidx.paging.LoadState
+import androidx.paging.Pager
+import androidx.paging.PagingConfig
+import androidx.paging.liveData
 import androidx.recyclerview.widget.GridLayoutManager
+import androidx.recyclerview.widget.RecyclerView
 import com.example.perfectfit.adapters.PortfolioAdapter
 import com.example.perfectfit.database.AppDatabase
 import com.example.perfectfit.databinding.FragmentPortfolioBinding
 import com.example.perfectfit.models.OrderImage
 import com.example.perfectfit.utils.ImageHelper
+import com.example.perfectfit.utils.ThumbnailCache
+import com.example.perfectfit.views.TiledImageView
 import com.google.android.material.dialog.MaterialAlertDialogBuilder
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.launch
@@ -26,11 +31,13 @@ import kotlinx.coroutines.withContext
  * Fragment displaying a gallery of completed work (portfolio images).
  * 
  * Features:
- * - Grid layout showing all portfolio images
- * - Full-screen image viewer on tap
+ * - Grid layout showing portfolio images, loaded page by page
+ * - Thumbnails for the next page are prefetched while scrolling
+ * - Full-screen image viewer on tap (region-decoded, zoomable)
+ * - Keep original toggle for full-resolution storage
  * - Share and delete actions on long-press
  * - Empty state when no images
- * - Real-time updates via LiveData
+ * - Real-time updates via Paging + Room invalidation
  * 
  * UI Components:
  * - Header with total count
@@ -68,15 +75,31 @@ class PortfolioFragment : Fragment() {
     override fun onViewCreated(view: View, savedInstanceState: Bundle?) {
         super.onViewCreated(view, savedInstanceState)
         setupRecyclerView()
+        setupKeepOriginalSwitch()
         observePortfolioImages()
     }
 
+    /**
+     * Sets up the keep original toggle.
+     * Applies to images added from now on; existing images keep what they have.
+     */
+    private fun setupKeepOriginalSwitch() {
+        binding.keepOriginalSwitch.isChecked = imageHelper.isKeepOriginalEnabled()
+        binding.keepOriginalSwitch.setOnCheckedChangeListener { _, isChecked ->
+            imageHelper.setKeepOriginalEnabled(isChecked)
+        }
+    }
+
     /**
      * Sets up the RecyclerView with grid layout and adapter.
      */
     private fun setupRecyclerView() {
+        // Each cell is half the screen wide; decode thumbnails to roughly that size
+        val thumbnailSize = resources.displayMetrics.widthPixels / GRID_COLUMNS
+        
         // Create adapter with click listeners
         adapter = PortfolioAdapter(
+            thumbnailSize = thumbnailSize,
             onImageClick = { image, imageView ->
                 showFullScreenImage(image)
             },
@@ -86,42 +109,72 @@ class PortfolioFragment : Fragment() {
         )
         
         // Setup RecyclerView
+        val gridLayoutManager = GridLayoutManager(requireContext(), GRID_COLUMNS)
         binding.portfolioRecyclerView.apply {
-            layoutManager = GridLayoutManager(requireContext(), 2)
+            layoutManager = gridLayoutManager
             this.adapter = this@PortfolioFragment.adapter
             setHasFixedSize(true)
         }
+        
+        // Warm thumbnails for the next page while the user scrolls
+        binding.portfolioRecyclerView.addOnScrollListener(object : RecyclerView.OnScrollListener() {
+            private var prefetchedUpTo = 0
+            
+            override fun onScrolled(recyclerView: RecyclerView, dx: Int, dy: Int) {
+                val lastVisible = gridLayoutManager.findLastVisibleItemPosition()
+                if (lastVisible == RecyclerView.NO_POSITION || lastVisible + PAGE_SIZE <= prefetchedUpTo) return
+                
+                val from = maxOf(lastVisible + 1, prefetchedUpTo)
+                val to = lastVisible + 1 + PAGE_SIZE
+                ThumbnailCache.prefetch(adapter.peekPaths(from, to), thumbnailSize)
+                prefetchedUpTo = to
+            }
+        })
+        
+        // Empty state follows the paged list once the first page has loaded
+        adapter.addLoadStateListener { loadStates ->
+            if (_binding == null) return@addLoadStateListener
+            val isEmpty = loadStates.refresh is LoadState.NotLoading && adapter.itemCount == 0
+            binding.portfolioRecyclerView.isVisible = !isEmpty
+            binding.emptyState.isVisible = isEmpty
+        }
     }
 
     /**
-     * Observes portfolio images from database using LiveData.
+     * Observes portfolio images from database one page at a time.
+     * The count for the header comes from a separate COUNT query so the full
+     * list is never loaded just to be counted.
      */
     private fun observePortfolioImages() {
-        database.orderImageDao().getPortfolioImagesLiveData()
-            .observe(viewLifecycleOwner) { images ->
-                updateUI(images)
+        Pager(
+            config = PagingConfig(
+                pageSize = PAGE_SIZE,
+                prefetchDistance = PAGE_SIZE / 2,
+                enablePlaceholders = false,
+                maxSize = PAGE_SIZE * MAX_PAGES_IN_MEMORY
+            ),
+            pagingSourceFactory = { database.orderImageDao().getPortfolioImagesPaged() }
+        ).liveData
+            .observe(viewLifecycleOwner) { pagingData ->
+                adapter.submitData(viewLifecycleOwner.lifecycle, pagingData)
+            }
+        
+        database.orderImageDao().getPortfolioImageCount()
+            .observe(viewLifecycleOwner) { count ->
+                updateHeader(count)
             }
     }
 
     /**
-     * Updates UI based on portfolio images.
+     * Updates the header with the portfolio size.
      * 
-     * @param images List of portfolio images
+     * @param count Number of portfolio images
      */
-    private fun updateUI(images: List<OrderImage>) {
-        if (images.isEmpty()) {
-            // Show empty state
-            binding.portfolioRecyclerView.isVisible = false
-            binding.emptyState.isVisible = true
-            binding.portfolioCount.text = "No completed work photos yet"
+    private fun updateHeader(count: Int) {
+        binding.portfolioCount.text = if (count == 0) {
+            "No completed work photos yet"
         } else {
-            // Show images
-            binding.portfolioRecyclerView.isVisible = true
-            binding.emptyState.isVisible = false
-            binding.portfolioCount.text = "${images.size} completed work ${if (images.size == 1) "photo" else "photos"}"
-            
-            // Update adapter
-            adapter.updateImages(images)
+            "$count completed work ${if (count == 1) "photo" else "photos"}"
         }
     }
 
@@ -132,17 +185,11 @@ class PortfolioFragment : Fragment() {
      */
     private fun showFullScreenImage(image: OrderImage) {
         val dialog = Dialog(requireContext(), android.R.style.Theme_Black_NoTitleBar_Fullscreen)
-        val imageView = ImageView(requireContext()).apply {
-            scaleType = ImageView.ScaleType.FIT_CENTER
-            
-            // Load image
-            val fullPath = imageHelper.getFullPath(image.filePath)
-            val bitmap = BitmapFactory.decodeFile(fullPath)
-            if (bitmap != null) {
-                setImageBitmap(bitmap)
-            }
+        val imageView = TiledImageView(requireContext()).apply {
+            // Region decoding keeps memory flat even for full-resolution originals
+            setImageFile(imageHelper.getViewerPath(image))
             
-            // Close on click
+            // Close on tap
             setOnClickListener {
                 dialog.dismiss()
             }
@@ -232,13 +279,15 @@ class PortfolioFragment : Fragment() {
                     // Delete from database
                     database.orderImageDao().delete(image)
                     
-                    // Delete file
+                    // Delete files
+                    ThumbnailCache.remove(imageHelper.getFullPath(image.filePath))
                     imageHelper.deleteImage(image.filePath)
+                    image.originalPath?.let { imageHelper.deleteImage(it) }
                 }
                 
                 withContext(Dispatchers.Main) {
                     Toast.makeText(requireContext(), "Image deleted", Toast.LENGTH_SHORT).show()
-                    // LiveData will automatically update the UI
+                    // Paging source is invalidated automatically by Room
                 }
             } catch (e: Exception) {
                 withContext(Dispatchers.Main) {
@@ -254,6 +303,10 @@ class PortfolioFragment : Fragment() {
     }
 
     companion object {
+        private const val GRID_COLUMNS = 2
+        private const val PAGE_SIZE = 30
+        private const val MAX_PAGES_IN_MEMORY = 5
+        
         fun newInstance(): PortfolioFragment {
             return PortfolioFragment()
         }
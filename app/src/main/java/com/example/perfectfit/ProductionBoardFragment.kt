@@ -0,0 +1,276 @@
+package com.example.perfectfit
+
+import android.os.Bundle
+import android.view.DragEvent
+import android.view.LayoutInflater
+import android.view.View
+import android.view.ViewGroup
+import android.widget.TextView
+import android.widget.Toast
+import androidx.fragment.app.Fragment
+import androidx.lifecycle.asLiveData
+import androidx.lifecycle.lifecycleScope
+import androidx.recyclerview.widget.LinearLayoutManager
+import androidx.recyclerview.widget.RecyclerView
+import com.example.perfectfit.adapters.BoardColumnAdapter
+import com.example.perfectfit.database.AppDatabase
+import com.example.perfectfit.database.BoardCard
+import com.example.perfectfit.databinding.FragmentProductionBoardBinding
+import com.example.perfectfit.models.ProductionStage
+import com.example.perfectfit.models.WorkloadConfig
+import com.example.perfectfit.utils.EffortModel
+import com.example.perfectfit.utils.StageTransitions
+import com.example.perfectfit.utils.WorkerAssignmentEngine
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
+
+/**
+ * Fragment displaying the production board: one column per production stage
+ * with a card for every order in it.
+ *
+ * Features:
+ * - Live board: a single JOIN query ([com.example.perfectfit.database.ProductionStageDao.observeBoard])
+ *   is observed and re-emits on every stage change
+ * - Columns update by diffing, so only the cards that moved are rebound
+ * - Each column renders a page of cards and adds more as it is scrolled
+ * - Long-press a card and drop it on the next stage's column to move the
+ *   order there; as on the detail screen, orders only move one stage forward
+ * - Recently delivered orders stay visible for [DELIVERED_VISIBLE_DAYS]
+ *
+ * Stage moves go through [StageTransitions], the same transactional path as
+ * the order detail screen, so history, events and assignment stay consistent.
+ *
+ * @see [BoardColumnAdapter] for the column adapter
+ * @see [OrderDetailFragment] for the per-order view
+ */
+class ProductionBoardFragment : Fragment() {
+
+    private var _binding: FragmentProductionBoardBinding? = null
+    private val binding get() = _binding!!
+    private lateinit var database: AppDatabase
+
+    private val columns = mutableMapOf<String, BoardColumn>()
+
+    /**
+     * One stage column.
+     *
+     * @property title Header showing the stage name and card count
+     * @property adapter Adapter for the rendered cards
+     * @property cards Every card in the stage, oldest first
+     * @property visibleCount Number of cards currently rendered
+     */
+    private class BoardColumn(
+        val title: TextView,
+        val adapter: BoardColumnAdapter,
+        var cards: List<BoardCard> = emptyList(),
+        var visibleCount: Int = PAGE_SIZE
+    )
+
+    override fun onCreate(savedInstanceState: Bundle?) {
+        super.onCreate(savedInstanceState)
+        database = AppDatabase.getDatabase(requireContext())
+    }
+
+    override fun onCreateView(
+        inflater: LayoutInflater,
+        container: ViewGroup?,
+        savedInstanceState: Bundle?
+    ): View {
+        _binding = FragmentProductionBoardBinding.inflate(inflater, container, false)
+        return binding.root
+    }
+
+    override fun onViewCreated(view: View, savedInstanceState: Bundle?) {
+        super.onViewCreated(view, savedInstanceState)
+        setupColumns()
+        loadAssignmentModels()
+        observeBoard()
+    }
+
+    /**
+     * Inflates one column per stage, in workflow order.
+     */
+    private fun setupColumns() {
+        columns.clear()
+        val inflater = LayoutInflater.from(requireContext())
+
+        ProductionStage.getAllStages().forEach { stage ->
+            val columnView = inflater.inflate(R.layout.item_board_column, binding.boardColumnsContainer, false)
+            val recyclerView = columnView.findViewById<RecyclerView>(R.id.column_recycler_view)
+            val adapter = BoardColumnAdapter(onCardClick = { card -> navigateToOrderDetail(card.order.id) })
+            val column = BoardColumn(columnView.findViewById(R.id.column_title), adapter)
+
+            val layoutManager = LinearLayoutManager(requireContext())
+            recyclerView.layoutManager = layoutManager
+            recyclerView.adapter = adapter
+
+            // Render the next page once the user nears the end of what is shown
+            recyclerView.addOnScrollListener(object : RecyclerView.OnScrollListener() {
+                override fun onScrolled(recyclerView: RecyclerView, dx: Int, dy: Int) {
+                    val lastVisible = layoutManager.findLastVisibleItemPosition()
+                    if (lastVisible == RecyclerView.NO_POSITION) return
+                    if (lastVisible + PREFETCH_DISTANCE >= column.visibleCount &&
+                        column.visibleCount < column.cards.size
+                    ) {
+                        column.visibleCount += PAGE_SIZE
+                        renderColumn(stage, column)
+                    }
+                }
+            })
+
+            columnView.setOnDragListener { target, event -> handleDrag(target, event, stage) }
+
+            columns[stage] = column
+            renderColumn(stage, column)
+            binding.boardColumnsContainer.addView(columnView)
+        }
+    }
+
+    /**
+     * Loads the effort model and assignment engine so dropped cards entering
+     * a work stage can be auto-assigned.
+     */
+    private fun loadAssignmentModels() {
+        viewLifecycleOwner.lifecycleScope.launch {
+            try {
+                EffortModel.ensureLoaded(database)
+                WorkerAssignmentEngine.ensureLoaded(
+                    database,
+                    withContext(Dispatchers.IO) { database.workloadConfigDao().getConfig() ?: WorkloadConfig() }
+                )
+            } catch (e: Exception) {
+                e.printStackTrace()
+            }
+        }
+    }
+
+    /**
+     * Observes the board query and distributes its cards into columns.
+     */
+    private fun observeBoard() {
+        val deliveredSince = System.currentTimeMillis() - DELIVERED_VISIBLE_DAYS * DAY_MS
+        database.productionStageDao().observeBoard(deliveredSince)
+            .asLiveData()
+            .observe(viewLifecycleOwner) { cards ->
+                val byStage = cards.groupBy { it.stage.currentStage }
+                columns.forEach { (stage, column) ->
+                    column.cards = byStage[stage].orEmpty()
+                    renderColumn(stage, column)
+                }
+            }
+    }
+
+    /**
+     * Shows a column's first [BoardColumn.visibleCount] cards and its header.
+     */
+    private fun renderColumn(stage: String, column: BoardColumn) {
+        column.title.text = "${ProductionStage.getStageDisplayName(stage)} (${column.cards.size})"
+        column.adapter.submitList(column.cards.take(column.visibleCount))
+    }
+
+    /**
+     * Handles drag events over a column: accepts board cards, highlights the
+     * column while hovered by a card it can take and moves the order on drop.
+     */
+    private fun handleDrag(target: View, event: DragEvent, stage: String): Boolean {
+        return when (event.action) {
+            DragEvent.ACTION_DRAG_STARTED ->
+                event.clipDescription?.label == BoardColumnAdapter.DRAG_LABEL
+            DragEvent.ACTION_DRAG_ENTERED -> {
+                val card = event.localState as? BoardCard
+                if (card != null && isNextStage(card, stage)) target.alpha = DRAG_HOVER_ALPHA
+                true
+            }
+            DragEvent.ACTION_DRAG_EXITED, DragEvent.ACTION_DRAG_ENDED -> {
+                target.alpha = 1f
+                true
+            }
+            DragEvent.ACTION_DROP -> {
+                target.alpha = 1f
+                val card = event.localState as? BoardCard ?: return false
+                if (card.stage.currentStage == stage) return false
+                if (!isNextStage(card, stage)) {
+                    Toast.makeText(requireContext(), rejectedDropMessage(card), Toast.LENGTH_SHORT).show()
+                    return false
+                }
+                moveCard(card, stage)
+                true
+            }
+            else -> true
+        }
+    }
+
+    /**
+     * Whether [stage] directly follows the card's current stage. Backward
+     * moves and skipped stages would record a partly-worked stage as
+     * completed and skew the learned stage durations.
+     */
+    private fun isNextStage(card: BoardCard, stage: String): Boolean {
+        val stages = ProductionStage.getAllStages()
+        val currentIndex = stages.indexOf(card.stage.currentStage)
+        return currentIndex != -1 && stages.getOrNull(currentIndex + 1) == stage
+    }
+
+    private fun rejectedDropMessage(card: BoardCard): String {
+        val stages = ProductionStage.getAllStages()
+        val next = stages.getOrNull(stages.indexOf(card.stage.currentStage) + 1)
+            ?: return "Order #${card.order.id} is already delivered"
+        return "Order #${card.order.id} can only move to ${ProductionStage.getStageDisplayName(next)}"
+    }
+
+    /**
+     * Moves a dropped card's order to a stage. The board refreshes itself
+     * from the query once the transition commits.
+     */
+    private fun moveCard(card: BoardCard, newStage: String) {
+        viewLifecycleOwner.lifecycleScope.launch {
+            try {
+                val moved = StageTransitions.moveToStage(
+                    database,
+                    card.order.id,
+                    card.order.orderType,
+                    newStage
+                )
+                if (moved) {
+                    Toast.makeText(
+                        requireContext(),
+                        "Order #${card.order.id} moved to ${ProductionStage.getStageDisplayName(newStage)}",
+                        Toast.LENGTH_SHORT
+                    ).show()
+                }
+            } catch (e: Exception) {
+                e.printStackTrace()
+                Toast.makeText(requireContext(), "Error moving order: ${e.message}", Toast.LENGTH_SHORT).show()
+            }
+        }
+    }
+
+    private fun navigateToOrderDetail(orderId: Int) {
+        parentFragmentManager.beginTransaction()
+            .replace(R.id.fragment_container, OrderDetailFragment.newInstance(orderId))
+            .addToBackStack(null)
+            .commit()
+    }
+
+    override fun onDestroyView() {
+        super.onDestroyView()
+        columns.clear()
+        _binding = null
+    }
+
+    companion object {
+        /** Cards rendered per column page */
+        private const val PAGE_SIZE = 20
+
+        /** Render the next page when this close to the end of the current one */
+        private const val PREFETCH_DISTANCE = 5
+
+        /** Days a delivered order stays on the board */
+        private const val DELIVERED_VISIBLE_DAYS = 7L
+
+        private const val DAY_MS = 24L * 60 * 60 * 1000
+
+        private const val DRAG_HOVER_ALPHA = 0.6f
+    }
+}
@@ -11,10 +11,10 @@ import androidx.lifecycle.lifecycleScope
 import com.example.perfectfit.database.AppDatabase
 import com.example.perfectfit.databinding.FragmentRegisterCustomerBinding
 import com.example.perfectfit.models.Customer
+import com.example.perfectfit.utils.DateCodec
+import com.example.perfectfit.utils.HybridLogicalClock
 import kotlinx.coroutines.launch
-import java.text.SimpleDateFormat
 import java.util.Calendar
-import java.util.Locale
 
 /**
  * Fragment for registering new customers.
@@ -76,8 +76,7 @@ class RegisterCustomerFragment : Fragment() {
                     calendar.set(year, month, dayOfMonth)
                     
                     // Format and display the selected date
-                    val dateFormat = SimpleDateFormat("dd/MM/yyyy", Locale.getDefault())
-                    binding.birthDateInput.setText(dateFormat.format(calendar.time))
+                    binding.birthDateInput.setText(DateCodec.format(calendar))
                 },
                 // Initialize with current date
                 calendar.get(Calendar.YEAR),
@@ -195,7 +194,8 @@ class RegisterCustomerFragment : Fragment() {
                     address = address,
                     mobile = mobile,
                     alternateMobile = alternateMobile,
-                    birthDate = birthDate
+                    birthDate = birthDate,
+                    version = HybridLogicalClock.now()
                 )
 
                 // Insert customer
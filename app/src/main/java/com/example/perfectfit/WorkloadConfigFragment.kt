@@ -87,12 +87,175 @@ class WorkloadConfigFragment : Fragment() {
         binding.addExtraHoursButton.setOnClickListener {
             showAddExtraHoursDialog()
         }
+        
+        binding.manageWorkersButton.setOnClickListener {
+            showManageWorkersDialog()
+        }
+    }
+    
+    /**
+     * Shows each tailor's hours and current load, with options to add or
+     * remove tailors. With tailors set up, shop capacity is the sum of their hours.
+     */
+    private fun showManageWorkersDialog() {
+        lifecycleScope.launch {
+            try {
+                val config = withContext(Dispatchers.IO) {
+                    database.workloadConfigDao().getConfig() ?: WorkloadConfig()
+                }
+                com.example.perfectfit.utils.WorkerAssignmentEngine.ensureLoaded(database, config)
+                val loads = com.example.perfectfit.utils.WorkerAssignmentEngine.getWorkerLoads()
+                
+                val message = if (loads.isEmpty()) {
+                    "No tailors added yet.\n\nAdd tailors to plan capacity per person. " +
+                        "Until then, the hours above are used for the whole shop."
+                } else {
+                    buildString {
+                        loads.forEach { load ->
+                            val emoji = com.example.perfectfit.utils.WorkloadHelper.getStatusEmoji(load.statusLevel)
+                            append("$emoji ${load.worker.name}\n")
+                            append("   ${load.worker.totalWeeklyHours}h/week · ${load.activeStages} stages · ")
+                            append("${load.utilizationPercentage}% booked\n")
+                        }
+                        append("\nShop capacity: ${loads.sumOf { it.worker.totalWeeklyHours.toDouble() }}h/week")
+                    }
+                }
+                
+                androidx.appcompat.app.AlertDialog.Builder(requireContext())
+                    .setTitle("👥 Tailors")
+                    .setMessage(message)
+                    .setPositiveButton("Add Tailor") { _, _ ->
+                        showAddWorkerDialog()
+                    }
+                    .apply {
+                        if (loads.isNotEmpty()) {
+                            setNeutralButton("Remove") { _, _ ->
+                                showRemoveWorkerDialog(loads.map { it.worker })
+                            }
+                        }
+                    }
+                    .setNegativeButton("Close", null)
+                    .show()
+            } catch (e: Exception) {
+                Toast.makeText(requireContext(), "Error loading tailors: ${e.message}", Toast.LENGTH_SHORT).show()
+            }
+        }
+    }
+    
+    private fun showAddWorkerDialog() {
+        val context = requireContext()
+        val nameInput = android.widget.EditText(context).apply {
+            hint = "Name"
+        }
+        val weekdayInput = android.widget.EditText(context).apply {
+            hint = "Hours Monday-Friday (e.g., 8)"
+            inputType = android.text.InputType.TYPE_CLASS_NUMBER or android.text.InputType.TYPE_NUMBER_FLAG_DECIMAL
+        }
+        val saturdayInput = android.widget.EditText(context).apply {
+            hint = "Hours on Saturday (e.g., 4)"
+            inputType = android.text.InputType.TYPE_CLASS_NUMBER or android.text.InputType.TYPE_NUMBER_FLAG_DECIMAL
+        }
+        val form = android.widget.LinearLayout(context).apply {
+            orientation = android.widget.LinearLayout.VERTICAL
+            setPadding(50, 40, 50, 40)
+            addView(nameInput)
+            addView(weekdayInput)
+            addView(saturdayInput)
+        }
+        
+        androidx.appcompat.app.AlertDialog.Builder(context)
+            .setTitle("Add Tailor")
+            .setView(form)
+            .setPositiveButton("Add") { _, _ ->
+                val name = nameInput.text.toString().trim()
+                val weekdayHours = weekdayInput.text.toString().toFloatOrNull()
+                val saturdayHours = saturdayInput.text.toString().toFloatOrNull() ?: 0f
+                if (name.isEmpty() || weekdayHours == null || weekdayHours < 0 || saturdayHours < 0) {
+                    Toast.makeText(context, "Please enter a name and valid hours", Toast.LENGTH_SHORT).show()
+                    return@setPositiveButton
+                }
+                addWorker(
+                    com.example.perfectfit.models.Worker(
+                        name = name,
+                        mondayHours = weekdayHours,
+                        tuesdayHours = weekdayHours,
+                        wednesdayHours = weekdayHours,
+                        thursdayHours = weekdayHours,
+                        fridayHours = weekdayHours,
+                        saturdayHours = saturdayHours,
+                        sundayHours = 0f
+                    )
+                )
+            }
+            .setNegativeButton("Cancel", null)
+            .show()
+    }
+    
+    private fun addWorker(worker: com.example.perfectfit.models.Worker) {
+        lifecycleScope.launch {
+            try {
+                withContext(Dispatchers.IO) {
+                    database.workerDao().insert(worker)
+                }
+                com.example.perfectfit.utils.WorkerAssignmentEngine.invalidate()
+                Toast.makeText(requireContext(), "${worker.name} added", Toast.LENGTH_SHORT).show()
+            } catch (e: android.database.sqlite.SQLiteConstraintException) {
+                Toast.makeText(requireContext(), "A tailor named ${worker.name} already exists", Toast.LENGTH_SHORT).show()
+            } catch (e: Exception) {
+                Toast.makeText(requireContext(), "Error adding tailor: ${e.message}", Toast.LENGTH_SHORT).show()
+            }
+        }
+    }
+    
+    private fun showRemoveWorkerDialog(workers: List<com.example.perfectfit.models.Worker>) {
+        androidx.appcompat.app.AlertDialog.Builder(requireContext())
+            .setTitle("Remove Tailor")
+            .setItems(workers.map { it.name }.toTypedArray()) { _, which ->
+                val worker = workers[which]
+                lifecycleScope.launch {
+                    try {
+                        withContext(Dispatchers.IO) {
+                            database.workerDao().deactivate(worker.id)
+                        }
+                        com.example.perfectfit.utils.WorkerAssignmentEngine.invalidate()
+                        Toast.makeText(requireContext(), "${worker.name} removed", Toast.LENGTH_SHORT).show()
+                    } catch (e: Exception) {
+                        Toast.makeText(requireContext(), "Error removing tailor: ${e.message}", Toast.LENGTH_SHORT).show()
+                    }
+                }
+            }
+            .setNegativeButton("Cancel", null)
+            .show()
     }
     
     /**
      * ✨ NEW: Show dialog to add extra hours for today
      */
     private fun showAddExtraHoursDialog() {
+        lifecycleScope.launch {
+            val config = withContext(Dispatchers.IO) {
+                database.workloadConfigDao().getConfig() ?: WorkloadConfig()
+            }
+            com.example.perfectfit.utils.WorkerAssignmentEngine.ensureLoaded(database, config)
+            
+            // With tailors, shop hours are the sum of theirs, so the hours go to one tailor
+            if (com.example.perfectfit.utils.WorkerAssignmentEngine.hasWorkers()) {
+                val names = com.example.perfectfit.utils.WorkerAssignmentEngine.getWorkerLoads()
+                    .map { it.worker.name }
+                androidx.appcompat.app.AlertDialog.Builder(requireContext())
+                    .setTitle("⏰ Who is working extra today?")
+                    .setItems(names.toTypedArray()) { _, which ->
+                        showExtraHoursInputDialog(names[which])
+                    }
+                    .setNegativeButton("Cancel", null)
+                    .show()
+            } else {
+                showExtraHoursInputDialog(null)
+            }
+        }
+    }
+    
+    private fun showExtraHoursInputDialog(workerName: String?) {
         val input = android.widget.EditText(requireContext()).apply {
             hint = "Extra hours (e.g., 2.5)"
             inputType = android.text.InputType.TYPE_CLASS_NUMBER or android.text.InputType.TYPE_NUMBER_FLAG_DECIMAL
@@ -106,7 +269,7 @@ class WorkloadConfigFragment : Fragment() {
             .setPositiveButton("Preview Impact") { _, _ ->
                 val hours = input.text.toString().toFloatOrNull()
                 if (hours != null && hours > 0) {
-                    showImpactPreview(hours)
+                    showImpactPreview(hours, workerName)
                 } else {
                     Toast.makeText(requireContext(), "Please enter a valid number", Toast.LENGTH_SHORT).show()
                 }
@@ -118,12 +281,10 @@ class WorkloadConfigFragment : Fragment() {
     /**
      * ✨ NEW: Show impact preview before applying
      */
-    private fun showImpactPreview(extraHours: Float) {
+    private fun showImpactPreview(extraHours: Float, workerName: String?) {
         lifecycleScope.launch {
             try {
-                val config = withContext(Dispatchers.IO) {
-                    database.workloadConfigDao().getConfig() ?: WorkloadConfig()
-                }
+                val config = com.example.perfectfit.utils.WorkerAssignmentEngine.shopConfig(database)
                 
                 val pendingOrders = withContext(Dispatchers.IO) {
                     database.orderDao().getAllOrders().filter {
@@ -132,21 +293,33 @@ class WorkloadConfigFragment : Fragment() {
                     }
                 }
                 
+                // Evaluate the extra hours and the standard alternatives against the same queue
+                val baseline = com.example.perfectfit.utils.QuickActionsHelper.captureBaseline(database, config)
+                val interventions = com.example.perfectfit.utils.QuickActionsHelper.rankInterventions(database, baseline, config)
+                
                 // Calculate impact
                 val impact = com.example.perfectfit.utils.QuickActionsHelper.calculateExtraHoursImpact(
                     extraHours,
                     config,
-                    pendingOrders.size
+                    pendingOrders.size,
+                    baseline
                 )
                 
-                val impactMessage = com.example.perfectfit.utils.QuickActionsHelper.formatImpactMessage(impact)
+                val impactMessage = buildString {
+                    append(com.example.perfectfit.utils.QuickActionsHelper.formatImpactMessage(impact))
+                    val alternatives = com.example.perfectfit.utils.QuickActionsHelper.formatInterventions(interventions)
+                    if (alternatives.isNotEmpty()) {
+                        append("\n\n")
+                        append(alternatives)
+                    }
+                }
                 
                 // Show impact and confirm
                 androidx.appcompat.app.AlertDialog.Builder(requireContext())
                     .setTitle("📊 Impact Preview")
                     .setMessage(impactMessage)
                     .setPositiveButton("Apply Now") { _, _ ->
-                        applyExtraHours(extraHours)
+                        applyExtraHours(extraHours, workerName)
                     }
                     .setNegativeButton("Cancel", null)
                     .show()
@@ -164,14 +337,15 @@ class WorkloadConfigFragment : Fragment() {
     /**
      * ✨ NEW: Apply the extra hours
      */
-    private fun applyExtraHours(hours: Float) {
+    private fun applyExtraHours(hours: Float, workerName: String?) {
         lifecycleScope.launch {
             try {
                 val result = withContext(Dispatchers.IO) {
                     com.example.perfectfit.utils.QuickActionsHelper.addExtraHoursToday(
                         requireContext(),
                         hours,
-                        database
+                        database,
+                        workerName
                     )
                 }
                 
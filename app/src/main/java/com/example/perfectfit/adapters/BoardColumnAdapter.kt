@@ -0,0 +1,104 @@
+package com.example.perfectfit.adapters
+
+import android.content.ClipData
+import android.view.LayoutInflater
+import android.view.View
+import android.view.ViewGroup
+import android.widget.TextView
+import androidx.recyclerview.widget.DiffUtil
+import androidx.recyclerview.widget.ListAdapter
+import androidx.recyclerview.widget.RecyclerView
+import com.example.perfectfit.R
+import com.example.perfectfit.database.BoardCard
+
+/**
+ * Adapter for the order cards in one column of the production board.
+ *
+ * Features:
+ * - One card per order: ID, customer, garment type, due date, time in stage
+ * - Tap to open the order
+ * - Long-press to drag the card to another stage column
+ * - Diffed updates, so a stage move only animates the card that moved
+ *
+ * The dragged card's order ID travels in the drag's [ClipData] label
+ * [DRAG_LABEL] and text, and its local state.
+ *
+ * @property onCardClick Callback when a card is tapped
+ */
+class BoardColumnAdapter(
+    private val onCardClick: (BoardCard) -> Unit = {}
+) : ListAdapter<BoardCard, BoardColumnAdapter.BoardCardViewHolder>(BoardCardDiffCallback) {
+
+    /**
+     * ViewHolder for board cards.
+     *
+     * @property itemView The item view layout
+     */
+    class BoardCardViewHolder(itemView: View) : RecyclerView.ViewHolder(itemView) {
+        val orderIdText: TextView = itemView.findViewById(R.id.card_order_id)
+        val customerText: TextView = itemView.findViewById(R.id.card_customer)
+        val deliveryText: TextView = itemView.findViewById(R.id.card_delivery)
+        val assignedText: TextView = itemView.findViewById(R.id.card_assigned)
+    }
+
+    override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): BoardCardViewHolder {
+        val view = LayoutInflater.from(parent.context)
+            .inflate(R.layout.item_board_card, parent, false)
+        return BoardCardViewHolder(view)
+    }
+
+    override fun onBindViewHolder(holder: BoardCardViewHolder, position: Int) {
+        val card = getItem(position)
+
+        holder.orderIdText.text = "Order #${card.order.id}"
+        holder.customerText.text = "${card.customerName} · ${card.order.orderType}"
+        holder.deliveryText.text = "Due ${card.order.estimatedDeliveryDate} · " +
+            "${card.stage.getTimeInCurrentStage().toInt()}h in stage"
+
+        if (card.stage.assignedTo.isNotEmpty()) {
+            holder.assignedText.visibility = View.VISIBLE
+            holder.assignedText.text = "👤 ${card.stage.assignedTo}"
+        } else {
+            holder.assignedText.visibility = View.GONE
+        }
+
+        holder.itemView.setOnClickListener {
+            onCardClick(card)
+        }
+
+        holder.itemView.setOnLongClickListener { view ->
+            val orderId = card.order.id.toString()
+            view.startDragAndDrop(
+                ClipData.newPlainText(DRAG_LABEL, orderId),
+                View.DragShadowBuilder(view),
+                card,
+                0
+            )
+        }
+
+        holder.itemView.contentDescription = "Order ${card.order.id} for ${card.customerName}, " +
+            card.stage.getStageDisplayName()
+    }
+
+    /**
+     * DiffUtil callback for board cards.
+     *
+     * Cards are identified by order, so a card that changes column is
+     * removed from one list and inserted into another rather than rebound.
+     */
+    private object BoardCardDiffCallback : DiffUtil.ItemCallback<BoardCard>() {
+
+        override fun areItemsTheSame(oldItem: BoardCard, newItem: BoardCard): Boolean {
+            return oldItem.order.id == newItem.order.id
+        }
+
+        override fun areContentsTheSame(oldItem: BoardCard, newItem: BoardCard): Boolean {
+            return oldItem == newItem
+        }
+    }
+
+    companion object {
+        /** ClipData label marking a board card drag */
+        const val DRAG_LABEL = "board_order"
+    }
+}
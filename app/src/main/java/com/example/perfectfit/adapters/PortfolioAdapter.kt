@@ -1,43 +1,44 @@
 package com.example.perfectfit.adapters
 
-import android.graphics.BitmapFactory
 import android.view.LayoutInflater
 import android.view.View
 import android.view.ViewGroup
 import android.widget.ImageView
 import android.widget.TextView
+import androidx.paging.PagingDataAdapter
 import androidx.recyclerview.widget.DiffUtil
 import androidx.recyclerview.widget.RecyclerView
 import com.example.perfectfit.R
 import com.example.perfectfit.models.OrderImage
+import com.example.perfectfit.utils.DateCodec
 import com.example.perfectfit.utils.ImageHelper
-import java.text.SimpleDateFormat
-import java.util.*
+import com.example.perfectfit.utils.ThumbnailCache
 
 /**
  * Adapter for displaying portfolio images in a grid layout.
- * 
+ *
  * Features:
  * - Grid display of completed work photos
  * - Click listeners for full-screen view
  * - Long-press for actions (share, delete)
- * - Efficient updates with DiffUtil
- * - Memory-efficient image loading
- * 
+ * - Paged loading: only the pages around the viewport are held in memory
+ * - Downsampled thumbnails served from [ThumbnailCache]
+ *
+ * @property thumbnailSize Longest thumbnail edge to decode, in pixels
  * @property onImageClick Callback when image is tapped (for full-screen view)
  * @property onImageLongClick Callback when image is long-pressed (for actions menu)
  */
 class PortfolioAdapter(
+    private val thumbnailSize: Int,
     private val onImageClick: (OrderImage, ImageView) -> Unit = { _, _ -> },
     private val onImageLongClick: (OrderImage) -> Unit = {}
-) : RecyclerView.Adapter<PortfolioAdapter.PortfolioViewHolder>() {
+) : PagingDataAdapter<OrderImage, PortfolioAdapter.PortfolioViewHolder>(PortfolioDiffCallback) {
 
-    private var images = listOf<OrderImage>()
     private lateinit var imageHelper: ImageHelper
 
     /**
      * ViewHolder for portfolio image items.
-     * 
+     *
      * @property itemView The item view layout
      */
     class PortfolioViewHolder(itemView: View) : RecyclerView.ViewHolder(itemView) {
@@ -58,21 +59,11 @@ class PortfolioAdapter(
     }
 
     override fun onBindViewHolder(holder: PortfolioViewHolder, position: Int) {
-        val image = images[position]
-        
-        // Load image from storage
-        val fullPath = imageHelper.getFullPath(image.filePath)
-        try {
-            val bitmap = BitmapFactory.decodeFile(fullPath)
-            if (bitmap != null) {
-                holder.imageView.setImageBitmap(bitmap)
-            } else {
-                holder.imageView.setImageResource(R.drawable.ic_image_placeholder)
-            }
-        } catch (e: Exception) {
-            holder.imageView.setImageResource(R.drawable.ic_image_placeholder)
-        }
-        
+        val image = getItem(position) ?: return
+
+        // Load downsampled thumbnail (decoded off the main thread on a miss)
+        ThumbnailCache.loadInto(holder.imageView, imageHelper.getFullPath(image.filePath), thumbnailSize)
+
         // Set caption
         if (image.caption.isNotEmpty()) {
             holder.captionText.visibility = View.VISIBLE
@@ -80,72 +71,58 @@ class PortfolioAdapter(
         } else {
             holder.captionText.visibility = View.GONE
         }
-        
+
         // Set upload date
-        val dateFormat = SimpleDateFormat("dd MMM yyyy", Locale.getDefault())
-        holder.dateText.text = dateFormat.format(Date(image.uploadedAt))
-        
+        holder.dateText.text = DateCodec.formatDisplay(image.uploadedAt)
+
         // Set click listeners
         holder.itemView.setOnClickListener {
             onImageClick(image, holder.imageView)
         }
-        
+
         holder.itemView.setOnLongClickListener {
             onImageLongClick(image)
             true
         }
-        
+
         // Add content description for accessibility
-        holder.imageView.contentDescription = "Portfolio image" + 
+        holder.imageView.contentDescription = "Portfolio image" +
             if (image.caption.isNotEmpty()) ": ${image.caption}" else ""
     }
 
-    override fun getItemCount(): Int = images.size
-
     /**
-     * Updates the portfolio images list using DiffUtil for efficient updates.
-     * 
-     * @param newImages New list of portfolio images
+     * Returns the file paths of loaded items in a position range without
+     * triggering page loads. Used to prefetch thumbnails ahead of scrolling.
+     *
+     * @param from First position (inclusive)
+     * @param to Last position (exclusive)
+     * @return Absolute paths of items already loaded in that range
      */
-    fun updateImages(newImages: List<OrderImage>) {
-        val diffCallback = PortfolioDiffCallback(images, newImages)
-        val diffResult = DiffUtil.calculateDiff(diffCallback)
-        
-        images = newImages
-        diffResult.dispatchUpdatesTo(this)
+    fun peekPaths(from: Int, to: Int): List<String> {
+        val end = minOf(to, itemCount)
+        if (from >= end) return emptyList()
+        return (from until end).mapNotNull { position ->
+            peek(position)?.let { imageHelper.getFullPath(it.filePath) }
+        }
     }
 
     /**
-     * DiffUtil callback for calculating differences between old and new image lists.
-     * 
+     * DiffUtil callback for calculating differences between pages of images.
+     *
      * This enables efficient RecyclerView updates with automatic animations
      * for insertions, deletions, and moves.
-     * 
-     * @property oldList Previous list of images
-     * @property newList New list of images
      */
-    private class PortfolioDiffCallback(
-        private val oldList: List<OrderImage>,
-        private val newList: List<OrderImage>
-    ) : DiffUtil.Callback() {
+    private object PortfolioDiffCallback : DiffUtil.ItemCallback<OrderImage>() {
 
-        override fun getOldListSize(): Int = oldList.size
-
-        override fun getNewListSize(): Int = newList.size
-
-        override fun areItemsTheSame(oldItemPosition: Int, newItemPosition: Int): Boolean {
-            return oldList[oldItemPosition].id == newList[newItemPosition].id
+        override fun areItemsTheSame(oldItem: OrderImage, newItem: OrderImage): Boolean {
+            return oldItem.id == newItem.id
         }
 
-        override fun areContentsTheSame(oldItemPosition: Int, newItemPosition: Int): Boolean {
-            val old = oldList[oldItemPosition]
-            val new = newList[newItemPosition]
-            
-            return old.filePath == new.filePath &&
-                   old.caption == new.caption &&
-                   old.uploadedAt == new.uploadedAt &&
-                   old.displayOrder == new.displayOrder
+        override fun areContentsTheSame(oldItem: OrderImage, newItem: OrderImage): Boolean {
+            return oldItem.filePath == newItem.filePath &&
+                   oldItem.caption == newItem.caption &&
+                   oldItem.uploadedAt == newItem.uploadedAt &&
+                   oldItem.displayOrder == newItem.displayOrder
         }
     }
 }
-
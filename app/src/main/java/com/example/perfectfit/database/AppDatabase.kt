@@ -5,11 +5,16 @@ import androidx.room.Database
 import androidx.room.Room
 import androidx.room.RoomDatabase
 import com.example.perfectfit.models.Customer
+import com.example.perfectfit.models.DeliveryAlertRecord
 import com.example.perfectfit.models.Measurement
 import com.example.perfectfit.models.Order
 import com.example.perfectfit.models.OrderImage
 import com.example.perfectfit.models.OrderStageHistory
+import com.example.perfectfit.models.ParkedStageEvent
 import com.example.perfectfit.models.ProductionStage
+import com.example.perfectfit.models.StageEffortStats
+import com.example.perfectfit.models.StageEvent
+import com.example.perfectfit.models.Worker
 import com.example.perfectfit.models.WorkloadConfig
 
 /**
@@ -20,13 +25,18 @@ import com.example.perfectfit.models.WorkloadConfig
  * access to Data Access Objects (DAOs).
  * 
  * Database Schema:
- * - customers: Stores customer personal information with CLV tracking
+ * - customers: Stores customer personal information with CLV tracking and an
+ *   indexed birthday month-day
  * - measurements: Stores body measurements for each customer
  * - orders: Stores order information with foreign key to customers
  * - workload_config: Stores workload management configuration
  * - order_images: Stores reference and portfolio images for orders
  * - production_stages: Tracks current production stage of each order
  * - order_stage_history: Maintains complete stage transition history
+ * - stage_effort_stats: Streaming stage duration statistics per order type
+ * - workers: Tailors with individual weekly hours
+ * - delivery_alerts: Daily-materialized delivery alerts for open orders
+ * - stage_events: Append-only stream of production stage transitions
  * 
  * Relationships:
  * - One customer can have multiple orders (one-to-many)
@@ -40,6 +50,24 @@ import com.example.perfectfit.models.WorkloadConfig
  * - Version 9: Base version with customers, orders, measurements, workload
  * - Version 10: Added production tracking, images, CLV, birthday alerts
  * - Version 11: Enhanced WorkloadConfig with realistic buffer settings
+ * - Version 12: Added content hash and upload tracking to order_images
+ * - Version 13: Added optional full-resolution original path to order_images
+ * - Version 14: Indexed order_images by (imageType, uploadedAt) for paged portfolio
+ * - Version 15: Trigger-maintained, indexed customer lifetime value
+ * - Version 16: Added stage_effort_stats for the learned effort model
+ * - Version 17: Added workers for multi-tailor capacity and assignment
+ * - Version 18: Added materialized delivery_alerts
+ * - Version 19: Trigger-maintained, indexed customer birthMonthDay
+ * - Version 20: Added stage_events, written with each stage transition
+ * - Version 21: Added sum of squares and delay count to stage_effort_stats
+ * - Version 22: Indexed production_stages by (currentStage, stageStartedAt)
+ * - Version 23: Added sync event IDs and origin to stage_events
+ * - Version 24: Added stage deadlines and alert stamps to production_stages
+ * - Version 25: Added hybrid logical clock versions to customers, orders and measurements
+ * - Version 26: Added pushed flag to stage_events and parked_stage_events
+ * 
+ * Triggers:
+ * - Installed on open by [DatabaseTriggers]; see that class for what they maintain
  * 
  * Note: exportSchema = false means Room won't export database schema to a folder.
  * In production apps, consider setting this to true and tracking schema changes.
@@ -57,9 +85,14 @@ import com.example.perfectfit.models.WorkloadConfig
         WorkloadConfig::class,
         OrderImage::class,
         ProductionStage::class,
-        OrderStageHistory::class
+        OrderStageHistory::class,
+        StageEffortStats::class,
+        Worker::class,
+        DeliveryAlertRecord::class,
+        StageEvent::class,
+        ParkedStageEvent::class
     ],
-    version = 11,
+    version = 26,
     exportSchema = false
 )
 abstract class AppDatabase : RoomDatabase() {
@@ -106,6 +139,30 @@ abstract class AppDatabase : RoomDatabase() {
      */
     abstract fun orderStageHistoryDao(): OrderStageHistoryDao
     
+    /**
+     * Provides access to stage effort statistics.
+     * @return StageEffortStatsDao instance for the learned effort model
+     */
+    abstract fun stageEffortStatsDao(): StageEffortStatsDao
+    
+    /**
+     * Provides access to worker database operations.
+     * @return WorkerDao instance for managing tailors
+     */
+    abstract fun workerDao(): WorkerDao
+    
+    /**
+     * Provides access to materialized delivery alerts.
+     * @return DeliveryAlertDao instance for reading and refreshing alerts
+     */
+    abstract fun deliveryAlertDao(): DeliveryAlertDao
+    
+    /**
+     * Provides access to atomic stage transitions and the stage event stream.
+     * @return StageTransitionDao instance for moving orders between stages
+     */
+    abstract fun stageTransitionDao(): StageTransitionDao
+    
     companion object {
         /**
          * Singleton instance of the database.
@@ -159,6 +216,7 @@ abstract class AppDatabase : RoomDatabase() {
                     "perfect_fit_database"
                 )
                     .fallbackToDestructiveMigration()  // CAUTION: Destroys data on version mismatch
+                    .addCallback(DatabaseTriggers.callback)  // Keeps denormalized columns in sync
                     .build()
                     
                 INSTANCE = instance
@@ -6,6 +6,7 @@ import androidx.room.Delete
 import androidx.room.Insert
 import androidx.room.OnConflictStrategy
 import androidx.room.Query
+import androidx.room.Transaction
 import androidx.room.Update
 import com.example.perfectfit.models.Customer
 
@@ -92,6 +93,93 @@ interface CustomerDao {
     @Query("SELECT * FROM customers WHERE id = :customerId")
     suspend fun getCustomerById(customerId: Int): Customer?
     
+    /**
+     * Retrieves the highest-value customers by lifetime value.
+     * 
+     * totalOrdersValue is kept up to date by triggers on the orders table and is
+     * indexed, so this reads only the top rows instead of scanning all customers.
+     * 
+     * @param limit Maximum number of customers to return
+     * @return Customers with at least one order value, highest first
+     * @see DatabaseTriggers
+     */
+    @Query("SELECT * FROM customers WHERE totalOrdersValue > 0 ORDER BY totalOrdersValue DESC LIMIT :limit")
+    suspend fun getTopCustomersByValue(limit: Int): List<Customer>
+    
+    // ===== Birthday Queries =====
+    
+    /**
+     * Retrieves customers whose birthday falls on any of the given month-days.
+     * Reads only matching rows through the birthMonthDay index.
+     * 
+     * @param monthDays Month-day keys (month * 100 + day), see Customer.birthMonthDaysOn
+     * @return Matching customers, alphabetically
+     */
+    @Query("SELECT * FROM customers WHERE birthMonthDay IN (:monthDays) ORDER BY firstName ASC")
+    suspend fun getCustomersWithBirthdayOn(monthDays: List<Int>): List<Customer>
+    
+    /**
+     * Retrieves customers with birthdays in a month-day range within one year.
+     * 
+     * @param fromMonthDay First month-day (inclusive)
+     * @param toMonthDay Last month-day (inclusive), not before fromMonthDay
+     * @return Matching customers, in calendar order
+     */
+    @Query(
+        "SELECT * FROM customers WHERE birthMonthDay BETWEEN :fromMonthDay AND :toMonthDay " +
+        "ORDER BY birthMonthDay ASC, firstName ASC"
+    )
+    suspend fun getCustomersWithBirthdayBetween(fromMonthDay: Int, toMonthDay: Int): List<Customer>
+    
+    /**
+     * Retrieves customers with upcoming birthdays, wrapping past the year end
+     * when the range does (e.g. 1220 to 0105).
+     * 
+     * @param fromMonthDay First month-day (inclusive), usually today
+     * @param toMonthDay Last month-day (inclusive)
+     * @return Matching customers, soonest birthday first
+     */
+    suspend fun getUpcomingBirthdays(fromMonthDay: Int, toMonthDay: Int): List<Customer> {
+        if (fromMonthDay <= toMonthDay) {
+            return getCustomersWithBirthdayBetween(fromMonthDay, toMonthDay)
+        }
+        return getCustomersWithBirthdayBetween(fromMonthDay, LAST_MONTH_DAY) +
+            getCustomersWithBirthdayBetween(FIRST_MONTH_DAY, toMonthDay)
+    }
+    
+    /**
+     * Retrieves customers by local ID.
+     * 
+     * @param customerIds Local database IDs (at most [MAX_BIND_ARGS])
+     * @return The customers that still exist
+     */
+    @Query("SELECT * FROM customers WHERE id IN (:customerIds)")
+    suspend fun getCustomersByIds(customerIds: List<Int>): List<Customer>
+    
+    /**
+     * Stamps the birthday alert time on several customers in one statement,
+     * without rewriting the rest of their rows.
+     * 
+     * @param customerIds Local database IDs (at most [MAX_BIND_ARGS])
+     * @param timestamp Time the alerts were sent, in milliseconds
+     */
+    @Query("UPDATE customers SET lastBirthdayAlertSent = :timestamp WHERE id IN (:customerIds)")
+    suspend fun markBirthdayAlertsSent(customerIds: List<Int>, timestamp: Long)
+    
+    /**
+     * Stamps the birthday alert time on any number of customers in one
+     * transaction, chunked to stay under SQLite's bind argument limit.
+     * 
+     * @param customerIds Local database IDs
+     * @param timestamp Time the alerts were sent, in milliseconds
+     */
+    @Transaction
+    suspend fun markBirthdayAlertsSentBatched(customerIds: List<Int>, timestamp: Long) {
+        customerIds.chunked(MAX_BIND_ARGS).forEach { chunk ->
+            markBirthdayAlertsSent(chunk, timestamp)
+        }
+    }
+    
     /**
      * Retrieves a customer by composite unique key (firstName + lastName + mobile).
      * This is useful for detecting duplicate customers before insertion.
@@ -143,7 +231,16 @@ interface CustomerDao {
      */
     @Query("SELECT * FROM customers WHERE serverId = :serverId")
     suspend fun getCustomerByServerId(serverId: String): Customer?
-    
+
+    /**
+     * Checks whether any customer is stored, without loading rows.
+     * Used to tell a fresh install apart before a snapshot bootstrap.
+     *
+     * @return true if the customers table has at least one row
+     */
+    @Query("SELECT EXISTS(SELECT 1 FROM customers)")
+    suspend fun hasCustomers(): Boolean
+
     /**
      * Updates only the sync status of a customer.
      * Useful for marking customers as synced/failed without modifying other fields.
@@ -165,5 +262,64 @@ interface CustomerDao {
      */
     @Query("UPDATE customers SET serverId = :serverId, syncStatus = :status, lastModified = :timestamp WHERE id = :localId")
     suspend fun updateServerInfo(localId: Int, serverId: String, status: String, timestamp: Long)
+    
+    /**
+     * Overwrites a customer's server-owned columns with a copy pulled from the
+     * server, leaving local-only and trigger-maintained columns (birthday
+     * alert state, totalOrdersValue, birthMonthDay, lastOrderDate) as they
+     * are in the database rather than as they were when the row was read.
+     * 
+     * @param localId The local database ID
+     * @param server The server's copy, e.g. ApiCustomer.toRoomModel()
+     */
+    suspend fun applyServerCopy(localId: Int, server: Customer) {
+        updateServerColumns(
+            localId = localId,
+            firstName = server.firstName,
+            lastName = server.lastName,
+            address = server.address,
+            mobile = server.mobile,
+            alternateMobile = server.alternateMobile,
+            birthDate = server.birthDate,
+            serverId = server.serverId,
+            lastModified = server.lastModified,
+            version = server.version,
+            syncStatus = server.syncStatus
+        )
+    }
+    
+    /**
+     * Column-level update behind [applyServerCopy].
+     */
+    @Query(
+        "UPDATE customers SET firstName = :firstName, lastName = :lastName, address = :address, " +
+        "mobile = :mobile, alternateMobile = :alternateMobile, birthDate = :birthDate, " +
+        "serverId = :serverId, lastModified = :lastModified, version = :version, syncStatus = :syncStatus " +
+        "WHERE id = :localId"
+    )
+    suspend fun updateServerColumns(
+        localId: Int,
+        firstName: String,
+        lastName: String,
+        address: String,
+        mobile: String,
+        alternateMobile: String,
+        birthDate: String,
+        serverId: String?,
+        lastModified: Long,
+        version: String,
+        syncStatus: String
+    )
+    
+    companion object {
+        /** Month-day key of 1 January */
+        const val FIRST_MONTH_DAY = 101
+        
+        /** Month-day key of 31 December */
+        const val LAST_MONTH_DAY = 1231
+        
+        /** Bind arguments per IN (...) list; SQLite's default limit is 999 */
+        const val MAX_BIND_ARGS = 900
+    }
 }
 
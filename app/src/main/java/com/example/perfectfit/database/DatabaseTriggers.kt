@@ -0,0 +1,127 @@
+package com.example.perfectfit.database
+
+import androidx.room.RoomDatabase
+import androidx.sqlite.db.SupportSQLiteDatabase
+
+/**
+ * SQLite triggers that keep denormalized columns consistent.
+ *
+ * Room has no annotation for triggers, so they are installed from a database
+ * callback every time the database is opened. CREATE TRIGGER IF NOT EXISTS
+ * makes this a no-op once they exist, and destructive migrations (which drop
+ * the tables and their triggers) get them recreated on the next open.
+ *
+ * Maintained Columns:
+ * - customers.totalOrdersValue: Customer lifetime value (sum of order amounts),
+ *   adjusted incrementally on order insert, update and delete
+ * - customers.birthMonthDay: month * 100 + day of birthDate, derived on
+ *   customer insert and whenever birthDate or the derived value is written
+ *
+ * @see [AppDatabase] where the callback is registered
+ */
+object DatabaseTriggers {
+
+    /**
+     * Callback that installs all triggers when the database is opened.
+     */
+    val callback = object : RoomDatabase.Callback() {
+        override fun onOpen(db: SupportSQLiteDatabase) {
+            super.onOpen(db)
+            install(db)
+        }
+    }
+
+    // ===== Customer Lifetime Value =====
+
+    private const val CLV_ORDER_INSERT = """
+        CREATE TRIGGER IF NOT EXISTS trg_orders_clv_insert
+        AFTER INSERT ON orders
+        BEGIN
+            UPDATE customers SET totalOrdersValue = totalOrdersValue + NEW.amount
+            WHERE id = NEW.customerId;
+        END
+    """
+
+    // Room's @Update rewrites every column, so only react to real changes
+    private const val CLV_ORDER_UPDATE = """
+        CREATE TRIGGER IF NOT EXISTS trg_orders_clv_update
+        AFTER UPDATE OF amount, customerId ON orders
+        WHEN OLD.amount != NEW.amount OR OLD.customerId != NEW.customerId
+        BEGIN
+            UPDATE customers SET totalOrdersValue = totalOrdersValue - OLD.amount
+            WHERE id = OLD.customerId;
+            UPDATE customers SET totalOrdersValue = totalOrdersValue + NEW.amount
+            WHERE id = NEW.customerId;
+        END
+    """
+
+    private const val CLV_ORDER_DELETE = """
+        CREATE TRIGGER IF NOT EXISTS trg_orders_clv_delete
+        AFTER DELETE ON orders
+        BEGIN
+            UPDATE customers SET totalOrdersValue = totalOrdersValue - OLD.amount
+            WHERE id = OLD.customerId;
+        END
+    """
+
+    // A (re)inserted customer row starts from whatever the caller passed in,
+    // e.g. REPLACE or a record pulled from the server; derive it from orders instead
+    private const val CLV_CUSTOMER_INSERT = """
+        CREATE TRIGGER IF NOT EXISTS trg_customers_clv_insert
+        AFTER INSERT ON customers
+        BEGIN
+            UPDATE customers SET totalOrdersValue =
+                (SELECT COALESCE(SUM(amount), 0) FROM orders WHERE customerId = NEW.id)
+            WHERE id = NEW.id;
+        END
+    """
+
+    // ===== Birthday Month-Day =====
+
+    // Day and month parsed from NEW.birthDate ("d/M/yyyy" with 1-2 digit parts);
+    // malformed text casts to 0 and so fails the range checks below
+    private const val BIRTH_DAY =
+        "CAST(substr(NEW.birthDate, 1, instr(NEW.birthDate, '/') - 1) AS INTEGER)"
+    private const val BIRTH_REST = "substr(NEW.birthDate, instr(NEW.birthDate, '/') + 1)"
+    private const val BIRTH_MONTH =
+        "CAST(substr($BIRTH_REST, 1, instr($BIRTH_REST, '/') - 1) AS INTEGER)"
+    private const val BIRTH_MONTH_DAY = """
+        CASE WHEN $BIRTH_MONTH BETWEEN 1 AND 12 AND $BIRTH_DAY BETWEEN 1 AND 31
+        THEN $BIRTH_MONTH * 100 + $BIRTH_DAY ELSE 0 END
+    """
+
+    private const val BIRTHDAY_CUSTOMER_INSERT = """
+        CREATE TRIGGER IF NOT EXISTS trg_customers_birthday_insert
+        AFTER INSERT ON customers
+        BEGIN
+            UPDATE customers SET birthMonthDay = $BIRTH_MONTH_DAY
+            WHERE id = NEW.id;
+        END
+    """
+
+    // Also reacts to writes of birthMonthDay itself, so an @Update carrying a
+    // stale or default value is corrected
+    private const val BIRTHDAY_CUSTOMER_UPDATE = """
+        CREATE TRIGGER IF NOT EXISTS trg_customers_birthday_update
+        AFTER UPDATE OF birthDate, birthMonthDay ON customers
+        WHEN NEW.birthMonthDay != $BIRTH_MONTH_DAY
+        BEGIN
+            UPDATE customers SET birthMonthDay = $BIRTH_MONTH_DAY
+            WHERE id = NEW.id;
+        END
+    """
+
+    /**
+     * Creates all triggers that don't exist yet.
+     *
+     * @param db The open database
+     */
+    fun install(db: SupportSQLiteDatabase) {
+        db.execSQL(CLV_ORDER_INSERT)
+        db.execSQL(CLV_ORDER_UPDATE)
+        db.execSQL(CLV_ORDER_DELETE)
+        db.execSQL(CLV_CUSTOMER_INSERT)
+        db.execSQL(BIRTHDAY_CUSTOMER_INSERT)
+        db.execSQL(BIRTHDAY_CUSTOMER_UPDATE)
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.perfectfit.database
+
+import androidx.room.Dao
+import androidx.room.Insert
+import androidx.room.OnConflictStrategy
+import androidx.room.Query
+import androidx.room.Transaction
+import com.example.perfectfit.models.DeliveryAlertRecord
+
+/**
+ * Data Access Object (DAO) for the materialized delivery_alerts table.
+ *
+ * Reads join the alert rows to their orders and are served by the
+ * (alertLevel, dueEpochDay) and dueEpochDay indices, so their cost depends
+ * on the number of alerts, not the number of orders.
+ *
+ * All suspend functions are designed to be called from coroutines.
+ */
+@Dao
+interface DeliveryAlertDao {
+
+    // ===== Basic Operations =====
+
+    /**
+     * Inserts or replaces the alert for an order.
+     * @param alert The alert row
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun upsert(alert: DeliveryAlertRecord)
+
+    /**
+     * Inserts or replaces several alerts.
+     * @param alerts The alert rows
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun upsertAll(alerts: List<DeliveryAlertRecord>)
+
+    /**
+     * Removes the alert for an order, if any.
+     * @param orderId The order's local database ID
+     */
+    @Query("DELETE FROM delivery_alerts WHERE orderId = :orderId")
+    suspend fun deleteForOrder(orderId: Int)
+
+    /**
+     * Removes all alerts.
+     */
+    @Query("DELETE FROM delivery_alerts")
+    suspend fun deleteAll()
+
+    /**
+     * Replaces the whole table with a freshly computed set, atomically.
+     * @param alerts The new alert rows
+     */
+    @Transaction
+    suspend fun replaceAll(alerts: List<DeliveryAlertRecord>) {
+        deleteAll()
+        upsertAll(alerts)
+    }
+
+    // ===== Query Operations =====
+
+    /**
+     * Retrieves the most pressing alerts with their orders, earliest due first.
+     * @param limit Maximum number of alerts
+     * @return Alerts joined to their orders
+     */
+    @Query(
+        "SELECT orders.*, delivery_alerts.alertLevel AS alertLevel, delivery_alerts.dueEpochDay AS dueEpochDay " +
+        "FROM delivery_alerts " +
+        "INNER JOIN orders ON orders.id = delivery_alerts.orderId " +
+        "ORDER BY delivery_alerts.dueEpochDay ASC, orders.id ASC " +
+        "LIMIT :limit"
+    )
+    suspend fun getAlerts(limit: Int): List<OrderDeliveryAlert>
+
+    /**
+     * Retrieves alerts of one level with their orders, earliest due first.
+     * @param alertLevel WorkloadHelper.AlertLevel name
+     * @param limit Maximum number of alerts
+     * @return Alerts joined to their orders
+     */
+    @Query(
+        "SELECT orders.*, delivery_alerts.alertLevel AS alertLevel, delivery_alerts.dueEpochDay AS dueEpochDay " +
+        "FROM delivery_alerts " +
+        "INNER JOIN orders ON orders.id = delivery_alerts.orderId " +
+        "WHERE delivery_alerts.alertLevel = :alertLevel " +
+        "ORDER BY delivery_alerts.dueEpochDay ASC, orders.id ASC " +
+        "LIMIT :limit"
+    )
+    suspend fun getAlertsByLevel(alertLevel: String, limit: Int): List<OrderDeliveryAlert>
+
+    /**
+     * Retrieves alerts due within a range of days with their orders.
+     * @param fromEpochDay First due day (inclusive)
+     * @param toEpochDay Last due day (exclusive)
+     * @return Alerts joined to their orders, earliest due first
+     */
+    @Query(
+        "SELECT orders.*, delivery_alerts.alertLevel AS alertLevel, delivery_alerts.dueEpochDay AS dueEpochDay " +
+        "FROM delivery_alerts " +
+        "INNER JOIN orders ON orders.id = delivery_alerts.orderId " +
+        "WHERE delivery_alerts.dueEpochDay >= :fromEpochDay AND delivery_alerts.dueEpochDay < :toEpochDay " +
+        "ORDER BY delivery_alerts.dueEpochDay ASC, orders.id ASC"
+    )
+    suspend fun getAlertsDueBetween(fromEpochDay: Int, toEpochDay: Int): List<OrderDeliveryAlert>
+
+    /**
+     * Counts alerts of one level.
+     * @param alertLevel WorkloadHelper.AlertLevel name
+     */
+    @Query("SELECT COUNT(*) FROM delivery_alerts WHERE alertLevel = :alertLevel")
+    suspend fun countByLevel(alertLevel: String): Int
+
+    /**
+     * Day the alerts were last computed, or null if the table is empty.
+     */
+    @Query("SELECT MAX(refreshedOnDay) FROM delivery_alerts")
+    suspend fun getLastRefreshedDay(): Int?
+}
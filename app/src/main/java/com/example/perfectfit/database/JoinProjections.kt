@@ -0,0 +1,165 @@
+package com.example.perfectfit.database
+
+import androidx.room.Embedded
+import com.example.perfectfit.models.Order
+import com.example.perfectfit.models.OrderImage
+import com.example.perfectfit.models.ProductionStage
+import com.example.perfectfit.models.StageEvent
+
+/**
+ * Join projections pairing orders with their production stage and customer.
+ *
+ * These let screens load related rows in a single JOIN statement instead of
+ * querying production_stages and then looking up each order (or customer)
+ * one by one. Load time no longer scales with the number of round trips.
+ *
+ * Column Naming:
+ * - Order columns are selected unprefixed (orders.*)
+ * - ProductionStage columns are aliased with the "stage_" prefix via
+ *   [STAGE_COLUMNS], matching @Embedded(prefix = "stage_")
+ *
+ * Note: [STAGE_COLUMNS] must list every ProductionStage column; update it
+ * together with the entity.
+ */
+
+/**
+ * production_stages columns aliased for @Embedded(prefix = "stage_").
+ */
+const val STAGE_COLUMNS =
+    "production_stages.id AS stage_id, " +
+    "production_stages.orderId AS stage_orderId, " +
+    "production_stages.currentStage AS stage_currentStage, " +
+    "production_stages.stageStartedAt AS stage_stageStartedAt, " +
+    "production_stages.assignedTo AS stage_assignedTo, " +
+    "production_stages.notes AS stage_notes, " +
+    "production_stages.estimatedCompletionDate AS stage_estimatedCompletionDate, " +
+    "production_stages.deadlineAt AS stage_deadlineAt, " +
+    "production_stages.deadlineAlertedAt AS stage_deadlineAlertedAt"
+
+/**
+ * An active production stage together with its order.
+ * Produced by an INNER JOIN, so both sides are always present.
+ *
+ * @property stage The order's current production stage
+ * @property order The order being produced
+ */
+data class StageWithOrder(
+    @Embedded(prefix = "stage_")
+    val stage: ProductionStage,
+
+    @Embedded
+    val order: Order
+)
+
+/**
+ * An order together with its production stage, if tracking has started.
+ * Produced by a LEFT JOIN, so stage is null for orders never opened in
+ * production tracking.
+ *
+ * @property order The order
+ * @property stage The order's current production stage, or null
+ */
+data class OrderWithStage(
+    @Embedded
+    val order: Order,
+
+    @Embedded(prefix = "stage_")
+    val stage: ProductionStage?
+)
+
+/**
+ * Everything the order detail screen needs in one row:
+ * the order, its production stage and the customer's phone number.
+ *
+ * @property order The order
+ * @property stage The order's current production stage, or null
+ * @property customerMobile The customer's mobile number, or null if not found
+ */
+data class OrderDetails(
+    @Embedded
+    val order: Order,
+
+    @Embedded(prefix = "stage_")
+    val stage: ProductionStage?,
+
+    val customerMobile: String?
+)
+
+/**
+ * A completed stage duration together with the order's type.
+ * Used once to seed the effort model from existing history.
+ *
+ * @property orderType Type of the order
+ * @property stageName Production stage that was completed
+ * @property durationMs Time the stage took, in milliseconds
+ */
+data class StageDuration(
+    val orderType: String,
+    val stageName: String,
+    val durationMs: Long
+)
+
+/**
+ * A materialized delivery alert together with its order.
+ *
+ * @property order The order the alert is for
+ * @property alertLevel WorkloadHelper.AlertLevel name
+ * @property dueEpochDay Delivery date as a local epoch day
+ */
+data class OrderDeliveryAlert(
+    @Embedded
+    val order: Order,
+
+    val alertLevel: String,
+    val dueEpochDay: Int
+)
+
+/**
+ * A stage event together with its order's server ID, for pushing the event
+ * to the server.
+ *
+ * @property event The stage event
+ * @property orderServerId The order's MongoDB _id
+ */
+data class StageEventWithOrder(
+    @Embedded
+    val event: StageEvent,
+
+    val orderServerId: String
+)
+
+/**
+ * An image waiting for upload together with its order's server ID, which
+ * the server links the image to.
+ *
+ * @property image The image
+ * @property orderServerId The order's MongoDB _id
+ */
+data class PendingImageUpload(
+    @Embedded
+    val image: OrderImage,
+
+    val orderServerId: String
+)
+
+/**
+ * A production board card: an order's stage, the order, and the customer's
+ * current name from the customers table.
+ *
+ * @property stage The order's current production stage
+ * @property order The order
+ * @property customerFullName Customer's name, or null if the customer row is gone
+ */
+data class BoardCard(
+    @Embedded(prefix = "stage_")
+    val stage: ProductionStage,
+
+    @Embedded
+    val order: Order,
+
+    val customerFullName: String?
+) {
+    /** Name to show, falling back to the name denormalized on the order */
+    val customerName: String
+        get() = customerFullName ?: order.customerName
+}
@@ -79,6 +79,48 @@ interface OrderDao {
     @Query("SELECT * FROM orders WHERE id = :orderId")
     suspend fun getOrderById(orderId: Int): Order?
     
+    // ===== Join Queries =====
+    
+    /**
+     * Retrieves an order with its production stage and customer phone in one query.
+     * 
+     * @param orderId The order's local database ID
+     * @return The joined row if the order exists, null otherwise
+     * @see OrderDetails
+     */
+    @Query(
+        "SELECT orders.*, " + STAGE_COLUMNS + ", customers.mobile AS customerMobile " +
+        "FROM orders " +
+        "LEFT JOIN production_stages ON production_stages.orderId = orders.id " +
+        "LEFT JOIN customers ON customers.id = orders.customerId " +
+        "WHERE orders.id = :orderId"
+    )
+    suspend fun getOrderDetails(orderId: Int): OrderDetails?
+    
+    /**
+     * Retrieves all open orders (Pending or In Progress).
+     * 
+     * @return List of open orders ordered by order ID
+     */
+    @Query("SELECT * FROM orders WHERE status IN ('Pending', 'In Progress') ORDER BY id ASC")
+    suspend fun getOpenOrders(): List<Order>
+    
+    /**
+     * Retrieves all open orders (Pending or In Progress) with their production
+     * stage, if tracking has started. Ordered by order ID for stable output.
+     * 
+     * @return List of open orders paired with their stage
+     * @see OrderWithStage
+     */
+    @Query(
+        "SELECT orders.*, " + STAGE_COLUMNS + " " +
+        "FROM orders " +
+        "LEFT JOIN production_stages ON production_stages.orderId = orders.id " +
+        "WHERE orders.status IN ('Pending', 'In Progress') " +
+        "ORDER BY orders.id ASC"
+    )
+    suspend fun getOpenOrdersWithStages(): List<OrderWithStage>
+    
     // ===== Synchronization Queries =====
     
     /**
@@ -119,6 +161,14 @@ interface OrderDao {
     @Query("SELECT * FROM orders WHERE serverId = :serverId")
     suspend fun getOrderByServerId(serverId: String): Order?
     
+    /**
+     * Retrieves the orders with any of the given server IDs.
+     * @param serverIds MongoDB _ids from the server
+     * @return Matching orders; unknown IDs are skipped
+     */
+    @Query("SELECT * FROM orders WHERE serverId IN (:serverIds)")
+    suspend fun getOrdersByServerIds(serverIds: List<String>): List<Order>
+    
     /**
      * Updates only the sync status of an order.
      * Useful for marking orders as synced/failed without modifying other fields.
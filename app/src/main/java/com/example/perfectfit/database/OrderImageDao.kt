@@ -1,6 +1,7 @@
 package com.example.perfectfit.database
 
 import androidx.lifecycle.LiveData
+import androidx.paging.PagingSource
 import androidx.room.Dao
 import androidx.room.Delete
 import androidx.room.Insert
@@ -78,6 +79,22 @@ interface OrderImageDao {
     @Query("SELECT * FROM order_images WHERE imageType = 'COMPLETED' ORDER BY uploadedAt DESC")
     fun getPortfolioImagesLiveData(): LiveData<List<OrderImage>>
     
+    /**
+     * Retrieves portfolio images one page at a time, newest first.
+     * Only the pages near the viewport are loaded, so the gallery opens
+     * instantly and memory stays flat for large portfolios.
+     * @return PagingSource of completed work images
+     */
+    @Query("SELECT * FROM order_images WHERE imageType = 'COMPLETED' ORDER BY uploadedAt DESC")
+    fun getPortfolioImagesPaged(): PagingSource<Int, OrderImage>
+    
+    /**
+     * Counts portfolio images for the gallery header.
+     * @return LiveData count of completed work images
+     */
+    @Query("SELECT COUNT(*) FROM order_images WHERE imageType = 'COMPLETED'")
+    fun getPortfolioImageCount(): LiveData<Int>
+    
     /**
      * Retrieves reference images for an order.
      * @param orderId The order's local database ID
@@ -109,5 +126,59 @@ interface OrderImageDao {
      */
     @Query("DELETE FROM order_images WHERE orderId = :orderId")
     suspend fun deleteAllImagesForOrder(orderId: Int)
+    
+    // ===== Sync Operations =====
+    
+    /**
+     * Retrieves a page of images whose bytes have not yet reached the server
+     * and whose order is on the server, after a (uploadedAt, id) cursor.
+     * Oldest first so uploads drain in capture order. Images of orders not
+     * synced yet are left out, so they can't crowd a page; FAILED images
+     * (file missing) are excluded since retrying them can't succeed.
+     * @param afterUploadedAt uploadedAt of the last image of the previous page (0 for the first)
+     * @param afterId id of the last image of the previous page (0 for the first)
+     * @param limit Maximum number of images to return
+     * @return Images pending upload, with their order's server ID
+     */
+    @Query(
+        "SELECT order_images.*, orders.serverId AS orderServerId FROM order_images " +
+        "INNER JOIN orders ON orders.id = order_images.orderId " +
+        "WHERE order_images.syncStatus = 'PENDING' AND orders.serverId IS NOT NULL " +
+        "AND (order_images.uploadedAt > :afterUploadedAt " +
+        "OR (order_images.uploadedAt = :afterUploadedAt AND order_images.id > :afterId)) " +
+        "ORDER BY order_images.uploadedAt ASC, order_images.id ASC LIMIT :limit"
+    )
+    suspend fun getUploadableImages(afterUploadedAt: Long, afterId: Int, limit: Int): List<PendingImageUpload>
+    
+    /**
+     * Stores the content hash computed for an image file.
+     * @param imageId The image's local database ID
+     * @param hash SHA-256 hex digest of the file
+     */
+    @Query("UPDATE order_images SET contentHash = :hash WHERE id = :imageId")
+    suspend fun updateContentHash(imageId: Int, hash: String)
+    
+    /**
+     * Records upload progress so interrupted transfers can be reported and resumed.
+     * @param imageId The image's local database ID
+     * @param bytes Bytes confirmed by the server
+     */
+    @Query("UPDATE order_images SET uploadedBytes = :bytes WHERE id = :imageId")
+    suspend fun updateUploadProgress(imageId: Int, bytes: Long)
+    
+    /**
+     * Marks an image SYNCED with its final byte count in one write.
+     * @param imageId The image's local database ID
+     * @param bytes Bytes confirmed by the server
+     */
+    @Query("UPDATE order_images SET uploadedBytes = :bytes, syncStatus = 'SYNCED' WHERE id = :imageId")
+    suspend fun markUploaded(imageId: Int, bytes: Long)
+    
+    /**
+     * Updates the blob sync status of an image.
+     * @param imageId The image's local database ID
+     * @param status New sync status (PENDING, SYNCED, FAILED)
+     */
+    @Query("UPDATE order_images SET syncStatus = :status WHERE id = :imageId")
+    suspend fun updateSyncStatus(imageId: Int, status: String)
 }
-
@@ -63,7 +63,8 @@ interface OrderStageHistoryDao {
     
     /**
      * Retrieves all history entries for a specific stage across all orders.
-     * Useful for analyzing average time spent in each stage.
+     * Scans the whole history for the stage; for aggregates read
+     * StageEffortStatsDao.getAllTypesStats instead.
      * @param stageName The production stage name
      * @return List of history entries for that stage
      */
@@ -72,7 +73,8 @@ interface OrderStageHistoryDao {
     
     /**
      * Calculates average duration for a stage across all completed instances.
-     * Returns duration in milliseconds.
+     * Returns duration in milliseconds. Recomputed over the whole history;
+     * StageEffortStats.meanHours holds the same value incrementally.
      * @param stageName The production stage name
      * @return Average duration in milliseconds, or null if no data
      */
@@ -81,7 +83,8 @@ interface OrderStageHistoryDao {
     
     /**
      * Retrieves history entries for stages that took longer than expected.
-     * Used for bottleneck identification.
+     * Used to list the delayed entries themselves; delay rates come from
+     * StageEffortStats.delayedCount.
      * @param stageName The production stage name
      * @param maxDurationMs Maximum expected duration in milliseconds
      * @return List of delayed stage entries
@@ -98,6 +101,20 @@ interface OrderStageHistoryDao {
     @Query("SELECT * FROM order_stage_history WHERE stageCompletedAt IS NULL AND stageStartedAt < :startedBefore ORDER BY stageStartedAt ASC")
     suspend fun getSlowMovingOrders(startedBefore: Long): List<OrderStageHistory>
     
+    /**
+     * Retrieves every completed stage duration with its order type, oldest first.
+     * Full scan; only used to seed the effort model when it is empty.
+     * @return Completed stage durations
+     */
+    @Query(
+        "SELECT orders.orderType AS orderType, order_stage_history.stageName AS stageName, " +
+        "(order_stage_history.stageCompletedAt - order_stage_history.stageStartedAt) AS durationMs " +
+        "FROM order_stage_history INNER JOIN orders ON orders.id = order_stage_history.orderId " +
+        "WHERE order_stage_history.stageCompletedAt IS NOT NULL " +
+        "ORDER BY order_stage_history.stageCompletedAt ASC"
+    )
+    suspend fun getCompletedStageDurations(): List<StageDuration>
+    
     /**
      * Marks a stage as completed.
      * @param historyId The history entry ID
@@ -106,6 +123,14 @@ interface OrderStageHistoryDao {
     @Query("UPDATE order_stage_history SET stageCompletedAt = :completedAt WHERE id = :historyId")
     suspend fun markStageCompleted(historyId: Int, completedAt: Long)
     
+    /**
+     * Records the worker on an order's in-progress stage.
+     * @param orderId The order's local database ID
+     * @param assignedTo The worker's name
+     */
+    @Query("UPDATE order_stage_history SET assignedTo = :assignedTo WHERE orderId = :orderId AND stageCompletedAt IS NULL")
+    suspend fun updateActiveAssignment(orderId: Int, assignedTo: String)
+    
     /**
      * Retrieves total time spent across all stages for an order.
      * Returns sum of all completed stage durations in milliseconds.
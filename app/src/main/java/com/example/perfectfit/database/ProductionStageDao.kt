@@ -7,6 +7,7 @@ import androidx.room.OnConflictStrategy
 import androidx.room.Query
 import androidx.room.Update
 import com.example.perfectfit.models.ProductionStage
+import kotlinx.coroutines.flow.Flow
 
 /**
  * Data class for stage distribution results.
@@ -81,6 +82,44 @@ interface ProductionStageDao {
     @Query("SELECT * FROM production_stages WHERE currentStage != 'DELIVERED' ORDER BY stageStartedAt ASC")
     suspend fun getAllActiveStages(): List<ProductionStage>
     
+    /**
+     * Retrieves all active production stages together with their orders.
+     * Single JOIN instead of one order lookup per stage.
+     * @return List of active stages paired with their orders, oldest stage first
+     * @see StageWithOrder
+     */
+    @Query(
+        "SELECT orders.*, " + STAGE_COLUMNS + " " +
+        "FROM production_stages " +
+        "INNER JOIN orders ON orders.id = production_stages.orderId " +
+        "WHERE production_stages.currentStage != 'DELIVERED' " +
+        "ORDER BY production_stages.stageStartedAt ASC"
+    )
+    suspend fun getActiveStagesWithOrders(): List<StageWithOrder>
+    
+    /**
+     * Observes every card on the production board in one JOIN of
+     * production_stages, orders and customers. Room re-runs the query when
+     * any of those tables changes, so the board follows stage moves live.
+     * Delivered orders are included only while recently delivered; both
+     * filters are range reads on the (currentStage, stageStartedAt) index.
+     * @param deliveredSince Oldest delivery (stage start) timestamp to include
+     * @return Flow of cards, longest in their stage first
+     * @see BoardCard
+     */
+    @Query(
+        "SELECT orders.*, " + STAGE_COLUMNS + ", " +
+        "customers.firstName || ' ' || customers.lastName AS customerFullName " +
+        "FROM production_stages " +
+        "INNER JOIN orders ON orders.id = production_stages.orderId " +
+        "LEFT JOIN customers ON customers.id = orders.customerId " +
+        "WHERE production_stages.currentStage IN " +
+        "('PENDING', 'CUTTING', 'STITCHING', 'FINISHING', 'QUALITY_CHECK', 'READY') " +
+        "OR (production_stages.currentStage = 'DELIVERED' AND production_stages.stageStartedAt >= :deliveredSince) " +
+        "ORDER BY production_stages.stageStartedAt ASC"
+    )
+    fun observeBoard(deliveredSince: Long): Flow<List<BoardCard>>
+    
     /**
      * Retrieves orders that have been in current stage longer than specified hours.
      * Used for identifying slow-moving orders and bottlenecks.
@@ -90,13 +129,44 @@ interface ProductionStageDao {
     @Query("SELECT * FROM production_stages WHERE stageStartedAt < :hoursAgo AND currentStage != 'DELIVERED' ORDER BY stageStartedAt ASC")
     suspend fun getDelayedOrders(hoursAgo: Long): List<ProductionStage>
     
+    /**
+     * Retrieves stages that passed their deadline and haven't been alerted
+     * about yet, with their orders. A range read on the
+     * (deadlineAlertedAt, deadlineAt) index, so only newly late stages are
+     * visited however many are in progress. Orders that are no longer
+     * active (Completed, Closed) keep their stage row but are skipped, as in
+     * the scheduler and worker assignment.
+     * @param now Current timestamp
+     * @param limit Maximum number of stages
+     * @return Late stages, most overdue first
+     */
+    @Query(
+        "SELECT orders.*, " + STAGE_COLUMNS + " FROM production_stages " +
+        "INNER JOIN orders ON orders.id = production_stages.orderId " +
+        "WHERE production_stages.deadlineAlertedAt IS NULL AND production_stages.deadlineAt <= :now " +
+        "AND orders.status IN ('Pending', 'In Progress') " +
+        "ORDER BY production_stages.deadlineAt ASC LIMIT :limit"
+    )
+    suspend fun getNewlyLateStages(now: Long, limit: Int): List<StageWithOrder>
+    
+    /**
+     * Records that the watchdog alerted about stages' missed deadlines.
+     * @param stageIds Local IDs of the production stages
+     * @param alertedAt Alert timestamp
+     */
+    @Query("UPDATE production_stages SET deadlineAlertedAt = :alertedAt WHERE id IN (:stageIds)")
+    suspend fun markDeadlinesAlerted(stageIds: List<Int>, alertedAt: Long)
+    
     /**
      * Updates the current stage for an order.
      * @param orderId The order's local database ID
      * @param newStage The new stage name
      * @param startTime The timestamp when the new stage started
      */
-    @Query("UPDATE production_stages SET currentStage = :newStage, stageStartedAt = :startTime WHERE orderId = :orderId")
+    @Query(
+        "UPDATE production_stages SET currentStage = :newStage, stageStartedAt = :startTime, " +
+        "deadlineAt = NULL, deadlineAlertedAt = NULL WHERE orderId = :orderId"
+    )
     suspend fun updateStage(orderId: Int, newStage: String, startTime: Long)
     
     /**
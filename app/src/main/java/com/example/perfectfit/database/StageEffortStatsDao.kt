@@ -0,0 +1,87 @@
+package com.example.perfectfit.database
+
+import androidx.room.Dao
+import androidx.room.Insert
+import androidx.room.OnConflictStrategy
+import androidx.room.Query
+import androidx.room.Transaction
+import com.example.perfectfit.models.StageEffortStats
+
+/**
+ * Data Access Object (DAO) for StageEffortStats entity operations.
+ *
+ * The table holds one constant-size row per (orderType, stageName), so
+ * reading the whole table is cheap regardless of how much history exists.
+ *
+ * All suspend functions are designed to be called from coroutines.
+ */
+@Dao
+interface StageEffortStatsDao {
+
+    // ===== Basic Operations =====
+
+    /**
+     * Inserts or replaces a stats row.
+     * @param stats The row to store
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun upsert(stats: StageEffortStats)
+
+    /**
+     * Inserts or replaces several stats rows.
+     * @param stats The rows to store
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun upsertAll(stats: List<StageEffortStats>)
+
+    // ===== Query Operations =====
+
+    /**
+     * Retrieves all stats rows (one per order type and stage).
+     * @return All rows, including the all-types rows
+     */
+    @Query("SELECT * FROM stage_effort_stats")
+    suspend fun getAll(): List<StageEffortStats>
+
+    /**
+     * Retrieves the all-types row of every stage, for shop-wide stage
+     * analytics. One row per stage, however much history exists.
+     * @return All-types rows
+     */
+    @Query("SELECT * FROM stage_effort_stats WHERE orderType = '${StageEffortStats.ALL_TYPES}'")
+    suspend fun getAllTypesStats(): List<StageEffortStats>
+
+    /**
+     * Retrieves the stats for one order type and stage.
+     * @param orderType Order type, or StageEffortStats.ALL_TYPES
+     * @param stageName Production stage name
+     * @return The row, or null if nothing has been recorded yet
+     */
+    @Query("SELECT * FROM stage_effort_stats WHERE orderType = :orderType AND stageName = :stageName")
+    suspend fun get(orderType: String, stageName: String): StageEffortStats?
+
+    /**
+     * Counts stats rows. Zero means the model has never been built.
+     */
+    @Query("SELECT COUNT(*) FROM stage_effort_stats")
+    suspend fun count(): Int
+
+    // ===== Incremental Update =====
+
+    /**
+     * Folds one completed stage duration into the order type's row and the
+     * all-types row, atomically.
+     *
+     * @param orderType Order type of the order that completed the stage
+     * @param stageName Production stage that was completed
+     * @param hours Time the stage took, in hours
+     * @return The updated rows
+     */
+    @Transaction
+    suspend fun recordDuration(orderType: String, stageName: String, hours: Double): List<StageEffortStats> {
+        return listOf(orderType, StageEffortStats.ALL_TYPES).distinct().map { type ->
+            val current = get(type, stageName) ?: StageEffortStats(orderType = type, stageName = stageName)
+            current.withObservation(hours).also { upsert(it) }
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.perfectfit.database
+
+import androidx.room.Dao
+import androidx.room.Insert
+import androidx.room.OnConflictStrategy
+import androidx.room.Query
+import androidx.room.Transaction
+import com.example.perfectfit.models.OrderStageHistory
+import com.example.perfectfit.models.ParkedStageEvent
+import com.example.perfectfit.models.ProductionStage
+import com.example.perfectfit.models.StageEvent
+
+/**
+ * Outcome of a stage transition.
+ *
+ * @property event The appended stage event
+ * @property completedHistory The history entry that was completed, or null
+ *   if the order had no active entry
+ */
+data class StageTransitionResult(
+    val event: StageEvent,
+    val completedHistory: OrderStageHistory?
+)
+
+/**
+ * Data Access Object (DAO) for production stage transitions.
+ *
+ * A stage change touches three tables: the active order_stage_history
+ * entry is completed, a new one is started, and production_stages moves to
+ * the new stage. [transition] does all of this and appends a [StageEvent]
+ * in a single transaction, so a crash can't leave the tables disagreeing
+ * and the change is committed once.
+ *
+ * The stage_events stream is read incrementally by sequence number
+ * ([getEventsAfter]). Events from other devices are merged in by
+ * [applyRemoteEvent], which rebuilds the current stage as a projection of
+ * the newest event.
+ *
+ * All suspend functions are designed to be called from coroutines.
+ */
+@Dao
+interface StageTransitionDao {
+
+    // ===== Transitions =====
+
+    /**
+     * Starts production for an order at the PENDING stage: creates its
+     * production stage, the first history entry and a start event.
+     *
+     * @param orderId The order's local database ID
+     * @param startedAt Start timestamp
+     */
+    @Transaction
+    suspend fun startProduction(orderId: Int, startedAt: Long) {
+        insertStage(ProductionStage(
+            orderId = orderId,
+            currentStage = ProductionStage.STAGE_PENDING,
+            stageStartedAt = startedAt
+        ))
+        insertHistory(OrderStageHistory(
+            orderId = orderId,
+            stageName = ProductionStage.STAGE_PENDING,
+            stageStartedAt = startedAt
+        ))
+        insertEvent(StageEvent(
+            orderId = orderId,
+            fromStage = null,
+            toStage = ProductionStage.STAGE_PENDING,
+            occurredAt = startedAt
+        ))
+    }
+
+    /**
+     * Moves an order to a new stage in one transaction: completes the active
+     * history entry, starts a new one, updates the production stage and
+     * appends an event. Does nothing if the order has no production stage
+     * or is already in [newStage].
+     *
+     * @param orderId The order's local database ID
+     * @param newStage Stage to move to
+     * @param at Transition timestamp
+     * @param deadlineAt When the new stage is expected to be done, or null
+     * @return What changed, or null if nothing did
+     */
+    @Transaction
+    suspend fun transition(orderId: Int, newStage: String, at: Long, deadlineAt: Long?): StageTransitionResult? {
+        val stage = getStage(orderId) ?: return null
+        if (stage.currentStage == newStage) return null
+
+        val completed = getActiveHistory(orderId)?.copy(stageCompletedAt = at)
+        completed?.let { completeHistory(it.id, at) }
+
+        insertHistory(OrderStageHistory.startStage(orderId, newStage).copy(stageStartedAt = at))
+        updateStage(orderId, newStage, at, deadlineAt)
+        val event = StageEvent(
+            orderId = orderId,
+            fromStage = stage.currentStage,
+            toStage = newStage,
+            occurredAt = at,
+            fromStageDurationMs = at - (completed?.stageStartedAt ?: stage.stageStartedAt)
+        )
+        val eventId = insertEvent(event)
+        return StageTransitionResult(event.copy(id = eventId), completed)
+    }
+
+    /**
+     * Merges an event pulled from the server in one transaction. The event
+     * is appended to the log unless it is already there; if it is newer than
+     * the order's current stage, the stage and history move to it as they
+     * would for a local [transition]. Older events only join the log, so
+     * events arriving out of order never move an order backwards.
+     *
+     * @param event Event to merge, with a local orderId and fromServer set
+     * @param deadlineAt When the event's stage is expected to be done, or null
+     * @return true if the order's current stage changed
+     */
+    @Transaction
+    suspend fun applyRemoteEvent(event: StageEvent, deadlineAt: Long?): Boolean {
+        if (insertEventIgnoringDuplicate(event) == -1L) return false
+
+        val stage = getStage(event.orderId)
+        if (stage == null) {
+            insertStage(ProductionStage(
+                orderId = event.orderId,
+                currentStage = event.toStage,
+                stageStartedAt = event.occurredAt,
+                deadlineAt = deadlineAt
+            ))
+            insertHistory(OrderStageHistory.startStage(event.orderId, event.toStage).copy(stageStartedAt = event.occurredAt))
+            return true
+        }
+        if (event.occurredAt < stage.stageStartedAt || stage.currentStage == event.toStage) return false
+
+        getActiveHistory(event.orderId)?.let { completeHistory(it.id, event.occurredAt) }
+        insertHistory(OrderStageHistory.startStage(event.orderId, event.toStage).copy(stageStartedAt = event.occurredAt))
+        updateStage(event.orderId, event.toStage, event.occurredAt, deadlineAt)
+        return true
+    }
+
+    // ===== Event Stream =====
+
+    /**
+     * Retrieves events after a sequence number, oldest first.
+     * @param afterId Last event ID the caller has processed (0 for all)
+     * @param limit Maximum number of events
+     * @return Newer events in sequence order
+     */
+    @Query("SELECT * FROM stage_events WHERE id > :afterId ORDER BY id ASC LIMIT :limit")
+    suspend fun getEventsAfter(afterId: Long, limit: Int): List<StageEvent>
+
+    /**
+     * Retrieves all events for an order, oldest first.
+     * @param orderId The order's local database ID
+     */
+    @Query("SELECT * FROM stage_events WHERE orderId = :orderId ORDER BY id ASC")
+    suspend fun getEventsForOrder(orderId: Int): List<StageEvent>
+
+    /**
+     * Retrieves this device's events not yet pushed, oldest first, with
+     * their order's server ID. Events of orders without a server ID are
+     * left out until the order syncs, so they don't hold up other orders;
+     * each order's events still go in log order.
+     * @param limit Maximum number of events
+     */
+    @Query(
+        "SELECT stage_events.*, orders.serverId AS orderServerId FROM stage_events " +
+        "INNER JOIN orders ON orders.id = stage_events.orderId " +
+        "WHERE stage_events.pushed = 0 AND stage_events.fromServer = 0 AND orders.serverId IS NOT NULL " +
+        "ORDER BY stage_events.id ASC LIMIT :limit"
+    )
+    suspend fun getUnpushedEvents(limit: Int): List<StageEventWithOrder>
+
+    /**
+     * Marks events as stored on the server.
+     * @param eventIds Sequence numbers of the pushed events
+     */
+    @Query("UPDATE stage_events SET pushed = 1 WHERE id IN (:eventIds)")
+    suspend fun markEventsPushed(eventIds: List<Long>)
+
+    /**
+     * Sequence number of the newest event, or null if there are none.
+     */
+    @Query("SELECT MAX(id) FROM stage_events")
+    suspend fun getLatestEventId(): Long?
+
+    // ===== Transition Steps =====
+    // Used by the transactions above; call those instead
+
+    @Query("SELECT * FROM production_stages WHERE orderId = :orderId LIMIT 1")
+    suspend fun getStage(orderId: Int): ProductionStage?
+
+    @Query("SELECT * FROM order_stage_history WHERE orderId = :orderId AND stageCompletedAt IS NULL LIMIT 1")
+    suspend fun getActiveHistory(orderId: Int): OrderStageHistory?
+
+    @Query("UPDATE order_stage_history SET stageCompletedAt = :completedAt WHERE id = :historyId")
+    suspend fun completeHistory(historyId: Int, completedAt: Long)
+
+    @Insert
+    suspend fun insertHistory(history: OrderStageHistory): Long
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertStage(stage: ProductionStage): Long
+
+    @Query(
+        "UPDATE production_stages SET currentStage = :newStage, stageStartedAt = :startTime, " +
+        "deadlineAt = :deadlineAt, deadlineAlertedAt = NULL WHERE orderId = :orderId"
+    )
+    suspend fun updateStage(orderId: Int, newStage: String, startTime: Long, deadlineAt: Long?)
+
+    @Insert
+    suspend fun insertEvent(event: StageEvent): Long
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    suspend fun insertEventIgnoringDuplicate(event: StageEvent): Long
+
+    // ===== Parked Events =====
+
+    /**
+     * Keeps pulled events whose order isn't on this device yet.
+     * @param events Events to park; ones already parked are skipped
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    suspend fun parkEvents(events: List<ParkedStageEvent>)
+
+    /**
+     * Retrieves parked events, oldest first.
+     * @param limit Maximum number of events
+     */
+    @Query("SELECT * FROM parked_stage_events ORDER BY parkedAt ASC, eventId ASC LIMIT :limit")
+    suspend fun getParkedEvents(limit: Int): List<ParkedStageEvent>
+
+    /**
+     * Removes parked events once they have been merged.
+     * @param eventIds Global IDs of the merged events
+     */
+    @Query("DELETE FROM parked_stage_events WHERE eventId IN (:eventIds)")
+    suspend fun deleteParkedEvents(eventIds: List<String>)
+
+    /**
+     * Drops parked events whose order never arrived.
+     * @param parkedBefore Events parked before this timestamp are removed
+     * @return Number of events removed
+     */
+    @Query("DELETE FROM parked_stage_events WHERE parkedAt < :parkedBefore")
+    suspend fun pruneParkedEvents(parkedBefore: Long): Int
+}
@@ -0,0 +1,68 @@
+package com.example.perfectfit.database
+
+import androidx.room.Dao
+import androidx.room.Insert
+import androidx.room.OnConflictStrategy
+import androidx.room.Query
+import androidx.room.Update
+import com.example.perfectfit.models.Worker
+
+/**
+ * Data Access Object (DAO) for Worker entity operations.
+ *
+ * Workers are few (a handful per shop), so queries return whole lists.
+ *
+ * All suspend functions are designed to be called from coroutines.
+ */
+@Dao
+interface WorkerDao {
+
+    // ===== Basic CRUD Operations =====
+
+    /**
+     * Inserts a new worker.
+     * @param worker The worker to insert
+     * @return The row ID of the inserted worker
+     * @throws android.database.sqlite.SQLiteConstraintException if the name is taken
+     */
+    @Insert(onConflict = OnConflictStrategy.ABORT)
+    suspend fun insert(worker: Worker): Long
+
+    /**
+     * Updates an existing worker.
+     * @param worker The worker with updated values
+     */
+    @Update
+    suspend fun update(worker: Worker)
+
+    /**
+     * Marks a worker inactive. History and current assignments keep the name.
+     * @param workerId The worker's local database ID
+     */
+    @Query("UPDATE workers SET isActive = 0 WHERE id = :workerId")
+    suspend fun deactivate(workerId: Int)
+
+    // ===== Query Operations =====
+
+    /**
+     * Retrieves all workers who currently take work.
+     * @return Active workers ordered by name
+     */
+    @Query("SELECT * FROM workers WHERE isActive = 1 ORDER BY name ASC")
+    suspend fun getActiveWorkers(): List<Worker>
+
+    /**
+     * Retrieves all workers, including inactive ones.
+     * @return All workers ordered by name
+     */
+    @Query("SELECT * FROM workers ORDER BY name ASC")
+    suspend fun getAllWorkers(): List<Worker>
+
+    /**
+     * Retrieves a worker by name.
+     * @param name The worker's name
+     * @return The worker if found, null otherwise
+     */
+    @Query("SELECT * FROM workers WHERE name = :name LIMIT 1")
+    suspend fun getWorkerByName(name: String): Worker?
+}
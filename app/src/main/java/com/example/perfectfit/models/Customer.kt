@@ -3,6 +3,8 @@ package com.example.perfectfit.models
 import androidx.room.Entity
 import androidx.room.Index
 import androidx.room.PrimaryKey
+import com.example.perfectfit.utils.DateCodec
+import com.example.perfectfit.utils.HybridLogicalClock
 
 /**
  * Represents a customer in the Perfect Fit tailoring application.
@@ -18,8 +20,13 @@ import androidx.room.PrimaryKey
  * @property mobile Primary mobile number (required, part of unique constraint)
  * @property alternateMobile Secondary contact number (optional)
  * @property birthDate Customer's date of birth in dd/MM/yyyy format (required)
+ * @property birthMonthDay Birthday as month * 100 + day (e.g. 305 for 5 March), 0 if
+ *   birthDate is invalid; derived from birthDate by DB triggers
  * @property serverId MongoDB _id from the remote server (null until first sync)
- * @property lastModified Timestamp in milliseconds for conflict resolution during sync
+ * @property lastModified Timestamp in milliseconds of the last local or server write
+ * @property version Hybrid logical clock version of the last edit; decides sync conflicts.
+ *   Empty until stamped: save paths pass HybridLogicalClock.now(), edits go through
+ *   withUpdatedTimestamp()
  * @property syncStatus Current synchronization state (PENDING/SYNCED/FAILED)
  * 
  * @see [Order] for customer's orders
@@ -29,7 +36,11 @@ import androidx.room.PrimaryKey
     tableName = "customers",
     indices = [
         // Composite unique index prevents duplicate customers with same name and mobile
-        Index(value = ["firstName", "lastName", "mobile"], unique = true)
+        Index(value = ["firstName", "lastName", "mobile"], unique = true),
+        // Top customers by lifetime value are read straight off this index
+        Index(value = ["totalOrdersValue"]),
+        // Birthdays today / in the next N days are range reads on this index
+        Index(value = ["birthMonthDay"])
     ]
 )
 data class Customer(
@@ -46,15 +57,17 @@ data class Customer(
     // ===== Birthday Alert Tracking =====
     val lastBirthdayAlertSent: Long = 0,  // Timestamp of last birthday greeting sent
     val birthdayAlertEnabled: Boolean = true,  // Whether to send birthday alerts for this customer
+    val birthMonthDay: Int = 0,  // MMdd of birthDate, maintained by DB triggers
     
     // ===== Customer Analytics =====
-    val totalOrdersValue: Double = 0.0,  // Cumulative value of all orders (for CLV calculation)
+    val totalOrdersValue: Double = 0.0,  // Cumulative value of all orders, maintained by DB triggers
     val lastOrderDate: String = "",  // Date of most recent order
     
     // ===== Sync-related fields =====
     // These fields manage synchronization state with the remote server
     val serverId: String? = null,
     val lastModified: Long = System.currentTimeMillis(),
+    val version: String = "",
     val syncStatus: String = SYNC_PENDING
 ) {
     /**
@@ -90,33 +103,28 @@ data class Customer(
     }
     
     /**
-     * Returns a copy of this customer with updated lastModified timestamp.
-     * Useful when making modifications that need to trigger a sync.
+     * Returns a copy of this customer with updated lastModified timestamp
+     * and a new version. Useful when making modifications that need to trigger a sync.
      */
     fun withUpdatedTimestamp(): Customer {
         return copy(
             lastModified = System.currentTimeMillis(),
+            version = HybridLogicalClock.now(),
             syncStatus = SYNC_PENDING
         )
     }
     
     /**
      * Checks if customer's birthday is today.
-     * @return true if birthday matches today's date (day and month)
+     * @return true if birthday matches today's date (day and month); 29 February
+     *   birthdays are celebrated on 1 March in common years
      */
     fun isBirthdayToday(): Boolean {
-        return try {
-            val format = java.text.SimpleDateFormat("dd/MM/yyyy", java.util.Locale.getDefault())
-            val birthDateParsed = format.parse(birthDate) ?: return false
-            
-            val birthCal = java.util.Calendar.getInstance().apply { time = birthDateParsed }
-            val today = java.util.Calendar.getInstance()
-            
-            birthCal.get(java.util.Calendar.DAY_OF_MONTH) == today.get(java.util.Calendar.DAY_OF_MONTH) &&
-            birthCal.get(java.util.Calendar.MONTH) == today.get(java.util.Calendar.MONTH)
-        } catch (e: Exception) {
-            false
-        }
+        val birthDay = DateCodec.parseEpochDay(birthDate)
+        if (birthDay == DateCodec.INVALID) return false
+        
+        // Compare month and day only
+        return DateCodec.monthDayOf(birthDay) in birthMonthDaysOn(DateCodec.today())
     }
     
     /**
@@ -126,15 +134,7 @@ data class Customer(
         if (!birthdayAlertEnabled || !isBirthdayToday()) return false
         
         // Check if alert already sent today
-        val lastAlertCal = java.util.Calendar.getInstance().apply {
-            timeInMillis = lastBirthdayAlertSent
-        }
-        val today = java.util.Calendar.getInstance()
-        
-        val alreadySentToday = lastAlertCal.get(java.util.Calendar.YEAR) == today.get(java.util.Calendar.YEAR) &&
-                               lastAlertCal.get(java.util.Calendar.DAY_OF_YEAR) == today.get(java.util.Calendar.DAY_OF_YEAR)
-        
-        return !alreadySentToday
+        return DateCodec.epochDayOfMillis(lastBirthdayAlertSent) != DateCodec.today()
     }
     
     /**
@@ -152,6 +152,18 @@ data class Customer(
         const val SYNC_PENDING = "PENDING"  // Waiting to be synced to server
         const val SYNC_SYNCED = "SYNCED"    // Successfully synced with server
         const val SYNC_FAILED = "FAILED"    // Sync attempt failed, will retry
+        
+        /**
+         * Birth month-day keys ([birthMonthDay]) whose birthday falls on a day.
+         * On 1 March of a common year this includes 29 February birthdays.
+         * 
+         * @param epochDay Local epoch day
+         */
+        fun birthMonthDaysOn(epochDay: Int): List<Int> {
+            val monthDay = DateCodec.monthDayOf(epochDay)
+            val leapDayMissing = monthDay == 301 && DateCodec.monthDayOf(epochDay - 1) != 229
+            return if (leapDayMissing) listOf(monthDay, 229) else listOf(monthDay)
+        }
     }
 }
 
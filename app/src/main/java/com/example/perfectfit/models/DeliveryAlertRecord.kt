@@ -0,0 +1,45 @@
+package com.example.perfectfit.models
+
+import androidx.room.Entity
+import androidx.room.ForeignKey
+import androidx.room.Index
+import androidx.room.PrimaryKey
+
+/**
+ * A materialized delivery alert for an open order.
+ *
+ * The delivery_alerts table holds one row per open order due within the
+ * alert window (overdue, due today, or due within 7 days). It is rebuilt
+ * once a day by DeliveryAlertWorker and kept current for single orders when
+ * they are created or edited, so screens and notifications read alerts with
+ * an indexed query instead of parsing every order's delivery date.
+ *
+ * @property orderId Local ID of the order (one alert per order)
+ * @property alertLevel WorkloadHelper.AlertLevel name (URGENT, WARNING, UPCOMING)
+ * @property dueEpochDay Delivery date as a local epoch day
+ * @property refreshedOnDay Local epoch day the row was computed on
+ *
+ * @see [com.example.perfectfit.utils.DeliveryAlertRefresher] for the producer
+ */
+@Entity(
+    tableName = "delivery_alerts",
+    foreignKeys = [
+        ForeignKey(
+            entity = Order::class,
+            parentColumns = ["id"],
+            childColumns = ["orderId"],
+            onDelete = ForeignKey.CASCADE
+        )
+    ],
+    indices = [
+        Index(value = ["alertLevel", "dueEpochDay"]),
+        Index(value = ["dueEpochDay"])
+    ]
+)
+data class DeliveryAlertRecord(
+    @PrimaryKey
+    val orderId: Int,
+    val alertLevel: String,
+    val dueEpochDay: Int,
+    val refreshedOnDay: Int
+)
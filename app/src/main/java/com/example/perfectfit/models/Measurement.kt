@@ -4,6 +4,7 @@ import androidx.room.Entity
 import androidx.room.ForeignKey
 import androidx.room.Index
 import androidx.room.PrimaryKey
+import com.example.perfectfit.utils.HybridLogicalClock
 
 /**
  * Represents body measurements for a customer in the Perfect Fit tailoring application.
@@ -65,7 +66,10 @@ import androidx.room.PrimaryKey
  * 
  * @property lastUpdated Timestamp when measurements were last updated (milliseconds)
  * @property serverId MongoDB _id from the remote server (null until first sync)
- * @property lastModified Timestamp for conflict resolution during sync (milliseconds)
+ * @property lastModified Timestamp of the last local or server write (milliseconds)
+ * @property version Hybrid logical clock version of the last edit; decides sync conflicts.
+ *   Empty until stamped: save paths pass HybridLogicalClock.now(), edits go through
+ *   withUpdatedTimestamp()
  * @property syncStatus Current synchronization state (PENDING/SYNCED/FAILED)
  * 
  * @see [Customer] for the customer these measurements belong to
@@ -141,6 +145,7 @@ data class Measurement(
     // ===== Sync-related fields =====
     val serverId: String? = null,
     val lastModified: Long = System.currentTimeMillis(),
+    val version: String = "",
     val syncStatus: String = SYNC_PENDING
 ) {
     /**
@@ -197,13 +202,14 @@ data class Measurement(
     }
     
     /**
-     * Returns a copy of this measurement with updated lastModified timestamp.
-     * Useful when making modifications that need to trigger a sync.
+     * Returns a copy of this measurement with updated lastModified timestamp
+     * and a new version. Useful when making modifications that need to trigger a sync.
      */
     fun withUpdatedTimestamp(): Measurement {
         return copy(
             lastUpdated = System.currentTimeMillis(),
             lastModified = System.currentTimeMillis(),
+            version = HybridLogicalClock.now(),
             syncStatus = SYNC_PENDING
         )
     }
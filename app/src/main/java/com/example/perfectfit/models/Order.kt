@@ -4,6 +4,7 @@ import androidx.room.Entity
 import androidx.room.ForeignKey
 import androidx.room.Index
 import androidx.room.PrimaryKey
+import com.example.perfectfit.utils.HybridLogicalClock
 
 /**
  * Represents an order in the Perfect Fit tailoring application.
@@ -26,7 +27,10 @@ import androidx.room.PrimaryKey
  * @property paymentStatus Payment state: Unpaid, Partial, or Paid
  * @property paymentDate Date when the order was fully paid (dd/MM/yyyy format)
  * @property serverId MongoDB _id from the remote server (null until first sync)
- * @property lastModified Timestamp in milliseconds for conflict resolution during sync
+ * @property lastModified Timestamp in milliseconds of the last local or server write
+ * @property version Hybrid logical clock version of the last edit; decides sync conflicts.
+ *   Empty until stamped: save paths and edits (withUpdatedPayment, status changes)
+ *   pass HybridLogicalClock.now()
  * @property syncStatus Current synchronization state (PENDING/SYNCED/FAILED)
  * 
  * @see [Customer] for the customer who placed this order
@@ -70,6 +74,7 @@ data class Order(
     // ===== Sync-related fields =====
     val serverId: String? = null,
     val lastModified: Long = System.currentTimeMillis(),
+    val version: String = "",
     val syncStatus: String = SYNC_PENDING
 ) {
     /**
@@ -169,6 +174,7 @@ data class Order(
             paymentStatus = newPaymentStatus,
             paymentDate = if (newPaymentStatus == PAYMENT_PAID) date else null,
             lastModified = System.currentTimeMillis(),
+            version = HybridLogicalClock.now(),
             syncStatus = SYNC_PENDING
         )
     }
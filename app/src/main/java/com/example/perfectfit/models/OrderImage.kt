@@ -21,6 +21,14 @@ import androidx.room.PrimaryKey
  * - Images are stored in app's private storage
  * - filePath contains the relative path to the image file
  * - Actual file management handled by ImageHelper utility
+ * - originalPath is set only in keep original mode and points at the
+ *   untouched full-resolution file used by the fullscreen viewer
+ * 
+ * Sync:
+ * - Image bytes are uploaded separately from records by ImageSyncWorker
+ * - contentHash (SHA-256 of the file) addresses the blob on the server, so
+ *   identical files are only ever transferred once
+ * - uploadedBytes records how far an interrupted upload got
  * 
  * @property id Auto-generated local database ID
  * @property orderId Foreign key to associated order
@@ -29,6 +37,10 @@ import androidx.room.PrimaryKey
  * @property caption Optional description or notes about the image
  * @property uploadedAt Timestamp when image was added
  * @property displayOrder Order for displaying in gallery (lower = first)
+ * @property originalPath Relative path to the full-resolution original, if kept
+ * @property contentHash SHA-256 hex digest of the file (empty until first sync attempt)
+ * @property uploadedBytes Bytes of the file confirmed by the server so far
+ * @property syncStatus Blob sync status (PENDING, SYNCED, FAILED)
  * 
  * @see [Order] for associated order
  */
@@ -44,7 +56,8 @@ import androidx.room.PrimaryKey
     ],
     indices = [
         Index(value = ["orderId"]),
-        Index(value = ["imageType"])
+        Index(value = ["imageType", "uploadedAt"]),  // Paged portfolio query
+        Index(value = ["syncStatus"])
     ]
 )
 data class OrderImage(
@@ -56,7 +69,13 @@ data class OrderImage(
     val imageType: String,
     val caption: String = "",
     val uploadedAt: Long = System.currentTimeMillis(),
-    val displayOrder: Int = 0
+    val displayOrder: Int = 0,
+    val originalPath: String? = null,
+    
+    // Sync fields
+    val contentHash: String = "",
+    val uploadedBytes: Long = 0,
+    val syncStatus: String = SYNC_PENDING
 ) {
     /**
      * Checks if this is a reference image (customer inspiration).
@@ -79,6 +98,11 @@ data class OrderImage(
         const val TYPE_COMPLETED = "COMPLETED"      // Finished work
         const val TYPE_PROGRESS = "PROGRESS"        // Work in progress
         const val TYPE_DEFECT = "DEFECT"           // Issue documentation
+        
+        // Sync status constants
+        const val SYNC_PENDING = "PENDING"
+        const val SYNC_SYNCED = "SYNCED"
+        const val SYNC_FAILED = "FAILED"
     }
 }
 
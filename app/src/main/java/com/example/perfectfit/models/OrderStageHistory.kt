@@ -87,11 +87,12 @@ data class OrderStageHistory(
     
     /**
      * Checks if this stage took longer than expected.
+     * @param expectedHours Delay threshold, e.g. learned from EffortModel
+     *                      (defaults to the hard-coded stage duration)
      */
-    fun isDelayed(): Boolean {
+    fun isDelayed(expectedHours: Float = ProductionStage.getExpectedDuration(stageName)): Boolean {
         val duration = getDurationHours() ?: getCurrentOrFinalDuration()
-        val expected = ProductionStage.getExpectedDuration(stageName)
-        return duration > expected
+        return duration > expectedHours
     }
     
     /**
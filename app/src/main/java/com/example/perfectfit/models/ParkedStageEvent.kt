@@ -0,0 +1,41 @@
+package com.example.perfectfit.models
+
+import androidx.room.Entity
+import androidx.room.Index
+import androidx.room.PrimaryKey
+
+/**
+ * A stage event pulled from the server for an order this device doesn't
+ * have yet.
+ *
+ * The pull cursor moves past such events, so they are kept here instead of
+ * being dropped, and are merged into stage_events once a later record sync
+ * brings their order in (matched by [orderServerId]). Events whose order
+ * never arrives are pruned after a while.
+ *
+ * @property eventId Globally unique ID of the event
+ * @property orderServerId MongoDB _id of the order the event belongs to
+ * @property fromStage Stage the order left, or null when production started
+ * @property toStage Stage the order entered
+ * @property occurredAt Timestamp of the transition
+ * @property fromStageDurationMs Time spent in [fromStage], or null if unknown
+ * @property parkedAt When the event was pulled and parked
+ *
+ * @see [StageEvent] for the merged event log
+ */
+@Entity(
+    tableName = "parked_stage_events",
+    indices = [
+        Index(value = ["parkedAt"])
+    ]
+)
+data class ParkedStageEvent(
+    @PrimaryKey
+    val eventId: String,
+    val orderServerId: String,
+    val fromStage: String?,
+    val toStage: String,
+    val occurredAt: Long,
+    val fromStageDurationMs: Long? = null,
+    val parkedAt: Long = System.currentTimeMillis()
+)
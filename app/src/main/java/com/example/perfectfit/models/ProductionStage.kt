@@ -32,6 +32,10 @@ import androidx.room.PrimaryKey
  * @property assignedTo Worker/station assigned to this stage (optional)
  * @property notes Stage-specific notes or instructions
  * @property estimatedCompletionDate Expected completion date for this stage
+ * @property deadlineAt When the current stage is expected to be done, set
+ *   when it starts; null for stages without an expected duration
+ * @property deadlineAlertedAt When the slow-order watchdog alerted about the
+ *   missed deadline, or null if it hasn't
  * 
  * @see [Order] for associated order
  * @see [OrderStageHistory] for stage transition history
@@ -48,7 +52,10 @@ import androidx.room.PrimaryKey
     ],
     indices = [
         Index(value = ["orderId"], unique = true),  // One active stage per order
-        Index(value = ["currentStage"])
+        // Stage filters, and the production board's recent-deliveries range
+        Index(value = ["currentStage", "stageStartedAt"]),
+        // Slow-order watchdog: unalerted stages past their deadline
+        Index(value = ["deadlineAlertedAt", "deadlineAt"])
     ]
 )
 data class ProductionStage(
@@ -60,7 +67,9 @@ data class ProductionStage(
     val stageStartedAt: Long = System.currentTimeMillis(),
     val assignedTo: String = "",
     val notes: String = "",
-    val estimatedCompletionDate: String = ""
+    val estimatedCompletionDate: String = "",
+    val deadlineAt: Long? = null,
+    val deadlineAlertedAt: Long? = null
 ) {
     /**
      * Returns the stage display name.
@@ -111,6 +120,8 @@ data class ProductionStage(
     
     /**
      * Checks if current stage has exceeded expected duration.
+     * @param expectedHours Delay threshold; pass EffortModel.delayThresholdHours()
+     *                      for the learned per-type value
      */
     fun isStageDelayed(expectedHours: Float): Boolean {
         return getTimeInCurrentStage() > expectedHours
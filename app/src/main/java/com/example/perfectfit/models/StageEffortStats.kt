@@ -0,0 +1,184 @@
+package com.example.perfectfit.models
+
+import androidx.room.Entity
+
+/**
+ * Running statistics of how long a production stage takes for an order type.
+ *
+ * One row per (orderType, stageName), updated each time an order completes
+ * that stage, plus an all-types row ([ALL_TYPES]) used as a fallback for
+ * order types with little history. Durations are never re-read from
+ * order_stage_history; each row is a constant-size summary, so stage
+ * analytics (averages, spread, delay rates) read one row per stage.
+ *
+ * Quantiles:
+ * - Tracked with the P² algorithm (Jain & Chlamtac): five markers whose
+ *   heights approximate the min, 25th, 50th, 75th percentile and max
+ * - q0..q4 are the marker heights (hours), n0..n4 their positions (1-based ranks)
+ * - The first five observations are stored exactly, sorted
+ *
+ * @property orderType Order type, or [ALL_TYPES] for all types combined
+ * @property stageName Production stage (see [ProductionStage])
+ * @property count Number of completed stages observed
+ * @property sumHours Sum of observed durations in hours
+ * @property sumSquaresHours Sum of squared durations, for the variance
+ * @property delayedCount Observations longer than the stage's expected
+ *   duration (ProductionStage.getExpectedDuration)
+ * @property updatedAt Timestamp of the last observation
+ *
+ * @see [com.example.perfectfit.utils.EffortModel] for how the stats are used
+ */
+@Entity(
+    tableName = "stage_effort_stats",
+    primaryKeys = ["orderType", "stageName"]
+)
+data class StageEffortStats(
+    val orderType: String,
+    val stageName: String,
+    val count: Int = 0,
+    val sumHours: Double = 0.0,
+    val sumSquaresHours: Double = 0.0,
+    val delayedCount: Int = 0,
+
+    // ===== P² markers =====
+    val q0: Double = 0.0,
+    val q1: Double = 0.0,
+    val q2: Double = 0.0,
+    val q3: Double = 0.0,
+    val q4: Double = 0.0,
+    val n0: Int = 0,
+    val n1: Int = 0,
+    val n2: Int = 0,
+    val n3: Int = 0,
+    val n4: Int = 0,
+
+    val updatedAt: Long = System.currentTimeMillis()
+) {
+    /** Mean duration in hours (0 if no observations) */
+    val meanHours: Double
+        get() = if (count > 0) sumHours / count else 0.0
+
+    /** Sample standard deviation of the duration in hours (0 with fewer than two observations) */
+    val stdDevHours: Double
+        get() {
+            if (count < 2) return 0.0
+            val variance = (sumSquaresHours - sumHours * sumHours / count) / (count - 1)
+            return Math.sqrt(variance.coerceAtLeast(0.0))
+        }
+
+    /** Share of observations that exceeded the expected duration, 0..1 */
+    val delayedFraction: Double
+        get() = if (count > 0) delayedCount.toDouble() / count else 0.0
+
+    /** Median duration in hours */
+    val medianHours: Double
+        get() = quantile(0.5)
+
+    /** 75th percentile duration in hours */
+    val upperQuartileHours: Double
+        get() = quantile(0.75)
+
+    /**
+     * Estimates a quantile by interpolating between the markers.
+     * Also serves as an inverse CDF for sampling durations.
+     *
+     * @param p Probability in 0..1
+     * @return Estimated duration in hours (0 if no observations)
+     */
+    fun quantile(p: Double): Double {
+        if (count == 0) return 0.0
+        val heights = markerHeights()
+        val positions = markerPositions()
+        val markers = minOf(count, MARKERS)
+        if (markers == 1) return heights[0]
+
+        val rank = 1 + p.coerceIn(0.0, 1.0) * (count - 1)
+        for (i in 0 until markers - 1) {
+            if (rank <= positions[i + 1]) {
+                val span = positions[i + 1] - positions[i]
+                val fraction = if (span > 0) (rank - positions[i]) / span else 0.0
+                return heights[i] + fraction * (heights[i + 1] - heights[i])
+            }
+        }
+        return heights[markers - 1]
+    }
+
+    /**
+     * Returns a copy updated with one more observed duration (P² step).
+     *
+     * @param hours Observed stage duration in hours
+     */
+    fun withObservation(hours: Double): StageEffortStats {
+        val q = markerHeights()
+        val n = markerPositions()
+
+        if (count < MARKERS) {
+            // Warm-up: keep the first observations exactly, sorted
+            var i = count
+            while (i > 0 && q[i - 1] > hours) {
+                q[i] = q[i - 1]
+                i--
+            }
+            q[i] = hours
+            for (j in 0..count) n[j] = j + 1
+        } else {
+            // Find the cell the observation falls in, extending the extremes if needed
+            val cell = when {
+                hours < q[0] -> { q[0] = hours; 0 }
+                hours >= q[4] -> { q[4] = hours; 3 }
+                else -> (0..3).first { hours < q[it + 1] }
+            }
+            for (i in cell + 1 until MARKERS) n[i]++
+
+            // Move the middle markers towards their desired positions
+            val total = count + 1
+            for (i in 1..3) {
+                val desired = 1 + (total - 1) * DESIRED_QUANTILES[i]
+                val delta = desired - n[i]
+                if ((delta >= 1 && n[i + 1] - n[i] > 1) || (delta <= -1 && n[i - 1] - n[i] < -1)) {
+                    val step = if (delta > 0) 1 else -1
+                    val parabolic = parabolic(q, n, i, step)
+                    q[i] = if (q[i - 1] < parabolic && parabolic < q[i + 1]) {
+                        parabolic
+                    } else {
+                        q[i] + step * (q[i + step] - q[i]) / (n[i + step] - n[i])
+                    }
+                    n[i] += step
+                }
+            }
+        }
+
+        return copy(
+            count = count + 1,
+            sumHours = sumHours + hours,
+            sumSquaresHours = sumSquaresHours + hours * hours,
+            delayedCount = delayedCount + if (hours > ProductionStage.getExpectedDuration(stageName)) 1 else 0,
+            q0 = q[0], q1 = q[1], q2 = q[2], q3 = q[3], q4 = q[4],
+            n0 = n[0], n1 = n[1], n2 = n[2], n3 = n[3], n4 = n[4],
+            updatedAt = System.currentTimeMillis()
+        )
+    }
+
+    private fun markerHeights() = doubleArrayOf(q0, q1, q2, q3, q4)
+
+    private fun markerPositions() = intArrayOf(n0, n1, n2, n3, n4)
+
+    /**
+     * Piecewise-parabolic (P²) prediction for marker [i] moved by [step].
+     */
+    private fun parabolic(q: DoubleArray, n: IntArray, i: Int, step: Int): Double {
+        val left = (n[i] - n[i - 1] + step).toDouble() * (q[i + 1] - q[i]) / (n[i + 1] - n[i])
+        val right = (n[i + 1] - n[i] - step).toDouble() * (q[i] - q[i - 1]) / (n[i] - n[i - 1])
+        return q[i] + step.toDouble() / (n[i + 1] - n[i - 1]) * (left + right)
+    }
+
+    companion object {
+        /** orderType of the row aggregating all order types */
+        const val ALL_TYPES = "*"
+
+        private const val MARKERS = 5
+
+        /** Quantile tracked by each marker */
+        private val DESIRED_QUANTILES = doubleArrayOf(0.0, 0.25, 0.5, 0.75, 1.0)
+    }
+}
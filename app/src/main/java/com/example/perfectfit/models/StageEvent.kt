@@ -0,0 +1,67 @@
+package com.example.perfectfit.models
+
+import androidx.room.Entity
+import androidx.room.ForeignKey
+import androidx.room.Index
+import androidx.room.PrimaryKey
+import java.util.UUID
+
+/**
+ * An entry in the append-only stream of production stage transitions.
+ *
+ * One row is written in the same transaction as every stage change (see
+ * [com.example.perfectfit.database.StageTransitionDao]) and never updated,
+ * apart from marking it [pushed].
+ * The auto-generated ID is a monotonically increasing sequence number, so
+ * consumers such as analytics and sync remember the last ID they processed
+ * and read only newer events instead of rescanning the history tables.
+ *
+ * Events are also the unit of production sync: each carries a globally
+ * unique [eventId], so pushing or pulling the same event twice is a no-op.
+ * Events pulled from other devices are stored with [fromServer] set and are
+ * not pushed back. Local events stay unpushed until their order has a
+ * server ID, without holding up events of other orders.
+ *
+ * @property id Sequence number of the event
+ * @property orderId Foreign key to the order that changed stage
+ * @property fromStage Stage the order left, or null when production started
+ * @property toStage Stage the order entered
+ * @property occurredAt Timestamp of the transition
+ * @property fromStageDurationMs Time spent in [fromStage], or null if unknown
+ * @property eventId Globally unique ID, the idempotency key for sync
+ * @property fromServer Whether the event was pulled from another device
+ * @property pushed Whether the event is stored on the server
+ *
+ * @see [OrderStageHistory] for the per-stage time records
+ */
+@Entity(
+    tableName = "stage_events",
+    foreignKeys = [
+        ForeignKey(
+            entity = Order::class,
+            parentColumns = ["id"],
+            childColumns = ["orderId"],
+            onDelete = ForeignKey.CASCADE
+        )
+    ],
+    indices = [
+        Index(value = ["orderId"]),
+        Index(value = ["eventId"], unique = true),  // Sync deduplication
+        Index(value = ["pushed"])                   // Push queue
+    ]
+)
+data class StageEvent(
+    @PrimaryKey(autoGenerate = true)
+    val id: Long = 0,
+
+    val orderId: Int,
+    val fromStage: String?,
+    val toStage: String,
+    val occurredAt: Long,
+    val fromStageDurationMs: Long? = null,
+
+    // ===== Sync Fields =====
+    val eventId: String = UUID.randomUUID().toString(),
+    val fromServer: Boolean = false,
+    val pushed: Boolean = false
+)
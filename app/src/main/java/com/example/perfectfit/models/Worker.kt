@@ -0,0 +1,88 @@
+package com.example.perfectfit.models
+
+import androidx.room.Entity
+import androidx.room.Index
+import androidx.room.PrimaryKey
+
+/**
+ * Represents a tailor working in the shop.
+ *
+ * Each worker has their own weekly working hours. When at least one active
+ * worker exists, the shop's capacity is the sum of the workers' hours (see
+ * [WorkloadConfig.withWorkforce]); otherwise the single-worker hours in
+ * [WorkloadConfig] are used.
+ *
+ * Stage assignments refer to workers by name through
+ * ProductionStage.assignedTo and OrderStageHistory.assignedTo, so names are
+ * unique.
+ *
+ * @property id Auto-generated local database ID
+ * @property name Display name, unique within the shop
+ * @property mondayHours Working hours on Monday (and likewise for each day)
+ * @property isActive Inactive workers keep their history but get no new work
+ * @property createdAt Timestamp when the worker was added
+ *
+ * @see [ProductionStage] for stage assignment
+ */
+@Entity(
+    tableName = "workers",
+    indices = [
+        Index(value = ["name"], unique = true)
+    ]
+)
+data class Worker(
+    @PrimaryKey(autoGenerate = true)
+    val id: Int = 0,
+
+    val name: String,
+    val mondayHours: Float = 8.0f,
+    val tuesdayHours: Float = 8.0f,
+    val wednesdayHours: Float = 8.0f,
+    val thursdayHours: Float = 8.0f,
+    val fridayHours: Float = 8.0f,
+    val saturdayHours: Float = 4.0f,
+    val sundayHours: Float = 0.0f,
+    val isActive: Boolean = true,
+    val createdAt: Long = System.currentTimeMillis()
+) {
+    /**
+     * Working hours for a Calendar.DAY_OF_WEEK value.
+     */
+    fun getHoursForDay(dayOfWeek: Int): Float {
+        return when (dayOfWeek) {
+            1 -> sundayHours // Calendar.SUNDAY = 1
+            2 -> mondayHours
+            3 -> tuesdayHours
+            4 -> wednesdayHours
+            5 -> thursdayHours
+            6 -> fridayHours
+            7 -> saturdayHours // Calendar.SATURDAY = 7
+            else -> 0.0f
+        }
+    }
+
+    /**
+     * Total working hours per week.
+     */
+    val totalWeeklyHours: Float
+        get() = mondayHours + tuesdayHours + wednesdayHours +
+                thursdayHours + fridayHours + saturdayHours + sundayHours
+
+    /**
+     * This worker's hours with the shop's estimation settings (time per
+     * order, buffer, productivity, weekend reduction).
+     *
+     * @param shopConfig The shop's workload configuration
+     */
+    fun toWorkloadConfig(shopConfig: WorkloadConfig): WorkloadConfig {
+        return shopConfig.copy(
+            mondayHours = mondayHours,
+            tuesdayHours = tuesdayHours,
+            wednesdayHours = wednesdayHours,
+            thursdayHours = thursdayHours,
+            fridayHours = fridayHours,
+            saturdayHours = saturdayHours,
+            sundayHours = sundayHours
+        )
+    }
+}
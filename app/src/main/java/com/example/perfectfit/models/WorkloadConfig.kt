@@ -50,5 +50,21 @@ data class WorkloadConfig(
     val totalWeeklyHours: Float
         get() = mondayHours + tuesdayHours + wednesdayHours + 
                 thursdayHours + fridayHours + saturdayHours + sundayHours
+
+    // Shop-wide config: daily hours are the sum of the active workers' hours
+    // (unchanged when no workers are set up, i.e. a single-tailor shop)
+    fun withWorkforce(workers: List<Worker>): WorkloadConfig {
+        val active = workers.filter { it.isActive }
+        if (active.isEmpty()) return this
+        return copy(
+            mondayHours = active.sumOf { it.mondayHours.toDouble() }.toFloat(),
+            tuesdayHours = active.sumOf { it.tuesdayHours.toDouble() }.toFloat(),
+            wednesdayHours = active.sumOf { it.wednesdayHours.toDouble() }.toFloat(),
+            thursdayHours = active.sumOf { it.thursdayHours.toDouble() }.toFloat(),
+            fridayHours = active.sumOf { it.fridayHours.toDouble() }.toFloat(),
+            saturdayHours = active.sumOf { it.saturdayHours.toDouble() }.toFloat(),
+            sundayHours = active.sumOf { it.sundayHours.toDouble() }.toFloat()
+        )
+    }
 }
 
@@ -4,6 +4,13 @@ import com.google.gson.annotations.SerializedName
 
 // API Request/Response models for network communication
 
+/**
+ * An order as synced: every field of the Order model except local sync state.
+ *
+ * schemaVersion says which fields the writer knew about. Payment fields are
+ * null when the order was last written by a schema 1 client, which didn't
+ * send them; readers keep their local values then.
+ */
 data class ApiOrder(
     @SerializedName("_id")
     val id: String? = null,
@@ -17,8 +24,19 @@ data class ApiOrder(
     val instructions: String,
     val amount: Double,
     val status: String,
-    val lastModified: Long
-)
+    val advancePayment: Double? = null,
+    val balancePayment: Double? = null,
+    val paymentStatus: String? = null,
+    val paymentDate: String? = null,
+    val lastModified: Long,
+    val version: String? = null,
+    val schemaVersion: Int? = null
+) {
+    companion object {
+        /** Order schema this app writes: 1 = without payments, 2 = full Order model */
+        const val SCHEMA_VERSION = 2
+    }
+}
 
 data class ApiCustomer(
     @SerializedName("_id")
@@ -30,7 +48,8 @@ data class ApiCustomer(
     val mobile: String,
     val alternateMobile: String,
     val birthDate: String,
-    val lastModified: Long
+    val lastModified: Long,
+    val version: String? = null
 )
 
 data class ApiMeasurement(
@@ -85,27 +104,46 @@ data class ApiMeasurement(
     val blouseSleevesRound: String = "",
     val blouseHookOn: String = "",
     
-    val lastModified: Long
+    val lastModified: Long,
+    val version: String? = null
 )
 
 // Sync Request/Response wrappers
+/**
+ * lastSyncSeq is the serverSeq of the previous response; null makes the
+ * server fall back to lastSyncTimestamp.
+ */
 data class SyncRequest<T>(
     val data: List<T>,
-    val lastSyncTimestamp: Long
+    val lastSyncTimestamp: Long,
+    val lastSyncSeq: Long? = null
 )
 
 data class SyncResponse<T>(
     val success: Boolean,
     val data: List<T>? = null,
     val message: String? = null,
-    val serverTimestamp: Long
+    val serverTimestamp: Long,
+    val serverSeq: Long? = null
+)
+
+/**
+ * One page of a keyset-paginated list. Pass nextCursor as the next
+ * request's "after"; it is null on the last page.
+ */
+data class ApiPage<T>(
+    val data: List<T>,
+    val nextCursor: String? = null,
+    val serverTimestamp: Long,
+    val serverSeq: Long? = null
 )
 
 data class BatchSyncRequest(
     val customers: List<ApiCustomer> = emptyList(),
     val orders: List<ApiOrder> = emptyList(),
     val measurements: List<ApiMeasurement> = emptyList(),
-    val lastSyncTimestamp: Long
+    val lastSyncTimestamp: Long,
+    val lastSyncSeq: Long? = null
 )
 
 data class BatchSyncResponse(
@@ -114,6 +152,84 @@ data class BatchSyncResponse(
     val orders: List<ApiOrder>? = null,
     val measurements: List<ApiMeasurement>? = null,
     val message: String? = null,
+    val serverTimestamp: Long,
+    val serverSeq: Long? = null
+)
+
+
+// Production stage event sync models
+
+/**
+ * A production stage transition. eventId is generated on the device that
+ * made the move and is the idempotency key; receivedAt is stamped by the
+ * server and, with eventId, is the pull cursor.
+ */
+data class ApiStageEvent(
+    val eventId: String,
+    val orderServerId: String,
+    val fromStage: String?,
+    val toStage: String,
+    val occurredAt: Long,
+    val fromStageDurationMs: Long? = null,
+    val receivedAt: Long = 0
+)
+
+data class StageEventPushRequest(
+    val events: List<ApiStageEvent>
+)
+
+data class StageEventPushResponse(
+    val success: Boolean,
+    val accepted: Int = 0,
+    val message: String? = null,
     val serverTimestamp: Long
 )
 
+data class StageEventPage(
+    val events: List<ApiStageEvent>,
+    val hasMore: Boolean
+)
+
+
+// Bootstrap snapshot models
+
+/**
+ * A downloadable snapshot of all records. size and sha256 describe the
+ * gzipped file; serverSeq (or serverTimestamp) is where the catch-up sync starts.
+ */
+data class ApiSnapshotInfo(
+    val id: String,
+    val format: Int,
+    val serverTimestamp: Long,
+    val serverSeq: Long? = null,
+    val size: Long,
+    val sha256: String
+)
+
+
+// Image blob transfer models
+
+/**
+ * Server-side state of a content-addressed image blob.
+ * receivedBytes is the offset the next chunk must start at.
+ */
+data class ApiBlobStatus(
+    val hash: String,
+    val size: Long = 0,
+    val receivedBytes: Long = 0,
+    val complete: Boolean = false
+)
+
+data class ApiOrderImage(
+    @SerializedName("_id")
+    val id: String? = null,
+    val localId: Int? = null,
+    val orderLocalId: Int,
+    val orderServerId: String?,
+    val contentHash: String,
+    val size: Long,
+    val imageType: String,
+    val caption: String,
+    val uploadedAt: Long,
+    val displayOrder: Int
+)
@@ -0,0 +1,48 @@
+package com.example.perfectfit.network
+
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.flow
+import retrofit2.Response
+import java.io.IOException
+
+/**
+ * Streams keyset-paginated list endpoints as a [Flow] of pages.
+ *
+ * Each page is requested only when the collector is ready for it, and
+ * nothing keeps a reference to earlier pages, so reading a whole collection
+ * takes memory for one page however large the collection is.
+ *
+ * Usage:
+ * ```
+ * ApiPager.pages { after, limit -> apiService.getCustomersPage(after, limit) }
+ *     .collect { page -> store(page.data) }
+ * ```
+ */
+object ApiPager {
+
+    /** Records per page unless the caller asks otherwise */
+    const val DEFAULT_PAGE_SIZE = 100
+
+    /**
+     * Pages through an endpoint from the start until it reports no next cursor.
+     *
+     * @param pageSize Records per request
+     * @param fetch Requests the page after a cursor (null for the first page)
+     * @return Cold flow of pages; fails with IOException on an unsuccessful response
+     */
+    fun <T> pages(
+        pageSize: Int = DEFAULT_PAGE_SIZE,
+        fetch: suspend (after: String?, limit: Int) -> Response<ApiPage<T>>
+    ): Flow<ApiPage<T>> = flow {
+        var cursor: String? = null
+        do {
+            val response = fetch(cursor, pageSize)
+            val page = response.body()
+            if (!response.isSuccessful || page == null) {
+                throw IOException("Page request failed: ${response.code()}")
+            }
+            emit(page)
+            cursor = page.nextCursor
+        } while (cursor != null)
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.perfectfit.network
 
+import okhttp3.RequestBody
+import okhttp3.ResponseBody
 import retrofit2.Response
 import retrofit2.http.*
 
@@ -12,9 +14,18 @@ interface ApiService {
     // Individual entity endpoints
     
     // Customers
+    @Deprecated("Loads the whole collection at once; page through getCustomersPage with ApiPager")
     @GET("api/customers")
     suspend fun getAllCustomers(): Response<List<ApiCustomer>>
     
+    @GET("api/customers/page")
+    suspend fun getCustomersPage(
+        @Query("after") after: String?,
+        @Query("limit") limit: Int,
+        @Query("since") since: Long? = null,
+        @Query("fields") fields: String? = null
+    ): Response<ApiPage<ApiCustomer>>
+    
     @GET("api/customers/modified")
     suspend fun getModifiedCustomers(@Query("since") timestamp: Long): Response<List<ApiCustomer>>
     
@@ -28,9 +39,18 @@ interface ApiService {
     suspend fun syncCustomers(@Body request: SyncRequest<ApiCustomer>): Response<SyncResponse<ApiCustomer>>
     
     // Orders
+    @Deprecated("Loads the whole collection at once; page through getOrdersPage with ApiPager")
     @GET("api/orders")
     suspend fun getAllOrders(): Response<List<ApiOrder>>
     
+    @GET("api/orders/page")
+    suspend fun getOrdersPage(
+        @Query("after") after: String?,
+        @Query("limit") limit: Int,
+        @Query("since") since: Long? = null,
+        @Query("fields") fields: String? = null
+    ): Response<ApiPage<ApiOrder>>
+    
     @GET("api/orders/modified")
     suspend fun getModifiedOrders(@Query("since") timestamp: Long): Response<List<ApiOrder>>
     
@@ -44,9 +64,18 @@ interface ApiService {
     suspend fun syncOrders(@Body request: SyncRequest<ApiOrder>): Response<SyncResponse<ApiOrder>>
     
     // Measurements
+    @Deprecated("Loads the whole collection at once; page through getMeasurementsPage with ApiPager")
     @GET("api/measurements")
     suspend fun getAllMeasurements(): Response<List<ApiMeasurement>>
     
+    @GET("api/measurements/page")
+    suspend fun getMeasurementsPage(
+        @Query("after") after: String?,
+        @Query("limit") limit: Int,
+        @Query("since") since: Long? = null,
+        @Query("fields") fields: String? = null
+    ): Response<ApiPage<ApiMeasurement>>
+    
     @GET("api/measurements/modified")
     suspend fun getModifiedMeasurements(@Query("since") timestamp: Long): Response<List<ApiMeasurement>>
     
@@ -59,6 +88,43 @@ interface ApiService {
     @POST("api/measurements/batch")
     suspend fun syncMeasurements(@Body request: SyncRequest<ApiMeasurement>): Response<SyncResponse<ApiMeasurement>>
     
+    // Production stage events (append-only, deduplicated by eventId)
+    @POST("api/stage-events/batch")
+    suspend fun pushStageEvents(@Body request: StageEventPushRequest): Response<StageEventPushResponse>
+    
+    @GET("api/stage-events")
+    suspend fun getStageEvents(
+        @Query("afterTs") afterTs: Long,
+        @Query("afterId") afterId: String,
+        @Query("limit") limit: Int
+    ): Response<StageEventPage>
+    
+    // Bootstrap snapshot (downloaded through RetrofitClient.downloadService)
+    @GET("api/snapshot")
+    suspend fun getSnapshotInfo(): Response<ApiSnapshotInfo>
+    
+    @Streaming
+    @GET("api/snapshot/{id}")
+    suspend fun downloadSnapshot(
+        @Path("id") id: String,
+        @Header("Range") range: String?
+    ): Response<ResponseBody>
+    
+    // Image blobs (content-hash addressed, uploaded in resumable chunks)
+    @GET("api/images/blobs/{hash}")
+    suspend fun getBlobStatus(@Path("hash") hash: String, @Query("size") size: Long): Response<ApiBlobStatus>
+    
+    @PUT("api/images/blobs/{hash}")
+    suspend fun uploadBlobChunk(
+        @Path("hash") hash: String,
+        @Query("offset") offset: Long,
+        @Query("size") size: Long,
+        @Body chunk: RequestBody
+    ): Response<ApiBlobStatus>
+    
+    @POST("api/images")
+    suspend fun saveImageMetadata(@Body image: ApiOrderImage): Response<ApiOrderImage>
+    
     // Health check
     @GET("api/health")
     suspend fun healthCheck(): Response<Map<String, String>>
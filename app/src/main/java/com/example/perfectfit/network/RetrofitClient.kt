@@ -119,6 +119,20 @@ object RetrofitClient {
         .writeTimeout(30, TimeUnit.SECONDS)
         .build()
     
+    /**
+     * OkHttp client for large streamed downloads. Logs headers only, since
+     * body logging would buffer the whole download in memory, and allows a
+     * longer gap between packets.
+     */
+    private val downloadHttpClient = OkHttpClient.Builder()
+        .addInterceptor(HttpLoggingInterceptor().apply {
+            level = HttpLoggingInterceptor.Level.HEADERS
+        })
+        .connectTimeout(30, TimeUnit.SECONDS)
+        .readTimeout(60, TimeUnit.SECONDS)
+        .writeTimeout(30, TimeUnit.SECONDS)
+        .build()
+    
     /**
      * Main Retrofit instance configured with:
      * - Base URL for all API endpoints
@@ -146,6 +160,17 @@ object RetrofitClient {
      */
     val apiService: ApiService = retrofit.create(ApiService::class.java)
     
+    /**
+     * API service for @Streaming downloads such as bootstrap snapshots.
+     * Same endpoints as [apiService], without response body logging.
+     */
+    val downloadService: ApiService = Retrofit.Builder()
+        .baseUrl(BASE_URL)
+        .client(downloadHttpClient)
+        .addConverterFactory(GsonConverterFactory.create())
+        .build()
+        .create(ApiService::class.java)
+    
     /**
      * Creates a new API service instance with a custom base URL.
      * 
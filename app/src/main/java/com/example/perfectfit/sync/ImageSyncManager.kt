@@ -0,0 +1,248 @@
+package com.example.perfectfit.sync
+
+import android.content.Context
+import android.os.SystemClock
+import android.util.Log
+import com.example.perfectfit.database.AppDatabase
+import com.example.perfectfit.database.PendingImageUpload
+import com.example.perfectfit.models.OrderImage
+import com.example.perfectfit.network.ApiBlobStatus
+import com.example.perfectfit.network.ApiOrderImage
+import com.example.perfectfit.network.RetrofitClient
+import com.example.perfectfit.utils.ImageHelper
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.withContext
+import okhttp3.MediaType.Companion.toMediaType
+import okhttp3.RequestBody.Companion.toRequestBody
+import java.io.File
+import java.io.RandomAccessFile
+
+/**
+ * Uploads order and portfolio image files to the server.
+ *
+ * Image bytes are kept out of the record sync (SyncManager) so that a large
+ * photo backlog never delays customers, orders and measurements. Each image
+ * is transferred as a content-addressed blob:
+ *
+ * Upload Flow:
+ * 1. Compute (once) the SHA-256 hash of the file and store it on the row
+ * 2. Ask the server how many bytes of that blob it already has
+ * 3. Upload the remaining bytes in fixed-size chunks starting at that offset
+ * 4. Save the image metadata (order, type, caption) against the hash
+ * 5. Mark the row SYNCED
+ *
+ * Because blobs are addressed by hash, a file the server already holds is
+ * skipped entirely, and an interrupted upload resumes from the last chunk the
+ * server acknowledged rather than starting over.
+ *
+ * Bandwidth:
+ * - Chunks are paced to stay under MAX_BYTES_PER_SECOND so uploads don't
+ *   saturate the shop's connection
+ * - Upload progress is written to the row at most every
+ *   PROGRESS_SAVE_INTERVAL_MS, since each write refreshes the portfolio
+ *   gallery; resuming relies on the server's offset, not on this column
+ *
+ * Images belonging to orders that have not been synced yet are not read;
+ * they are picked up on a later run once the order has a server ID.
+ *
+ * @param context Application context for database and file access
+ *
+ * @see [ImageSyncWorker] for scheduling
+ * @see [OrderImage] for sync fields
+ */
+class ImageSyncManager(private val context: Context) {
+
+    private val database = AppDatabase.getDatabase(context)
+    private val apiService = RetrofitClient.apiService
+    private val imageHelper = ImageHelper(context)
+
+    companion object {
+        private const val TAG = "ImageSyncManager"
+
+        /** Images read per query; pages are read until none are left */
+        private const val BATCH_SIZE = 20
+
+        /** Minimum time between upload progress writes during one upload */
+        private const val PROGRESS_SAVE_INTERVAL_MS = 5_000L
+
+        /** Size of each upload chunk in bytes */
+        const val CHUNK_SIZE = 256 * 1024
+
+        /** Upload bandwidth cap in bytes per second */
+        const val MAX_BYTES_PER_SECOND = 512 * 1024L
+    }
+
+    /**
+     * Uploads all pending images of synced orders, a page at a time until
+     * none are left. A failed image stays PENDING for the next run; the
+     * (uploadedAt, id) cursor moves past it so it isn't retried in this one.
+     *
+     * @return SyncManager result code (SYNC_SUCCESS, SYNC_PARTIAL, SYNC_FAILED)
+     */
+    suspend fun syncImages(): Int = withContext(Dispatchers.IO) {
+        val throttle = BandwidthThrottle(MAX_BYTES_PER_SECOND)
+        var attempted = 0
+        var failures = 0
+        var afterUploadedAt = 0L
+        var afterId = 0
+
+        do {
+            val page = database.orderImageDao().getUploadableImages(afterUploadedAt, afterId, BATCH_SIZE)
+            if (page.isNotEmpty()) {
+                Log.d(TAG, "Uploading ${page.size} pending images")
+            }
+
+            for (pending in page) {
+                attempted++
+                try {
+                    if (!syncImage(pending, throttle)) {
+                        failures++
+                    }
+                } catch (e: Exception) {
+                    Log.e(TAG, "Error uploading image ${pending.image.id}: ${e.message}", e)
+                    failures++
+                }
+            }
+
+            page.lastOrNull()?.let {
+                afterUploadedAt = it.image.uploadedAt
+                afterId = it.image.id
+            }
+        } while (page.size == BATCH_SIZE)
+
+        when {
+            failures == 0 -> SyncManager.SYNC_SUCCESS
+            failures < attempted -> SyncManager.SYNC_PARTIAL
+            else -> SyncManager.SYNC_FAILED
+        }
+    }
+
+    /**
+     * Uploads a single image and its metadata.
+     *
+     * @return true if the image is synced (or can never be), false on failure
+     */
+    private suspend fun syncImage(pending: PendingImageUpload, throttle: BandwidthThrottle): Boolean {
+        val imageDao = database.orderImageDao()
+        val image = pending.image
+
+        val file = File(imageHelper.getFullPath(image.filePath))
+        if (!file.exists()) {
+            // Nothing to retry, so this doesn't count as a failed run
+            Log.w(TAG, "Image file missing for image ${image.id}, marking failed")
+            imageDao.updateSyncStatus(image.id, OrderImage.SYNC_FAILED)
+            return true
+        }
+
+        val hash = image.contentHash.ifEmpty {
+            val computed = imageHelper.computeContentHash(image.filePath) ?: return false
+            imageDao.updateContentHash(image.id, computed)
+            computed
+        }
+        val size = file.length()
+
+        val statusResponse = apiService.getBlobStatus(hash, size)
+        var status = statusResponse.body()
+        if (!statusResponse.isSuccessful || status == null) {
+            Log.e(TAG, "Blob status request failed: ${statusResponse.code()}")
+            return false
+        }
+
+        if (!status.complete) {
+            status = uploadRemainingChunks(image.id, file, hash, size, status, throttle) ?: return false
+        }
+
+        val metadataResponse = apiService.saveImageMetadata(
+            ApiOrderImage(
+                localId = image.id,
+                orderLocalId = image.orderId,
+                orderServerId = pending.orderServerId,
+                contentHash = hash,
+                size = size,
+                imageType = image.imageType,
+                caption = image.caption,
+                uploadedAt = image.uploadedAt,
+                displayOrder = image.displayOrder
+            )
+        )
+        if (!metadataResponse.isSuccessful) {
+            Log.e(TAG, "Image metadata request failed: ${metadataResponse.code()}")
+            return false
+        }
+
+        imageDao.markUploaded(image.id, status.receivedBytes)
+        Log.d(TAG, "Image ${image.id} synced ($hash)")
+        return true
+    }
+
+    /**
+     * Streams the file from the server's acknowledged offset to the end.
+     *
+     * @return Final blob status, or null if the upload was interrupted
+     */
+    private suspend fun uploadRemainingChunks(
+        imageId: Int,
+        file: File,
+        hash: String,
+        size: Long,
+        initialStatus: ApiBlobStatus,
+        throttle: BandwidthThrottle
+    ): ApiBlobStatus? {
+        val mediaType = "application/octet-stream".toMediaType()
+        val buffer = ByteArray(CHUNK_SIZE)
+        var status = initialStatus
+        var progressSavedAt = SystemClock.elapsedRealtime()
+
+        RandomAccessFile(file, "r").use { raf ->
+            while (!status.complete && status.receivedBytes < size) {
+                val offset = status.receivedBytes
+                raf.seek(offset)
+                val length = raf.read(buffer, 0, minOf(CHUNK_SIZE.toLong(), size - offset).toInt())
+                if (length <= 0) return null
+
+                throttle.acquire(length)
+
+                val response = apiService.uploadBlobChunk(
+                    hash, offset, size, buffer.toRequestBody(mediaType, 0, length)
+                )
+                val body = response.body()
+                status = when {
+                    response.isSuccessful && body != null -> body
+                    // 409: server has a different offset, resume from what it reports
+                    response.code() == 409 -> apiService.getBlobStatus(hash, size).body() ?: return null
+                    else -> {
+                        Log.e(TAG, "Chunk upload failed at $offset: ${response.code()}")
+                        return null
+                    }
+                }
+
+                // Throttled: every write re-runs the portfolio queries
+                val now = SystemClock.elapsedRealtime()
+                if (now - progressSavedAt >= PROGRESS_SAVE_INTERVAL_MS) {
+                    database.orderImageDao().updateUploadProgress(imageId, status.receivedBytes)
+                    progressSavedAt = now
+                }
+            }
+        }
+
+        return if (status.complete) status else null
+    }
+
+    /**
+     * Paces uploads so the average rate stays under a byte-per-second budget.
+     */
+    private class BandwidthThrottle(private val bytesPerSecond: Long) {
+        private val startedAt = SystemClock.elapsedRealtime()
+        private var bytesSent = 0L
+
+        suspend fun acquire(bytes: Int) {
+            bytesSent += bytes
+            val earliestMs = bytesSent * 1000 / bytesPerSecond
+            val elapsedMs = SystemClock.elapsedRealtime() - startedAt
+            if (earliestMs > elapsedMs) {
+                delay(earliestMs - elapsedMs)
+            }
+        }
+    }
+}
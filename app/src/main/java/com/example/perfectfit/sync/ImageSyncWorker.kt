@@ -0,0 +1,77 @@
+package com.example.perfectfit.sync
+
+import android.content.Context
+import android.util.Log
+import androidx.work.*
+import java.util.concurrent.TimeUnit
+
+/**
+ * WorkManager worker for uploading image files.
+ *
+ * Runs separately from SyncWorker so image transfers never hold up record sync.
+ * It is enqueued after each successful record sync, since images can only be
+ * linked once their order has a server ID.
+ */
+class ImageSyncWorker(
+    context: Context,
+    workerParams: WorkerParameters
+) : CoroutineWorker(context, workerParams) {
+
+    companion object {
+        private const val TAG = "ImageSyncWorker"
+        const val WORK_NAME = "perfect_fit_image_sync"
+
+        /**
+         * Schedule image upload (runs when network is available and battery is not low).
+         * An upload already in progress is kept rather than restarted.
+         */
+        fun scheduleImageSync(context: Context) {
+            val constraints = Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .setRequiresBatteryNotLow(true)
+                .build()
+
+            val uploadRequest = OneTimeWorkRequestBuilder<ImageSyncWorker>()
+                .setConstraints(constraints)
+                .setBackoffCriteria(
+                    BackoffPolicy.EXPONENTIAL,
+                    WorkRequest.MIN_BACKOFF_MILLIS,
+                    TimeUnit.MILLISECONDS
+                )
+                .build()
+
+            WorkManager.getInstance(context).enqueueUniqueWork(
+                WORK_NAME,
+                ExistingWorkPolicy.KEEP,
+                uploadRequest
+            )
+
+            Log.d(TAG, "Image sync scheduled")
+        }
+
+        /**
+         * Cancel pending image uploads
+         */
+        fun cancelImageSync(context: Context) {
+            WorkManager.getInstance(context).cancelUniqueWork(WORK_NAME)
+        }
+    }
+
+    override suspend fun doWork(): Result {
+        return try {
+            Log.d(TAG, "Starting image upload...")
+
+            when (ImageSyncManager(applicationContext).syncImages()) {
+                SyncManager.SYNC_SUCCESS -> Result.success()
+                SyncManager.SYNC_PARTIAL -> {
+                    Log.w(TAG, "Some images failed to upload")
+                    Result.retry()
+                }
+                else -> Result.retry()
+            }
+        } catch (e: Exception) {
+            Log.e(TAG, "Image upload error: ${e.message}", e)
+            Result.retry()
+        }
+    }
+}
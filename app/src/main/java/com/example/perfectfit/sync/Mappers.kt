@@ -3,9 +3,12 @@ package com.example.perfectfit.sync
 import com.example.perfectfit.models.Customer
 import com.example.perfectfit.models.Measurement
 import com.example.perfectfit.models.Order
+import com.example.perfectfit.models.ParkedStageEvent
+import com.example.perfectfit.models.StageEvent
 import com.example.perfectfit.network.ApiCustomer
 import com.example.perfectfit.network.ApiMeasurement
 import com.example.perfectfit.network.ApiOrder
+import com.example.perfectfit.network.ApiStageEvent
 
 /**
  * Extension functions to convert between Room models and API models
@@ -24,10 +27,21 @@ fun Order.toApiModel() = ApiOrder(
     instructions = instructions,
     amount = amount,
     status = status,
-    lastModified = lastModified
+    advancePayment = advancePayment,
+    balancePayment = balancePayment,
+    paymentStatus = paymentStatus,
+    paymentDate = paymentDate,
+    lastModified = lastModified,
+    version = version,
+    schemaVersion = ApiOrder.SCHEMA_VERSION
 )
 
-fun ApiOrder.toRoomModel() = Order(
+/**
+ * @param existing Local copy of the order, if any. Payment fields the server
+ *   doesn't have (orders last written before schema version 2) are kept
+ *   from it instead of being reset.
+ */
+fun ApiOrder.toRoomModel(existing: Order? = null) = Order(
     id = localId ?: 0,
     customerId = customerId,
     customerName = customerName,
@@ -37,8 +51,13 @@ fun ApiOrder.toRoomModel() = Order(
     instructions = instructions,
     amount = amount,
     status = status,
+    advancePayment = advancePayment ?: existing?.advancePayment ?: 0.0,
+    balancePayment = balancePayment ?: existing?.balancePayment ?: 0.0,
+    paymentStatus = paymentStatus ?: existing?.paymentStatus ?: Order.PAYMENT_UNPAID,
+    paymentDate = if (paymentStatus != null) paymentDate else existing?.paymentDate,
     serverId = id,
     lastModified = lastModified,
+    version = version ?: "",
     syncStatus = Order.SYNC_SYNCED
 )
 
@@ -52,7 +71,8 @@ fun Customer.toApiModel() = ApiCustomer(
     mobile = mobile,
     alternateMobile = alternateMobile,
     birthDate = birthDate,
-    lastModified = lastModified
+    lastModified = lastModified,
+    version = version
 )
 
 fun ApiCustomer.toRoomModel() = Customer(
@@ -65,6 +85,7 @@ fun ApiCustomer.toRoomModel() = Customer(
     birthDate = birthDate,
     serverId = id,
     lastModified = lastModified,
+    version = version ?: "",
     syncStatus = Customer.SYNC_SYNCED
 )
 
@@ -120,7 +141,8 @@ fun Measurement.toApiModel() = ApiMeasurement(
     blouseSleevesRound = blouseSleevesRound,
     blouseHookOn = blouseHookOn,
     
-    lastModified = lastModified
+    lastModified = lastModified,
+    version = version
 )
 
 fun ApiMeasurement.toRoomModel() = Measurement(
@@ -174,6 +196,46 @@ fun ApiMeasurement.toRoomModel() = Measurement(
     
     serverId = id,
     lastModified = lastModified,
+    version = version ?: "",
     syncStatus = Measurement.SYNC_SYNCED
 )
 
+// Stage event conversions (orders are matched across devices by server ID)
+fun StageEvent.toApiModel(orderServerId: String) = ApiStageEvent(
+    eventId = eventId,
+    orderServerId = orderServerId,
+    fromStage = fromStage,
+    toStage = toStage,
+    occurredAt = occurredAt,
+    fromStageDurationMs = fromStageDurationMs
+)
+
+fun ApiStageEvent.toRoomModel(orderId: Int) = StageEvent(
+    orderId = orderId,
+    fromStage = fromStage,
+    toStage = toStage,
+    occurredAt = occurredAt,
+    fromStageDurationMs = fromStageDurationMs,
+    eventId = eventId,
+    fromServer = true,
+    pushed = true
+)
+
+// Pulled events wait here until their order arrives
+fun ApiStageEvent.toParkedModel() = ParkedStageEvent(
+    eventId = eventId,
+    orderServerId = orderServerId,
+    fromStage = fromStage,
+    toStage = toStage,
+    occurredAt = occurredAt,
+    fromStageDurationMs = fromStageDurationMs
+)
+
+fun ParkedStageEvent.toApiModel() = ApiStageEvent(
+    eventId = eventId,
+    orderServerId = orderServerId,
+    fromStage = fromStage,
+    toStage = toStage,
+    occurredAt = occurredAt,
+    fromStageDurationMs = fromStageDurationMs
+)
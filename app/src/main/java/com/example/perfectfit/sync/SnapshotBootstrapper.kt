@@ -0,0 +1,266 @@
+package com.example.perfectfit.sync
+
+import android.content.Context
+import android.util.Log
+import androidx.room.withTransaction
+import com.example.perfectfit.database.AppDatabase
+import com.example.perfectfit.models.Customer
+import com.example.perfectfit.models.Measurement
+import com.example.perfectfit.models.Order
+import com.example.perfectfit.network.ApiCustomer
+import com.example.perfectfit.network.ApiMeasurement
+import com.example.perfectfit.network.ApiOrder
+import com.example.perfectfit.network.ApiSnapshotInfo
+import com.example.perfectfit.network.RetrofitClient
+import com.example.perfectfit.utils.HybridLogicalClock
+import com.example.perfectfit.utils.ProductionScheduler
+import com.example.perfectfit.utils.WorkerAssignmentEngine
+import com.example.perfectfit.workers.DeliveryAlertWorker
+import com.google.gson.Gson
+import com.google.gson.JsonParser
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+import java.io.File
+import java.io.FileOutputStream
+import java.io.IOException
+import java.security.MessageDigest
+import java.util.zip.GZIPInputStream
+
+/**
+ * Bootstraps a device that has never synced from a server snapshot.
+ *
+ * Instead of pulling every record through the sync endpoints and
+ * reconciling them one by one, the device downloads one file with all
+ * customers, orders and measurements and bulk-inserts it. It then catches
+ * up with a normal sync from the snapshot's server position.
+ *
+ * Bootstrap Flow:
+ * 1. Ask the server for the latest snapshot (id, format, size, SHA-256)
+ * 2. Download it to the cache directory, resuming a partial file with an
+ *    HTTP Range request
+ * 3. Check size and SHA-256; a corrupt file is deleted
+ * 4. Stream it (gzipped NDJSON, one record per line) into the database,
+ *    [IMPORT_BATCH_SIZE] rows per transaction
+ *
+ * Snapshot format: a header line with the format number, then customers,
+ * orders and measurements as their API models with a "type" field. Rows
+ * are inserted without matching existing ones by server ID, so a snapshot
+ * is only taken on a device with no customers yet. An unknown
+ * format, or any failure, returns null so the caller can fall back to the
+ * paged bootstrap; rows already imported carry server IDs and are matched
+ * by that path.
+ *
+ * @param context Application context for database and cache access
+ *
+ * @see [SyncManager] for the catch-up sync
+ */
+class SnapshotBootstrapper(private val context: Context) {
+
+    private val database = AppDatabase.getDatabase(context)
+    private val apiService = RetrofitClient.apiService
+    private val downloadService = RetrofitClient.downloadService
+    private val snapshotDir = File(context.cacheDir, SNAPSHOT_DIR)
+    private val gson = Gson()
+
+    companion object {
+        private const val TAG = "SnapshotBootstrapper"
+        private const val SNAPSHOT_DIR = "snapshots"
+
+        /** Snapshot format this version of the app can read */
+        const val SUPPORTED_FORMAT = 1
+
+        /** Rows inserted per transaction */
+        private const val IMPORT_BATCH_SIZE = 500
+
+        /** Download attempts per run; each resumes where the last one stopped */
+        private const val MAX_DOWNLOAD_ATTEMPTS = 3
+
+        private const val BUFFER_SIZE = 64 * 1024
+    }
+
+    /**
+     * Downloads and imports the latest snapshot.
+     *
+     * @return Server position of the snapshot, to sync from, or null if no
+     *   usable snapshot was imported
+     */
+    suspend fun bootstrap(): SyncCursor? = withContext(Dispatchers.IO) {
+        try {
+            // Snapshot rows are inserted unmatched; only a fresh install can take them as-is
+            if (database.customerDao().hasCustomers()) {
+                Log.d(TAG, "Local data present, skipping snapshot")
+                return@withContext null
+            }
+
+            val response = apiService.getSnapshotInfo()
+            val info = response.body()
+            if (!response.isSuccessful || info == null) {
+                Log.w(TAG, "No snapshot available: ${response.code()}")
+                return@withContext null
+            }
+            if (info.format != SUPPORTED_FORMAT) {
+                Log.w(TAG, "Unsupported snapshot format ${info.format}")
+                return@withContext null
+            }
+
+            val file = download(info) ?: return@withContext null
+            importSnapshot(file)
+            file.delete()
+
+            Log.d(TAG, "Bootstrapped from snapshot ${info.id}")
+            SyncCursor(info.serverTimestamp, info.serverSeq)
+        } catch (e: Exception) {
+            Log.e(TAG, "Snapshot bootstrap failed: ${e.message}", e)
+            null
+        }
+    }
+
+    // ===== Download =====
+
+    /**
+     * Downloads a snapshot, resuming any partial file from an earlier run.
+     *
+     * @return The verified file, or null if it couldn't be downloaded intact
+     */
+    private suspend fun download(info: ApiSnapshotInfo): File? {
+        snapshotDir.mkdirs()
+        val file = File(snapshotDir, "${info.id}.ndjson.gz")
+
+        // Older snapshots can't be resumed into this one
+        snapshotDir.listFiles()?.filter { it != file }?.forEach { it.delete() }
+
+        for (attempt in 1..MAX_DOWNLOAD_ATTEMPTS) {
+            val offset = file.length()
+            if (offset >= info.size) break
+
+            try {
+                val response = downloadService.downloadSnapshot(
+                    info.id,
+                    if (offset > 0) "bytes=$offset-" else null
+                )
+                val body = response.body()
+                if (!response.isSuccessful || body == null) {
+                    Log.w(TAG, "Snapshot download failed: ${response.code()}")
+                    return null
+                }
+
+                // 206 continues the partial file; 200 means the server sent it all again
+                val append = response.code() == 206
+                body.byteStream().use { input ->
+                    FileOutputStream(file, append).use { output -> input.copyTo(output, BUFFER_SIZE) }
+                }
+            } catch (e: IOException) {
+                Log.w(TAG, "Snapshot download interrupted at ${file.length()} bytes, attempt $attempt", e)
+            }
+        }
+
+        if (file.length() != info.size || sha256(file) != info.sha256) {
+            Log.w(TAG, "Snapshot ${info.id} is incomplete or corrupt, discarding")
+            file.delete()
+            return null
+        }
+        return file
+    }
+
+    private fun sha256(file: File): String {
+        val digest = MessageDigest.getInstance("SHA-256")
+        file.inputStream().use { input ->
+            val buffer = ByteArray(BUFFER_SIZE)
+            var read = input.read(buffer)
+            while (read != -1) {
+                digest.update(buffer, 0, read)
+                read = input.read(buffer)
+            }
+        }
+        return digest.digest().joinToString("") { "%02x".format(it) }
+    }
+
+    // ===== Import =====
+
+    /**
+     * Streams the snapshot into the database a batch at a time. Records are
+     * sorted by type, so customers are all stored before the orders and
+     * measurements that refer to them.
+     */
+    private suspend fun importSnapshot(file: File) {
+        val customers = mutableListOf<Customer>()
+        val orders = mutableListOf<Order>()
+        val measurements = mutableListOf<Measurement>()
+
+        GZIPInputStream(file.inputStream(), BUFFER_SIZE).bufferedReader().useLines { lines ->
+            lines.filter { it.isNotBlank() }.forEach { line ->
+                val json = JsonParser.parseString(line).asJsonObject
+                when (json.get("type")?.asString) {
+                    "header" -> {
+                        val format = json.get("format")?.asInt
+                        if (format != SUPPORTED_FORMAT) throw IOException("Unexpected snapshot format $format")
+                    }
+                    "customer" -> {
+                        val customer = gson.fromJson(json, ApiCustomer::class.java)
+                        HybridLogicalClock.observe(customer.version)
+                        customers += customer.toRoomModel()
+                        if (customers.size >= IMPORT_BATCH_SIZE) insertCustomers(customers)
+                    }
+                    "order" -> {
+                        val order = gson.fromJson(json, ApiOrder::class.java)
+                        HybridLogicalClock.observe(order.version)
+                        orders += order.toRoomModel()
+                        if (orders.size >= IMPORT_BATCH_SIZE) insertOrders(orders)
+                    }
+                    "measurement" -> {
+                        val measurement = gson.fromJson(json, ApiMeasurement::class.java)
+                        HybridLogicalClock.observe(measurement.version)
+                        measurements += measurement.toRoomModel()
+                        if (measurements.size >= IMPORT_BATCH_SIZE) insertMeasurements(measurements)
+                    }
+                }
+            }
+        }
+        insertCustomers(customers)
+        insertOrders(orders)
+        insertMeasurements(measurements)
+
+        // Orders arrived in bulk; rebuild the schedule, worker loads and alerts
+        ProductionScheduler.invalidate()
+        WorkerAssignmentEngine.invalidate()
+        DeliveryAlertWorker.refreshNow(context)
+    }
+
+    private suspend fun insertCustomers(batch: MutableList<Customer>) {
+        if (batch.isEmpty()) return
+        database.withTransaction {
+            batch.forEach { database.customerDao().insertCustomer(it) }
+        }
+        batch.clear()
+    }
+
+    /**
+     * Inserts orders whose customer exists; like the record sync, orders for
+     * customers this device doesn't have are skipped.
+     */
+    private suspend fun insertOrders(batch: MutableList<Order>) {
+        if (batch.isEmpty()) return
+        database.withTransaction {
+            val known = existingCustomerIds(batch.map { it.customerId })
+            val (kept, skipped) = batch.partition { it.customerId in known }
+            kept.forEach { database.orderDao().insert(it) }
+            if (skipped.isNotEmpty()) Log.w(TAG, "Skipped ${skipped.size} orders with unknown customers")
+        }
+        batch.clear()
+    }
+
+    private suspend fun insertMeasurements(batch: MutableList<Measurement>) {
+        if (batch.isEmpty()) return
+        database.withTransaction {
+            val known = existingCustomerIds(batch.map { it.customerId })
+            val (kept, skipped) = batch.partition { it.customerId in known }
+            kept.forEach { database.measurementDao().insertMeasurement(it) }
+            if (skipped.isNotEmpty()) Log.w(TAG, "Skipped ${skipped.size} measurements with unknown customers")
+        }
+        batch.clear()
+    }
+
+    private suspend fun existingCustomerIds(customerIds: List<Int>): Set<Int> {
+        return database.customerDao().getCustomersByIds(customerIds.distinct()).map { it.id }.toSet()
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.perfectfit.sync
+
+import android.content.Context
+import android.util.Log
+import com.example.perfectfit.database.AppDatabase
+import com.example.perfectfit.models.StageEvent
+import com.example.perfectfit.network.ApiStageEvent
+import com.example.perfectfit.network.RetrofitClient
+import com.example.perfectfit.network.StageEventPushRequest
+import com.example.perfectfit.utils.EffortModel
+import com.example.perfectfit.utils.ProductionScheduler
+import com.example.perfectfit.utils.WorkerAssignmentEngine
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+
+/**
+ * Synchronizes production tracking with the server.
+ *
+ * Production is synced as its event log ([StageEvent]) rather than as rows:
+ * history is append-only, and each device's current stage is rebuilt from
+ * the newest event for the order. Every event has a globally unique
+ * eventId, so a batch that is sent or received twice changes nothing.
+ *
+ * Sync Flow:
+ * 1. Push: this device's unpushed events, in batches of [BATCH_SIZE], then
+ *    marked pushed. Events of an order without a server ID stay queued
+ *    until it has one; other orders' events go ahead of them.
+ * 2. Replay: parked events whose order has arrived since the last run
+ * 3. Pull: events from all devices after the (receivedAt, eventId) cursor,
+ *    a page at a time, merged through StageTransitionDao.applyRemoteEvent.
+ *    Events for orders this device doesn't have yet are parked.
+ *
+ * The pull cursor is kept in the sync preferences, so each run transfers
+ * only what changed since the last one no matter how many moves were made.
+ *
+ * Run after SyncManager has synced orders, so events can be matched to
+ * orders by server ID.
+ *
+ * @param context Application context for database and preferences access
+ *
+ * @see [SyncManager] for the record sync that runs first
+ */
+class StageEventSyncManager(private val context: Context) {
+
+    private val database = AppDatabase.getDatabase(context)
+    private val apiService = RetrofitClient.apiService
+    private val prefs = context.getSharedPreferences(SYNC_PREFS_NAME, Context.MODE_PRIVATE)
+
+    companion object {
+        private const val TAG = "StageEventSyncManager"
+        private const val SYNC_PREFS_NAME = "sync_prefs"
+        private const val PREF_PULLED_AT = "stage_events_pulled_at"
+        private const val PREF_PULLED_EVENT_ID = "stage_events_pulled_event_id"
+
+        /** Events per request, both directions */
+        private const val BATCH_SIZE = 200
+
+        /** Requests per direction per run; the rest waits for the next sync */
+        private const val MAX_BATCHES_PER_RUN = 10
+
+        /**
+         * Pulls restart this far behind the saved cursor, to pick up events
+         * whose server commit finished after a later one was read. Already
+         * merged events are skipped by eventId.
+         */
+        private const val PULL_OVERLAP_MS = 5_000L
+
+        /** Parked events whose order hasn't arrived after this long are dropped */
+        private const val PARKED_EVENT_MAX_AGE_MS = 30L * 24 * 60 * 60 * 1000
+    }
+
+    /**
+     * Pushes local stage events, then pulls and merges remote ones.
+     *
+     * @return true if both directions completed
+     */
+    suspend fun syncStageEvents(): Boolean = withContext(Dispatchers.IO) {
+        try {
+            pushEvents() && pullEvents()
+        } catch (e: Exception) {
+            Log.e(TAG, "Stage event sync failed: ${e.message}", e)
+            false
+        }
+    }
+
+    /**
+     * Pushes this device's unpushed events whose order is on the server.
+     */
+    private suspend fun pushEvents(): Boolean {
+        val dao = database.stageTransitionDao()
+
+        for (batch in 0 until MAX_BATCHES_PER_RUN) {
+            val pending = dao.getUnpushedEvents(BATCH_SIZE)
+            if (pending.isEmpty()) return true
+
+            val request = StageEventPushRequest(
+                events = pending.map { it.event.toApiModel(it.orderServerId) }
+            )
+            val response = apiService.pushStageEvents(request)
+            if (!response.isSuccessful || response.body()?.success != true) {
+                Log.e(TAG, "Stage event push failed: ${response.code()}")
+                return false
+            }
+
+            dao.markEventsPushed(pending.map { it.event.id })
+            Log.d(TAG, "Pushed ${pending.size} stage events")
+
+            if (pending.size < BATCH_SIZE) return true
+        }
+        return true
+    }
+
+    /**
+     * Pulls events after the pull cursor and merges them into the local log
+     * and production stages, after replaying parked events.
+     */
+    private suspend fun pullEvents(): Boolean {
+        val dao = database.stageTransitionDao()
+        var afterTs = prefs.getLong(PREF_PULLED_AT, 0L)
+        var afterId = prefs.getString(PREF_PULLED_EVENT_ID, "") ?: ""
+        if (afterTs > 0) {
+            afterTs = maxOf(afterTs - PULL_OVERLAP_MS, 0L)
+            afterId = ""
+        }
+
+        // Pulled stages get their deadlines from the learned effort model
+        EffortModel.ensureLoaded(database)
+
+        var stagesChanged = false
+        try {
+            stagesChanged = replayParkedEvents()
+
+            for (batch in 0 until MAX_BATCHES_PER_RUN) {
+                val response = apiService.getStageEvents(afterTs, afterId, BATCH_SIZE)
+                val page = response.body()
+                if (!response.isSuccessful || page == null) {
+                    Log.e(TAG, "Stage event pull failed: ${response.code()}")
+                    return false
+                }
+
+                val unmatched = mutableListOf<ApiStageEvent>()
+                if (applyEvents(page.events, unmatched)) stagesChanged = true
+
+                // The cursor moves past these, so keep them for a later replay
+                if (unmatched.isNotEmpty()) {
+                    dao.parkEvents(unmatched.map { it.toParkedModel() })
+                    Log.d(TAG, "Parked ${unmatched.size} stage events for orders not on this device yet")
+                }
+
+                page.events.lastOrNull()?.let {
+                    afterTs = it.receivedAt
+                    afterId = it.eventId
+                    prefs.edit()
+                        .putLong(PREF_PULLED_AT, afterTs)
+                        .putString(PREF_PULLED_EVENT_ID, afterId)
+                        .apply()
+                }
+                Log.d(TAG, "Pulled ${page.events.size} stage events")
+
+                if (!page.hasMore) break
+            }
+            return true
+        } finally {
+            // Other devices moved orders; rebuild the schedule and worker loads on next use
+            if (stagesChanged) {
+                ProductionScheduler.invalidate()
+                WorkerAssignmentEngine.invalidate()
+            }
+        }
+    }
+
+    /**
+     * Merges parked events whose order has synced since they were pulled,
+     * and drops ones whose order never arrived.
+     *
+     * @return true if any order's current stage changed
+     */
+    private suspend fun replayParkedEvents(): Boolean {
+        val dao = database.stageTransitionDao()
+        val pruned = dao.pruneParkedEvents(System.currentTimeMillis() - PARKED_EVENT_MAX_AGE_MS)
+        if (pruned > 0) Log.w(TAG, "Dropped $pruned parked stage events whose order never arrived")
+
+        var stagesChanged = false
+        val parked = dao.getParkedEvents(MAX_BATCHES_PER_RUN * BATCH_SIZE)
+        for (chunk in parked.chunked(BATCH_SIZE)) {
+            val unmatched = mutableListOf<ApiStageEvent>()
+            if (applyEvents(chunk.map { it.toApiModel() }, unmatched)) stagesChanged = true
+
+            val unmatchedIds = unmatched.mapTo(HashSet()) { it.eventId }
+            val merged = chunk.map { it.eventId }.filter { it !in unmatchedIds }
+            if (merged.isNotEmpty()) {
+                dao.deleteParkedEvents(merged)
+                Log.d(TAG, "Replayed ${merged.size} parked stage events")
+            }
+        }
+        return stagesChanged
+    }
+
+    /**
+     * Merges events whose order is on this device, oldest first.
+     *
+     * @param unmatched Receives the events whose order isn't found
+     * @return true if any order's current stage changed
+     */
+    private suspend fun applyEvents(events: List<ApiStageEvent>, unmatched: MutableList<ApiStageEvent>): Boolean {
+        val dao = database.stageTransitionDao()
+
+        // One lookup for every order in the page
+        val serverIds = events.map { it.orderServerId }.distinct()
+        val orders = if (serverIds.isEmpty()) emptyMap() else {
+            database.orderDao().getOrdersByServerIds(serverIds)
+                .associateBy { it.serverId }
+        }
+
+        var stagesChanged = false
+        for (apiEvent in events) {
+            val order = orders[apiEvent.orderServerId]
+            if (order == null) {
+                unmatched += apiEvent
+                continue
+            }
+            val deadlineAt = EffortModel.stageDeadline(order.orderType, apiEvent.toStage, apiEvent.occurredAt)
+            if (dao.applyRemoteEvent(apiEvent.toRoomModel(order.id), deadlineAt)) {
+                stagesChanged = true
+            }
+        }
+        return stagesChanged
+    }
+}
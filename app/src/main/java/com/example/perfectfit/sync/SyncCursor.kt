@@ -0,0 +1,14 @@
+package com.example.perfectfit.sync
+
+/**
+ * Where the next delta sync starts.
+ *
+ * @property timestamp Server time of the sync, shown as "last synced" and
+ *   sent to servers that predate sequence numbers
+ * @property seq Server commit sequence number to pull changes after, or null
+ *   if the server didn't report one
+ */
+data class SyncCursor(
+    val timestamp: Long,
+    val seq: Long?
+)
@@ -7,6 +7,10 @@ import com.example.perfectfit.models.Customer
 import com.example.perfectfit.models.Measurement
 import com.example.perfectfit.models.Order
 import com.example.perfectfit.network.*
+import com.example.perfectfit.utils.HybridLogicalClock
+import com.example.perfectfit.utils.ProductionScheduler
+import com.example.perfectfit.utils.WorkerAssignmentEngine
+import com.example.perfectfit.workers.DeliveryAlertWorker
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.withContext
 
@@ -14,8 +18,8 @@ import kotlinx.coroutines.withContext
  * Manages synchronization between local database and remote server.
  * 
  * This class handles bidirectional data sync, ensuring that local changes are pushed
- * to the server and server changes are pulled to the local database. It implements
- * conflict resolution using timestamps and maintains sync status for each record.
+ * to the server and server changes are pulled to the local database. It resolves
+ * conflicts by version ([HybridLogicalClock]) and maintains sync status for each record.
  * 
  * Synchronization Flow:
  * 1. Check network availability
@@ -33,7 +37,11 @@ import kotlinx.coroutines.withContext
  * Features:
  * - Batch synchronization for efficiency
  * - Individual entity sync (customers, orders, measurements)
- * - Conflict resolution using lastModified timestamps
+ * - Production stage events, incrementally ([StageEventSyncManager])
+ * - First sync on a device downloads existing records page by page ([ApiPager])
+ * - Conflict resolution by hybrid logical clock version: the newer edit wins on
+ *   every device and the server, whatever the device clocks say
+ * - Delta pulls from the server's commit sequence number ([SyncCursor]), not wall time
  * - Network availability checking
  * - Persistent sync state using SharedPreferences
  * - Detailed logging for debugging
@@ -64,10 +72,16 @@ class SyncManager(private val context: Context) {
     // SharedPreferences for persistent sync state
     private val prefs = context.getSharedPreferences(SYNC_PREFS_NAME, Context.MODE_PRIVATE)
     
+    init {
+        // Edits made from a background sync must continue this device's clock
+        HybridLogicalClock.init(context)
+    }
+    
     companion object {
         private const val TAG = "SyncManager"
         private const val SYNC_PREFS_NAME = "sync_prefs"
         private const val PREF_LAST_SYNC = "last_sync_timestamp"
+        private const val PREF_LAST_SYNC_SEQ = "last_sync_seq"
         
         /**
          * Sync Result Codes
@@ -92,10 +106,21 @@ class SyncManager(private val context: Context) {
     }
     
     /**
-     * Save the last sync timestamp
+     * Get the server sequence number of the last sync, or null if this
+     * device last synced before the server reported one
      */
-    private fun saveLastSyncTimestamp(timestamp: Long) {
-        prefs.edit().putLong(PREF_LAST_SYNC, timestamp).apply()
+    private fun getLastSyncSeq(): Long? {
+        return if (prefs.contains(PREF_LAST_SYNC_SEQ)) prefs.getLong(PREF_LAST_SYNC_SEQ, 0L) else null
+    }
+    
+    /**
+     * Save where the next sync starts
+     */
+    private fun saveSyncCursor(cursor: SyncCursor) {
+        prefs.edit().apply {
+            putLong(PREF_LAST_SYNC, cursor.timestamp)
+            cursor.seq?.let { putLong(PREF_LAST_SYNC_SEQ, it) }
+        }.apply()
     }
     
     /**
@@ -112,6 +137,13 @@ class SyncManager(private val context: Context) {
                 return@withContext SYNC_NO_NETWORK
             }
             
+            // A device that has never synced imports the server snapshot (or, failing
+            // that, pulls existing records in pages) first, so the batch below only
+            // carries what changed since
+            if (getLastSyncTimestamp() == 0L) {
+                saveSyncCursor(SnapshotBootstrapper(context).bootstrap() ?: bootstrapFromServer())
+            }
+            
             // Get unsynced data from local database
             val unsyncedCustomers = database.customerDao().getUnsyncedCustomers()
             val unsyncedOrders = database.orderDao().getUnsyncedOrders()
@@ -131,7 +163,8 @@ class SyncManager(private val context: Context) {
                 customers = apiCustomers,
                 orders = apiOrders,
                 measurements = apiMeasurements,
-                lastSyncTimestamp = getLastSyncTimestamp()
+                lastSyncTimestamp = getLastSyncTimestamp(),
+                lastSyncSeq = getLastSyncSeq()
             )
             
             // Send to server
@@ -148,8 +181,14 @@ class SyncManager(private val context: Context) {
                     syncResponse.orders?.let { processOrderSyncResponse(it) }
                     syncResponse.measurements?.let { processMeasurementSyncResponse(it) }
                     
-                    // Save sync timestamp
-                    saveLastSyncTimestamp(syncResponse.serverTimestamp)
+                    // Save sync cursor
+                    saveSyncCursor(SyncCursor(syncResponse.serverTimestamp, syncResponse.serverSeq))
+                    
+                    // Production progress syncs as an event log, now that orders have server IDs
+                    if (!StageEventSyncManager(context).syncStageEvents()) {
+                        Log.w(TAG, "Stage event sync incomplete, will resume next sync")
+                        return@withContext SYNC_PARTIAL
+                    }
                     
                     return@withContext SYNC_SUCCESS
                 } else {
@@ -167,12 +206,52 @@ class SyncManager(private val context: Context) {
         }
     }
     
+    /**
+     * Downloads every customer, order and measurement on the server, one
+     * page at a time, for a device that has never synced. Fallback for when
+     * [SnapshotBootstrapper] can't import a snapshot. Each page is
+     * stored before the next is requested, so memory use stays at one page.
+     * Customers come first so orders and measurements can refer to them.
+     * 
+     * @return Server position from before the first page was read, to use
+     *   as the sync cursor
+     */
+    private suspend fun bootstrapFromServer(): SyncCursor {
+        Log.d(TAG, "Bootstrapping from server...")
+        val pages = mutableListOf<SyncCursor>()
+        
+        ApiPager.pages { after, limit -> apiService.getCustomersPage(after, limit) }
+            .collect { page ->
+                pages += SyncCursor(page.serverTimestamp, page.serverSeq)
+                processCustomerSyncResponse(page.data)
+            }
+        ApiPager.pages { after, limit -> apiService.getOrdersPage(after, limit) }
+            .collect { page ->
+                pages += SyncCursor(page.serverTimestamp, page.serverSeq)
+                processOrderSyncResponse(page.data)
+            }
+        ApiPager.pages { after, limit -> apiService.getMeasurementsPage(after, limit) }
+            .collect { page ->
+                pages += SyncCursor(page.serverTimestamp, page.serverSeq)
+                processMeasurementSyncResponse(page.data)
+            }
+        
+        Log.d(TAG, "Bootstrap complete")
+        // A page without a sequence number means the server predates them
+        return SyncCursor(
+            timestamp = pages.minOf { it.timestamp },
+            seq = if (pages.all { it.seq != null }) pages.minOf { it.seq!! } else null
+        )
+    }
+    
     /**
      * Process customer sync responses from server
      */
     private suspend fun processCustomerSyncResponse(apiCustomers: List<ApiCustomer>) {
         for (apiCustomer in apiCustomers) {
             try {
+                HybridLogicalClock.observe(apiCustomer.version)
+                
                 // Check if this record exists locally by localId
                 val localCustomer = apiCustomer.localId?.let {
                     database.customerDao().getCustomerById(it)
@@ -184,21 +263,38 @@ class SyncManager(private val context: Context) {
                 }
                 
                 when {
-                    // Case 1: Found by localId - update with server info
+                    // Case 1a: Our push lost to a newer edit on the server - take the server's
+                    localCustomer != null && apiCustomer.id != null &&
+                        HybridLogicalClock.compare(apiCustomer.version, localCustomer.version) > 0 -> {
+                        database.customerDao().applyServerCopy(localCustomer.id, apiCustomer.toRoomModel())
+                        Log.d(TAG, "Customer localId=${localCustomer.id} replaced by newer server version")
+                    }
+                    // Case 1b: Found by localId - update with server info; still pending if
+                    // edited again while the sync was in flight
                     localCustomer != null && apiCustomer.id != null -> {
+                        val current = apiCustomer.version == null || apiCustomer.version == localCustomer.version
                         database.customerDao().updateServerInfo(
                             localId = localCustomer.id,
                             serverId = apiCustomer.id,
-                            status = Customer.SYNC_SYNCED,
+                            status = if (current) Customer.SYNC_SYNCED else Customer.SYNC_PENDING,
                             timestamp = System.currentTimeMillis()
                         )
                         Log.d(TAG, "Updated customer localId=${localCustomer.id} with serverId=${apiCustomer.id}")
                     }
-                    // Case 2: Found by serverId but not localId - this is an update from server
+                    // Case 2a: Local copy has an unsent newer edit - keep it, it is pushed next sync
+                    existingByServerId != null && apiCustomer.id != null &&
+                        HybridLogicalClock.compare(apiCustomer.version, existingByServerId.version) < 0 -> {
+                        Log.d(TAG, "Kept newer local customer serverId=${apiCustomer.id}")
+                    }
+                    // Case 2c: Same version as the local copy (usually this device's own push
+                    // coming back on the next sync) - nothing changed
+                    existingByServerId != null && apiCustomer.id != null &&
+                        isSameVersion(apiCustomer.version, existingByServerId.version) -> Unit
+                    // Case 2b: Found by serverId but not localId - this is an update from server
                     existingByServerId != null && apiCustomer.id != null -> {
-                        // Update existing record
-                        val updatedCustomer = apiCustomer.toRoomModel().copy(id = existingByServerId.id)
-                        database.customerDao().updateCustomer(updatedCustomer)
+                        // Update only the server's columns; a full-row write would put back the
+                        // totalOrdersValue read above over any order saved since
+                        database.customerDao().applyServerCopy(existingByServerId.id, apiCustomer.toRoomModel())
                         Log.d(TAG, "Updated existing customer with serverId=${apiCustomer.id}")
                     }
                     // Case 3: New customer from server - insert only if not already exists
@@ -221,8 +317,11 @@ class SyncManager(private val context: Context) {
      * Process order sync responses from server
      */
     private suspend fun processOrderSyncResponse(apiOrders: List<ApiOrder>) {
+        var ordersChanged = false
         for (apiOrder in apiOrders) {
             try {
+                HybridLogicalClock.observe(apiOrder.version)
+                
                 // Check if this record exists locally by localId
                 val localOrder = apiOrder.localId?.let {
                     database.orderDao().getOrderById(it)
@@ -234,27 +333,47 @@ class SyncManager(private val context: Context) {
                 }
                 
                 when {
-                    // Case 1: Found by localId - update with server info
+                    // Case 1a: Our push lost to a newer edit on the server - take the server's
+                    localOrder != null && apiOrder.id != null &&
+                        HybridLogicalClock.compare(apiOrder.version, localOrder.version) > 0 -> {
+                        database.orderDao().update(apiOrder.toRoomModel(localOrder).copy(id = localOrder.id))
+                        ordersChanged = true
+                        Log.d(TAG, "Order localId=${localOrder.id} replaced by newer server version")
+                    }
+                    // Case 1b: Found by localId - update with server info; still pending if
+                    // edited again while the sync was in flight
                     localOrder != null && apiOrder.id != null -> {
+                        val current = apiOrder.version == null || apiOrder.version == localOrder.version
                         database.orderDao().updateServerInfo(
                             localId = localOrder.id,
                             serverId = apiOrder.id,
-                            status = Order.SYNC_SYNCED,
+                            status = if (current) Order.SYNC_SYNCED else Order.SYNC_PENDING,
                             timestamp = System.currentTimeMillis()
                         )
                         Log.d(TAG, "Updated order localId=${localOrder.id} with serverId=${apiOrder.id}")
                     }
-                    // Case 2: Found by serverId but not localId - this is an update from server
+                    // Case 2a: Local copy has an unsent newer edit - keep it, it is pushed next sync
+                    existingByServerId != null && apiOrder.id != null &&
+                        HybridLogicalClock.compare(apiOrder.version, existingByServerId.version) < 0 -> {
+                        Log.d(TAG, "Kept newer local order serverId=${apiOrder.id}")
+                    }
+                    // Case 2c: Same version as the local copy (usually this device's own push
+                    // coming back on the next sync) - nothing changed
+                    existingByServerId != null && apiOrder.id != null &&
+                        isSameVersion(apiOrder.version, existingByServerId.version) -> Unit
+                    // Case 2b: Found by serverId but not localId - this is an update from server
                     existingByServerId != null && apiOrder.id != null -> {
-                        // Update existing record
-                        val updatedOrder = apiOrder.toRoomModel().copy(id = existingByServerId.id)
+                        // Update existing record, keeping payments an older writer didn't send
+                        val updatedOrder = apiOrder.toRoomModel(existingByServerId).copy(id = existingByServerId.id)
                         database.orderDao().update(updatedOrder)
+                        ordersChanged = true
                         Log.d(TAG, "Updated existing order with serverId=${apiOrder.id}")
                     }
                     // Case 3: New order from server - insert only if not already exists
                     apiOrder.id != null && existingByServerId == null -> {
                         val order = apiOrder.toRoomModel()
                         database.orderDao().insert(order)
+                        ordersChanged = true
                         Log.d(TAG, "Inserted new order from server: ${apiOrder.id}")
                     }
                     else -> {
@@ -265,14 +384,30 @@ class SyncManager(private val context: Context) {
                 Log.e(TAG, "Error processing order: ${e.message}", e)
             }
         }
+        
+        // Orders may have been replaced wholesale; rebuild the schedule and worker loads on next use
+        if (ordersChanged) {
+            ProductionScheduler.invalidate()
+            WorkerAssignmentEngine.invalidate()
+            DeliveryAlertWorker.refreshNow(context)
+        }
     }
     
+    /**
+     * Whether a server record carries the version the local copy already has.
+     * Unversioned rows (written before versioning) never count as the same.
+     */
+    private fun isSameVersion(remote: String?, local: String): Boolean =
+        !remote.isNullOrEmpty() && remote == local
+    
     /**
      * Process measurement sync responses from server
      */
     private suspend fun processMeasurementSyncResponse(apiMeasurements: List<ApiMeasurement>) {
         for (apiMeasurement in apiMeasurements) {
             try {
+                HybridLogicalClock.observe(apiMeasurement.version)
+                
                 // Check if this record exists locally by localId (using customerId for measurements)
                 val localMeasurement = apiMeasurement.localId?.let {
                     database.measurementDao().getMeasurementByCustomerIdSync(it)
@@ -284,17 +419,34 @@ class SyncManager(private val context: Context) {
                 }
                 
                 when {
-                    // Case 1: Found by localId - update with server info
+                    // Case 1a: Our push lost to a newer edit on the server - take the server's
+                    localMeasurement != null && apiMeasurement.id != null &&
+                        HybridLogicalClock.compare(apiMeasurement.version, localMeasurement.version) > 0 -> {
+                        database.measurementDao().updateMeasurement(apiMeasurement.toRoomModel().copy(id = localMeasurement.id))
+                        Log.d(TAG, "Measurement localId=${localMeasurement.id} replaced by newer server version")
+                    }
+                    // Case 1b: Found by localId - update with server info; still pending if
+                    // edited again while the sync was in flight
                     localMeasurement != null && apiMeasurement.id != null -> {
+                        val current = apiMeasurement.version == null || apiMeasurement.version == localMeasurement.version
                         database.measurementDao().updateServerInfo(
                             localId = localMeasurement.id,
                             serverId = apiMeasurement.id,
-                            status = Measurement.SYNC_SYNCED,
+                            status = if (current) Measurement.SYNC_SYNCED else Measurement.SYNC_PENDING,
                             timestamp = System.currentTimeMillis()
                         )
                         Log.d(TAG, "Updated measurement localId=${localMeasurement.id} with serverId=${apiMeasurement.id}")
                     }
-                    // Case 2: Found by serverId but not localId - this is an update from server
+                    // Case 2a: Local copy has an unsent newer edit - keep it, it is pushed next sync
+                    existingByServerId != null && apiMeasurement.id != null &&
+                        HybridLogicalClock.compare(apiMeasurement.version, existingByServerId.version) < 0 -> {
+                        Log.d(TAG, "Kept newer local measurement serverId=${apiMeasurement.id}")
+                    }
+                    // Case 2c: Same version as the local copy (usually this device's own push
+                    // coming back on the next sync) - nothing changed
+                    existingByServerId != null && apiMeasurement.id != null &&
+                        isSameVersion(apiMeasurement.version, existingByServerId.version) -> Unit
+                    // Case 2b: Found by serverId but not localId - this is an update from server
                     existingByServerId != null && apiMeasurement.id != null -> {
                         // Update existing record
                         val updatedMeasurement = apiMeasurement.toRoomModel().copy(id = existingByServerId.id)
@@ -361,7 +513,8 @@ class SyncManager(private val context: Context) {
             
             val request = SyncRequest(
                 data = apiOrders,
-                lastSyncTimestamp = getLastSyncTimestamp()
+                lastSyncTimestamp = getLastSyncTimestamp(),
+                lastSyncSeq = getLastSyncSeq()
             )
             
             val response = apiService.syncOrders(request)
@@ -388,7 +541,8 @@ class SyncManager(private val context: Context) {
             
             val request = SyncRequest(
                 data = apiCustomers,
-                lastSyncTimestamp = getLastSyncTimestamp()
+                lastSyncTimestamp = getLastSyncTimestamp(),
+                lastSyncSeq = getLastSyncSeq()
             )
             
             val response = apiService.syncCustomers(request)
@@ -71,7 +71,13 @@ class SyncRepository(private val context: Context) {
             }
             
             _syncStatus.postValue(status)
-            result == SyncManager.SYNC_SUCCESS || result == SyncManager.SYNC_PARTIAL
+            
+            val synced = result == SyncManager.SYNC_SUCCESS || result == SyncManager.SYNC_PARTIAL
+            if (synced) {
+                // Upload images in the background so manual sync returns promptly
+                ImageSyncWorker.scheduleImageSync(context)
+            }
+            synced
             
         } catch (e: Exception) {
             _syncStatus.postValue(
@@ -86,10 +86,13 @@ class SyncWorker(
             when (result) {
                 SyncManager.SYNC_SUCCESS -> {
                     Log.d(TAG, "Background sync completed successfully")
+                    // Orders now have server IDs, so their images can be uploaded
+                    ImageSyncWorker.scheduleImageSync(applicationContext)
                     Result.success()
                 }
                 SyncManager.SYNC_PARTIAL -> {
                     Log.w(TAG, "Background sync completed with some errors")
+                    ImageSyncWorker.scheduleImageSync(applicationContext)
                     Result.success() // Still count as success
                 }
                 SyncManager.SYNC_NO_NETWORK -> {
@@ -0,0 +1,177 @@
+package com.example.perfectfit.utils
+
+import com.example.perfectfit.models.WorkloadConfig
+import java.util.Calendar
+
+/**
+ * Precomputed working-hours calendar for a [WorkloadConfig].
+ *
+ * Holds the working hours available on each day of a rolling horizon, as
+ * running totals in primitive arrays indexed by epoch day. Questions like
+ * "on which day will N hours of work be done?" become a binary search over
+ * the running totals instead of stepping a Calendar forward day by day.
+ *
+ * Two series are kept:
+ * - Optimistic: WorkloadConfig.getHoursForDay
+ * - Realistic: WorkloadConfig.getRealisticHoursForDay (weekend reduction)
+ *
+ * Days are identified by local epoch day (days since 1970-01-01 in the
+ * device time zone). The horizon starts a week before today so the current
+ * week can be queried from Monday.
+ *
+ * Caching:
+ * - [forConfig] returns a shared instance, rebuilt only when the config
+ *   differs from the one it was built for or the date has changed
+ * - Instances are immutable and safe to share between threads
+ *
+ * @property config Configuration the hours were taken from
+ * @property startEpochDay First epoch day covered (inclusive)
+ */
+class CapacityCalendar private constructor(
+    val config: WorkloadConfig,
+    val startEpochDay: Int,
+    private val cumulativeHours: DoubleArray,
+    private val cumulativeRealisticHours: DoubleArray
+) {
+
+    /** Last epoch day covered (exclusive) */
+    val endEpochDay: Int
+        get() = startEpochDay + cumulativeHours.size
+
+    /**
+     * Checks if an epoch day falls inside the precomputed horizon.
+     */
+    fun contains(epochDay: Int): Boolean = epochDay in startEpochDay until endEpochDay
+
+    /**
+     * Working hours available on a single day.
+     *
+     * @param epochDay Local epoch day
+     * @param realistic Use realistic (weekend-reduced) hours
+     */
+    fun hoursOn(epochDay: Int, realistic: Boolean = false): Float {
+        return hoursBetween(epochDay, epochDay + 1, realistic).toFloat()
+    }
+
+    /**
+     * Total working hours over a range of days, in O(1).
+     *
+     * @param fromEpochDay First day (inclusive)
+     * @param toEpochDay Last day (exclusive)
+     * @param realistic Use realistic (weekend-reduced) hours
+     */
+    fun hoursBetween(fromEpochDay: Int, toEpochDay: Int, realistic: Boolean = false): Double {
+        val totals = if (realistic) cumulativeRealisticHours else cumulativeHours
+        val from = (fromEpochDay - startEpochDay).coerceIn(0, totals.size)
+        val to = (toEpochDay - startEpochDay).coerceIn(0, totals.size)
+        if (to <= from) return 0.0
+        return totals[to - 1] - if (from > 0) totals[from - 1] else 0.0
+    }
+
+    /**
+     * Finds the first day on which [hoursNeeded] hours of work, started at the
+     * beginning of [fromEpochDay], are complete. O(log n).
+     *
+     * A day counts once its full hours are used, matching the previous
+     * day-by-day loops: work needing exactly one day's hours finishes that day.
+     *
+     * @param hoursNeeded Hours of work to schedule
+     * @param fromEpochDay Day work starts (must be inside the horizon)
+     * @param realistic Use realistic (weekend-reduced) hours
+     * @return Completion epoch day, or [endEpochDay] if it doesn't fit in the horizon
+     */
+    fun firstDayWithHours(hoursNeeded: Double, fromEpochDay: Int, realistic: Boolean = false): Int {
+        if (hoursNeeded <= 0.0) return fromEpochDay
+
+        val totals = if (realistic) cumulativeRealisticHours else cumulativeHours
+        val from = fromEpochDay - startEpochDay
+        val target = hoursNeeded + if (from > 0) totals[from - 1] else 0.0
+
+        // Lower bound: first index whose running total reaches the target
+        var low = from
+        var high = totals.size
+        while (low < high) {
+            val mid = (low + high) ushr 1
+            if (totals[mid] >= target) high = mid else low = mid + 1
+        }
+        return startEpochDay + low
+    }
+
+    companion object {
+        /** Days before today included so the current week is covered */
+        private const val PAST_DAYS = 7
+
+        /** Days after today covered by the horizon */
+        private const val HORIZON_DAYS = 400
+
+        private const val MILLIS_PER_DAY = 24 * 60 * 60 * 1000L
+
+        @Volatile
+        private var cached: CapacityCalendar? = null
+
+        /**
+         * Returns the shared calendar for a config, rebuilding it when the
+         * config has changed or the cached one was built on a previous day.
+         *
+         * @param config Current workload configuration
+         */
+        fun forConfig(config: WorkloadConfig): CapacityCalendar {
+            val today = epochDayOf(Calendar.getInstance())
+            val current = cached
+            if (current != null && current.config == config && current.startEpochDay == today - PAST_DAYS) {
+                return current
+            }
+            return build(config, today - PAST_DAYS).also { cached = it }
+        }
+
+        /**
+         * Returns a calendar covering [fromEpochDay], using the shared one when
+         * it does and building a temporary one otherwise.
+         */
+        fun covering(config: WorkloadConfig, fromEpochDay: Int): CapacityCalendar {
+            val shared = forConfig(config)
+            return if (shared.contains(fromEpochDay)) shared else build(config, fromEpochDay)
+        }
+
+        /**
+         * Builds a calendar for a config without touching the shared one,
+         * e.g. one per worker.
+         *
+         * @param config Workload configuration to take the hours from
+         */
+        fun standalone(config: WorkloadConfig): CapacityCalendar {
+            return build(config, epochDayOf(Calendar.getInstance()) - PAST_DAYS)
+        }
+
+        /**
+         * Local epoch day of a Calendar (days since 1970-01-01 in its time zone).
+         */
+        fun epochDayOf(calendar: Calendar): Int {
+            val millis = calendar.timeInMillis
+            return Math.floorDiv(millis + calendar.timeZone.getOffset(millis), MILLIS_PER_DAY).toInt()
+        }
+
+        /**
+         * Calendar.DAY_OF_WEEK value for an epoch day (1970-01-01 was a Thursday).
+         */
+        fun dayOfWeekOf(epochDay: Int): Int = Math.floorMod(epochDay + 4, 7) + 1
+
+        private fun build(config: WorkloadConfig, startEpochDay: Int): CapacityCalendar {
+            val size = PAST_DAYS + HORIZON_DAYS
+            val cumulative = DoubleArray(size)
+            val cumulativeRealistic = DoubleArray(size)
+
+            var total = 0.0
+            var totalRealistic = 0.0
+            for (i in 0 until size) {
+                val dayOfWeek = dayOfWeekOf(startEpochDay + i)
+                total += config.getHoursForDay(dayOfWeek)
+                totalRealistic += config.getRealisticHoursForDay(dayOfWeek)
+                cumulative[i] = total
+                cumulativeRealistic[i] = totalRealistic
+            }
+
+            return CapacityCalendar(config, startEpochDay, cumulative, cumulativeRealistic)
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.example.perfectfit.utils
+
+import com.example.perfectfit.models.WorkloadConfig
+import java.util.Calendar
+import java.util.Locale
+
+/**
+ * What-if engine for capacity interventions.
+ *
+ * Evaluates many candidate interventions (extra hours, weekend work, pushing
+ * orders, extra tailors) against the current order queue in one batch and
+ * ranks them by how many late orders each one avoids.
+ *
+ * Model:
+ * - Same as [ProductionScheduler]: orders are worked earliest-due-date first,
+ *   packed contiguously from today onto the realistic working hours
+ * - An order is on time iff the hours available from today through its due
+ *   day cover the effort of it and every order ahead of it
+ *
+ * Cost:
+ * - The queue is turned into primitive arrays once per [Baseline]
+ * - Available hours come from the shared [CapacityCalendar] prefix sums in
+ *   O(1), plus the scenario's extra hours
+ * - A scenario is a single pass over the queue (plus a re-sort if it pushes
+ *   orders), i.e. microseconds for a shop-sized queue
+ */
+object CapacityScenarioEngine {
+
+    /** Hours below this are treated as zero (float rounding) */
+    private const val EPSILON_HOURS = 0.001
+
+    /** Late orders that each get their own "push" candidate */
+    private const val MAX_PUSH_CANDIDATES = 5
+
+    /** Weeks covered by recurring weekend-work candidates */
+    private const val WEEKEND_WEEKS = 4
+
+    /**
+     * A capacity intervention to evaluate.
+     *
+     * @property title Short label, e.g. "+2h today"
+     * @property description One-line explanation for the user
+     * @property extraHoursByDay Extra hours on specific days (epoch day -> hours)
+     * @property weeklyExtraHours Extra hours per weekday, indexed by Calendar.DAY_OF_WEEK - 1
+     * @property weeklyExtraUntilEpochDay Recurring extra hours apply before this day
+     * @property pushedOrders Orders whose delivery date moves later (order ID -> days)
+     */
+    class Scenario(
+        val title: String,
+        val description: String,
+        val extraHoursByDay: Map<Int, Float> = emptyMap(),
+        val weeklyExtraHours: FloatArray? = null,
+        val weeklyExtraUntilEpochDay: Int = 0,
+        val pushedOrders: Map<Int, Int> = emptyMap()
+    )
+
+    /**
+     * Outcome of one scenario.
+     *
+     * @property scenario The intervention evaluated
+     * @property overdueOrders Orders still late with the intervention
+     * @property overdueAvoided Late orders avoided compared to doing nothing
+     */
+    data class ScenarioResult(
+        val scenario: Scenario,
+        val overdueOrders: Int,
+        val overdueAvoided: Int
+    )
+
+    /**
+     * The current queue in earliest-due-date order, as primitive arrays.
+     * Orders with no remaining effort are left out.
+     */
+    class Baseline internal constructor(
+        val calendar: CapacityCalendar,
+        val todayEpochDay: Int,
+        internal val orderIds: IntArray,
+        internal val dueDays: IntArray,
+        internal val efforts: DoubleArray
+    ) {
+        /** Late orders if nothing changes */
+        val overdueOrders: Int by lazy { countOverdue(this, NO_CHANGE) }
+    }
+
+    private val NO_CHANGE = Scenario(title = "", description = "")
+
+    // ===== Building =====
+
+    /**
+     * Captures the current queue from the production schedule.
+     *
+     * @param jobs Scheduled jobs (ProductionScheduler.getScheduledJobs())
+     * @param config Current workload configuration
+     */
+    fun baselineOf(jobs: List<ProductionScheduler.ScheduledJob>, config: WorkloadConfig): Baseline {
+        val active = jobs.filter { it.effortHours > EPSILON_HOURS }.sortedWith(compareBy({ it.dueEpochDay }, { it.orderId }))
+        return Baseline(
+            calendar = CapacityCalendar.forConfig(config),
+            todayEpochDay = CapacityCalendar.epochDayOf(Calendar.getInstance()),
+            orderIds = IntArray(active.size) { active[it].orderId },
+            dueDays = IntArray(active.size) { active[it].dueEpochDay },
+            efforts = DoubleArray(active.size) { active[it].effortHours.toDouble() }
+        )
+    }
+
+    /**
+     * Standard set of interventions to try, ordered from least to most
+     * disruptive (ties in the ranking keep this order).
+     *
+     * @param baseline Current queue
+     * @param config Current workload configuration
+     * @param tailorHours Realistic hours of an average tailor per weekday,
+     *   indexed by Calendar.DAY_OF_WEEK - 1; a new hand adds these on top
+     */
+    fun candidateInterventions(baseline: Baseline, config: WorkloadConfig, tailorHours: FloatArray): List<Scenario> {
+        val today = baseline.todayEpochDay
+        val candidates = mutableListOf<Scenario>()
+
+        // Extra hours today
+        for (hours in listOf(2f, 4f)) {
+            candidates.add(Scenario(
+                title = "+${hours.toInt()}h today",
+                description = "Work ${hours.toInt()} extra hours today",
+                extraHoursByDay = mapOf(today to hours)
+            ))
+        }
+
+        // Push each late order just far enough to be on time
+        lateOrderPushes(baseline).take(MAX_PUSH_CANDIDATES).forEach { (orderId, days) ->
+            candidates.add(Scenario(
+                title = "Push Order #${orderId.toString().padStart(5, '0')} by $days days",
+                description = "Agree a later delivery date with the customer",
+                pushedOrders = mapOf(orderId to days)
+            ))
+        }
+
+        // Extra hours every remaining working day this week
+        val endOfWeek = today + Math.floorMod(Calendar.SUNDAY - CapacityCalendar.dayOfWeekOf(today), 7)
+        val workingDays = (today..endOfWeek).filter { config.getHoursForDay(CapacityCalendar.dayOfWeekOf(it)) > 0f }
+        if (workingDays.isNotEmpty()) {
+            candidates.add(Scenario(
+                title = "+2h per day this week",
+                description = "Work 2 extra hours on each remaining working day this week",
+                extraHoursByDay = workingDays.associateWith { 2f }
+            ))
+        }
+
+        // Weekend work for the next few weeks
+        val saturdayOnly = FloatArray(7).apply { this[Calendar.SATURDAY - 1] = 4f }
+        val fullWeekend = FloatArray(7).apply {
+            this[Calendar.SATURDAY - 1] = 4f
+            this[Calendar.SUNDAY - 1] = 4f
+        }
+        candidates.add(Scenario(
+            title = "Saturdays +4h",
+            description = "Work 4 extra hours on Saturdays for $WEEKEND_WEEKS weeks",
+            weeklyExtraHours = saturdayOnly,
+            weeklyExtraUntilEpochDay = today + WEEKEND_WEEKS * 7
+        ))
+        candidates.add(Scenario(
+            title = "Weekends +4h",
+            description = "Work 4 extra hours on Saturdays and Sundays for $WEEKEND_WEEKS weeks",
+            weeklyExtraHours = fullWeekend,
+            weeklyExtraUntilEpochDay = today + WEEKEND_WEEKS * 7
+        ))
+
+        // More hands: one more tailor's hours on top of the shop's, not a factor on them
+        val helperHours = FloatArray(7) { tailorHours[it] / 2 }
+        candidates.add(Scenario(
+            title = "Part-time helper",
+            description = "A helper working half a tailor's hours (${formatHours(helperHours.sum())}h/week)",
+            weeklyExtraHours = helperHours,
+            weeklyExtraUntilEpochDay = baseline.calendar.endEpochDay
+        ))
+        candidates.add(Scenario(
+            title = "Extra tailor",
+            description = "One more tailor working average hours (${formatHours(tailorHours.sum())}h/week)",
+            weeklyExtraHours = tailorHours,
+            weeklyExtraUntilEpochDay = baseline.calendar.endEpochDay
+        ))
+
+        return candidates
+    }
+
+    // ===== Evaluation =====
+
+    /**
+     * Evaluates all scenarios and ranks them by late orders avoided
+     * (stable, so equally good scenarios keep their given order).
+     *
+     * @param baseline Current queue
+     * @param scenarios Interventions to evaluate
+     */
+    fun rank(baseline: Baseline, scenarios: List<Scenario>): List<ScenarioResult> {
+        val before = baseline.overdueOrders
+        return scenarios.map { scenario ->
+            val overdue = countOverdue(baseline, scenario)
+            ScenarioResult(scenario, overdue, before - overdue)
+        }.sortedByDescending { it.overdueAvoided }
+    }
+
+    /**
+     * Evaluates a single scenario.
+     */
+    fun evaluate(baseline: Baseline, scenario: Scenario): ScenarioResult {
+        val overdue = countOverdue(baseline, scenario)
+        return ScenarioResult(scenario, overdue, baseline.overdueOrders - overdue)
+    }
+
+    /**
+     * Counts late orders under a scenario in one pass over the queue.
+     */
+    private fun countOverdue(baseline: Baseline, scenario: Scenario): Int {
+        var dueDays = baseline.dueDays
+        var efforts = baseline.efforts
+        if (scenario.pushedOrders.isNotEmpty()) {
+            val order = baseline.orderIds.indices.sortedWith(compareBy(
+                { baseline.dueDays[it] + (scenario.pushedOrders[baseline.orderIds[it]] ?: 0) },
+                { baseline.orderIds[it] }
+            ))
+            dueDays = IntArray(order.size) { baseline.dueDays[order[it]] + (scenario.pushedOrders[baseline.orderIds[order[it]]] ?: 0) }
+            efforts = DoubleArray(order.size) { baseline.efforts[order[it]] }
+        }
+
+        val calendar = baseline.calendar
+        val today = baseline.todayEpochDay
+        val extraDays = scenario.extraHoursByDay.keys.sorted()
+
+        var overdue = 0
+        var effortAhead = 0.0
+        var extraIndex = 0
+        var extraHours = 0.0
+        for (k in dueDays.indices) {
+            effortAhead += efforts[k]
+            val due = dueDays[k]
+
+            // Past the horizon the scheduler never reports an order late
+            if (due >= calendar.endEpochDay) continue
+
+            // Due days are ascending, so extra hours can be swept forwards
+            while (extraIndex < extraDays.size && extraDays[extraIndex] <= due) {
+                if (extraDays[extraIndex] >= today) {
+                    extraHours += scenario.extraHoursByDay.getValue(extraDays[extraIndex])
+                }
+                extraIndex++
+            }
+
+            val available = calendar.hoursBetween(today, due + 1, realistic = true) +
+                extraHours + weeklyExtraThrough(scenario, today, due)
+            if (available + EPSILON_HOURS < effortAhead) overdue++
+        }
+        return overdue
+    }
+
+    /**
+     * Recurring extra hours from today through [lastDay] (inclusive), in O(7).
+     */
+    private fun weeklyExtraThrough(scenario: Scenario, today: Int, lastDay: Int): Double {
+        val weekly = scenario.weeklyExtraHours ?: return 0.0
+        val days = minOf(lastDay, scenario.weeklyExtraUntilEpochDay - 1) - today + 1
+        if (days <= 0) return 0.0
+
+        val fullWeeks = days / 7
+        var total = fullWeeks * weekly.sum().toDouble()
+        val firstWeekday = CapacityCalendar.dayOfWeekOf(today) - 1
+        for (i in 0 until days % 7) {
+            total += weekly[(firstWeekday + i) % 7]
+        }
+        return total
+    }
+
+    private fun formatHours(hours: Float): String =
+        if (hours % 1f == 0f) hours.toInt().toString() else String.format(Locale.ROOT, "%.1f", hours)
+
+    /**
+     * Late orders with the days each must move to be on time, most late first.
+     */
+    private fun lateOrderPushes(baseline: Baseline): List<Pair<Int, Int>> {
+        val pushes = mutableListOf<Pair<Int, Int>>()
+        var effortAhead = 0.0
+        for (k in baseline.dueDays.indices) {
+            effortAhead += baseline.efforts[k]
+            val due = baseline.dueDays[k]
+            if (due >= baseline.calendar.endEpochDay) continue
+
+            val finish = baseline.calendar.firstDayWithHours(effortAhead, baseline.todayEpochDay, realistic = true)
+            if (finish > due) pushes.add(baseline.orderIds[k] to (finish - due))
+        }
+        return pushes.sortedByDescending { it.second }
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.perfectfit.utils
+
+import java.text.SimpleDateFormat
+import java.util.Calendar
+import java.util.Locale
+import java.util.TimeZone
+
+/**
+ * Shared codec for the app's "dd/MM/yyyy" date strings.
+ *
+ * Orders and customers store dates as text (delivery date, payment date,
+ * birth date). Screens and workers that scan many rows convert those strings
+ * to local epoch days (days since 1970-01-01, as in
+ * [CapacityCalendar.epochDayOf]) through this object instead of creating a
+ * SimpleDateFormat per call.
+ *
+ * Parsing:
+ * - Hand-rolled fixed-format parser, no Date/Calendar objects
+ * - Accepts 1-2 digit day and month and a 4 digit year; rejects impossible
+ *   dates such as 31/02/2024 (SimpleDateFormat leniently rolled them over)
+ * - Results are memoized in a small direct-mapped cache, since the same
+ *   dates repeat across orders
+ *
+ * All functions are thread-safe.
+ */
+object DateCodec {
+
+    /** Storage format of all dates in the app */
+    const val PATTERN = "dd/MM/yyyy"
+
+    /** Returned by [parseEpochDay] for empty or malformed input */
+    const val INVALID = Int.MIN_VALUE
+
+    /** Number of cache slots; must be a power of two */
+    private const val CACHE_SIZE = 512
+
+    private const val MILLIS_PER_DAY = 24L * 60 * 60 * 1000
+
+    /** Days from 0000-03-01 to 1970-01-01 in the proleptic Gregorian calendar */
+    private const val DAYS_0000_TO_1970 = 719468
+
+    /**
+     * Immutable cache entry; published by a single reference write, so a
+     * racing reader sees either a whole entry or none.
+     */
+    private class Entry(val text: String, val epochDay: Int)
+
+    private val parseCache = arrayOfNulls<Entry>(CACHE_SIZE)
+
+    /** Last formatted day, since most formatting is of today's date */
+    @Volatile
+    private var lastFormatted: Entry? = null
+
+    private val displayFormat = object : ThreadLocal<SimpleDateFormat>() {
+        override fun initialValue() = SimpleDateFormat("dd MMM yyyy", Locale.getDefault())
+    }
+
+    // ===== Parsing =====
+
+    /**
+     * Parses a "dd/MM/yyyy" string to a local epoch day.
+     *
+     * @param text Date string, may be null
+     * @return Epoch day, or [INVALID] if the text is not a valid date
+     */
+    fun parseEpochDay(text: String?): Int {
+        if (text.isNullOrEmpty()) return INVALID
+
+        val slot = text.hashCode() and (CACHE_SIZE - 1)
+        val cached = parseCache[slot]
+        if (cached != null && cached.text == text) return cached.epochDay
+
+        val epochDay = parseUncached(text)
+        parseCache[slot] = Entry(text, epochDay)
+        return epochDay
+    }
+
+    /**
+     * Whether the text is a valid "dd/MM/yyyy" date.
+     */
+    fun isValid(text: String?): Boolean = parseEpochDay(text) != INVALID
+
+    private fun parseUncached(text: String): Int {
+        val length = text.length
+        var index = 0
+
+        // Day
+        var day = 0
+        var digits = 0
+        while (index < length && digits < 2 && text[index] in '0'..'9') {
+            day = day * 10 + (text[index] - '0')
+            index++
+            digits++
+        }
+        if (digits == 0 || index >= length || text[index] != '/') return INVALID
+        index++
+
+        // Month
+        var month = 0
+        digits = 0
+        while (index < length && digits < 2 && text[index] in '0'..'9') {
+            month = month * 10 + (text[index] - '0')
+            index++
+            digits++
+        }
+        if (digits == 0 || index >= length || text[index] != '/') return INVALID
+        index++
+
+        // Year
+        var year = 0
+        digits = 0
+        while (index < length && text[index] in '0'..'9') {
+            year = year * 10 + (text[index] - '0')
+            index++
+            digits++
+        }
+        if (digits != 4 || index != length) return INVALID
+
+        if (month !in 1..12 || day !in 1..daysInMonth(year, month)) return INVALID
+        return epochDayOf(year, month, day)
+    }
+
+    // ===== Formatting =====
+
+    /**
+     * Formats a local epoch day as "dd/MM/yyyy".
+     */
+    fun format(epochDay: Int): String {
+        val last = lastFormatted
+        if (last != null && last.epochDay == epochDay) return last.text
+
+        val ymd = toYearMonthDay(epochDay)
+        val chars = CharArray(10)
+        putTwoDigits(chars, 0, dayOf(ymd))
+        chars[2] = '/'
+        putTwoDigits(chars, 3, monthOf(ymd))
+        chars[5] = '/'
+        val year = yearOf(ymd)
+        putTwoDigits(chars, 6, year / 100)
+        putTwoDigits(chars, 8, year % 100)
+
+        return String(chars).also { lastFormatted = Entry(it, epochDay) }
+    }
+
+    /**
+     * Formats a Calendar's local date as "dd/MM/yyyy".
+     */
+    fun format(calendar: Calendar): String = format(CapacityCalendar.epochDayOf(calendar))
+
+    /**
+     * Today's date as "dd/MM/yyyy".
+     */
+    fun formatToday(): String = format(today())
+
+    /**
+     * Formats a timestamp as "dd MMM yyyy" for display, e.g. "05 Mar 2024".
+     * Uses a per-thread formatter, so it is safe to call from any thread.
+     *
+     * @param timestampMillis Milliseconds since epoch
+     */
+    fun formatDisplay(timestampMillis: Long): String =
+        displayFormat.get()!!.format(java.util.Date(timestampMillis))
+
+    private fun putTwoDigits(chars: CharArray, offset: Int, value: Int) {
+        chars[offset] = '0' + value / 10
+        chars[offset + 1] = '0' + value % 10
+    }
+
+    // ===== Calendar Arithmetic =====
+
+    /**
+     * Today's local epoch day.
+     */
+    fun today(): Int = epochDayOfMillis(System.currentTimeMillis())
+
+    /**
+     * Local epoch day of a timestamp in the default time zone.
+     */
+    fun epochDayOfMillis(timestampMillis: Long): Int {
+        val offset = TimeZone.getDefault().getOffset(timestampMillis)
+        return Math.floorDiv(timestampMillis + offset, MILLIS_PER_DAY).toInt()
+    }
+
+    /**
+     * Epoch day of a civil date. Out-of-range days roll over like a lenient
+     * Calendar, e.g. 29 Feb of a common year is 1 Mar.
+     *
+     * @param year Full year, e.g. 2024
+     * @param month Month 1-12
+     * @param day Day of month
+     */
+    fun epochDayOf(year: Int, month: Int, day: Int): Int {
+        // Days from civil (H. Hinnant), with years starting in March
+        val y = if (month <= 2) year - 1 else year
+        val era = Math.floorDiv(y, 400)
+        val yearOfEra = y - era * 400
+        val monthFromMarch = if (month > 2) month - 3 else month + 9
+        val dayOfYear = (153 * monthFromMarch + 2) / 5 + day - 1
+        val dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear
+        return era * 146097 + dayOfEra - DAYS_0000_TO_1970
+    }
+
+    /**
+     * Civil date of an epoch day packed as yyyyMMdd, e.g. 20240305; read
+     * it with [yearOf], [monthOf] and [dayOf].
+     */
+    fun toYearMonthDay(epochDay: Int): Int {
+        val z = epochDay + DAYS_0000_TO_1970
+        val era = Math.floorDiv(z, 146097)
+        val dayOfEra = z - era * 146097
+        val yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365
+        val dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100)
+        val monthFromMarch = (5 * dayOfYear + 2) / 153
+        val day = dayOfYear - (153 * monthFromMarch + 2) / 5 + 1
+        val month = if (monthFromMarch < 10) monthFromMarch + 3 else monthFromMarch - 9
+        val year = yearOfEra + era * 400 + if (month <= 2) 1 else 0
+        return year * 10000 + month * 100 + day
+    }
+
+    fun yearOf(yearMonthDay: Int): Int = yearMonthDay / 10000
+
+    fun monthOf(yearMonthDay: Int): Int = yearMonthDay / 100 % 100
+
+    fun dayOf(yearMonthDay: Int): Int = yearMonthDay % 100
+
+    /**
+     * Month and day of an epoch day as month * 100 + day, e.g. 305 for 5 March.
+     */
+    fun monthDayOf(epochDay: Int): Int = toYearMonthDay(epochDay) % 10000
+
+    /**
+     * Days from [fromEpochDay] to the next anniversary of [dateEpochDay]
+     * (0 if it is on that day). 29 Feb dates fall on 1 Mar in common years.
+     */
+    fun daysUntilAnniversary(dateEpochDay: Int, fromEpochDay: Int): Int {
+        val date = toYearMonthDay(dateEpochDay)
+        val fromYear = yearOf(toYearMonthDay(fromEpochDay))
+        var next = epochDayOf(fromYear, monthOf(date), dayOf(date))
+        if (next < fromEpochDay) next = epochDayOf(fromYear + 1, monthOf(date), dayOf(date))
+        return next - fromEpochDay
+    }
+
+    private fun daysInMonth(year: Int, month: Int): Int = when (month) {
+        2 -> if (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) 29 else 28
+        4, 6, 9, 11 -> 30
+        else -> 31
+    }
+}
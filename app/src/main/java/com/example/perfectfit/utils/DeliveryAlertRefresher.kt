@@ -0,0 +1,185 @@
+package com.example.perfectfit.utils
+
+import android.content.Context
+import com.example.perfectfit.database.AppDatabase
+import com.example.perfectfit.database.OrderDeliveryAlert
+import com.example.perfectfit.models.DeliveryAlertRecord
+import com.example.perfectfit.models.Order
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+
+/**
+ * Single producer of delivery alerts.
+ *
+ * Alerts are classified once ([WorkloadHelper.getDeliveryAlerts]) and stored
+ * in the delivery_alerts table. Everything that shows alerts - the home
+ * screen card and the delivery/overdue notifications - reads that table.
+ *
+ * Refresh Triggers:
+ * - Daily, just after midnight, by DeliveryAlertWorker (days-until changes)
+ * - For a single order whenever it is created or edited
+ * - In full after sync, which can change many orders at once
+ * - On first read of the day if the daily job hasn't run yet
+ */
+object DeliveryAlertRefresher {
+
+    /** Alerts shown on the home screen */
+    const val HOME_ALERT_LIMIT = 5
+
+    @Volatile
+    private var lastRefreshedDay = Int.MIN_VALUE
+
+    // ===== Refreshing =====
+
+    /**
+     * Recomputes all alerts from open orders and replaces the table.
+     *
+     * @param database Database to read orders from and write alerts to
+     * @return Number of alerts stored
+     */
+    suspend fun refreshAll(database: AppDatabase): Int = withContext(Dispatchers.IO) {
+        val today = today()
+        val records = WorkloadHelper.getDeliveryAlerts(database.orderDao().getOpenOrders()).map {
+            DeliveryAlertRecord(
+                orderId = it.order.id,
+                alertLevel = it.alertLevel.name,
+                dueEpochDay = today + it.daysUntilDelivery,
+                refreshedOnDay = today
+            )
+        }
+        database.deliveryAlertDao().replaceAll(records)
+        lastRefreshedDay = today
+        records.size
+    }
+
+    /**
+     * Updates the alert for one order after it was created or edited.
+     * Falls back to a full refresh if today's alerts haven't been built yet.
+     *
+     * @param database Database to read the order from and write its alert to
+     * @param orderId Local ID of the changed order
+     */
+    suspend fun refreshOrder(database: AppDatabase, orderId: Int) = withContext(Dispatchers.IO) {
+        if (!isFresh(database)) {
+            refreshAll(database)
+            return@withContext
+        }
+
+        val dao = database.deliveryAlertDao()
+        val order = database.orderDao().getOrderById(orderId)
+        val alert = order?.takeIf { it.isActive() }?.let { WorkloadHelper.getDeliveryAlerts(listOf(it)).firstOrNull() }
+        if (alert == null) {
+            dao.deleteForOrder(orderId)
+        } else {
+            val today = today()
+            dao.upsert(DeliveryAlertRecord(
+                orderId = orderId,
+                alertLevel = alert.alertLevel.name,
+                dueEpochDay = today + alert.daysUntilDelivery,
+                refreshedOnDay = today
+            ))
+        }
+    }
+
+    /**
+     * Refreshes all alerts unless they were already computed today.
+     */
+    suspend fun ensureFresh(database: AppDatabase) {
+        if (!isFresh(database)) refreshAll(database)
+    }
+
+    private suspend fun isFresh(database: AppDatabase): Boolean = withContext(Dispatchers.IO) {
+        val today = today()
+        if (lastRefreshedDay == today) return@withContext true
+        val stored = database.deliveryAlertDao().getLastRefreshedDay()
+        if (stored == today) lastRefreshedDay = today
+        stored == today
+    }
+
+    // ===== Reading =====
+
+    /**
+     * Most pressing alerts, earliest due first.
+     *
+     * @param database Database to read from
+     * @param limit Maximum number of alerts
+     */
+    suspend fun getAlerts(database: AppDatabase, limit: Int = HOME_ALERT_LIMIT): List<WorkloadHelper.DeliveryAlert> {
+        ensureFresh(database)
+        return withContext(Dispatchers.IO) {
+            toDeliveryAlerts(database.deliveryAlertDao().getAlerts(limit))
+        }
+    }
+
+    /**
+     * Alerts of a single level, earliest due first.
+     *
+     * @param database Database to read from
+     * @param level Alert level to read
+     * @param limit Maximum number of alerts
+     */
+    suspend fun getAlertsByLevel(
+        database: AppDatabase,
+        level: WorkloadHelper.AlertLevel,
+        limit: Int
+    ): List<WorkloadHelper.DeliveryAlert> {
+        ensureFresh(database)
+        return withContext(Dispatchers.IO) {
+            toDeliveryAlerts(database.deliveryAlertDao().getAlertsByLevel(level.name, limit))
+        }
+    }
+
+    /**
+     * Open orders due tomorrow.
+     */
+    suspend fun getOrdersDueTomorrow(database: AppDatabase): List<Order> {
+        ensureFresh(database)
+        val today = today()
+        return withContext(Dispatchers.IO) {
+            database.deliveryAlertDao().getAlertsDueBetween(today + 1, today + 2).map { it.order }
+        }
+    }
+
+    /**
+     * Open orders past their delivery date.
+     */
+    suspend fun getOverdueOrders(database: AppDatabase): List<Order> {
+        ensureFresh(database)
+        return withContext(Dispatchers.IO) {
+            database.deliveryAlertDao().getAlertsDueBetween(Int.MIN_VALUE, today()).map { it.order }
+        }
+    }
+
+    // ===== Notifications =====
+
+    /**
+     * Posts the delivery reminder (due tomorrow) and overdue notifications
+     * from the materialized alerts.
+     *
+     * @param context Context for posting notifications
+     * @param database Database to read from
+     */
+    suspend fun postNotifications(context: Context, database: AppDatabase) {
+        val dueTomorrow = getOrdersDueTomorrow(database)
+        val overdue = getOverdueOrders(database)
+        NotificationHelper.showDeliveryReminderNotification(context, dueTomorrow)
+        NotificationHelper.showOverdueOrdersAlert(context, overdue)
+    }
+
+    // ===== Helpers =====
+
+    private fun toDeliveryAlerts(rows: List<OrderDeliveryAlert>): List<WorkloadHelper.DeliveryAlert> {
+        val today = today()
+        return rows.map { row ->
+            val daysUntil = row.dueEpochDay - today
+            WorkloadHelper.DeliveryAlert(
+                order = row.order,
+                daysUntilDelivery = daysUntil,
+                isOverdue = daysUntil < 0,
+                alertLevel = WorkloadHelper.AlertLevel.valueOf(row.alertLevel)
+            )
+        }
+    }
+
+    private fun today(): Int = DateCodec.today()
+}
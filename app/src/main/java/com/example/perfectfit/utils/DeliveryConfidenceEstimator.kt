@@ -0,0 +1,256 @@
+package com.example.perfectfit.utils
+
+import com.example.perfectfit.database.AppDatabase
+import com.example.perfectfit.database.OrderWithStage
+import com.example.perfectfit.models.WorkloadConfig
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+import java.util.Calendar
+import java.util.SplittableRandom
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.RecursiveTask
+import kotlin.math.ceil
+
+/**
+ * Monte Carlo estimate of when a new order will be finished.
+ *
+ * The current queue of active orders plus the new order is simulated many
+ * times. In each run every remaining work stage gets a duration sampled from
+ * its learned distribution ([EffortModel.stageQuantiles]), the total is laid
+ * onto the realistic working-hours calendar, and the finish day is counted.
+ * The result is a distribution of finish days: P50/P80/P95 dates and the
+ * probability of being ready by any delivery date.
+ *
+ * Performance:
+ * - The queue is flattened into primitive arrays (a quantile table plus one
+ *   table index per remaining stage) before simulating
+ * - Runs are split across the common fork/join pool; each leaf task owns a
+ *   SplittableRandom and a histogram, so the inner loop allocates nothing
+ * - Finish days come from a binary search in [CapacityCalendar]
+ *
+ * Stages with nothing learned are a single fixed value, summed once up front.
+ */
+object DeliveryConfidenceEstimator {
+
+    /** Default number of simulated runs */
+    const val DEFAULT_RUNS = 10_000
+
+    /** Runs simulated by one leaf task before splitting stops */
+    private const val RUNS_PER_TASK = 1_000
+
+    private val QUANTILES = EffortModel.QUANTILE_PROBABILITIES.size
+
+    /**
+     * Distribution of finish days for a new order.
+     *
+     * @property startEpochDay Day the simulation started (today)
+     * @property runs Number of simulated runs
+     */
+    class DeliveryConfidence internal constructor(
+        val startEpochDay: Int,
+        val runs: Int,
+        finishCounts: IntArray
+    ) {
+        /** cumulativeRuns[d] = runs finished by startEpochDay + d */
+        private val cumulativeRuns = IntArray(finishCounts.size).also { cumulative ->
+            var total = 0
+            for (i in finishCounts.indices) {
+                total += finishCounts[i]
+                cumulative[i] = total
+            }
+        }
+
+        val p50Day: Int get() = percentileDay(0.50)
+        val p80Day: Int get() = percentileDay(0.80)
+        val p95Day: Int get() = percentileDay(0.95)
+
+        /**
+         * First day by which at least [p] of the runs had finished.
+         */
+        fun percentileDay(p: Double): Int {
+            val needed = ceil(p * runs).toInt().coerceIn(1, runs)
+            var low = 0
+            var high = cumulativeRuns.size - 1
+            while (low < high) {
+                val mid = (low + high) ushr 1
+                if (cumulativeRuns[mid] >= needed) high = mid else low = mid + 1
+            }
+            return startEpochDay + low
+        }
+
+        /**
+         * Probability (0..1) that the order is finished by the end of a day.
+         */
+        fun probabilityBy(epochDay: Int): Double {
+            val index = epochDay - startEpochDay
+            if (index < 0) return 0.0
+            return cumulativeRuns[index.coerceAtMost(cumulativeRuns.size - 1)].toDouble() / runs
+        }
+
+        /**
+         * Probability (0..1) that the order is ready by a delivery date.
+         */
+        fun onTimeProbability(deliveryDate: Calendar): Double {
+            return probabilityBy(CapacityCalendar.epochDayOf(deliveryDate))
+        }
+
+        /**
+         * Calendar date for an epoch day returned by this estimate.
+         */
+        fun dateOf(epochDay: Int): Calendar {
+            return Calendar.getInstance().apply {
+                add(Calendar.DAY_OF_MONTH, epochDay - startEpochDay)
+            }
+        }
+    }
+
+    /**
+     * Simulates the current queue plus a new order.
+     *
+     * @param database Database to read active orders from
+     * @param config Current workload configuration
+     * @param orderType Type of the new order, or null for a typical order
+     * @param runs Number of simulated runs
+     */
+    suspend fun estimate(
+        database: AppDatabase,
+        config: WorkloadConfig,
+        orderType: String?,
+        runs: Int = DEFAULT_RUNS
+    ): DeliveryConfidence {
+        EffortModel.ensureLoaded(database)
+        val openOrders = withContext(Dispatchers.IO) {
+            database.orderDao().getOpenOrdersWithStages()
+        }
+
+        return withContext(Dispatchers.Default) {
+            val queue = buildQueue(openOrders, orderType, config)
+            val calendar = CapacityCalendar.forConfig(config)
+            val today = CapacityCalendar.epochDayOf(Calendar.getInstance())
+            simulate(queue, calendar, today, runs, SplittableRandom())
+        }
+    }
+
+    /**
+     * Runs the simulation of a flattened queue on the common fork/join pool.
+     * Internal, with [Queue], so unit tests can simulate without a database.
+     *
+     * @param queue Work ahead of the new order
+     * @param calendar Working-hours calendar covering [today]
+     * @param today Day the simulation starts
+     * @param runs Number of simulated runs
+     * @param random Source of randomness, split between tasks
+     */
+    internal fun simulate(
+        queue: Queue,
+        calendar: CapacityCalendar,
+        today: Int,
+        runs: Int,
+        random: SplittableRandom
+    ): DeliveryConfidence {
+        val bins = calendar.endEpochDay - today + 1
+        val counts = ForkJoinPool.commonPool().invoke(
+            SimulationTask(queue, calendar, today, runs, random, bins)
+        )
+        return DeliveryConfidence(today, runs, counts)
+    }
+
+    // ===== Queue =====
+
+    /**
+     * The work ahead of the new order, flattened for simulation.
+     *
+     * @property quantiles Stage duration tables, [QUANTILES] values each
+     * @property slots Index into [quantiles] (in tables) for every remaining
+     *                 stage with a learned distribution
+     * @property fixedHours Total of all stages with a single fixed duration
+     */
+    internal class Queue(
+        val quantiles: DoubleArray,
+        val slots: IntArray,
+        val fixedHours: Double
+    )
+
+    private fun buildQueue(openOrders: List<OrderWithStage>, orderType: String?, config: WorkloadConfig): Queue {
+        val tableIndex = HashMap<String, Int>()
+        val tables = ArrayList<DoubleArray>()
+        val slots = ArrayList<Int>()
+        var fixedHours = 0.0
+
+        fun addStage(type: String?, stage: String) {
+            val key = "$type|$stage"
+            val index = tableIndex[key] ?: run {
+                val table = EffortModel.stageQuantiles(type, stage, config)
+                for (i in table.indices) table[i] = table[i] / config.productivityFactor
+                tables.add(table)
+                (tables.size - 1).also { tableIndex[key] = it }
+            }
+            val table = tables[index]
+            if (table.first() == table.last()) {
+                fixedHours += table.first()
+            } else {
+                slots.add(index)
+            }
+        }
+
+        for (row in openOrders) {
+            EffortModel.remainingWorkStages(row.stage?.currentStage).forEach { addStage(row.order.orderType, it) }
+        }
+        EffortModel.remainingWorkStages(null).forEach { addStage(orderType, it) }
+
+        val quantiles = DoubleArray(tables.size * QUANTILES)
+        tables.forEachIndexed { index, table -> table.copyInto(quantiles, index * QUANTILES) }
+        return Queue(quantiles, slots.toIntArray(), fixedHours)
+    }
+
+    // ===== Simulation =====
+
+    /**
+     * Simulates [runs] runs, splitting in halves down to [RUNS_PER_TASK].
+     * Returns a histogram of finish days relative to [today]; the last bin
+     * collects runs that finish beyond the calendar horizon.
+     */
+    internal class SimulationTask(
+        private val queue: Queue,
+        private val calendar: CapacityCalendar,
+        private val today: Int,
+        private val runs: Int,
+        private val random: SplittableRandom,
+        private val bins: Int
+    ) : RecursiveTask<IntArray>() {
+
+        override fun compute(): IntArray {
+            if (runs <= RUNS_PER_TASK) return simulate()
+
+            val half = runs / 2
+            val left = SimulationTask(queue, calendar, today, half, random.split(), bins)
+            left.fork()
+            val counts = SimulationTask(queue, calendar, today, runs - half, random, bins).compute()
+            val leftCounts = left.join()
+            for (i in counts.indices) counts[i] += leftCounts[i]
+            return counts
+        }
+
+        private fun simulate(): IntArray {
+            val counts = IntArray(bins)
+            val quantiles = queue.quantiles
+            val slots = queue.slots
+            val segments = QUANTILES - 1
+
+            for (run in 0 until runs) {
+                var hours = queue.fixedHours
+                for (slot in slots) {
+                    // Inverse CDF: linear between quantiles at evenly spaced probabilities
+                    val position = random.nextDouble() * segments
+                    val segment = position.toInt()
+                    val base = slot * QUANTILES + segment
+                    val low = quantiles[base]
+                    hours += low + (position - segment) * (quantiles[base + 1] - low)
+                }
+                val finishDay = calendar.firstDayWithHours(hours, today, realistic = true)
+                counts[(finishDay - today).coerceIn(0, bins - 1)]++
+            }
+            return counts
+        }
+    }
+}
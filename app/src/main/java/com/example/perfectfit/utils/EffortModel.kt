@@ -0,0 +1,262 @@
+package com.example.perfectfit.utils
+
+import com.example.perfectfit.database.AppDatabase
+import com.example.perfectfit.models.OrderStageHistory
+import com.example.perfectfit.models.ProductionStage
+import com.example.perfectfit.models.StageEffortStats
+import com.example.perfectfit.models.WorkloadConfig
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.withContext
+
+/**
+ * Per-order-type effort model learned from production stage history.
+ *
+ * Stage durations are summarised in the stage_effort_stats table with
+ * streaming quantiles ([StageEffortStats]); this object keeps an in-memory
+ * snapshot of those rows so estimates are plain map lookups.
+ *
+ * Estimates (hours):
+ * - Stage effort: median duration for the order type, else for all types,
+ *   else the hard-coded ProductionStage.EXPECTED_*_HOURS constant
+ * - Delay threshold: 75th percentile, with the same fallbacks
+ * - Order effort: sum of stage efforts over the work stages, or
+ *   WorkloadConfig.timePerOrderHours while nothing has been learned yet
+ * - Stage distribution: durations at fixed quantiles, for sampling in
+ *   [DeliveryConfidenceEstimator]
+ *
+ * Updates:
+ * - recordStageCompleted() folds each finished stage into the stats as it
+ *   happens; history is only scanned once, to seed an empty table
+ * - Loading and recording share one lock, so a stage recorded before the
+ *   first load can't make the table look already seeded, and the seed can't
+ *   overwrite a row that was just recorded
+ */
+object EffortModel {
+
+    /** Observations needed before a row is trusted over the fallback */
+    private const val MIN_SAMPLES = 3
+
+    private const val HOUR_MS = 60 * 60 * 1000f
+
+    /** Probabilities at which [stageQuantiles] reports durations (evenly spaced) */
+    val QUANTILE_PROBABILITIES = doubleArrayOf(0.0, 0.25, 0.5, 0.75, 1.0)
+
+    /** Stages that represent actual work (PENDING/READY/DELIVERED are waiting time) */
+    val WORK_STAGES: List<String> = ProductionStage.getAllStages()
+        .filter { ProductionStage.getExpectedDuration(it) > 0f }
+
+    @Volatile
+    private var stats: Map<String, StageEffortStats>? = null
+
+    /** Serializes seeding, loading and recording */
+    private val mutex = Mutex()
+
+    // ===== Loading =====
+
+    /**
+     * Loads the stats snapshot if it isn't loaded yet, seeding the table from
+     * existing stage history the first time.
+     *
+     * @param database Database to read from
+     */
+    suspend fun ensureLoaded(database: AppDatabase) = withContext(Dispatchers.IO) {
+        if (stats != null) return@withContext
+
+        mutex.withLock {
+            // Another caller may have loaded while this one waited
+            if (stats == null) load(database)
+        }
+    }
+
+    /**
+     * Loads the snapshot, seeding an empty table first. Call with [mutex] held.
+     *
+     * @return true if the table was seeded from history
+     */
+    private suspend fun load(database: AppDatabase): Boolean {
+        val dao = database.stageEffortStatsDao()
+        val seeded = dao.count() == 0 && seedFromHistory(database)
+        stats = dao.getAll().associateBy { key(it.orderType, it.stageName) }
+        return seeded
+    }
+
+    /**
+     * Records a completed stage and updates the snapshot. Loads (and if need
+     * be seeds) the stats first, so the stage isn't recorded into an
+     * unseeded table. The history entry is already committed, so a seed
+     * includes it and it isn't recorded a second time.
+     *
+     * @param database Database to write to
+     * @param orderType Type of the order that completed the stage
+     * @param history The completed history entry
+     */
+    suspend fun recordStageCompleted(
+        database: AppDatabase,
+        orderType: String,
+        history: OrderStageHistory
+    ) = withContext(Dispatchers.IO) {
+        if (history.stageName !in WORK_STAGES) return@withContext
+        val hours = history.getDurationHours() ?: return@withContext
+
+        mutex.withLock {
+            if (stats == null && load(database)) return@withLock
+
+            val updated = database.stageEffortStatsDao()
+                .recordDuration(orderType, history.stageName, hours.toDouble())
+
+            stats?.let { current ->
+                stats = current + updated.associateBy { key(it.orderType, it.stageName) }
+            }
+        }
+
+        // Effort estimates of queued orders may have shifted
+        ProductionScheduler.invalidate()
+        WorkerAssignmentEngine.invalidate()
+    }
+
+    /**
+     * Builds the stats from all completed history in one pass.
+     *
+     * @return true if any history was found
+     */
+    private suspend fun seedFromHistory(database: AppDatabase): Boolean {
+        val durations = database.orderStageHistoryDao().getCompletedStageDurations()
+        if (durations.isEmpty()) return false
+
+        val seeded = HashMap<String, StageEffortStats>()
+        for (duration in durations) {
+            if (duration.stageName !in WORK_STAGES) continue
+            val hours = duration.durationMs / (1000.0 * 60 * 60)
+            for (type in listOf(duration.orderType, StageEffortStats.ALL_TYPES).distinct()) {
+                val k = key(type, duration.stageName)
+                val current = seeded[k] ?: StageEffortStats(orderType = type, stageName = duration.stageName)
+                seeded[k] = current.withObservation(hours)
+            }
+        }
+
+        database.stageEffortStatsDao().upsertAll(seeded.values.toList())
+        return true
+    }
+
+    // ===== Estimates =====
+
+    /**
+     * Stats row to use for an order type and stage: the type's own row if it
+     * has enough samples, else the all-types row, else null.
+     */
+    fun statsFor(orderType: String?, stageName: String): StageEffortStats? {
+        val snapshot = stats ?: return null
+        orderType?.let { type ->
+            snapshot[key(type, stageName)]?.takeIf { it.count >= MIN_SAMPLES }?.let { return it }
+        }
+        return snapshot[key(StageEffortStats.ALL_TYPES, stageName)]?.takeIf { it.count >= MIN_SAMPLES }
+    }
+
+    /**
+     * Hours after which a stage counts as delayed (75th percentile).
+     */
+    fun delayThresholdHours(orderType: String?, stageName: String): Float {
+        return statsFor(orderType, stageName)?.upperQuartileHours?.toFloat()
+            ?: ProductionStage.getExpectedDuration(stageName)
+    }
+
+    /**
+     * Deadline for a stage starting now: its start plus the delay threshold.
+     *
+     * @return Deadline timestamp, or null for stages that aren't work stages
+     */
+    fun stageDeadline(orderType: String?, stageName: String, startedAt: Long): Long? {
+        if (stageName !in WORK_STAGES) return null
+        val hours = delayThresholdHours(orderType, stageName)
+        if (hours <= 0f) return null
+        return startedAt + (hours * HOUR_MS).toLong()
+    }
+
+    /**
+     * Checks if anything has been learned for the work stages of an order type
+     * (or all types).
+     */
+    fun hasLearnedEffort(orderType: String?): Boolean {
+        return WORK_STAGES.any { statsFor(orderType, it) != null }
+    }
+
+    /**
+     * Total effort for a new order of a type.
+     *
+     * @param orderType Order type, or null for a typical order
+     * @param config Workload configuration (fallback before anything is learned)
+     */
+    fun orderHours(orderType: String?, config: WorkloadConfig): Float {
+        return remainingOrderHours(orderType, ProductionStage.STAGE_PENDING, config)
+    }
+
+    /**
+     * Effort still ahead of an order in a stage; the current stage counts as
+     * not yet done.
+     *
+     * @param orderType Order type, or null for a typical order
+     * @param currentStage Current production stage (null = not started)
+     * @param config Workload configuration (fallback before anything is learned)
+     */
+    fun remainingOrderHours(orderType: String?, currentStage: String?, config: WorkloadConfig): Float {
+        return remainingWorkStages(currentStage).sumOf { stage ->
+            stageHours(orderType, stage, config).toDouble()
+        }.toFloat()
+    }
+    
+    /**
+     * Effort for a single stage (median duration, with the usual fallbacks).
+     *
+     * @param orderType Order type, or null for a typical order
+     * @param stageName Production stage
+     * @param config Workload configuration (fallback before anything is learned)
+     */
+    fun stageHours(orderType: String?, stageName: String, config: WorkloadConfig): Float {
+        return statsFor(orderType, stageName)?.medianHours?.toFloat()
+            ?: fallbackStageHours(orderType, stageName, config)
+    }
+
+    /**
+     * Work stages still ahead of an order in [currentStage], including it.
+     */
+    fun remainingWorkStages(currentStage: String?): List<String> {
+        val stages = ProductionStage.getAllStages()
+        val currentIndex = stages.indexOf(currentStage ?: ProductionStage.STAGE_PENDING)
+            .coerceAtLeast(0)
+        return stages.drop(currentIndex).filter { it in WORK_STAGES }
+    }
+
+    /**
+     * Stage duration at the probabilities in [QUANTILE_PROBABILITIES], used as a
+     * piecewise-linear inverse CDF for sampling. Collapses to a single value
+     * when nothing has been learned for the stage.
+     *
+     * @return Durations in hours, one per probability
+     */
+    fun stageQuantiles(orderType: String?, stageName: String, config: WorkloadConfig): DoubleArray {
+        val stats = statsFor(orderType, stageName)
+        if (stats != null) {
+            return DoubleArray(QUANTILE_PROBABILITIES.size) { stats.quantile(QUANTILE_PROBABILITIES[it]) }
+        }
+        val hours = fallbackStageHours(orderType, stageName, config).toDouble()
+        return DoubleArray(QUANTILE_PROBABILITIES.size) { hours }
+    }
+
+    /**
+     * Stage effort when the stage itself has no learned stats: the hard-coded
+     * stage duration if other stages were learned, otherwise the configured
+     * hours per order split by the share of expected stage hours.
+     */
+    private fun fallbackStageHours(orderType: String?, stageName: String, config: WorkloadConfig): Float {
+        val expected = ProductionStage.getExpectedDuration(stageName)
+        if (hasLearnedEffort(orderType)) return expected
+
+        val expectedTotal = WORK_STAGES.sumOf { ProductionStage.getExpectedDuration(it).toDouble() }
+        if (expectedTotal <= 0.0) return config.timePerOrderHours / WORK_STAGES.size.coerceAtLeast(1)
+        return (config.timePerOrderHours * expected / expectedTotal).toFloat()
+    }
+
+    private fun key(orderType: String, stageName: String) = "$orderType|$stageName"
+}
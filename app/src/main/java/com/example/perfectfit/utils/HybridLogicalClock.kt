@@ -0,0 +1,146 @@
+package com.example.perfectfit.utils
+
+import android.content.Context
+import android.content.SharedPreferences
+import android.util.Log
+import java.util.Locale
+import java.util.UUID
+
+/**
+ * Hybrid logical clock that versions customer, order and measurement edits
+ * for sync.
+ *
+ * A version is the wall-clock millisecond of the edit, a counter and this
+ * device's node ID, encoded so that plain string comparison orders versions:
+ * ```
+ * 0001718000000000-00003-9f2c4e1a7b3d5f60
+ * ```
+ * Unlike a bare System.currentTimeMillis() stamp:
+ * - Versions never go backwards on a device, even if its clock is set back
+ * - After [observe] sees another device's version, every later local edit
+ *   gets a higher one, so an edit made after seeing a change always wins
+ *   over it, however far apart the two clocks are
+ * - Two edits in the same millisecond get distinct, consistently ordered
+ *   versions; the node ID settles the rare exact tie
+ *
+ * The server stores versions as sent and compares them the same way, so
+ * every device and the server agree on which edit wins. Rows written before
+ * versioning have an empty version, which is older than any other.
+ *
+ * Call [init] at startup to restore the node ID and the last issued version;
+ * until then the clock runs with an in-memory node ID.
+ *
+ * All functions are thread-safe.
+ */
+object HybridLogicalClock {
+
+    private const val TAG = "HybridLogicalClock"
+    private const val PREFS_NAME = "hlc_prefs"
+    private const val PREF_NODE_ID = "node_id"
+    private const val PREF_PHYSICAL = "physical"
+    private const val PREF_COUNTER = "counter"
+
+    /** Largest counter value; the clock moves to the next millisecond past it */
+    private const val MAX_COUNTER = 99_999
+
+    /**
+     * Remote versions further ahead of this device's clock than this don't
+     * advance it, so one device with a wildly wrong clock can't drag every
+     * other device's versions into the future.
+     */
+    private const val MAX_DRIFT_MS = 24L * 60 * 60 * 1000
+
+    private var prefs: SharedPreferences? = null
+    private var nodeId = newNodeId()
+    private var physical = 0L
+    private var counter = 0
+
+    /**
+     * Restores the node ID and last issued version. Safe to call repeatedly.
+     */
+    @Synchronized
+    fun init(context: Context) {
+        if (prefs != null) return
+        val store = context.applicationContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+
+        nodeId = store.getString(PREF_NODE_ID, null) ?: nodeId.also {
+            store.edit().putString(PREF_NODE_ID, it).apply()
+        }
+        val savedPhysical = store.getLong(PREF_PHYSICAL, 0L)
+        val savedCounter = store.getInt(PREF_COUNTER, 0)
+        if (savedPhysical > physical || (savedPhysical == physical && savedCounter > counter)) {
+            physical = savedPhysical
+            counter = savedCounter
+        }
+        prefs = store
+    }
+
+    /**
+     * Issues a version for a local edit, higher than every version this
+     * device has issued or observed.
+     */
+    @Synchronized
+    fun now(): String {
+        val wall = System.currentTimeMillis()
+        if (wall > physical) {
+            physical = wall
+            counter = 0
+        } else if (counter < MAX_COUNTER) {
+            counter++
+        } else {
+            physical++
+            counter = 0
+        }
+        save()
+        return format(physical, counter, nodeId)
+    }
+
+    /**
+     * Merges a version received from the server, so later local edits are
+     * versioned after it.
+     *
+     * @param version Remote version; empty or malformed versions are ignored
+     */
+    @Synchronized
+    fun observe(version: String?) {
+        val (remotePhysical, remoteCounter) = parse(version) ?: return
+        if (remotePhysical > System.currentTimeMillis() + MAX_DRIFT_MS) {
+            Log.w(TAG, "Ignoring version from the future: $version")
+            return
+        }
+        if (remotePhysical > physical || (remotePhysical == physical && remoteCounter > counter)) {
+            physical = remotePhysical
+            counter = remoteCounter
+            save()
+        }
+    }
+
+    /**
+     * Compares two versions; null and empty are older than any real version.
+     *
+     * @return Negative, zero or positive as [a] is older than, equal to or newer than [b]
+     */
+    fun compare(a: String?, b: String?): Int = (a ?: "").compareTo(b ?: "")
+
+    // ===== Encoding =====
+
+    private fun format(physical: Long, counter: Int, node: String): String =
+        String.format(Locale.ROOT, "%016d-%05d-%s", physical, counter, node)
+
+    private fun parse(version: String?): Pair<Long, Int>? {
+        val parts = version?.split('-') ?: return null
+        if (parts.size != 3) return null
+        val physical = parts[0].toLongOrNull() ?: return null
+        val counter = parts[1].toIntOrNull() ?: return null
+        return physical to counter
+    }
+
+    private fun newNodeId(): String = UUID.randomUUID().toString().replace("-", "").take(16)
+
+    private fun save() {
+        prefs?.edit()
+            ?.putLong(PREF_PHYSICAL, physical)
+            ?.putInt(PREF_COUNTER, counter)
+            ?.apply()
+    }
+}
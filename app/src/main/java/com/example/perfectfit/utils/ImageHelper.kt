@@ -7,10 +7,12 @@ import android.graphics.Matrix
 import android.media.ExifInterface
 import android.net.Uri
 import androidx.core.content.FileProvider
+import com.example.perfectfit.models.OrderImage
 import java.io.File
 import java.io.FileOutputStream
 import java.io.IOException
 import java.io.InputStream
+import java.security.MessageDigest
 import java.text.SimpleDateFormat
 import java.util.*
 
@@ -28,6 +30,7 @@ import java.util.*
  * - Images stored in: /data/data/com.example.perfectfit/files/images/
  * - Naming: order_{orderId}_{type}_{timestamp}.jpg
  * - Example: order_123_REFERENCE_1698334567890.jpg
+ * - Optional full-resolution originals: files/originals/ (see keep original mode)
  * 
  * @param context Application context
  */
@@ -48,6 +51,61 @@ class ImageHelper(private val context: Context) {
             }
         }
     }
+    
+    private val originalsDir: File by lazy {
+        File(context.filesDir, ORIGINALS_DIRECTORY).apply {
+            if (!exists()) {
+                mkdirs()
+            }
+        }
+    }
+    
+    private val prefs by lazy {
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+    }
+
+    /**
+     * Whether picked images also keep an untouched full-resolution copy.
+     * The compressed copy is still saved for thumbnails and sharing.
+     */
+    fun isKeepOriginalEnabled(): Boolean = prefs.getBoolean(PREF_KEEP_ORIGINAL, false)
+
+    /**
+     * Enables or disables keep original mode for future images.
+     */
+    fun setKeepOriginalEnabled(enabled: Boolean) {
+        prefs.edit().putBoolean(PREF_KEEP_ORIGINAL, enabled).apply()
+    }
+
+    /**
+     * Copies the source image byte-for-byte into the originals directory.
+     * No decoding or re-encoding happens, so resolution and EXIF are preserved.
+     * 
+     * @param uri Source image URI (from gallery or camera)
+     * @param orderId The order ID this image belongs to
+     * @param imageType Image type (REFERENCE, COMPLETED, etc.)
+     * @return Relative file path within app storage, or null if failed
+     */
+    fun saveOriginal(uri: Uri, orderId: Int, imageType: String): String? {
+        return try {
+            val extension = context.contentResolver.getType(uri)
+                ?.let { android.webkit.MimeTypeMap.getSingleton().getExtensionFromMimeType(it) }
+                ?: "jpg"
+            val fileName = "order_${orderId}_${imageType}_${System.currentTimeMillis()}.$extension"
+            
+            val inputStream = context.contentResolver.openInputStream(uri) ?: return null
+            inputStream.use { input ->
+                FileOutputStream(File(originalsDir, fileName)).use { output ->
+                    input.copyTo(output)
+                }
+            }
+            
+            "$ORIGINALS_DIRECTORY/$fileName"
+        } catch (e: Exception) {
+            e.printStackTrace()
+            null
+        }
+    }
 
     /**
      * Saves an image from URI to app storage with compression.
@@ -189,13 +247,7 @@ class ImageHelper(private val context: Context) {
      */
     fun deleteImage(filePath: String): Boolean {
         return try {
-            // Determine if it's a portfolio image
-            val file = if (filePath.startsWith("$PORTFOLIO_DIRECTORY/")) {
-                File(context.filesDir, filePath)
-            } else {
-                File(imagesDir, filePath)
-            }
-            file.delete()
+            resolveFile(filePath).delete()
         } catch (e: Exception) {
             e.printStackTrace()
             false
@@ -209,10 +261,35 @@ class ImageHelper(private val context: Context) {
      * @return Full file path
      */
     fun getFullPath(filePath: String): String {
-        return if (filePath.startsWith("$PORTFOLIO_DIRECTORY/")) {
-            File(context.filesDir, filePath).absolutePath
+        return resolveFile(filePath).absolutePath
+    }
+
+    /**
+     * Gets the best file to show in the fullscreen viewer:
+     * the kept original when present, otherwise the compressed copy.
+     * 
+     * @param image The image to view
+     * @return Full file path
+     */
+    fun getViewerPath(image: OrderImage): String {
+        val original = image.originalPath?.let { resolveFile(it) }
+        return if (original != null && original.exists()) {
+            original.absolutePath
         } else {
-            File(imagesDir, filePath).absolutePath
+            getFullPath(image.filePath)
+        }
+    }
+
+    /**
+     * Resolves a stored relative path to its file.
+     * Portfolio and original paths carry their directory prefix;
+     * plain file names live in the images directory.
+     */
+    private fun resolveFile(filePath: String): File {
+        return if (filePath.startsWith("$PORTFOLIO_DIRECTORY/") || filePath.startsWith("$ORIGINALS_DIRECTORY/")) {
+            File(context.filesDir, filePath)
+        } else {
+            File(imagesDir, filePath)
         }
     }
 
@@ -225,11 +302,7 @@ class ImageHelper(private val context: Context) {
      */
     fun getImageUri(filePath: String): Uri? {
         return try {
-            val file = if (filePath.startsWith("$PORTFOLIO_DIRECTORY/")) {
-                File(context.filesDir, filePath)
-            } else {
-                File(imagesDir, filePath)
-            }
+            val file = resolveFile(filePath)
             
             if (file.exists()) {
                 FileProvider.getUriForFile(
@@ -268,6 +341,31 @@ class ImageHelper(private val context: Context) {
         return if (file.exists()) file.length() else 0L
     }
 
+    /**
+     * Computes the SHA-256 content hash of an image file.
+     * Used to address the blob on the server so identical files upload once.
+     * 
+     * @param filePath Relative file path from database
+     * @return Lowercase hex digest, or null if the file can't be read
+     */
+    fun computeContentHash(filePath: String): String? {
+        return try {
+            val digest = MessageDigest.getInstance("SHA-256")
+            File(getFullPath(filePath)).inputStream().use { input ->
+                val buffer = ByteArray(HASH_BUFFER_SIZE)
+                var read = input.read(buffer)
+                while (read != -1) {
+                    digest.update(buffer, 0, read)
+                    read = input.read(buffer)
+                }
+            }
+            digest.digest().joinToString("") { "%02x".format(it) }
+        } catch (e: IOException) {
+            e.printStackTrace()
+            null
+        }
+    }
+
     /**
      * Deletes all images for a specific order.
      * 
@@ -345,8 +443,12 @@ class ImageHelper(private val context: Context) {
     companion object {
         private const val IMAGES_DIRECTORY = "images"
         private const val PORTFOLIO_DIRECTORY = "portfolio"
+        private const val ORIGINALS_DIRECTORY = "originals"
+        private const val PREFS_NAME = "image_prefs"
+        private const val PREF_KEEP_ORIGINAL = "keep_original"
         private const val MAX_IMAGE_SIZE = 1920  // Max width/height in pixels
         private const val JPEG_QUALITY = 85      // JPEG compression quality (0-100)
+        private const val HASH_BUFFER_SIZE = 64 * 1024
     }
 }
 
@@ -10,7 +10,10 @@ import androidx.core.app.NotificationCompat
 import androidx.core.app.NotificationManagerCompat
 import com.example.perfectfit.MainActivity
 import com.example.perfectfit.R
+import com.example.perfectfit.database.StageWithOrder
+import com.example.perfectfit.models.Customer
 import com.example.perfectfit.models.Order
+import com.example.perfectfit.models.ProductionStage
 
 /**
  * Helper class for managing notifications
@@ -28,6 +31,12 @@ object NotificationHelper {
     private const val NOTIFICATION_ID_PAYMENT = 3001
     private const val NOTIFICATION_ID_OVERDUE = 4001
     private const val NOTIFICATION_ID_BIRTHDAY = 5001
+    private const val NOTIFICATION_ID_SLOW_STAGE = 6001
+    
+    // Per-customer birthday notifications use the customer ID under this tag
+    private const val NOTIFICATION_TAG_BIRTHDAY = "birthday"
+    private const val GROUP_KEY_BIRTHDAYS = "com.example.perfectfit.BIRTHDAYS"
+    private const val MAX_BIRTHDAY_NOTIFICATIONS = 10
     
     /**
      * Create all notification channels
@@ -263,6 +272,50 @@ object NotificationHelper {
         NotificationManagerCompat.from(context).notify(NOTIFICATION_ID_OVERDUE, notification)
     }
     
+    /**
+     * Show an alert for orders that overstayed their production stage
+     */
+    fun showSlowStageAlert(
+        context: Context,
+        lateStages: List<StageWithOrder>
+    ) {
+        if (lateStages.isEmpty()) return
+        
+        val intent = Intent(context, MainActivity::class.java).apply {
+            flags = Intent.FLAG_ACTIVITY_NEW_TASK or Intent.FLAG_ACTIVITY_CLEAR_TASK
+        }
+        
+        val pendingIntent = PendingIntent.getActivity(
+            context,
+            0,
+            intent,
+            PendingIntent.FLAG_UPDATE_CURRENT or PendingIntent.FLAG_IMMUTABLE
+        )
+        
+        val message = buildString {
+            append("⏱️ Behind schedule:\n")
+            lateStages.take(5).forEach { (stage, order) ->
+                append("• Order #${order.id} - ${order.customerName}\n")
+                append("  ${ProductionStage.getStageDisplayName(stage.currentStage)} for ${stage.getTimeInCurrentStage().toInt()}h\n")
+            }
+            if (lateStages.size > 5) {
+                append("and ${lateStages.size - 5} more...")
+            }
+        }
+        
+        val notification = NotificationCompat.Builder(context, CHANNEL_ID_OVERDUE_ALERTS)
+            .setSmallIcon(R.drawable.ic_notification)
+            .setContentTitle("🐢 Slow Orders")
+            .setContentText("${lateStages.size} orders are taking longer than expected")
+            .setStyle(NotificationCompat.BigTextStyle().bigText(message))
+            .setPriority(NotificationCompat.PRIORITY_HIGH)
+            .setContentIntent(pendingIntent)
+            .setAutoCancel(true)
+            .build()
+        
+        NotificationManagerCompat.from(context).notify(NOTIFICATION_ID_SLOW_STAGE, notification)
+    }
+    
     /**
      * Show birthday reminder notification
      */
@@ -294,5 +347,71 @@ object NotificationHelper {
         
         NotificationManagerCompat.from(context).notify(NOTIFICATION_ID_BIRTHDAY, notification)
     }
+    
+    /**
+     * Show today's birthdays as one notification group: a notification per
+     * customer (up to a limit) bundled under a summary listing everyone
+     */
+    fun showBirthdayNotifications(
+        context: Context,
+        customers: List<Customer>
+    ) {
+        if (customers.isEmpty()) return
+        if (customers.size == 1) {
+            sendBirthdayReminder(
+                context,
+                "🎂 ${customers[0].fullName}'s Birthday!",
+                "Tap to call and wish them. Send them a special discount!"
+            )
+            return
+        }
+        
+        val intent = Intent(context, MainActivity::class.java).apply {
+            flags = Intent.FLAG_ACTIVITY_NEW_TASK or Intent.FLAG_ACTIVITY_CLEAR_TASK
+        }
+        
+        val pendingIntent = PendingIntent.getActivity(
+            context,
+            0,
+            intent,
+            PendingIntent.FLAG_UPDATE_CURRENT or PendingIntent.FLAG_IMMUTABLE
+        )
+        
+        val manager = NotificationManagerCompat.from(context)
+        
+        customers.take(MAX_BIRTHDAY_NOTIFICATIONS).forEach { customer ->
+            val notification = NotificationCompat.Builder(context, CHANNEL_ID_BIRTHDAY_REMINDERS)
+                .setSmallIcon(R.drawable.ic_notification)
+                .setContentTitle("🎂 ${customer.fullName}'s Birthday!")
+                .setContentText("Tap to call and wish them. Send them a special discount!")
+                .setPriority(NotificationCompat.PRIORITY_DEFAULT)
+                .setContentIntent(pendingIntent)
+                .setGroup(GROUP_KEY_BIRTHDAYS)
+                .setAutoCancel(true)
+                .build()
+            
+            manager.notify(NOTIFICATION_TAG_BIRTHDAY, customer.id, notification)
+        }
+        
+        val inboxStyle = NotificationCompat.InboxStyle()
+            .setSummaryText("${customers.size} birthdays")
+        customers.take(5).forEach { inboxStyle.addLine(it.fullName) }
+        if (customers.size > 5) {
+            inboxStyle.addLine("and ${customers.size - 5} more...")
+        }
+        
+        val summary = NotificationCompat.Builder(context, CHANNEL_ID_BIRTHDAY_REMINDERS)
+            .setSmallIcon(R.drawable.ic_notification)
+            .setContentTitle("🎉 ${customers.size} Birthdays Today!")
+            .setContentText(customers.joinToString(", ") { it.firstName })
+            .setStyle(inboxStyle)
+            .setPriority(NotificationCompat.PRIORITY_DEFAULT)
+            .setContentIntent(pendingIntent)
+            .setGroup(GROUP_KEY_BIRTHDAYS)
+            .setGroupSummary(true)
+            .setAutoCancel(true)
+            .build()
+        
+        manager.notify(NOTIFICATION_ID_BIRTHDAY, summary)
+    }
 }
-
@@ -0,0 +1,312 @@
+package com.example.perfectfit.utils
+
+import com.example.perfectfit.database.AppDatabase
+import com.example.perfectfit.models.Order
+import com.example.perfectfit.models.ProductionStage
+import com.example.perfectfit.models.WorkloadConfig
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+import java.util.*
+
+/**
+ * Finite-capacity production schedule for all active orders.
+ *
+ * Each active order's remaining effort is slotted onto specific working days,
+ * earliest due date first, without exceeding the realistic daily hours of the
+ * [WorkloadConfig]. The result is a per-day load profile plus a planned
+ * start/finish day for every order.
+ *
+ * Scheduling Rules:
+ * - Orders are worked in (delivery date, order id) order; overdue orders first
+ * - Work starts today and fills each day up to its realistic hours
+ * - Remaining effort comes from [EffortModel] for the order's type and stage
+ *
+ * Incremental Updates:
+ * - Work is packed contiguously, so everything before a changed order is
+ *   unaffected; onOrderChanged() re-slots only that order and those after it
+ * - The whole schedule is rebuilt when the config or the date changes
+ *
+ * Queries (loadOn, capacityOn, scheduledFinish) are constant time.
+ *
+ * @see [CapacityCalendar] for the working hours per day
+ */
+object ProductionScheduler {
+
+    /** Remaining hours below this are treated as done (float rounding) */
+    private const val EPSILON_HOURS = 0.001f
+
+    /** Sort key for orders without a parseable delivery date */
+    private const val NO_DUE_DATE = Int.MAX_VALUE
+
+    /**
+     * Read-only view of one order's slot in the schedule.
+     *
+     * @property orderId Local order ID
+     * @property dueEpochDay Promised delivery day (local epoch day)
+     * @property effortHours Remaining effort being scheduled
+     * @property startEpochDay First day work is planned
+     * @property finishEpochDay Day the remaining work is planned to finish
+     */
+    data class ScheduledJob(
+        val orderId: Int,
+        val dueEpochDay: Int,
+        val effortHours: Float,
+        val startEpochDay: Int,
+        val finishEpochDay: Int
+    ) {
+        /** Planned to finish after its delivery date */
+        val isLate: Boolean
+            get() = dueEpochDay != NO_DUE_DATE && finishEpochDay > dueEpochDay
+    }
+
+    private class Job(
+        val orderId: Int,
+        val dueEpochDay: Int,
+        val effortHours: Float
+    ) {
+        var startEpochDay = 0
+        var finishEpochDay = 0
+
+        /** Hours used on finishEpochDay once this job is done (cursor for the next job) */
+        var finishUsedHours = 0f
+
+        fun toScheduledJob() = ScheduledJob(orderId, dueEpochDay, effortHours, startEpochDay, finishEpochDay)
+    }
+
+    private val jobOrder = compareBy<Job>({ it.dueEpochDay }, { it.orderId })
+
+    private val lock = Any()
+    private val jobs = ArrayList<Job>()
+    private val jobsByOrder = HashMap<Int, Job>()
+    private var calendar: CapacityCalendar? = null
+    private var load = FloatArray(0)
+    private var todayEpochDay = 0
+
+    // ===== Building =====
+
+    /**
+     * Builds the schedule if it hasn't been built for this config and date yet.
+     *
+     * @param database Database to read active orders from
+     * @param config Current workload configuration
+     */
+    suspend fun ensureLoaded(database: AppDatabase, config: WorkloadConfig) = withContext(Dispatchers.IO) {
+        EffortModel.ensureLoaded(database)
+        val capacity = CapacityCalendar.forConfig(config)
+        if (synchronized(lock) { calendar === capacity }) return@withContext
+
+        val openOrders = database.orderDao().getOpenOrdersWithStages()
+        synchronized(lock) {
+            calendar = capacity
+            todayEpochDay = CapacityCalendar.epochDayOf(Calendar.getInstance())
+            load = FloatArray(capacity.endEpochDay - capacity.startEpochDay)
+
+            jobs.clear()
+            jobsByOrder.clear()
+            openOrders.forEach { row ->
+                val job = createJob(row.order, row.stage, capacity.config)
+                jobs.add(job)
+                jobsByOrder[job.orderId] = job
+            }
+            jobs.sortWith(jobOrder)
+            refillFrom(0)
+        }
+    }
+
+    /**
+     * Re-slots a single order after it was created, edited, moved to another
+     * stage or closed. Only that order and orders due after it are touched.
+     * Does nothing if the schedule hasn't been built yet.
+     *
+     * @param database Database to read the order from
+     * @param orderId Local ID of the changed order
+     */
+    suspend fun onOrderChanged(database: AppDatabase, orderId: Int) = withContext(Dispatchers.IO) {
+        if (synchronized(lock) { calendar == null }) return@withContext
+
+        val details = database.orderDao().getOrderDetails(orderId)
+        synchronized(lock) {
+            val capacity = calendar ?: return@synchronized
+            val updated = details
+                ?.takeIf { it.order.isActive() }
+                ?.let { createJob(it.order, it.stage, capacity.config) }
+
+            var changedIndex = jobs.size
+            jobsByOrder.remove(orderId)?.let { old ->
+                val index = jobs.indexOf(old)
+                jobs.removeAt(index)
+                changedIndex = index
+            }
+            updated?.let { job ->
+                val search = jobs.binarySearch(job, jobOrder)
+                val index = if (search >= 0) search else -search - 1
+                jobs.add(index, job)
+                jobsByOrder[orderId] = job
+                changedIndex = minOf(changedIndex, index)
+            }
+            refillFrom(changedIndex)
+        }
+    }
+
+    /**
+     * Drops the schedule so the next [ensureLoaded] rebuilds it,
+     * e.g. after sync replaced orders in bulk.
+     */
+    fun invalidate() {
+        synchronized(lock) { calendar = null }
+    }
+
+    // ===== Queries =====
+
+    /**
+     * Hours of work planned on a day (0 outside the schedule).
+     */
+    fun loadOn(epochDay: Int): Float = synchronized(lock) {
+        val index = epochDay - (calendar?.startEpochDay ?: return 0f)
+        if (index in load.indices) load[index] else 0f
+    }
+
+    /**
+     * Realistic working hours available on a day.
+     */
+    fun capacityOn(epochDay: Int): Float = synchronized(lock) {
+        calendar?.hoursOn(epochDay, realistic = true) ?: 0f
+    }
+
+    /**
+     * Hours of work planned over a range of days.
+     *
+     * @param fromEpochDay First day (inclusive)
+     * @param toEpochDay Last day (exclusive)
+     */
+    fun loadBetween(fromEpochDay: Int, toEpochDay: Int): Float {
+        var total = 0f
+        for (day in fromEpochDay until toEpochDay) total += loadOn(day)
+        return total
+    }
+
+    /**
+     * Planned finish day for an order, or null if it isn't scheduled.
+     */
+    fun scheduledFinish(orderId: Int): Int? = synchronized(lock) {
+        jobsByOrder[orderId]?.finishEpochDay
+    }
+
+    /**
+     * Snapshot of all scheduled orders in working order.
+     */
+    fun getScheduledJobs(): List<ScheduledJob> = synchronized(lock) {
+        jobs.map { it.toScheduledJob() }
+    }
+
+    /**
+     * Orders with planned work overlapping a range of days.
+     *
+     * @param fromEpochDay First day (inclusive)
+     * @param toEpochDay Last day (exclusive)
+     */
+    fun getJobsBetween(fromEpochDay: Int, toEpochDay: Int): List<ScheduledJob> = synchronized(lock) {
+        jobs.filter { it.effortHours > 0f && it.startEpochDay < toEpochDay && it.finishEpochDay >= fromEpochDay }
+            .map { it.toScheduledJob() }
+    }
+
+    /**
+     * Day a new order would finish if added now behind all scheduled work.
+     * Binary search over the capacity calendar from the end of the schedule.
+     *
+     * @param effortHours Effort of the new order
+     * @return Finish epoch day, or null if the schedule isn't built
+     */
+    fun previewNewOrder(effortHours: Float): Int? = synchronized(lock) {
+        val capacity = calendar ?: return null
+        val (tailDay, tailUsed) = cursorBefore(jobs.size)
+        capacity.firstDayWithHours((tailUsed + effortHours).toDouble(), tailDay, realistic = true)
+    }
+
+    /**
+     * Realistic delivery date for a new order: the day it would finish in the
+     * current schedule plus the configured buffer days.
+     *
+     * @param config Current workload configuration
+     * @param orderType Type of the new order, or null if not chosen yet
+     * @return Delivery date, or null if the schedule isn't built
+     */
+    fun estimateNewOrderDelivery(config: WorkloadConfig, orderType: String? = null): Calendar? {
+        val effortHours = EffortModel.orderHours(orderType, config) / config.productivityFactor
+        val finishDay = previewNewOrder(effortHours) ?: return null
+        val deliveryDate = Calendar.getInstance()
+        val daysUntilFinish = finishDay - CapacityCalendar.epochDayOf(deliveryDate)
+        deliveryDate.add(Calendar.DAY_OF_MONTH, daysUntilFinish + config.bufferDays)
+        return deliveryDate
+    }
+
+    // ===== Scheduling =====
+
+    /**
+     * Where work resumes before the job at [index]: the day the previous job
+     * finished and the hours already used that day.
+     */
+    private fun cursorBefore(index: Int): Pair<Int, Float> {
+        if (index == 0) return todayEpochDay to 0f
+        val previous = jobs[index - 1]
+        return previous.finishEpochDay to previous.finishUsedHours
+    }
+
+    /**
+     * Clears the load profile from the job at [index] onwards and slots those
+     * jobs again. Caller holds the lock.
+     */
+    private fun refillFrom(index: Int) {
+        val capacity = calendar ?: return
+        val start = capacity.startEpochDay
+        var (day, used) = cursorBefore(index)
+
+        // Everything after the cursor belongs to jobs being re-slotted
+        val cursorIndex = day - start
+        if (cursorIndex in load.indices) {
+            load[cursorIndex] = used
+            load.fill(0f, cursorIndex + 1, load.size)
+        }
+
+        val end = capacity.endEpochDay
+        for (i in index until jobs.size) {
+            val job = jobs[i]
+            var remaining = job.effortHours
+            job.startEpochDay = day
+
+            while (remaining > EPSILON_HOURS && day < end) {
+                val free = capacity.hoursOn(day, realistic = true) - used
+                if (free <= EPSILON_HOURS) {
+                    day++
+                    used = 0f
+                    if (remaining == job.effortHours) job.startEpochDay = day
+                    continue
+                }
+                val allocated = minOf(free, remaining)
+                load[day - start] += allocated
+                used += allocated
+                remaining -= allocated
+            }
+
+            job.finishEpochDay = minOf(day, end)
+            job.finishUsedHours = used
+        }
+    }
+
+    /**
+     * Creates a job for an active order with its remaining effort.
+     */
+    private fun createJob(order: Order, stage: ProductionStage?, config: WorkloadConfig): Job {
+        return Job(
+            orderId = order.id,
+            dueEpochDay = parseDueDay(order.estimatedDeliveryDate),
+            effortHours = EffortModel.remainingOrderHours(order.orderType, stage?.currentStage, config) /
+                config.productivityFactor
+        )
+    }
+
+    private fun parseDueDay(date: String): Int {
+        val epochDay = DateCodec.parseEpochDay(date)
+        return if (epochDay == DateCodec.INVALID) NO_DUE_DATE else epochDay
+    }
+}
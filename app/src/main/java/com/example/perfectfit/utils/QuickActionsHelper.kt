@@ -13,19 +13,67 @@ import java.util.*
  */
 object QuickActionsHelper {
     
+    /** Ranked interventions shown in suggestions and previews */
+    private const val MAX_RANKED_SUGGESTIONS = 3
+    
     /**
      * Temporarily boost capacity for today
      * Note: This is a temporary boost - resets after recalculation
+     *
+     * Once tailors are set up, shop hours are the sum of theirs
+     * (WorkloadConfig.withWorkforce) and the stored shop hours are ignored,
+     * so the hours go to one tailor's day instead.
+     *
+     * @param workerName Tailor to add the hours to; required when tailors are set up
      */
     suspend fun addExtraHoursToday(
         context: Context,
         extraHours: Float,
-        database: AppDatabase
+        database: AppDatabase,
+        workerName: String? = null
     ): Result<String> {
         return try {
-            val config = database.workloadConfigDao().getConfig() ?: WorkloadConfig()
             val today = Calendar.getInstance()
             val dayOfWeek = today.get(Calendar.DAY_OF_WEEK)
+            val dayName = getDayName(dayOfWeek)
+            
+            val hasWorkers = withContext(Dispatchers.IO) {
+                database.workerDao().getActiveWorkers().isNotEmpty()
+            }
+            if (hasWorkers) {
+                val worker = workerName?.let {
+                    withContext(Dispatchers.IO) { database.workerDao().getWorkerByName(it) }
+                } ?: return Result.failure(IllegalArgumentException("Choose a tailor to add the hours to"))
+                
+                val currentHours = worker.getHoursForDay(dayOfWeek)
+                val newHours = currentHours + extraHours
+                val updatedWorker = when (dayOfWeek) {
+                    Calendar.MONDAY -> worker.copy(mondayHours = newHours)
+                    Calendar.TUESDAY -> worker.copy(tuesdayHours = newHours)
+                    Calendar.WEDNESDAY -> worker.copy(wednesdayHours = newHours)
+                    Calendar.THURSDAY -> worker.copy(thursdayHours = newHours)
+                    Calendar.FRIDAY -> worker.copy(fridayHours = newHours)
+                    Calendar.SATURDAY -> worker.copy(saturdayHours = newHours)
+                    Calendar.SUNDAY -> worker.copy(sundayHours = newHours)
+                    else -> worker
+                }
+                withContext(Dispatchers.IO) {
+                    database.workerDao().update(updatedWorker)
+                }
+                WorkerAssignmentEngine.invalidate()
+                
+                val message = """
+                    ⏰ Extra Hours Added!
+                    
+                    ${worker.name}, $dayName: $currentHours h → $newHours h (+$extraHours h)
+                    
+                    Your shop's capacity for today has been increased.
+                    All delivery dates will be recalculated automatically.
+                """.trimIndent()
+                return Result.success(message)
+            }
+            
+            val config = database.workloadConfigDao().getConfig() ?: WorkloadConfig()
             
             // Get current hours for today
             val currentHours = config.getHoursForDay(dayOfWeek)
@@ -49,7 +97,6 @@ object QuickActionsHelper {
                 database.workloadConfigDao().insertConfig(updatedConfig)
             }
             
-            val dayName = getDayName(dayOfWeek)
             val message = """
                 ⏰ Extra Hours Added!
                 
@@ -67,13 +114,17 @@ object QuickActionsHelper {
     
     /**
      * Calculate impact of adding extra hours
+     *
+     * @param baseline Current queue from [captureBaseline]; when given, the
+     *                 late orders the extra hours would avoid are included
      */
     fun calculateExtraHoursImpact(
         extraHours: Float,
         config: WorkloadConfig,
-        pendingOrdersCount: Int
+        pendingOrdersCount: Int,
+        baseline: CapacityScenarioEngine.Baseline? = null
     ): ExtraHoursImpact {
-        val ordersPerHour = 1 / config.timePerOrderHours
+        val ordersPerHour = 1 / EffortModel.orderHours(null, config)
         val additionalCapacity = (extraHours * ordersPerHour).toInt()
         
         val today = Calendar.getInstance()
@@ -88,12 +139,21 @@ object QuickActionsHelper {
             0
         }
         
+        val overdueAvoided = baseline?.let {
+            CapacityScenarioEngine.evaluate(it, CapacityScenarioEngine.Scenario(
+                title = "+${extraHours}h today",
+                description = "Work $extraHours extra hours today",
+                extraHoursByDay = mapOf(it.todayEpochDay to extraHours)
+            )).overdueAvoided
+        } ?: 0
+        
         return ExtraHoursImpact(
             extraHours = extraHours,
             currentHours = currentHours,
             newHours = newHours,
             additionalCapacity = additionalCapacity,
-            estimatedDaysReduced = daysReduced
+            estimatedDaysReduced = daysReduced,
+            overdueOrdersAvoided = overdueAvoided
         )
     }
     
@@ -102,18 +162,78 @@ object QuickActionsHelper {
         val currentHours: Float,
         val newHours: Float,
         val additionalCapacity: Int,
-        val estimatedDaysReduced: Int
+        val estimatedDaysReduced: Int,
+        val overdueOrdersAvoided: Int = 0
     )
     
+    // ===== What-If Interventions =====
+    
+    /**
+     * Captures the current order queue for what-if evaluation.
+     * Builds the production schedule first if needed.
+     */
+    suspend fun captureBaseline(
+        database: AppDatabase,
+        config: WorkloadConfig
+    ): CapacityScenarioEngine.Baseline {
+        ProductionScheduler.ensureLoaded(database, config)
+        return withContext(Dispatchers.Default) {
+            CapacityScenarioEngine.baselineOf(ProductionScheduler.getScheduledJobs(), config)
+        }
+    }
+    
+    /**
+     * Evaluates the standard interventions (extra hours, weekend work,
+     * pushing late orders, extra tailors) in one batch against the current
+     * queue, best first by late orders avoided.
+     *
+     * An extra tailor adds the hours of an average tailor on the team; a
+     * single-tailor shop (no workers set up) adds its own hours.
+     */
+    suspend fun rankInterventions(
+        database: AppDatabase,
+        baseline: CapacityScenarioEngine.Baseline,
+        config: WorkloadConfig
+    ): List<CapacityScenarioEngine.ScenarioResult> {
+        val storedConfig = withContext(Dispatchers.IO) {
+            database.workloadConfigDao().getConfig() ?: WorkloadConfig()
+        }
+        WorkerAssignmentEngine.ensureLoaded(database, storedConfig)
+        val tailorHours = WorkerAssignmentEngine.averageWorkerHours()
+            ?: FloatArray(7) { config.getRealisticHoursForDay(it + 1) }
+        
+        return withContext(Dispatchers.Default) {
+            CapacityScenarioEngine.rank(
+                baseline,
+                CapacityScenarioEngine.candidateInterventions(baseline, config, tailorHours)
+            )
+        }
+    }
+    
     /**
      * Get quick action suggestions based on current workload
      */
     fun getQuickActionSuggestions(
         utilizationPercentage: Int,
-        pendingOrders: Int
+        pendingOrders: Int,
+        interventions: List<CapacityScenarioEngine.ScenarioResult> = emptyList()
     ): List<QuickAction> {
         val suggestions = mutableListOf<QuickAction>()
         
+        // Interventions proven to avoid late orders come first
+        interventions.filter { it.overdueAvoided > 0 }.take(MAX_RANKED_SUGGESTIONS).forEach { result ->
+            suggestions.add(QuickAction(
+                title = "🎯 ${result.scenario.title}",
+                description = "${result.scenario.description} (avoids ${result.overdueAvoided} late orders)",
+                actionType = if (result.scenario.pushedOrders.isNotEmpty()) {
+                    QuickActionType.RESCHEDULE
+                } else {
+                    QuickActionType.ADD_HOURS
+                },
+                priority = ActionPriority.HIGH
+            ))
+        }
+        
         when {
             utilizationPercentage > 90 -> {
                 // Overbooked - suggest ways to free up capacity
@@ -216,6 +336,9 @@ object QuickActionsHelper {
             append("Current hours today: ${impact.currentHours}h\n")
             append("New hours today: ${impact.newHours}h (+${impact.extraHours}h)\n\n")
             append("Additional capacity: ${impact.additionalCapacity} orders\n")
+            if (impact.overdueOrdersAvoided > 0) {
+                append("Late orders avoided: ${impact.overdueOrdersAvoided}\n")
+            }
             if (impact.estimatedDaysReduced > 0) {
                 append("Estimated days reduced: ~${impact.estimatedDaysReduced} days\n\n")
                 append("✨ This will help clear your backlog faster!")
@@ -224,5 +347,20 @@ object QuickActionsHelper {
             }
         }
     }
+    
+    /**
+     * Format the best interventions that avoid late orders
+     *
+     * @return Message lines, or empty if nothing helps
+     */
+    fun formatInterventions(results: List<CapacityScenarioEngine.ScenarioResult>): String {
+        val helpful = results.filter { it.overdueAvoided > 0 }.take(MAX_RANKED_SUGGESTIONS)
+        if (helpful.isEmpty()) return ""
+        return buildString {
+            append("🎯 Other options\n")
+            helpful.forEach { result ->
+                append("• ${result.scenario.title}: avoids ${result.overdueAvoided} late orders\n")
+            }
+        }.trimEnd()
+    }
 }
-
@@ -0,0 +1,57 @@
+package com.example.perfectfit.utils
+
+import com.example.perfectfit.database.AppDatabase
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+
+/**
+ * Moves orders between production stages, shared by the order detail screen
+ * and the production board.
+ *
+ * The move itself is one transaction
+ * ([com.example.perfectfit.database.StageTransitionDao.transition]); the
+ * in-memory models are updated after it commits. The new stage's deadline
+ * for the slow-order watchdog is stored with the move.
+ *
+ * After the commit:
+ * - The effort model learns the completed stage's duration
+ * - The scheduler re-plans the order
+ * - A new work stage is handed to the tailor who would finish it first
+ */
+object StageTransitions {
+
+    /**
+     * Moves an order to a stage.
+     *
+     * @param database Database to write to
+     * @param orderId Local ID of the order
+     * @param orderType Type of the order, for the effort model and assignment
+     * @param newStage Stage to move to
+     * @return true if the order moved, false if it had no production stage or
+     *   was already in [newStage]
+     */
+    suspend fun moveToStage(
+        database: AppDatabase,
+        orderId: Int,
+        orderType: String,
+        newStage: String
+    ): Boolean {
+        val at = System.currentTimeMillis()
+        val deadlineAt = EffortModel.stageDeadline(orderType, newStage, at)
+        val result = withContext(Dispatchers.IO) {
+            database.stageTransitionDao().transition(orderId, newStage, at, deadlineAt)
+        } ?: return false
+
+        result.completedHistory?.let { EffortModel.recordStageCompleted(database, orderType, it) }
+        ProductionScheduler.onOrderChanged(database, orderId)
+
+        // Hand the new work stage to whichever tailor would finish it first
+        WorkerAssignmentEngine.onAssignmentChanged(database, orderId)
+        if (newStage in EffortModel.WORK_STAGES) {
+            WorkerAssignmentEngine.proposeWorker(orderType, newStage, orderId)?.let {
+                WorkerAssignmentEngine.assign(database, orderId, it.worker.name)
+            }
+        }
+        return true
+    }
+}
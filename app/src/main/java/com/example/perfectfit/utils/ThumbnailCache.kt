@@ -0,0 +1,128 @@
+package com.example.perfectfit.utils
+
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import android.os.Handler
+import android.os.Looper
+import android.util.LruCache
+import android.widget.ImageView
+import com.example.perfectfit.R
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+/**
+ * Process-wide cache of downsampled image thumbnails.
+ *
+ * Grid cells only need a few hundred pixels, so images are decoded with an
+ * inSampleSize close to the requested size instead of at full resolution.
+ * Decoded thumbnails are kept in an LRU bounded to 1/8 of the heap, so memory
+ * stays flat no matter how many images the gallery contains.
+ *
+ * Usage:
+ * - loadInto() binds a thumbnail to an ImageView, decoding off the main thread
+ *   on a cache miss
+ * - prefetch() warms the cache for images about to scroll into view
+ *
+ * Keys are absolute file paths; callers use the same target size for a given path.
+ */
+object ThumbnailCache {
+
+    private val maxMemoryKb = (Runtime.getRuntime().maxMemory() / 1024).toInt()
+
+    private val cache = object : LruCache<String, Bitmap>(maxMemoryKb / 8) {
+        override fun sizeOf(key: String, value: Bitmap): Int = value.byteCount / 1024
+    }
+
+    private val decodeExecutor: ExecutorService = Executors.newFixedThreadPool(2)
+    private val mainHandler = Handler(Looper.getMainLooper())
+    private val inFlight = HashSet<String>()
+
+    /**
+     * Returns a cached thumbnail without decoding.
+     */
+    fun get(path: String): Bitmap? = cache.get(path)
+
+    /**
+     * Shows the thumbnail for [path] in [imageView].
+     * On a cache miss a placeholder is shown and the bitmap is decoded in the
+     * background; recycled views are detected via the view tag.
+     *
+     * @param imageView Target view
+     * @param path Absolute file path
+     * @param targetSize Approximate longest edge needed, in pixels
+     */
+    fun loadInto(imageView: ImageView, path: String, targetSize: Int) {
+        imageView.tag = path
+        val cached = cache.get(path)
+        if (cached != null) {
+            imageView.setImageBitmap(cached)
+            return
+        }
+
+        imageView.setImageResource(R.drawable.ic_image_placeholder)
+        decodeExecutor.execute {
+            val bitmap = cache.get(path) ?: decode(path, targetSize)
+            mainHandler.post {
+                if (imageView.tag == path) {
+                    if (bitmap != null) {
+                        imageView.setImageBitmap(bitmap)
+                    } else {
+                        imageView.setImageResource(R.drawable.ic_image_placeholder)
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Decodes thumbnails for the given paths in the background if not cached.
+     *
+     * @param paths Absolute file paths
+     * @param targetSize Approximate longest edge needed, in pixels
+     */
+    fun prefetch(paths: List<String>, targetSize: Int) {
+        for (path in paths) {
+            if (cache.get(path) != null) continue
+            synchronized(inFlight) {
+                if (!inFlight.add(path)) return@synchronized
+                decodeExecutor.execute {
+                    if (cache.get(path) == null) {
+                        decode(path, targetSize)
+                    }
+                    synchronized(inFlight) { inFlight.remove(path) }
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops a thumbnail, e.g. after its image is deleted.
+     */
+    fun remove(path: String) {
+        cache.remove(path)
+    }
+
+    /**
+     * Decodes a downsampled bitmap and stores it in the cache.
+     */
+    private fun decode(path: String, targetSize: Int): Bitmap? {
+        return try {
+            val bounds = BitmapFactory.Options().apply { inJustDecodeBounds = true }
+            BitmapFactory.decodeFile(path, bounds)
+            if (bounds.outWidth <= 0 || bounds.outHeight <= 0) return null
+
+            var sampleSize = 1
+            while (maxOf(bounds.outWidth, bounds.outHeight) / (sampleSize * 2) >= targetSize) {
+                sampleSize *= 2
+            }
+
+            val bitmap = BitmapFactory.decodeFile(path, BitmapFactory.Options().apply {
+                inSampleSize = sampleSize
+            })
+            bitmap?.also { cache.put(path, it) }
+        } catch (e: Exception) {
+            e.printStackTrace()
+            null
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.example.perfectfit.utils
+
+import com.example.perfectfit.database.AppDatabase
+import com.example.perfectfit.models.Order
+import com.example.perfectfit.models.ProductionStage
+import com.example.perfectfit.models.Worker
+import com.example.perfectfit.models.WorkloadConfig
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+import java.util.Calendar
+
+/**
+ * Per-tailor load tracking and load-balancing stage assignment.
+ *
+ * Every active order with a worker in ProductionStage.assignedTo adds the
+ * effort of its current stage (or the next work stage, if it hasn't started)
+ * to that worker's queue. Each worker has a [CapacityCalendar] built from
+ * their own weekly hours.
+ *
+ * Assignment Rule:
+ * - A stage goes to the worker who would finish it earliest, given their
+ *   queued hours and their own working days
+ * - Ties go to the less utilized worker, then by name
+ *
+ * Incremental Updates:
+ * - onAssignmentChanged() re-reads one order and moves its hours between
+ *   worker totals; nothing else is recomputed
+ * - Everything is rebuilt when workers, the config or the date change
+ *
+ * Shop-wide capacity with workers is the sum of their hours; see [shopConfig].
+ */
+object WorkerAssignmentEngine {
+
+    /**
+     * Load summary for one worker.
+     *
+     * @property worker The worker
+     * @property queuedHours Effort of the stages currently assigned to them
+     * @property weeklyHours Realistic hours available over the next 7 days
+     * @property utilizationPercentage queuedHours as a share of weeklyHours
+     * @property statusLevel Same thresholds as the shop-wide status
+     * @property finishEpochDay Day their queue would be cleared
+     * @property activeStages Number of stages assigned to them
+     * @property delayedStages Assigned stages running past their delay threshold
+     * @property stageCounts Assigned stages per stage name
+     */
+    data class WorkerLoad(
+        val worker: Worker,
+        val queuedHours: Float,
+        val weeklyHours: Float,
+        val utilizationPercentage: Int,
+        val statusLevel: WorkloadHelper.StatusLevel,
+        val finishEpochDay: Int,
+        val activeStages: Int,
+        val delayedStages: Int,
+        val stageCounts: Map<String, Int>
+    )
+
+    /**
+     * A proposed worker for a stage.
+     *
+     * @property worker The proposed worker
+     * @property finishEpochDay Day they would finish the stage
+     * @property queuedHours Hours already queued ahead of it
+     */
+    data class Proposal(
+        val worker: Worker,
+        val finishEpochDay: Int,
+        val queuedHours: Float
+    )
+
+    private class Assignment(
+        val workerName: String,
+        val orderType: String,
+        val stageName: String,
+        val stageStartedAt: Long,
+        val hours: Double
+    )
+
+    private val lock = Any()
+    private var loadedFor: WorkloadConfig? = null
+    private var loadedOnDay = 0
+    private var workers: List<Worker> = emptyList()
+    private val calendars = HashMap<String, CapacityCalendar>()
+    private val assignments = HashMap<Int, Assignment>()
+    private val queuedHours = HashMap<String, Double>()
+
+    // ===== Loading =====
+
+    /**
+     * Shop-wide configuration: the stored config with daily hours summed over
+     * the active workers (the stored hours when there are none).
+     *
+     * @param database Database to read the config and workers from
+     */
+    suspend fun shopConfig(database: AppDatabase): WorkloadConfig = withContext(Dispatchers.IO) {
+        val config = database.workloadConfigDao().getConfig() ?: WorkloadConfig()
+        config.withWorkforce(database.workerDao().getActiveWorkers())
+    }
+
+    /**
+     * Loads workers and current assignments if not loaded for this config
+     * and date yet.
+     *
+     * @param database Database to read from
+     * @param config Stored workload configuration (estimation settings)
+     */
+    suspend fun ensureLoaded(database: AppDatabase, config: WorkloadConfig) = withContext(Dispatchers.IO) {
+        val today = CapacityCalendar.epochDayOf(Calendar.getInstance())
+        if (synchronized(lock) { loadedFor == config && loadedOnDay == today }) return@withContext
+
+        EffortModel.ensureLoaded(database)
+        val activeWorkers = database.workerDao().getActiveWorkers()
+        val activeStages = database.productionStageDao().getActiveStagesWithOrders()
+
+        synchronized(lock) {
+            workers = activeWorkers
+            calendars.clear()
+            activeWorkers.forEach { calendars[it.name] = CapacityCalendar.standalone(it.toWorkloadConfig(config)) }
+
+            assignments.clear()
+            queuedHours.clear()
+            activeStages.forEach { row ->
+                createAssignment(row.order, row.stage, config)?.let { add(row.order.id, it) }
+            }
+
+            loadedFor = config
+            loadedOnDay = today
+        }
+    }
+
+    /**
+     * Drops loaded state so the next [ensureLoaded] rebuilds it,
+     * e.g. after workers were added or edited.
+     */
+    fun invalidate() {
+        synchronized(lock) { loadedFor = null }
+    }
+
+    /**
+     * Updates worker loads after an order's stage or assignment changed.
+     * Does nothing if not loaded yet.
+     *
+     * @param database Database to read the order from
+     * @param orderId Local ID of the changed order
+     */
+    suspend fun onAssignmentChanged(database: AppDatabase, orderId: Int) = withContext(Dispatchers.IO) {
+        if (synchronized(lock) { loadedFor == null }) return@withContext
+
+        val details = database.orderDao().getOrderDetails(orderId)
+        synchronized(lock) {
+            val config = loadedFor ?: return@synchronized
+            remove(orderId)
+            details?.let { createAssignment(it.order, it.stage, config) }?.let { add(orderId, it) }
+        }
+    }
+
+    // ===== Assignment =====
+
+    /**
+     * Workers ranked for a stage, best first. Empty when no workers are set up.
+     *
+     * @param orderType Type of the order
+     * @param stageName Stage to assign
+     * @param orderId Order being assigned, so its current assignment isn't
+     *                counted against its own worker (null for a new order)
+     */
+    fun rankWorkers(orderType: String?, stageName: String, orderId: Int? = null): List<Proposal> = synchronized(lock) {
+        val config = loadedFor ?: return emptyList()
+        val effort = stageEffort(orderType, stageName, config)
+        val own = orderId?.let { assignments[it] }
+
+        workers.mapNotNull { worker ->
+            val calendar = calendars[worker.name] ?: return@mapNotNull null
+            if (worker.totalWeeklyHours <= 0f) return@mapNotNull null
+
+            var queued = queuedHours[worker.name] ?: 0.0
+            if (own?.workerName == worker.name) queued -= own.hours
+            val finish = calendar.firstDayWithHours(queued + effort, loadedOnDay, realistic = true)
+            Proposal(worker, finish, queued.toFloat())
+        }.sortedWith(compareBy(
+            { it.finishEpochDay },
+            { it.queuedHours / it.worker.totalWeeklyHours },
+            { it.worker.name }
+        ))
+    }
+
+    /**
+     * The worker who would finish a stage earliest, or null if there are none.
+     */
+    fun proposeWorker(orderType: String?, stageName: String, orderId: Int? = null): Proposal? {
+        return rankWorkers(orderType, stageName, orderId).firstOrNull()
+    }
+
+    /**
+     * Assigns an order's current stage to a worker and updates loads.
+     *
+     * @param database Database to write to
+     * @param orderId The order's local database ID
+     * @param workerName Worker to assign, or "" to unassign
+     */
+    suspend fun assign(database: AppDatabase, orderId: Int, workerName: String) {
+        withContext(Dispatchers.IO) {
+            database.productionStageDao().updateAssignment(orderId, workerName)
+            database.orderStageHistoryDao().updateActiveAssignment(orderId, workerName)
+        }
+        onAssignmentChanged(database, orderId)
+    }
+
+    // ===== Queries =====
+
+    /**
+     * Load summary for every active worker, in name order.
+     */
+    fun getWorkerLoads(): List<WorkerLoad> = synchronized(lock) {
+        val now = System.currentTimeMillis()
+        val byWorker = assignments.values.groupBy { it.workerName }
+
+        workers.map { worker ->
+            val calendar = calendars.getValue(worker.name)
+            val queued = queuedHours[worker.name] ?: 0.0
+            val weekly = calendar.hoursBetween(loadedOnDay, loadedOnDay + 7, realistic = true)
+            val utilization = when {
+                weekly > 0 -> (queued / weekly * 100).toInt()
+                queued > 0 -> 100
+                else -> 0
+            }
+            val assigned = byWorker[worker.name].orEmpty()
+
+            WorkerLoad(
+                worker = worker,
+                queuedHours = queued.toFloat(),
+                weeklyHours = weekly.toFloat(),
+                utilizationPercentage = utilization,
+                statusLevel = WorkloadHelper.getStatusLevel(utilization),
+                finishEpochDay = calendar.firstDayWithHours(queued, loadedOnDay, realistic = true),
+                activeStages = assigned.size,
+                delayedStages = assigned.count { isDelayed(it, now) },
+                stageCounts = assigned.groupingBy { it.stageName }.eachCount()
+            )
+        }
+    }
+
+    /**
+     * Number of active orders with no worker assigned (only meaningful when
+     * workers are set up).
+     */
+    fun getUnassignedCount(): Int = synchronized(lock) {
+        assignments.values.count { it.workerName.isEmpty() }
+    }
+
+    /**
+     * Checks if any active workers are set up.
+     */
+    fun hasWorkers(): Boolean = synchronized(lock) { workers.isNotEmpty() }
+
+    /**
+     * Realistic hours of an average active worker per weekday, indexed by
+     * Calendar.DAY_OF_WEEK - 1, or null if no workers are set up.
+     */
+    fun averageWorkerHours(): FloatArray? = synchronized(lock) {
+        if (workers.isEmpty()) return null
+        FloatArray(7) { day ->
+            (workers.sumOf { calendars.getValue(it.name).config.getRealisticHoursForDay(day + 1).toDouble() } / workers.size).toFloat()
+        }
+    }
+
+    // ===== Internals =====
+
+    /**
+     * Assignment entry for an active order; unassigned orders are tracked
+     * with an empty worker name so they can be counted.
+     */
+    private fun createAssignment(order: Order, stage: ProductionStage?, config: WorkloadConfig): Assignment? {
+        if (!order.isActive()) return null
+        val stageName = stage?.currentStage ?: ProductionStage.STAGE_PENDING
+        if (stageName == ProductionStage.STAGE_DELIVERED) return null
+
+        return Assignment(
+            workerName = stage?.assignedTo.orEmpty(),
+            orderType = order.orderType,
+            stageName = stageName,
+            stageStartedAt = stage?.stageStartedAt ?: System.currentTimeMillis(),
+            hours = stageEffort(order.orderType, stageName, config)
+        )
+    }
+
+    /**
+     * Effort of a stage, or of the next work stage for waiting stages
+     * (PENDING counts as the upcoming cutting work; READY has none).
+     */
+    private fun stageEffort(orderType: String?, stageName: String, config: WorkloadConfig): Double {
+        val workStage = EffortModel.remainingWorkStages(stageName).firstOrNull() ?: return 0.0
+        return EffortModel.stageHours(orderType, workStage, config).toDouble() / config.productivityFactor
+    }
+
+    private fun isDelayed(assignment: Assignment, now: Long): Boolean {
+        val threshold = EffortModel.delayThresholdHours(assignment.orderType, assignment.stageName)
+        val hoursInStage = (now - assignment.stageStartedAt) / (1000.0 * 60 * 60)
+        return threshold > 0 && hoursInStage > threshold
+    }
+
+    /** Caller holds the lock */
+    private fun add(orderId: Int, assignment: Assignment) {
+        assignments[orderId] = assignment
+        if (assignment.workerName.isNotEmpty()) {
+            queuedHours[assignment.workerName] = (queuedHours[assignment.workerName] ?: 0.0) + assignment.hours
+        }
+    }
+
+    /** Caller holds the lock */
+    private fun remove(orderId: Int) {
+        val old = assignments.remove(orderId) ?: return
+        if (old.workerName.isNotEmpty()) {
+            queuedHours[old.workerName] = ((queuedHours[old.workerName] ?: 0.0) - old.hours).coerceAtLeast(0.0)
+        }
+    }
+}
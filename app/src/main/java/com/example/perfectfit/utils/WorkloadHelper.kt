@@ -43,12 +43,14 @@ object WorkloadHelper {
     
     /**
      * Calculate current workload status
+     * Effort per order comes from [EffortModel] (learned per order type)
      */
     fun calculateWorkloadStatus(
         pendingOrders: List<Order>,
         config: WorkloadConfig
     ): WorkloadStatus {
-        val totalHoursNeeded = pendingOrders.size * config.timePerOrderHours
+        val totalHoursNeeded = pendingOrders.sumOf { EffortModel.orderHours(it.orderType, config).toDouble() }.toFloat()
+        val typicalOrderHours = EffortModel.orderHours(null, config)
         val availableHoursThisWeek = calculateAvailableHoursThisWeek(config)
         
         val utilizationPercentage = if (availableHoursThisWeek > 0) {
@@ -57,11 +59,7 @@ object WorkloadHelper {
             100
         }
         
-        val statusLevel = when {
-            utilizationPercentage < 70 -> StatusLevel.AVAILABLE
-            utilizationPercentage < 90 -> StatusLevel.BUSY
-            else -> StatusLevel.OVERBOOKED
-        }
+        val statusLevel = getStatusLevel(utilizationPercentage)
         
         val message = when (statusLevel) {
             StatusLevel.AVAILABLE -> "You have good capacity available"
@@ -72,8 +70,8 @@ object WorkloadHelper {
         val daysUntilNextSlot = calculateDaysUntilNextSlot(totalHoursNeeded, config)
         
         val remainingCapacity = availableHoursThisWeek - totalHoursNeeded
-        val recommendedCapacity = if (remainingCapacity > 0 && config.timePerOrderHours > 0) {
-            (remainingCapacity / config.timePerOrderHours).toInt()
+        val recommendedCapacity = if (remainingCapacity > 0 && typicalOrderHours > 0) {
+            (remainingCapacity / typicalOrderHours).toInt()
         } else {
             0
         }
@@ -93,40 +91,41 @@ object WorkloadHelper {
     
     /**
      * Get delivery alerts for upcoming orders
+     * Parses every order's delivery date; screens read the materialized
+     * alerts from [DeliveryAlertRefresher] instead
      */
     fun getDeliveryAlerts(orders: List<Order>): List<DeliveryAlert> {
-        val today = Calendar.getInstance()
-        val dateFormat = SimpleDateFormat("dd/MM/yyyy", Locale.getDefault())
+        val todayEpochDay = DateCodec.today()
         
         return orders.mapNotNull { order ->
-            try {
-                val deliveryDate = dateFormat.parse(order.estimatedDeliveryDate)
-                deliveryDate?.let {
-                    val deliveryCal = Calendar.getInstance().apply { time = it }
-                    val diffInMillis = deliveryCal.timeInMillis - today.timeInMillis
-                    val daysUntil = (diffInMillis / (1000 * 60 * 60 * 24)).toInt()
-                    
-                    val isOverdue = daysUntil < 0
-                    val alertLevel = when {
-                        isOverdue || daysUntil == 0 -> AlertLevel.URGENT
-                        daysUntil <= 3 -> AlertLevel.WARNING
-                        daysUntil <= 7 -> AlertLevel.UPCOMING
-                        else -> return@mapNotNull null
-                    }
-                    
-                    DeliveryAlert(
-                        order = order,
-                        daysUntilDelivery = daysUntil,
-                        isOverdue = isOverdue,
-                        alertLevel = alertLevel
-                    )
-                }
-            } catch (e: Exception) {
-                null
-            }
+            val deliveryDay = DateCodec.parseEpochDay(order.estimatedDeliveryDate)
+            if (deliveryDay == DateCodec.INVALID) return@mapNotNull null
+            
+            val daysUntil = deliveryDay - todayEpochDay
+            val alertLevel = getAlertLevel(daysUntil) ?: return@mapNotNull null
+            
+            DeliveryAlert(
+                order = order,
+                daysUntilDelivery = daysUntil,
+                isOverdue = daysUntil < 0,
+                alertLevel = alertLevel
+            )
         }.sortedBy { it.daysUntilDelivery }
     }
     
+    /**
+     * Alert level for an order due in [daysUntil] days, or null if it is
+     * not due soon enough to alert
+     */
+    fun getAlertLevel(daysUntil: Int): AlertLevel? {
+        return when {
+            daysUntil <= 0 -> AlertLevel.URGENT
+            daysUntil <= 3 -> AlertLevel.WARNING
+            daysUntil <= 7 -> AlertLevel.UPCOMING
+            else -> null
+        }
+    }
+    
     /**
      * Calculate available working hours for the current week
      */
@@ -137,16 +136,11 @@ object WorkloadHelper {
             add(Calendar.WEEK_OF_YEAR, 1)
         }
         
-        var totalHours = 0f
-        val currentDate = today.clone() as Calendar
-        
-        while (currentDate.before(endOfWeek)) {
-            val dayOfWeek = currentDate.get(Calendar.DAY_OF_WEEK)
-            totalHours += config.getHoursForDay(dayOfWeek)
-            currentDate.add(Calendar.DAY_OF_MONTH, 1)
-        }
-        
-        return totalHours
+        val calendar = CapacityCalendar.forConfig(config)
+        return calendar.hoursBetween(
+            CapacityCalendar.epochDayOf(today),
+            CapacityCalendar.epochDayOf(endOfWeek)
+        ).toFloat()
     }
     
     /**
@@ -158,23 +152,12 @@ object WorkloadHelper {
     ): Int {
         if (currentWorkloadHours <= 0) return 0
         
-        var hoursRemaining = currentWorkloadHours
-        val currentDate = Calendar.getInstance()
-        var daysChecked = 0
         val maxDays = 30
+        val calendar = CapacityCalendar.forConfig(config)
+        val today = CapacityCalendar.epochDayOf(Calendar.getInstance())
+        val slotDay = calendar.firstDayWithHours(currentWorkloadHours.toDouble(), today)
         
-        while (hoursRemaining > 0 && daysChecked < maxDays) {
-            val dayOfWeek = currentDate.get(Calendar.DAY_OF_WEEK)
-            val workingHoursToday = config.getHoursForDay(dayOfWeek)
-            hoursRemaining -= workingHoursToday
-            
-            if (hoursRemaining > 0) {
-                currentDate.add(Calendar.DAY_OF_MONTH, 1)
-                daysChecked++
-            }
-        }
-        
-        return daysChecked
+        return minOf(slotDay - today, maxDays)
     }
     
     /**
@@ -186,25 +169,13 @@ object WorkloadHelper {
         startDate: Calendar = Calendar.getInstance()
     ): Calendar {
         val totalOrdersToComplete = pendingOrdersCount + 1
-        val totalHoursNeeded = totalOrdersToComplete * config.timePerOrderHours
+        val totalHoursNeeded = totalOrdersToComplete * EffortModel.orderHours(null, config)
         
-        val currentDate = startDate.clone() as Calendar
-        var hoursRemaining = totalHoursNeeded
-        var daysChecked = 0
-        val maxDaysToCheck = 365
+        val daysNeeded = daysToComplete(totalHoursNeeded.toDouble(), config, startDate, realistic = false)
         
-        while (hoursRemaining > 0 && daysChecked < maxDaysToCheck) {
-            val dayOfWeek = currentDate.get(Calendar.DAY_OF_WEEK)
-            val workingHoursToday = config.getHoursForDay(dayOfWeek)
-            hoursRemaining -= workingHoursToday
-            
-            if (hoursRemaining > 0) {
-                currentDate.add(Calendar.DAY_OF_MONTH, 1)
-            }
-            daysChecked++
+        return (startDate.clone() as Calendar).apply {
+            add(Calendar.DAY_OF_MONTH, daysNeeded)
         }
-        
-        return currentDate
     }
     
     /**
@@ -220,32 +191,37 @@ object WorkloadHelper {
         startDate: Calendar = Calendar.getInstance()
     ): Calendar {
         val totalOrdersToComplete = pendingOrdersCount + 1
-        var totalHoursNeeded = totalOrdersToComplete * config.timePerOrderHours
+        var totalHoursNeeded = totalOrdersToComplete * EffortModel.orderHours(null, config)
         
         // Apply productivity factor (account for breaks, interruptions, etc.)
         totalHoursNeeded /= config.productivityFactor
         
-        val currentDate = startDate.clone() as Calendar
-        var hoursRemaining = totalHoursNeeded
-        var daysChecked = 0
-        val maxDaysToCheck = 365
+        // Use realistic hours (with weekend reduction)
+        val daysNeeded = daysToComplete(totalHoursNeeded.toDouble(), config, startDate, realistic = true)
         
-        while (hoursRemaining > 0 && daysChecked < maxDaysToCheck) {
-            val dayOfWeek = currentDate.get(Calendar.DAY_OF_WEEK)
-            // Use realistic hours (with weekend reduction)
-            val workingHoursToday = config.getRealisticHoursForDay(dayOfWeek)
-            hoursRemaining -= workingHoursToday
-            
-            if (hoursRemaining > 0) {
-                currentDate.add(Calendar.DAY_OF_MONTH, 1)
-            }
-            daysChecked++
+        return (startDate.clone() as Calendar).apply {
+            add(Calendar.DAY_OF_MONTH, daysNeeded)
+            // Add buffer days for contingency
+            add(Calendar.DAY_OF_MONTH, config.bufferDays)
         }
+    }
+    
+    /**
+     * Days after [startDate] on which [hoursNeeded] hours of work are complete,
+     * capped at a year. Binary search over the precomputed [CapacityCalendar].
+     */
+    private fun daysToComplete(
+        hoursNeeded: Double,
+        config: WorkloadConfig,
+        startDate: Calendar,
+        realistic: Boolean
+    ): Int {
+        val maxDaysToCheck = 365
+        val startDay = CapacityCalendar.epochDayOf(startDate)
+        val calendar = CapacityCalendar.covering(config, startDay)
+        val completionDay = calendar.firstDayWithHours(hoursNeeded, startDay, realistic)
         
-        // Add buffer days for contingency
-        currentDate.add(Calendar.DAY_OF_MONTH, config.bufferDays)
-        
-        return currentDate
+        return minOf(completionDay - startDay, maxDaysToCheck)
     }
     
     /**
@@ -259,12 +235,17 @@ object WorkloadHelper {
         val confidenceLevel: String
     )
     
+    /**
+     * @param realisticDate Realistic date to use, e.g. from [ProductionScheduler];
+     *                      defaults to the order-count based estimate
+     */
     fun calculateDeliveryEstimates(
         pendingOrdersCount: Int,
-        config: WorkloadConfig
+        config: WorkloadConfig,
+        realisticDate: Calendar? = null
     ): DeliveryEstimates {
         val optimistic = calculateDeliveryDate(pendingOrdersCount, config)
-        val realistic = calculateRealisticDeliveryDate(pendingOrdersCount, config)
+        val realistic = realisticDate ?: calculateRealisticDeliveryDate(pendingOrdersCount, config)
         
         val diffInMillis = realistic.timeInMillis - optimistic.timeInMillis
         val daysDiff = (diffInMillis / (1000 * 60 * 60 * 24)).toInt()
@@ -301,6 +282,17 @@ object WorkloadHelper {
         }
     }
     
+    /**
+     * Status level for a utilization percentage (shop-wide or per worker)
+     */
+    fun getStatusLevel(utilizationPercentage: Int): StatusLevel {
+        return when {
+            utilizationPercentage < 70 -> StatusLevel.AVAILABLE
+            utilizationPercentage < 90 -> StatusLevel.BUSY
+            else -> StatusLevel.OVERBOOKED
+        }
+    }
+    
     /**
      * Get status emoji based on level
      */
@@ -336,18 +328,22 @@ object WorkloadHelper {
     }
     
     /**
-     * ✨ QUICK WIN: Get confidence level based on pending orders
+     * ✨ QUICK WIN: Confidence level of a delivery date
      */
     enum class ConfidenceLevel {
-        HIGH,      // < 5 orders
-        MEDIUM,    // 5-10 orders
-        LOW        // > 10 orders
+        HIGH,      // >= 80% on-time probability
+        MEDIUM,    // 50-80%
+        LOW        // < 50%
     }
     
-    fun getConfidenceLevel(pendingOrders: Int): ConfidenceLevel {
+    /**
+     * Confidence level from a simulated on-time probability
+     * (see [DeliveryConfidenceEstimator])
+     */
+    fun getConfidenceLevel(onTimeProbability: Double): ConfidenceLevel {
         return when {
-            pendingOrders < 5 -> ConfidenceLevel.HIGH
-            pendingOrders < 10 -> ConfidenceLevel.MEDIUM
+            onTimeProbability >= 0.8 -> ConfidenceLevel.HIGH
+            onTimeProbability >= 0.5 -> ConfidenceLevel.MEDIUM
             else -> ConfidenceLevel.LOW
         }
     }
@@ -386,17 +382,21 @@ object WorkloadHelper {
         val utilizationPercentage: Int,
         val orderCount: Int,
         val statusLevel: StatusLevel,
-        val isCurrentWeek: Boolean
+        val isCurrentWeek: Boolean,
+        val lateOrderCount: Int = 0
     )
     
+    /**
+     * Weekly load from the [ProductionScheduler] schedule: hours actually slotted
+     * into each week, and the orders worked on (or finishing late) in it.
+     * Call ProductionScheduler.ensureLoaded() first.
+     */
     fun calculateMultiWeekCapacity(
-        allOrders: List<Order>,
         config: WorkloadConfig,
         weeksAhead: Int = 4
     ): List<WeeklyCapacity> {
-        val dateFormat = SimpleDateFormat("dd/MM/yyyy", Locale.getDefault())
         val weeklyData = mutableListOf<WeeklyCapacity>()
-        val today = Calendar.getInstance()
+        val capacityCalendar = CapacityCalendar.forConfig(config)
         
         for (weekIndex in 0 until weeksAhead) {
             val weekStart = Calendar.getInstance().apply {
@@ -407,44 +407,24 @@ object WorkloadHelper {
             val weekEnd = weekStart.clone() as Calendar
             weekEnd.add(Calendar.DAY_OF_MONTH, 6)
             
+            val weekStartDay = CapacityCalendar.epochDayOf(weekStart)
+            val weekEndDay = CapacityCalendar.epochDayOf(weekEnd) + 1
+            
             // Calculate available hours for this week
-            var availableHours = 0f
-            val tempDate = weekStart.clone() as Calendar
+            val availableHours = capacityCalendar.hoursBetween(weekStartDay, weekEndDay, realistic = true).toFloat()
             
-            while (!tempDate.after(weekEnd)) {
-                val dayOfWeek = tempDate.get(Calendar.DAY_OF_WEEK)
-                availableHours += config.getRealisticHoursForDay(dayOfWeek)
-                tempDate.add(Calendar.DAY_OF_MONTH, 1)
-            }
+            // Work the schedule has slotted into this week
+            val allocatedHours = ProductionScheduler.loadBetween(weekStartDay, weekEndDay)
+            val ordersThisWeek = ProductionScheduler.getJobsBetween(weekStartDay, weekEndDay)
+            val lateOrders = ordersThisWeek.count { it.isLate && it.finishEpochDay < weekEndDay }
             
-            // Find orders with delivery dates in this week
-            val ordersThisWeek = allOrders.filter { order ->
-                try {
-                    val orderDate = dateFormat.parse(order.estimatedDeliveryDate)
-                    orderDate?.let {
-                        val orderCal = Calendar.getInstance().apply { time = it }
-                        !orderCal.before(weekStart) && !orderCal.after(weekEnd)
-                    } ?: false
-                } catch (e: Exception) {
-                    false
-                }
-            }.filter { order ->
-                order.status.equals("Pending", ignoreCase = true) ||
-                order.status.equals("In Progress", ignoreCase = true)
-            }
-            
-            val allocatedHours = ordersThisWeek.size * config.timePerOrderHours
             val utilization = if (availableHours > 0) {
                 ((allocatedHours / availableHours) * 100).toInt().coerceIn(0, 100)
             } else {
                 0
             }
             
-            val statusLevel = when {
-                utilization < 70 -> StatusLevel.AVAILABLE
-                utilization < 90 -> StatusLevel.BUSY
-                else -> StatusLevel.OVERBOOKED
-            }
+            val statusLevel = getStatusLevel(utilization)
             
             val isCurrentWeek = weekIndex == 0
             
@@ -457,7 +437,8 @@ object WorkloadHelper {
                 utilizationPercentage = utilization,
                 orderCount = ordersThisWeek.size,
                 statusLevel = statusLevel,
-                isCurrentWeek = isCurrentWeek
+                isCurrentWeek = isCurrentWeek,
+                lateOrderCount = lateOrders
             ))
         }
         
@@ -483,6 +464,7 @@ object WorkloadHelper {
                 append("$emoji ${week.utilizationPercentage}% | ")
                 append("${week.orderCount} orders | ")
                 append("${String.format("%.1f", week.allocatedHours)}h / ${String.format("%.1f", week.totalAvailableHours)}h")
+                if (week.lateOrderCount > 0) append(" | ${week.lateOrderCount} late")
                 
                 when (week.statusLevel) {
                     StatusLevel.AVAILABLE -> append(" ✨ Good availability")
@@ -0,0 +1,376 @@
+package com.example.perfectfit.views
+
+import android.annotation.SuppressLint
+import android.content.Context
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import android.graphics.BitmapRegionDecoder
+import android.graphics.Canvas
+import android.graphics.Matrix
+import android.graphics.Paint
+import android.graphics.Rect
+import android.graphics.RectF
+import android.media.ExifInterface
+import android.os.Handler
+import android.os.Looper
+import android.util.AttributeSet
+import android.util.Log
+import android.util.LruCache
+import android.view.GestureDetector
+import android.view.MotionEvent
+import android.view.ScaleGestureDetector
+import android.view.View
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+/**
+ * Zoomable full-screen image view that decodes only what is on screen.
+ *
+ * Instead of decoding the whole file into one Bitmap, the image is read with
+ * BitmapRegionDecoder, which seeks into the file and decodes individual
+ * rectangles. Memory use therefore depends on the screen size, not on the
+ * image size, so full-resolution originals can be inspected safely.
+ *
+ * Rendering:
+ * - A low-resolution preview (subsampled to roughly screen size) is always drawn
+ *   first so the whole image is visible immediately
+ * - When zoomed past the preview's resolution, the visible area is covered by
+ *   TILE_SIZE tiles decoded at the matching power-of-two sample size
+ * - Tiles are decoded on a single background thread and kept in a byte-bounded
+ *   LRU cache; tiles for an abandoned zoom level are skipped
+ * - EXIF orientation is applied when drawing, so originals stored unrotated
+ *   still display upright
+ *
+ * Gestures:
+ * - Pinch to zoom, drag to pan, double-tap to toggle zoom
+ * - Single tap performs a click (used by dialogs to dismiss)
+ */
+class TiledImageView @JvmOverloads constructor(
+    context: Context,
+    attrs: AttributeSet? = null
+) : View(context, attrs) {
+
+    private var decoder: BitmapRegionDecoder? = null
+    private var preview: Bitmap? = null
+    private var previewSampleSize = 1
+    private var sourceWidth = 0
+    private var sourceHeight = 0
+    private var orientationDegrees = 0
+
+    // Source image coordinates -> view coordinates
+    private val baseMatrix = Matrix()   // fit-center including orientation
+    private val userMatrix = Matrix()   // pinch and pan
+    private val drawMatrix = Matrix()
+    private val inverseMatrix = Matrix()
+    private var userScale = 1f
+
+    private val paint = Paint(Paint.FILTER_BITMAP_FLAG)
+    private val viewBounds = RectF()
+    private val sourceBounds = RectF()
+    private val visibleSource = RectF()
+    private val tileRect = RectF()
+    private val mappedBounds = RectF()
+
+    private val decodeExecutor: ExecutorService = Executors.newSingleThreadExecutor()
+    private val mainHandler = Handler(Looper.getMainLooper())
+    private val pendingTiles = HashSet<Long>()
+
+    @Volatile
+    private var currentSampleSize = 0
+
+    private val tileCache = object : LruCache<Long, Bitmap>(MAX_TILE_CACHE_BYTES) {
+        override fun sizeOf(key: Long, value: Bitmap): Int = value.byteCount
+    }
+
+    private val scaleDetector = ScaleGestureDetector(context, object : ScaleGestureDetector.SimpleOnScaleGestureListener() {
+        override fun onScale(detector: ScaleGestureDetector): Boolean {
+            zoomBy(detector.scaleFactor, detector.focusX, detector.focusY)
+            return true
+        }
+    })
+
+    private val gestureDetector = GestureDetector(context, object : GestureDetector.SimpleOnGestureListener() {
+        override fun onDown(e: MotionEvent): Boolean = true
+
+        override fun onScroll(e1: MotionEvent?, e2: MotionEvent, distanceX: Float, distanceY: Float): Boolean {
+            userMatrix.postTranslate(-distanceX, -distanceY)
+            constrainAndInvalidate()
+            return true
+        }
+
+        override fun onDoubleTap(e: MotionEvent): Boolean {
+            val target = if (userScale > 1.5f) 1f / userScale else DOUBLE_TAP_ZOOM / userScale
+            zoomBy(target, e.x, e.y)
+            return true
+        }
+
+        override fun onSingleTapConfirmed(e: MotionEvent): Boolean {
+            performClick()
+            return true
+        }
+    })
+
+    /**
+     * Loads an image file for viewing. Decoding happens off the main thread.
+     *
+     * @param path Absolute path of the image file
+     */
+    fun setImageFile(path: String) {
+        if (decodeExecutor.isShutdown) return
+        val metrics = resources.displayMetrics
+        val maxPreviewSide = maxOf(metrics.widthPixels, metrics.heightPixels)
+
+        decodeExecutor.execute {
+            try {
+                @Suppress("DEPRECATION")
+                val newDecoder = BitmapRegionDecoder.newInstance(path, false)
+                val width = newDecoder.width
+                val height = newDecoder.height
+
+                var sampleSize = 1
+                while (maxOf(width, height) / (sampleSize * 2) >= maxPreviewSide) {
+                    sampleSize *= 2
+                }
+                val newPreview = BitmapFactory.decodeFile(path, BitmapFactory.Options().apply {
+                    inSampleSize = sampleSize
+                    inPreferredConfig = Bitmap.Config.RGB_565
+                })
+                val degrees = readOrientation(path)
+
+                mainHandler.post {
+                    decoder = newDecoder
+                    preview = newPreview
+                    previewSampleSize = sampleSize
+                    sourceWidth = width
+                    sourceHeight = height
+                    orientationDegrees = degrees
+                    sourceBounds.set(0f, 0f, width.toFloat(), height.toFloat())
+                    tileCache.evictAll()
+                    resetZoom()
+                }
+            } catch (e: Exception) {
+                Log.e(TAG, "Failed to open image $path: ${e.message}", e)
+            }
+        }
+    }
+
+    override fun onSizeChanged(w: Int, h: Int, oldw: Int, oldh: Int) {
+        super.onSizeChanged(w, h, oldw, oldh)
+        viewBounds.set(0f, 0f, w.toFloat(), h.toFloat())
+        resetZoom()
+    }
+
+    @SuppressLint("ClickableViewAccessibility")
+    override fun onTouchEvent(event: MotionEvent): Boolean {
+        scaleDetector.onTouchEvent(event)
+        gestureDetector.onTouchEvent(event)
+        return true
+    }
+
+    override fun performClick(): Boolean {
+        return super.performClick()
+    }
+
+    override fun onDraw(canvas: Canvas) {
+        super.onDraw(canvas)
+        val currentPreview = preview ?: return
+
+        canvas.save()
+        canvas.concat(drawMatrix)
+        canvas.drawBitmap(currentPreview, null, sourceBounds, paint)
+
+        // Screen pixels per source pixel decides how much detail is worth decoding
+        val scale = drawMatrix.mapRadius(1f)
+        var sampleSize = 1
+        while (sampleSize * 2 * scale <= 1f) {
+            sampleSize *= 2
+        }
+        currentSampleSize = sampleSize
+
+        if (sampleSize < previewSampleSize) {
+            drawVisibleTiles(canvas, sampleSize)
+        }
+        canvas.restore()
+    }
+
+    override fun onDetachedFromWindow() {
+        super.onDetachedFromWindow()
+        val oldDecoder = decoder
+        decoder = null
+        tileCache.evictAll()
+        pendingTiles.clear()
+        if (!decodeExecutor.isShutdown) {
+            decodeExecutor.execute { oldDecoder?.recycle() }
+            decodeExecutor.shutdown()
+        }
+    }
+
+    /**
+     * Draws cached tiles covering the visible area and requests missing ones.
+     * Canvas is already in source coordinates.
+     */
+    private fun drawVisibleTiles(canvas: Canvas, sampleSize: Int) {
+        inverseMatrix.mapRect(visibleSource, viewBounds)
+        if (!visibleSource.intersect(sourceBounds)) return
+
+        val span = TILE_SIZE * sampleSize
+        val firstCol = (visibleSource.left / span).toInt()
+        val lastCol = ((visibleSource.right - 1) / span).toInt()
+        val firstRow = (visibleSource.top / span).toInt()
+        val lastRow = ((visibleSource.bottom - 1) / span).toInt()
+
+        for (row in firstRow..lastRow) {
+            for (col in firstCol..lastCol) {
+                val key = tileKey(sampleSize, col, row)
+                val tile = tileCache.get(key)
+                if (tile != null) {
+                    tileRect.set(
+                        (col * span).toFloat(),
+                        (row * span).toFloat(),
+                        minOf((col + 1) * span, sourceWidth).toFloat(),
+                        minOf((row + 1) * span, sourceHeight).toFloat()
+                    )
+                    canvas.drawBitmap(tile, null, tileRect, paint)
+                } else {
+                    requestTile(key, sampleSize, col, row)
+                }
+            }
+        }
+    }
+
+    /**
+     * Queues a tile decode unless one is already pending.
+     */
+    private fun requestTile(key: Long, sampleSize: Int, col: Int, row: Int) {
+        val regionDecoder = decoder ?: return
+        if (decodeExecutor.isShutdown || !pendingTiles.add(key)) return
+
+        val span = TILE_SIZE * sampleSize
+        val region = Rect(
+            col * span,
+            row * span,
+            minOf((col + 1) * span, sourceWidth),
+            minOf((row + 1) * span, sourceHeight)
+        )
+
+        decodeExecutor.execute {
+            // Skip tiles for a zoom level the user has already left
+            val tile = if (sampleSize == currentSampleSize && !regionDecoder.isRecycled) {
+                try {
+                    regionDecoder.decodeRegion(region, BitmapFactory.Options().apply {
+                        inSampleSize = sampleSize
+                        inPreferredConfig = Bitmap.Config.RGB_565
+                    })
+                } catch (e: Exception) {
+                    Log.w(TAG, "Tile decode failed: ${e.message}")
+                    null
+                }
+            } else {
+                null
+            }
+
+            mainHandler.post {
+                pendingTiles.remove(key)
+                if (tile != null && decoder === regionDecoder) {
+                    tileCache.put(key, tile)
+                    invalidate()
+                }
+            }
+        }
+    }
+
+    private fun zoomBy(factor: Float, focusX: Float, focusY: Float) {
+        val newScale = (userScale * factor).coerceIn(1f, maxUserScale())
+        val applied = newScale / userScale
+        userScale = newScale
+        userMatrix.postScale(applied, applied, focusX, focusY)
+        constrainAndInvalidate()
+    }
+
+    /**
+     * Largest user zoom: stop once one source pixel covers MAX_PIXEL_ZOOM screen pixels.
+     */
+    private fun maxUserScale(): Float {
+        val baseScale = baseMatrix.mapRadius(1f)
+        return if (baseScale > 0f) maxOf(1f, MAX_PIXEL_ZOOM / baseScale) else 1f
+    }
+
+    private fun resetZoom() {
+        baseMatrix.reset()
+        if (sourceWidth > 0 && width > 0 && height > 0) {
+            val rotated = orientationDegrees % 180 != 0
+            val fitWidth = if (rotated) sourceHeight else sourceWidth
+            val fitHeight = if (rotated) sourceWidth else sourceHeight
+            val scale = minOf(width.toFloat() / fitWidth, height.toFloat() / fitHeight)
+
+            baseMatrix.postTranslate(-sourceWidth / 2f, -sourceHeight / 2f)
+            baseMatrix.postRotate(orientationDegrees.toFloat())
+            baseMatrix.postScale(scale, scale)
+            baseMatrix.postTranslate(width / 2f, height / 2f)
+        }
+        userMatrix.reset()
+        userScale = 1f
+        constrainAndInvalidate()
+    }
+
+    /**
+     * Keeps the image filling the view when zoomed and centered when it fits.
+     */
+    private fun constrainAndInvalidate() {
+        drawMatrix.set(baseMatrix)
+        drawMatrix.postConcat(userMatrix)
+        drawMatrix.mapRect(mappedBounds, sourceBounds)
+
+        val dx = when {
+            mappedBounds.width() <= width -> width / 2f - mappedBounds.centerX()
+            mappedBounds.left > 0 -> -mappedBounds.left
+            mappedBounds.right < width -> width - mappedBounds.right
+            else -> 0f
+        }
+        val dy = when {
+            mappedBounds.height() <= height -> height / 2f - mappedBounds.centerY()
+            mappedBounds.top > 0 -> -mappedBounds.top
+            mappedBounds.bottom < height -> height - mappedBounds.bottom
+            else -> 0f
+        }
+        if (dx != 0f || dy != 0f) {
+            userMatrix.postTranslate(dx, dy)
+            drawMatrix.postTranslate(dx, dy)
+        }
+
+        drawMatrix.invert(inverseMatrix)
+        invalidate()
+    }
+
+    private fun readOrientation(path: String): Int {
+        return try {
+            when (ExifInterface(path).getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL)) {
+                ExifInterface.ORIENTATION_ROTATE_90 -> 90
+                ExifInterface.ORIENTATION_ROTATE_180 -> 180
+                ExifInterface.ORIENTATION_ROTATE_270 -> 270
+                else -> 0
+            }
+        } catch (e: Exception) {
+            0
+        }
+    }
+
+    private fun tileKey(sampleSize: Int, col: Int, row: Int): Long {
+        return (sampleSize.toLong() shl 48) or (col.toLong() shl 24) or row.toLong()
+    }
+
+    companion object {
+        private const val TAG = "TiledImageView"
+
+        /** Tile edge length in decoded pixels */
+        private const val TILE_SIZE = 512
+
+        /** Upper bound for decoded tiles kept in memory */
+        private const val MAX_TILE_CACHE_BYTES = 16 * 1024 * 1024
+
+        /** Maximum zoom, in screen pixels per source pixel */
+        private const val MAX_PIXEL_ZOOM = 4f
+
+        private const val DOUBLE_TAP_ZOOM = 3f
+    }
+}
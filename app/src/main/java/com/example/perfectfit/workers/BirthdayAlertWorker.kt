@@ -4,8 +4,9 @@ import android.content.Context
 import androidx.work.CoroutineWorker
 import androidx.work.WorkerParameters
 import com.example.perfectfit.database.AppDatabase
+import com.example.perfectfit.models.Customer
+import com.example.perfectfit.utils.DateCodec
 import com.example.perfectfit.utils.NotificationHelper
-import com.example.perfectfit.utils.WhatsAppHelper
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.withContext
 
@@ -14,9 +15,9 @@ import kotlinx.coroutines.withContext
  * 
  * This worker runs once per day to:
  * - Find customers with birthdays today
- * - Send WhatsApp birthday wishes
- * - Notify shop owner about birthdays
- * - Update tracking to prevent duplicate sends
+ * - Update tracking for all of them in one transaction to prevent duplicate sends
+ * - Notify shop owner about birthdays with one grouped notification
+ * - Queue WhatsApp birthday wishes, sent at a throttled rate by [BirthdayWishWorker]
  * 
  * Scheduling:
  * - Runs daily at specified time (configured in Application or MainActivity)
@@ -24,7 +25,7 @@ import kotlinx.coroutines.withContext
  * - Persists across device reboots
  * 
  * @see [Customer.shouldSendBirthdayAlert] for alert logic
- * @see [WhatsAppHelper] for message sending
+ * @see [BirthdayWishWorker] for message sending
  * @see [NotificationHelper] for owner notifications
  */
 class BirthdayAlertWorker(
@@ -44,11 +45,9 @@ class BirthdayAlertWorker(
             val database = AppDatabase.getDatabase(applicationContext)
             val customerDao = database.customerDao()
             
-            // Get all customers
-            val allCustomers = customerDao.getAllCustomersList()
-            
-            // Filter customers with birthdays today
-            val birthdayCustomers = allCustomers.filter { customer ->
+            // Only customers born on today's month-day, read through the birthday index
+            val todayMonthDays = Customer.birthMonthDaysOn(DateCodec.today())
+            val birthdayCustomers = customerDao.getCustomersWithBirthdayOn(todayMonthDays).filter { customer ->
                 customer.shouldSendBirthdayAlert()
             }
             
@@ -57,39 +56,15 @@ class BirthdayAlertWorker(
                 return@withContext Result.success()
             }
             
-            // Process each birthday customer
-            birthdayCustomers.forEach { customer ->
-                try {
-                    // Send birthday wish via WhatsApp
-                    sendBirthdayWish(customer.mobile, customer.firstName)
-                    
-                    // Send notification to shop owner
-                    NotificationHelper.sendBirthdayReminder(
-                        applicationContext,
-                        "🎂 ${customer.fullName}'s Birthday!",
-                        "Tap to call and wish them. Send them a special discount!"
-                    )
-                    
-                    // Update last alert timestamp
-                    val updatedCustomer = customer.copy(
-                        lastBirthdayAlertSent = System.currentTimeMillis()
-                    )
-                    customerDao.updateCustomer(updatedCustomer)
-                    
-                } catch (e: Exception) {
-                    // Log error but continue with other customers
-                    e.printStackTrace()
-                }
-            }
+            // Stamp everyone in one transaction first, so a retry never wishes twice
+            val customerIds = birthdayCustomers.map { it.id }
+            customerDao.markBirthdayAlertsSentBatched(customerIds, System.currentTimeMillis())
             
-            // Send summary notification if multiple birthdays
-            if (birthdayCustomers.size > 1) {
-                NotificationHelper.sendBirthdayReminder(
-                    applicationContext,
-                    "🎉 ${birthdayCustomers.size} Birthdays Today!",
-                    birthdayCustomers.joinToString(", ") { it.firstName }
-                )
-            }
+            // One grouped notification for the shop owner
+            NotificationHelper.showBirthdayNotifications(applicationContext, birthdayCustomers)
+            
+            // WhatsApp wishes are sent at a throttled rate by a separate worker
+            BirthdayWishWorker.enqueue(applicationContext, customerIds)
             
             Result.success()
             
@@ -100,38 +75,6 @@ class BirthdayAlertWorker(
         }
     }
     
-    /**
-     * Sends a birthday wish message via WhatsApp.
-     * 
-     * @param phoneNumber Customer's mobile number
-     * @param customerName Customer's first name for personalization
-     */
-    private fun sendBirthdayWish(phoneNumber: String, customerName: String) {
-        val birthdayMessages = listOf(
-            "🎂 Happy Birthday $customerName! 🎉\n\nWishing you a wonderful day filled with joy and happiness! " +
-                    "As a special birthday gift, visit us this month for 10% OFF on your next order! 🎁\n\n" +
-                    "- Perfect Fit Tailors",
-            
-            "🎉 Happiest Birthday $customerName! 🎂\n\nMay this year bring you success and prosperity! " +
-                    "Celebrate with us - Get a special birthday discount of 10% on any order this month! 🎁\n\n" +
-                    "- Perfect Fit Tailors",
-            
-            "🎂 Many Happy Returns $customerName! 🎉\n\nThank you for being our valued customer! " +
-                    "As our birthday gift to you - Enjoy 10% OFF on your next tailoring order! Valid all month! 🎁\n\n" +
-                    "- Perfect Fit Tailors"
-        )
-        
-        // Pick a random message for variety
-        val message = birthdayMessages.random()
-        
-        WhatsAppHelper.sendCustomMessage(
-            applicationContext,
-            phoneNumber,
-            customerName,
-            message
-        )
-    }
-    
     companion object {
         const val WORK_NAME = "BirthdayAlertWorker"
     }
@@ -0,0 +1,141 @@
+package com.example.perfectfit.workers
+
+import android.content.Context
+import androidx.work.CoroutineWorker
+import androidx.work.ExistingWorkPolicy
+import androidx.work.OneTimeWorkRequestBuilder
+import androidx.work.WorkManager
+import androidx.work.WorkerParameters
+import androidx.work.workDataOf
+import com.example.perfectfit.database.AppDatabase
+import com.example.perfectfit.utils.WhatsAppHelper
+import kotlinx.coroutines.delay
+import java.util.concurrent.TimeUnit
+
+/**
+ * Background worker that drains the queue of WhatsApp birthday wishes.
+ *
+ * BirthdayAlertWorker queues the day's birthday customers here instead of
+ * opening WhatsApp for each of them in a tight loop. Each run sends a few
+ * wishes spaced [WISH_INTERVAL_MS] apart, then re-enqueues itself with the
+ * remaining customers after [BATCH_INTERVAL_SECONDS].
+ *
+ * The queue is carried in the work's input data as customer IDs, so it
+ * survives process death and device reboots.
+ *
+ * @see [BirthdayAlertWorker] for the producer
+ * @see [WhatsAppHelper] for message sending
+ */
+class BirthdayWishWorker(
+    context: Context,
+    params: WorkerParameters
+) : CoroutineWorker(context, params) {
+
+    /**
+     * Sends the next batch of wishes and schedules the rest.
+     *
+     * @return Result.success() when the batch was handled, Result.retry() on unexpected errors
+     */
+    override suspend fun doWork(): Result {
+        return try {
+            val queue = inputData.getIntArray(KEY_CUSTOMER_IDS)?.toList().orEmpty()
+            if (queue.isEmpty()) return Result.success()
+
+            val batch = queue.take(WISHES_PER_RUN)
+            val customers = AppDatabase.getDatabase(applicationContext)
+                .customerDao()
+                .getCustomersByIds(batch)
+
+            customers.forEachIndexed { index, customer ->
+                if (index > 0) delay(WISH_INTERVAL_MS)
+                try {
+                    sendBirthdayWish(customer.mobile, customer.firstName)
+                } catch (e: Exception) {
+                    // Log error but continue with other customers
+                    e.printStackTrace()
+                }
+            }
+
+            val remaining = queue.drop(WISHES_PER_RUN)
+            if (remaining.isNotEmpty()) {
+                enqueueBatch(applicationContext, remaining, BATCH_INTERVAL_SECONDS)
+            }
+            Result.success()
+        } catch (e: Exception) {
+            e.printStackTrace()
+            Result.retry()
+        }
+    }
+
+    /**
+     * Sends a birthday wish message via WhatsApp.
+     *
+     * @param phoneNumber Customer's mobile number
+     * @param customerName Customer's first name for personalization
+     */
+    private fun sendBirthdayWish(phoneNumber: String, customerName: String) {
+        val birthdayMessages = listOf(
+            "🎂 Happy Birthday $customerName! 🎉\n\nWishing you a wonderful day filled with joy and happiness! " +
+                    "As a special birthday gift, visit us this month for 10% OFF on your next order! 🎁\n\n" +
+                    "- Perfect Fit Tailors",
+
+            "🎉 Happiest Birthday $customerName! 🎂\n\nMay this year bring you success and prosperity! " +
+                    "Celebrate with us - Get a special birthday discount of 10% on any order this month! 🎁\n\n" +
+                    "- Perfect Fit Tailors",
+
+            "🎂 Many Happy Returns $customerName! 🎉\n\nThank you for being our valued customer! " +
+                    "As our birthday gift to you - Enjoy 10% OFF on your next tailoring order! Valid all month! 🎁\n\n" +
+                    "- Perfect Fit Tailors"
+        )
+
+        // Pick a random message for variety
+        val message = birthdayMessages.random()
+
+        WhatsAppHelper.sendCustomMessage(
+            applicationContext,
+            phoneNumber,
+            customerName,
+            message
+        )
+    }
+
+    companion object {
+        const val WORK_NAME = "BirthdayWishWorker"
+
+        private const val KEY_CUSTOMER_IDS = "customer_ids"
+
+        /** Wishes sent per run */
+        private const val WISHES_PER_RUN = 5
+
+        /** Pause between wishes within a run */
+        private const val WISH_INTERVAL_MS = 3_000L
+
+        /** Pause between runs */
+        private const val BATCH_INTERVAL_SECONDS = 60L
+
+        /**
+         * Queues birthday wishes for the given customers. Appends to any
+         * queue still being drained.
+         *
+         * @param context Context for WorkManager
+         * @param customerIds Local IDs of the customers to wish
+         */
+        fun enqueue(context: Context, customerIds: List<Int>) {
+            if (customerIds.isEmpty()) return
+            enqueueBatch(context, customerIds, delaySeconds = 0)
+        }
+
+        private fun enqueueBatch(context: Context, customerIds: List<Int>, delaySeconds: Long) {
+            val request = OneTimeWorkRequestBuilder<BirthdayWishWorker>()
+                .setInputData(workDataOf(KEY_CUSTOMER_IDS to customerIds.toIntArray()))
+                .setInitialDelay(delaySeconds, TimeUnit.SECONDS)
+                .build()
+
+            WorkManager.getInstance(context).enqueueUniqueWork(
+                WORK_NAME,
+                ExistingWorkPolicy.APPEND_OR_REPLACE,
+                request
+            )
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.perfectfit.workers
+
+import android.content.Context
+import androidx.work.CoroutineWorker
+import androidx.work.ExistingPeriodicWorkPolicy
+import androidx.work.ExistingWorkPolicy
+import androidx.work.OneTimeWorkRequestBuilder
+import androidx.work.PeriodicWorkRequestBuilder
+import androidx.work.WorkManager
+import androidx.work.WorkerParameters
+import androidx.work.workDataOf
+import com.example.perfectfit.database.AppDatabase
+import com.example.perfectfit.utils.DeliveryAlertRefresher
+import java.util.Calendar
+import java.util.concurrent.TimeUnit
+
+/**
+ * Background worker that materializes delivery alerts and posts the
+ * delivery reminder and overdue notifications.
+ *
+ * Runs in two modes:
+ * - Refresh: rebuilds the delivery_alerts table just after midnight, when
+ *   every order's days-until-delivery changes; also run once after sync
+ * - Notify: posts the morning notifications from the same table
+ *
+ * Scheduling:
+ * - Both modes use WorkManager's periodic work with a 24-hour interval
+ * - Persists across device reboots
+ *
+ * @see [DeliveryAlertRefresher] for the alert producer
+ */
+class DeliveryAlertWorker(
+    context: Context,
+    params: WorkerParameters
+) : CoroutineWorker(context, params) {
+
+    /**
+     * Refreshes alerts and, in notify mode, posts notifications.
+     *
+     * @return Result.success() when done, Result.retry() on unexpected errors
+     */
+    override suspend fun doWork(): Result {
+        return try {
+            val database = AppDatabase.getDatabase(applicationContext)
+            when (inputData.getString(KEY_MODE)) {
+                MODE_NOTIFY -> DeliveryAlertRefresher.postNotifications(applicationContext, database)
+                else -> DeliveryAlertRefresher.refreshAll(database)
+            }
+            Result.success()
+        } catch (e: Exception) {
+            e.printStackTrace()
+            Result.retry()
+        }
+    }
+
+    companion object {
+        const val WORK_NAME = "DeliveryAlertWorker"
+        private const val WORK_NAME_NOTIFY = "${WORK_NAME}_notify"
+        private const val WORK_NAME_IMMEDIATE = "${WORK_NAME}_immediate"
+
+        private const val KEY_MODE = "mode"
+        private const val MODE_REFRESH = "refresh"
+        private const val MODE_NOTIFY = "notify"
+
+        /** Minutes after midnight for the daily refresh */
+        private const val REFRESH_MINUTE = 5
+
+        /** Hour of day for the morning notifications */
+        private const val NOTIFY_HOUR = 9
+
+        /**
+         * Schedules the daily refresh (00:05) and notifications (09:00).
+         * Uses KEEP policy to preserve existing schedules.
+         */
+        fun schedule(context: Context) {
+            enqueueDaily(context, WORK_NAME, MODE_REFRESH, hour = 0, minute = REFRESH_MINUTE)
+            enqueueDaily(context, WORK_NAME_NOTIFY, MODE_NOTIFY, hour = NOTIFY_HOUR, minute = 0)
+        }
+
+        /**
+         * Schedules a one-time full refresh, e.g. after sync changed orders in bulk.
+         */
+        fun refreshNow(context: Context) {
+            val request = OneTimeWorkRequestBuilder<DeliveryAlertWorker>()
+                .setInputData(workDataOf(KEY_MODE to MODE_REFRESH))
+                .build()
+
+            WorkManager.getInstance(context).enqueueUniqueWork(
+                WORK_NAME_IMMEDIATE,
+                ExistingWorkPolicy.REPLACE,
+                request
+            )
+        }
+
+        private fun enqueueDaily(context: Context, workName: String, mode: String, hour: Int, minute: Int) {
+            val now = Calendar.getInstance()
+            val target = Calendar.getInstance().apply {
+                set(Calendar.HOUR_OF_DAY, hour)
+                set(Calendar.MINUTE, minute)
+                set(Calendar.SECOND, 0)
+            }
+
+            // If the time already passed today, start tomorrow
+            if (now.after(target)) {
+                target.add(Calendar.DAY_OF_MONTH, 1)
+            }
+
+            val request = PeriodicWorkRequestBuilder<DeliveryAlertWorker>(1, TimeUnit.DAYS)
+                .setInitialDelay(target.timeInMillis - now.timeInMillis, TimeUnit.MILLISECONDS)
+                .setInputData(workDataOf(KEY_MODE to mode))
+                .build()
+
+            WorkManager.getInstance(context).enqueueUniquePeriodicWork(
+                workName,
+                ExistingPeriodicWorkPolicy.KEEP,
+                request
+            )
+        }
+    }
+}
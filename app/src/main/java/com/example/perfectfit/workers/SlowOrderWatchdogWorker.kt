@@ -0,0 +1,88 @@
+package com.example.perfectfit.workers
+
+import android.content.Context
+import androidx.work.CoroutineWorker
+import androidx.work.ExistingPeriodicWorkPolicy
+import androidx.work.PeriodicWorkRequestBuilder
+import androidx.work.WorkManager
+import androidx.work.WorkerParameters
+import com.example.perfectfit.database.AppDatabase
+import com.example.perfectfit.database.StageWithOrder
+import com.example.perfectfit.utils.NotificationHelper
+import java.util.concurrent.TimeUnit
+
+/**
+ * Background worker that alerts the shop owner when an order overstays a
+ * production stage.
+ *
+ * Every stage start stores a deadline on the production stage (start plus
+ * the learned delay threshold, see EffortModel.stageDeadline). This worker
+ * only reads stages that are past their deadline and not yet alerted, via
+ * an indexed range query, so a run costs the same however many orders are
+ * in progress. Each breach is stamped before the notification is posted,
+ * so it is alerted once even if the run is retried.
+ *
+ * Scheduling:
+ * - Runs every [INTERVAL_MINUTES] minutes with WorkManager periodic work
+ * - Persists across device reboots
+ *
+ * @see [NotificationHelper.showSlowStageAlert] for the notification
+ */
+class SlowOrderWatchdogWorker(
+    context: Context,
+    params: WorkerParameters
+) : CoroutineWorker(context, params) {
+
+    /**
+     * Finds newly late stages, stamps them and notifies.
+     *
+     * @return Result.success() when done, Result.retry() on unexpected errors
+     */
+    override suspend fun doWork(): Result {
+        return try {
+            val stageDao = AppDatabase.getDatabase(applicationContext).productionStageDao()
+            val now = System.currentTimeMillis()
+            val lateStages = mutableListOf<StageWithOrder>()
+
+            do {
+                val batch = stageDao.getNewlyLateStages(now, BATCH_SIZE)
+                if (batch.isNotEmpty()) {
+                    stageDao.markDeadlinesAlerted(batch.map { it.stage.id }, now)
+                    lateStages += batch
+                }
+            } while (batch.size == BATCH_SIZE)
+
+            NotificationHelper.showSlowStageAlert(applicationContext, lateStages)
+            Result.success()
+        } catch (e: Exception) {
+            e.printStackTrace()
+            Result.retry()
+        }
+    }
+
+    companion object {
+        const val WORK_NAME = "SlowOrderWatchdogWorker"
+
+        /** Minutes between checks (WorkManager's minimum periodic interval) */
+        private const val INTERVAL_MINUTES = 15L
+
+        /** Stages read and stamped per query */
+        private const val BATCH_SIZE = 100
+
+        /**
+         * Schedules the periodic check.
+         * Uses KEEP policy to preserve an existing schedule.
+         */
+        fun schedule(context: Context) {
+            val request = PeriodicWorkRequestBuilder<SlowOrderWatchdogWorker>(
+                INTERVAL_MINUTES, TimeUnit.MINUTES
+            ).build()
+
+            WorkManager.getInstance(context).enqueueUniquePeriodicWork(
+                WORK_NAME,
+                ExistingPeriodicWorkPolicy.KEEP,
+                request
+            )
+        }
+    }
+}
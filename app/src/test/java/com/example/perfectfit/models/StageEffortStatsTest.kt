@@ -0,0 +1,155 @@
+package com.example.perfectfit.models
+
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.Random
+
+/**
+ * Tests of the P² quantile markers in [StageEffortStats]: exact values
+ * during warm-up, marker invariants on every step, and convergence on
+ * distributions with known quantiles.
+ */
+class StageEffortStatsTest {
+
+    // ===== Warm-up =====
+
+    @Test
+    fun keepsFirstObservationsExactAndSorted() {
+        val observations = doubleArrayOf(4.0, 1.5, 9.0, 1.5, 3.0)
+        var stats = empty()
+
+        observations.forEachIndexed { index, hours ->
+            stats = stats.withObservation(hours)
+            val seen = observations.copyOf(index + 1).sortedArray()
+
+            assertArrayEquals(seen, heights(stats).copyOf(index + 1), 0.0)
+            assertArrayEquals(IntArray(index + 1) { it + 1 }, positions(stats).copyOf(index + 1))
+            assertEquals(seen.first(), stats.quantile(0.0), 0.0)
+            assertEquals(seen.last(), stats.quantile(1.0), 0.0)
+        }
+
+        // Five markers on five observations: every quartile is an observation
+        assertEquals(1.5, stats.quantile(0.25), 0.0)
+        assertEquals(3.0, stats.medianHours, 0.0)
+        assertEquals(4.0, stats.upperQuartileHours, 0.0)
+    }
+
+    @Test
+    fun interpolatesBetweenWarmUpValues() {
+        val stats = empty().withObservation(2.0).withObservation(6.0)
+
+        assertEquals(4.0, stats.medianHours, 1e-9)
+        assertEquals(5.0, stats.upperQuartileHours, 1e-9)
+        assertEquals(0.0, empty().medianHours, 0.0)
+        assertEquals(7.0, empty().withObservation(7.0).medianHours, 0.0)
+    }
+
+    // ===== Marker invariants =====
+
+    @Test
+    fun markersStayOrdered() {
+        val random = Random(SEED)
+        val samplers = listOf<(Random) -> Double>(
+            { it.nextDouble() * 10 },
+            { exponential(it, 4.0) },
+            // Few distinct values, so many ties
+            { it.nextInt(4).toDouble() },
+            // Mostly short stages with an occasional very long one
+            { if (it.nextInt(50) == 0) 200.0 else 1 + it.nextDouble() }
+        )
+
+        for (sampler in samplers) {
+            var stats = empty()
+            repeat(5_000) {
+                stats = stats.withObservation(sampler(random))
+                if (stats.count >= 5) assertMarkersValid(stats)
+            }
+        }
+    }
+
+    @Test
+    fun extremesTrackMinAndMax() {
+        val random = Random(SEED)
+        var stats = empty()
+        var min = Double.MAX_VALUE
+        var max = -Double.MAX_VALUE
+        repeat(2_000) {
+            val hours = exponential(random, 2.0)
+            min = minOf(min, hours)
+            max = maxOf(max, hours)
+            stats = stats.withObservation(hours)
+        }
+
+        assertEquals(min, stats.quantile(0.0), 0.0)
+        assertEquals(max, stats.quantile(1.0), 0.0)
+    }
+
+    // ===== Convergence =====
+
+    @Test
+    fun convergesOnUniformDistribution() {
+        val random = Random(SEED)
+        val stats = observe(SAMPLES) { random.nextDouble() * 10 }
+
+        assertEquals(5.0, stats.medianHours, 0.2)
+        assertEquals(7.5, stats.upperQuartileHours, 0.2)
+        assertEquals(5.0, stats.meanHours, 0.1)
+    }
+
+    @Test
+    fun convergesOnSkewedDistribution() {
+        // Exponential with mean 4h: median 4·ln 2, upper quartile 4·ln 4
+        val random = Random(SEED)
+        val stats = observe(SAMPLES) { exponential(random, 4.0) }
+
+        assertEquals(4 * Math.log(2.0), stats.medianHours, 0.15)
+        assertEquals(4 * Math.log(4.0), stats.upperQuartileHours, 0.25)
+    }
+
+    @Test
+    fun agreesWithExactSampleQuantiles() {
+        // Stage-like durations: log-normal around 3h
+        val random = Random(SEED)
+        val samples = DoubleArray(SAMPLES) { 3 * Math.exp(0.5 * random.nextGaussian()) }
+        var stats = empty()
+        samples.forEach { stats = stats.withObservation(it) }
+        samples.sort()
+
+        assertEquals(samples[SAMPLES / 2], stats.medianHours, samples[SAMPLES / 2] * 0.03)
+        assertEquals(samples[SAMPLES * 3 / 4], stats.upperQuartileHours, samples[SAMPLES * 3 / 4] * 0.03)
+    }
+
+    // ===== Helpers =====
+
+    private fun empty() = StageEffortStats(orderType = "Blouse", stageName = ProductionStage.STAGE_STITCHING)
+
+    private fun observe(count: Int, next: () -> Double): StageEffortStats {
+        var stats = empty()
+        repeat(count) { stats = stats.withObservation(next()) }
+        return stats
+    }
+
+    private fun exponential(random: Random, mean: Double) = -mean * Math.log(1 - random.nextDouble())
+
+    private fun heights(stats: StageEffortStats) = with(stats) { doubleArrayOf(q0, q1, q2, q3, q4) }
+
+    private fun positions(stats: StageEffortStats) = with(stats) { intArrayOf(n0, n1, n2, n3, n4) }
+
+    private fun assertMarkersValid(stats: StageEffortStats) {
+        val q = heights(stats)
+        val n = positions(stats)
+        for (i in 0 until 4) {
+            assertTrue("q$i=${q[i]} > q${i + 1}=${q[i + 1]} after ${stats.count}", q[i] <= q[i + 1])
+            assertTrue("n$i=${n[i]} >= n${i + 1}=${n[i + 1]} after ${stats.count}", n[i] < n[i + 1])
+        }
+        assertEquals(1, n[0])
+        assertEquals(stats.count, n[4])
+    }
+
+    private companion object {
+        const val SAMPLES = 20_000
+        const val SEED = 7L
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.perfectfit.sync
+
+import com.example.perfectfit.models.Order
+import com.example.perfectfit.network.ApiOrder
+import com.google.gson.Gson
+import com.google.gson.JsonObject
+import com.google.gson.JsonParser
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Test
+import java.io.File
+
+/**
+ * Order mapping against the server's wire format.
+ *
+ * The fixtures are shared with the backend tests (backend/tests/fixtures),
+ * which check that formatOrder produces exactly these documents:
+ * - order-schema-v2.json: an order written with payments
+ * - order-schema-v1.json: an order stored before payments were synced,
+ *   sent with null payment fields
+ */
+class OrderMapperTest {
+
+    private val gson = Gson()
+
+    /** Local copy with payments the server may not know about */
+    private val localOrder = Order(
+        id = 7,
+        customerId = 12,
+        customerName = "Asha Patil",
+        orderDate = "20/05/2025",
+        orderType = "Kurti and Pant",
+        estimatedDeliveryDate = "03/06/2025",
+        instructions = "",
+        amount = 2400.0,
+        status = Order.STATUS_PENDING,
+        advancePayment = 1000.0,
+        balancePayment = 400.0,
+        paymentStatus = Order.PAYMENT_PARTIAL,
+        paymentDate = "21/05/2025",
+        serverId = "665f1c2e8a1b2c3d4e5f6a7c",
+        lastModified = 1748800000000,
+        version = "0001748800000000-00000-0b7e2a9c4d1f3e58",
+        syncStatus = Order.SYNC_SYNCED
+    )
+
+    // ===== Schema 2 =====
+
+    @Test
+    fun schemaV2OrderCarriesPayments() {
+        val api = readOrder("order-schema-v2.json")
+        val order = api.toRoomModel()
+
+        assertEquals(500.0, order.advancePayment, 0.0)
+        assertEquals(1300.0, order.balancePayment, 0.0)
+        assertEquals(Order.PAYMENT_PAID, order.paymentStatus)
+        assertEquals("14/06/2025", order.paymentDate)
+        assertEquals("665f1c2e8a1b2c3d4e5f6a7b", order.serverId)
+        assertEquals(api.version, order.version)
+        assertEquals(Order.SYNC_SYNCED, order.syncStatus)
+    }
+
+    @Test
+    fun schemaV2PaymentsReplaceLocalOnes() {
+        val order = readOrder("order-schema-v2.json").toRoomModel(localOrder)
+
+        assertEquals(500.0, order.advancePayment, 0.0)
+        assertEquals(1300.0, order.balancePayment, 0.0)
+        assertEquals(Order.PAYMENT_PAID, order.paymentStatus)
+        assertEquals("14/06/2025", order.paymentDate)
+    }
+
+    @Test
+    fun schemaV2OrderRoundTripsToTheWireFormat() {
+        val json = readJson("order-schema-v2.json")
+        val pushed = JsonParser.parseString(gson.toJson(
+            gson.fromJson(json, ApiOrder::class.java).toRoomModel().toApiModel()
+        )).asJsonObject
+
+        for (field in WIRE_FIELDS) {
+            assertEquals(field, json.get(field), pushed.get(field))
+        }
+        assertEquals(ApiOrder.SCHEMA_VERSION, pushed.get("schemaVersion").asInt)
+    }
+
+    // ===== Schema 1 =====
+
+    @Test
+    fun schemaV1OrderKeepsLocalPayments() {
+        val api = readOrder("order-schema-v1.json")
+        assertEquals(1, api.schemaVersion)
+        assertNull(api.paymentStatus)
+
+        val order = api.toRoomModel(localOrder)
+
+        // Payments stay as this device has them
+        assertEquals(1000.0, order.advancePayment, 0.0)
+        assertEquals(400.0, order.balancePayment, 0.0)
+        assertEquals(Order.PAYMENT_PARTIAL, order.paymentStatus)
+        assertEquals("21/05/2025", order.paymentDate)
+
+        // Everything else comes from the server
+        assertEquals("Completed", order.status)
+        assertEquals(api.version, order.version)
+    }
+
+    @Test
+    fun schemaV1OrderWithoutLocalCopyIsUnpaid() {
+        val order = readOrder("order-schema-v1.json").toRoomModel()
+
+        assertEquals(0.0, order.advancePayment, 0.0)
+        assertEquals(0.0, order.balancePayment, 0.0)
+        assertEquals(Order.PAYMENT_UNPAID, order.paymentStatus)
+        assertNull(order.paymentDate)
+    }
+
+    @Test
+    fun schemaV1OrderIsPushedBackAsSchemaV2() {
+        val api = readOrder("order-schema-v1.json").toRoomModel(localOrder).toApiModel()
+
+        assertEquals(ApiOrder.SCHEMA_VERSION, api.schemaVersion)
+        assertEquals(1000.0, api.advancePayment!!, 0.0)
+        assertEquals(Order.PAYMENT_PARTIAL, api.paymentStatus)
+    }
+
+    // ===== Fixtures =====
+
+    private fun readOrder(name: String): ApiOrder = gson.fromJson(readJson(name), ApiOrder::class.java)
+
+    private fun readJson(name: String): JsonObject =
+        JsonParser.parseString(fixture(name).readText()).asJsonObject
+
+    /** Unit tests run from the app module; fall back to the repository root */
+    private fun fixture(name: String): File =
+        listOf("../$FIXTURE_DIR/$name", "$FIXTURE_DIR/$name").map(::File).first { it.exists() }
+
+    private companion object {
+        const val FIXTURE_DIR = "backend/tests/fixtures"
+
+        /** Fields the app sends back unchanged */
+        val WIRE_FIELDS = listOf(
+            "_id", "customerId", "customerName", "orderDate", "orderType", "estimatedDeliveryDate",
+            "instructions", "amount", "status", "advancePayment", "balancePayment",
+            "paymentStatus", "paymentDate", "version", "lastModified"
+        )
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.perfectfit.utils
+
+import org.junit.Assert.assertEquals
+import org.junit.Assume.assumeTrue
+import org.junit.Test
+import java.text.ParsePosition
+import java.text.SimpleDateFormat
+import java.util.Locale
+import java.util.Random
+import java.util.TimeZone
+
+/**
+ * Micro-benchmark of [DateCodec] against the SimpleDateFormat("dd/MM/yyyy")
+ * code it replaced, on a mix of dates shaped like the app's data.
+ *
+ * The mix:
+ * - Delivery and payment dates, clustered within a few months of today,
+ *   so many orders share a date
+ * - Birth dates spread over decades, mostly distinct
+ * - Some 1-digit day/month entries and a few empty or malformed values
+ *
+ * The baseline creates a SimpleDateFormat per call, as the old call sites
+ * did. Both sides parse every string and format every epoch day; results
+ * must agree. Timings are printed, not asserted, so the test can't flake
+ * on a busy machine. Correctness is covered by [DateCodecTest]; this only
+ * runs on request, with the benchmark property set:
+ * ```
+ * ./gradlew :app:testDebugUnitTest -Pbenchmark --tests "*DateCodecBenchmark*" -i
+ * ```
+ */
+class DateCodecBenchmark {
+
+    private val utc = TimeZone.getTimeZone("UTC")
+
+    @Test
+    fun parseAndFormatAgainstSimpleDateFormat() {
+        assumeTrue("benchmarks run with -Pbenchmark", System.getProperty("benchmark") == "true")
+
+        val texts = realisticMix(SAMPLE_SIZE)
+        val epochDays = texts.map { DateCodec.parseEpochDay(it) }.filter { it != DateCodec.INVALID }.toIntArray()
+
+        // Same answers before timing anything
+        texts.forEach { assertEquals(it, parseWithSimpleDateFormat(it), DateCodec.parseEpochDay(it)) }
+        epochDays.forEach { assertEquals(formatWithSimpleDateFormat(it), DateCodec.format(it)) }
+
+        val codecParse = measure { texts.forEach { blackhole += DateCodec.parseEpochDay(it) } }
+        val sdfParse = measure { texts.forEach { blackhole += parseWithSimpleDateFormat(it) } }
+        val codecFormat = measure { epochDays.forEach { blackhole += DateCodec.format(it).length } }
+        val sdfFormat = measure { epochDays.forEach { blackhole += formatWithSimpleDateFormat(it).length } }
+
+        println("DateCodec benchmark, ${texts.size} dates per round (best of $ROUNDS rounds):")
+        println(report("parse", codecParse, sdfParse, texts.size))
+        println(report("format", codecFormat, sdfFormat, epochDays.size))
+    }
+
+    // ===== Baseline =====
+
+    private fun parseWithSimpleDateFormat(text: String?): Int {
+        if (text.isNullOrEmpty()) return DateCodec.INVALID
+        val format = SimpleDateFormat(DateCodec.PATTERN, Locale.ROOT).apply {
+            timeZone = utc
+            isLenient = false
+        }
+        val position = ParsePosition(0)
+        val date = format.parse(text, position)
+        // Whole string, 4-digit year, as DateCodec requires
+        return if (date == null || position.index != text.length || text.substringAfterLast('/').length != 4) {
+            DateCodec.INVALID
+        } else {
+            Math.floorDiv(date.time, MILLIS_PER_DAY).toInt()
+        }
+    }
+
+    private fun formatWithSimpleDateFormat(epochDay: Int): String {
+        val format = SimpleDateFormat(DateCodec.PATTERN, Locale.ROOT).apply { timeZone = utc }
+        return format.format(java.util.Date(epochDay * MILLIS_PER_DAY))
+    }
+
+    // ===== Harness =====
+
+    /** Sink for results, so the JIT can't drop the measured work */
+    private var blackhole = 0L
+
+    /**
+     * Best time of [ROUNDS] rounds after [WARMUP_ROUNDS] warm-up rounds.
+     */
+    private inline fun measure(block: () -> Unit): Long {
+        repeat(WARMUP_ROUNDS) { block() }
+        var best = Long.MAX_VALUE
+        repeat(ROUNDS) {
+            val start = System.nanoTime()
+            block()
+            best = minOf(best, System.nanoTime() - start)
+        }
+        return best
+    }
+
+    private fun report(operation: String, codecNanos: Long, sdfNanos: Long, count: Int): String {
+        return String.format(
+            Locale.ROOT,
+            "  %-6s DateCodec %7.1f ns/op   SimpleDateFormat %7.1f ns/op   %.1fx",
+            operation,
+            codecNanos.toDouble() / count,
+            sdfNanos.toDouble() / count,
+            sdfNanos.toDouble() / codecNanos
+        )
+    }
+
+    private fun realisticMix(size: Int): List<String?> {
+        val random = Random(SEED)
+        val today = DateCodec.parseEpochDay("15/06/2025")
+        return List(size) {
+            val roll = random.nextInt(100)
+            when {
+                // Delivery/payment dates: a couple of hundred distinct days around today
+                roll < 70 -> DateCodec.format(today - 60 + random.nextInt(200))
+                // Birth dates: 1950-2010, rarely repeated
+                roll < 90 -> DateCodec.format(DateCodec.epochDayOf(1950, 1, 1) + random.nextInt(60 * 365))
+                // Hand-typed 1-digit day and month
+                roll < 97 -> {
+                    val ymd = DateCodec.toYearMonthDay(today + random.nextInt(90))
+                    "${DateCodec.dayOf(ymd)}/${DateCodec.monthOf(ymd)}/${DateCodec.yearOf(ymd)}"
+                }
+                // Missing or bad input
+                roll < 99 -> ""
+                else -> "31/02/2025"
+            }
+        }
+    }
+
+    private companion object {
+        const val SAMPLE_SIZE = 20_000
+        const val WARMUP_ROUNDS = 5
+        const val ROUNDS = 10
+        const val SEED = 42L
+        const val MILLIS_PER_DAY = 24L * 60 * 60 * 1000
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.perfectfit.utils
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.text.ParsePosition
+import java.text.SimpleDateFormat
+import java.util.Calendar
+import java.util.Locale
+import java.util.TimeZone
+
+/**
+ * Correctness tests for [DateCodec] parsing, formatting and calendar
+ * arithmetic, checked against known dates and against a strict
+ * SimpleDateFormat.
+ */
+class DateCodecTest {
+
+    // ===== Parsing =====
+
+    @Test
+    fun parsesKnownDates() {
+        assertEquals(0, DateCodec.parseEpochDay("01/01/1970"))
+        assertEquals(-1, DateCodec.parseEpochDay("31/12/1969"))
+        assertEquals(19787, DateCodec.parseEpochDay("05/03/2024"))
+        assertEquals(10957, DateCodec.parseEpochDay("01/01/2000"))
+    }
+
+    @Test
+    fun acceptsOneDigitDayAndMonth() {
+        val expected = DateCodec.parseEpochDay("05/03/2024")
+        assertEquals(expected, DateCodec.parseEpochDay("5/3/2024"))
+        assertEquals(expected, DateCodec.parseEpochDay("5/03/2024"))
+        assertEquals(expected, DateCodec.parseEpochDay("05/3/2024"))
+    }
+
+    @Test
+    fun handlesLeapYears() {
+        // Divisible by 4
+        assertTrue(DateCodec.isValid("29/02/2024"))
+        assertEquals(DateCodec.parseEpochDay("28/02/2024") + 1, DateCodec.parseEpochDay("29/02/2024"))
+        assertEquals(DateCodec.parseEpochDay("29/02/2024") + 1, DateCodec.parseEpochDay("01/03/2024"))
+
+        // Divisible by 400 is a leap year, by 100 only is not
+        assertTrue(DateCodec.isValid("29/02/2000"))
+        assertFalse(DateCodec.isValid("29/02/1900"))
+        assertFalse(DateCodec.isValid("29/02/2100"))
+
+        // Common year
+        assertFalse(DateCodec.isValid("29/02/2023"))
+        assertEquals(DateCodec.parseEpochDay("28/02/2023") + 1, DateCodec.parseEpochDay("01/03/2023"))
+    }
+
+    @Test
+    fun rejectsImpossibleDates() {
+        assertEquals(DateCodec.INVALID, DateCodec.parseEpochDay("31/02/2024"))
+        assertEquals(DateCodec.INVALID, DateCodec.parseEpochDay("30/02/2024"))
+        assertEquals(DateCodec.INVALID, DateCodec.parseEpochDay("31/04/2024"))
+        assertEquals(DateCodec.INVALID, DateCodec.parseEpochDay("00/01/2024"))
+        assertEquals(DateCodec.INVALID, DateCodec.parseEpochDay("32/01/2024"))
+        assertEquals(DateCodec.INVALID, DateCodec.parseEpochDay("15/00/2024"))
+        assertEquals(DateCodec.INVALID, DateCodec.parseEpochDay("15/13/2024"))
+    }
+
+    @Test
+    fun rejectsMalformedText() {
+        listOf(
+            null, "", "2024-03-05", "05/03/24", "05/03/20245", "005/03/2024",
+            "05/003/2024", "05-03-2024", "05/03/2024 ", " 05/03/2024", "/03/2024",
+            "05//2024", "05/03/", "ab/cd/efgh", "05/03"
+        ).forEach { text ->
+            assertEquals("\"$text\"", DateCodec.INVALID, DateCodec.parseEpochDay(text))
+        }
+    }
+
+    @Test
+    fun cachedResultsMatchFirstParse() {
+        val first = DateCodec.parseEpochDay("17/08/2025")
+        repeat(3) { assertEquals(first, DateCodec.parseEpochDay("17/08/2025")) }
+        assertEquals(DateCodec.INVALID, DateCodec.parseEpochDay("31/02/2025"))
+        assertEquals(DateCodec.INVALID, DateCodec.parseEpochDay("31/02/2025"))
+    }
+
+    @Test
+    fun agreesWithStrictSimpleDateFormat() {
+        val reference = SimpleDateFormat(DateCodec.PATTERN, Locale.ROOT).apply {
+            timeZone = TimeZone.getTimeZone("UTC")
+            isLenient = false
+        }
+        val millisPerDay = 24L * 60 * 60 * 1000
+
+        // Every day from 1900 to 2100
+        for (epochDay in DateCodec.parseEpochDay("01/01/1900")..DateCodec.parseEpochDay("31/12/2100")) {
+            val text = reference.format(java.util.Date(epochDay * millisPerDay))
+            assertEquals(text, epochDay, DateCodec.parseEpochDay(text))
+            assertEquals(text, DateCodec.format(epochDay))
+        }
+    }
+
+    @Test
+    fun agreesWithStrictSimpleDateFormatOnHandTypedInput() {
+        val start = DateCodec.parseEpochDay("01/01/2024")
+        for (epochDay in start until start + 3 * 366) {
+            val ymd = DateCodec.toYearMonthDay(epochDay)
+            val text = "${DateCodec.dayOf(ymd)}/${DateCodec.monthOf(ymd)}/${DateCodec.yearOf(ymd)}"
+            assertEquals(text, parseStrictly(text), DateCodec.parseEpochDay(text))
+        }
+        listOf("", "31/02/2025", "29/02/2025", "31/11/2025", "15/6/25", "15/06/2025x").forEach { text ->
+            assertEquals("\"$text\"", parseStrictly(text), DateCodec.parseEpochDay(text))
+        }
+    }
+
+    // ===== Formatting =====
+
+    @Test
+    fun formatsWithZeroPadding() {
+        assertEquals("01/01/1970", DateCodec.format(0))
+        assertEquals("05/03/2024", DateCodec.format(19787))
+        assertEquals("31/12/1969", DateCodec.format(-1))
+    }
+
+    @Test
+    fun formatsCalendarLocalDate() {
+        val calendar = Calendar.getInstance().apply {
+            clear()
+            set(2024, Calendar.FEBRUARY, 29, 23, 30)
+        }
+        assertEquals("29/02/2024", DateCodec.format(calendar))
+    }
+
+    // ===== Calendar Arithmetic =====
+
+    @Test
+    fun yearMonthDayRoundTrips() {
+        // yyyyMMdd packing covers years 1-9999
+        for (epochDay in DateCodec.epochDayOf(1, 1, 1)..DateCodec.epochDayOf(9999, 12, 31) step 7) {
+            val ymd = DateCodec.toYearMonthDay(epochDay)
+            assertEquals(epochDay, DateCodec.epochDayOf(DateCodec.yearOf(ymd), DateCodec.monthOf(ymd), DateCodec.dayOf(ymd)))
+        }
+        assertEquals(20240229, DateCodec.toYearMonthDay(DateCodec.epochDayOf(2024, 2, 29)))
+        assertEquals(19700101, DateCodec.toYearMonthDay(0))
+        assertEquals(19691231, DateCodec.toYearMonthDay(-1))
+    }
+
+    @Test
+    fun epochDayOfRollsOverLikeLenientCalendar() {
+        assertEquals(DateCodec.epochDayOf(2023, 3, 1), DateCodec.epochDayOf(2023, 2, 29))
+        assertEquals(DateCodec.epochDayOf(2024, 1, 1), DateCodec.epochDayOf(2023, 12, 32))
+    }
+
+    @Test
+    fun monthDayAndAnniversaries() {
+        assertEquals(305, DateCodec.monthDayOf(DateCodec.epochDayOf(2024, 3, 5)))
+
+        val birthday = DateCodec.epochDayOf(1990, 6, 15)
+        assertEquals(0, DateCodec.daysUntilAnniversary(birthday, DateCodec.epochDayOf(2024, 6, 15)))
+        assertEquals(1, DateCodec.daysUntilAnniversary(birthday, DateCodec.epochDayOf(2024, 6, 14)))
+        assertEquals(364, DateCodec.daysUntilAnniversary(birthday, DateCodec.epochDayOf(2024, 6, 16)))
+
+        // 29 Feb birthdays fall on 1 Mar in common years
+        val leapling = DateCodec.epochDayOf(2000, 2, 29)
+        assertEquals(1, DateCodec.daysUntilAnniversary(leapling, DateCodec.epochDayOf(2023, 2, 28)))
+    }
+
+    // ===== Reference =====
+
+    /**
+     * Parses with a strict SimpleDateFormat, as the code DateCodec replaced
+     * did, requiring the whole string and a 4-digit year like DateCodec.
+     */
+    private fun parseStrictly(text: String): Int {
+        if (text.isEmpty()) return DateCodec.INVALID
+        val format = SimpleDateFormat(DateCodec.PATTERN, Locale.ROOT).apply {
+            timeZone = TimeZone.getTimeZone("UTC")
+            isLenient = false
+        }
+        val position = ParsePosition(0)
+        val date = format.parse(text, position)
+        return if (date == null || position.index != text.length || text.substringAfterLast('/').length != 4) {
+            DateCodec.INVALID
+        } else {
+            Math.floorDiv(date.time, 24L * 60 * 60 * 1000).toInt()
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.perfectfit.utils
+
+import com.example.perfectfit.models.WorkloadConfig
+import org.junit.Assume.assumeTrue
+import org.junit.Test
+import java.util.Calendar
+import java.util.Locale
+import java.util.SplittableRandom
+
+/**
+ * Micro-benchmark of the delivery-confidence simulation: 10k runs over the
+ * queue from [DeliveryConfidenceEstimatorTest], which should finish in tens
+ * of milliseconds.
+ *
+ * Timings are printed, not asserted, so the test can't flake on a busy
+ * machine. Correctness is covered by [DeliveryConfidenceEstimatorTest]; this
+ * only runs on request, with the benchmark property set:
+ * ```
+ * ./gradlew :app:testDebugUnitTest -Pbenchmark --tests "*DeliveryConfidenceBenchmark*" -i
+ * ```
+ */
+class DeliveryConfidenceBenchmark {
+
+    @Test
+    fun simulateTenThousandRuns() {
+        assumeTrue("benchmarks run with -Pbenchmark", System.getProperty("benchmark") == "true")
+
+        val calendar = CapacityCalendar.standalone(WorkloadConfig())
+        val today = CapacityCalendar.epochDayOf(Calendar.getInstance())
+        val random = SplittableRandom(SEED)
+
+        println("DeliveryConfidence benchmark, ${DeliveryConfidenceEstimator.DEFAULT_RUNS} runs (best of $ROUNDS rounds):")
+        for (orders in ORDER_COUNTS) {
+            val queue = DeliveryConfidenceEstimatorTest.busyQueue(orders)
+            val nanos = measure {
+                val confidence = DeliveryConfidenceEstimator.simulate(
+                    queue, calendar, today, DeliveryConfidenceEstimator.DEFAULT_RUNS, random.split()
+                )
+                blackhole += confidence.p95Day
+            }
+            println(
+                String.format(
+                    Locale.ROOT,
+                    "  %3d open orders (%4d sampled stages)   %6.2f ms",
+                    orders,
+                    queue.slots.size,
+                    nanos / 1_000_000.0
+                )
+            )
+        }
+    }
+
+    // ===== Harness =====
+
+    /** Sink for results, so the JIT can't drop the measured work */
+    private var blackhole = 0L
+
+    /**
+     * Best time of [ROUNDS] rounds after [WARMUP_ROUNDS] warm-up rounds.
+     */
+    private inline fun measure(block: () -> Unit): Long {
+        repeat(WARMUP_ROUNDS) { block() }
+        var best = Long.MAX_VALUE
+        repeat(ROUNDS) {
+            val start = System.nanoTime()
+            block()
+            best = minOf(best, System.nanoTime() - start)
+        }
+        return best
+    }
+
+    private companion object {
+        val ORDER_COUNTS = intArrayOf(10, 30, 100)
+        const val WARMUP_ROUNDS = 5
+        const val ROUNDS = 10
+        const val SEED = 42L
+    }
+}
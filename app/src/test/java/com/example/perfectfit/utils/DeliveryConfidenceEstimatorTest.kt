@@ -0,0 +1,149 @@
+package com.example.perfectfit.utils
+
+import com.example.perfectfit.models.WorkloadConfig
+import com.example.perfectfit.utils.DeliveryConfidenceEstimator.DeliveryConfidence
+import com.example.perfectfit.utils.DeliveryConfidenceEstimator.Queue
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.Calendar
+import java.util.SplittableRandom
+
+/**
+ * Tests of the delivery-confidence Monte Carlo: percentile and probability
+ * math on a known histogram, and full simulations of a queue shaped like a
+ * busy shop's.
+ */
+class DeliveryConfidenceEstimatorTest {
+
+    private val calendar = CapacityCalendar.standalone(WorkloadConfig())
+    private val today = CapacityCalendar.epochDayOf(Calendar.getInstance())
+
+    // ===== Percentile Math =====
+
+    @Test
+    fun percentilesAndProbabilitiesFromHistogram() {
+        // 100 runs: 50 finish on day 1, 30 on day 2, 15 on day 3, 5 on day 4
+        val confidence = DeliveryConfidence(100, 100, intArrayOf(0, 50, 30, 15, 5))
+
+        assertEquals(101, confidence.p50Day)
+        assertEquals(102, confidence.p80Day)
+        assertEquals(103, confidence.p95Day)
+        assertEquals(104, confidence.percentileDay(1.0))
+
+        assertEquals(0.0, confidence.probabilityBy(99), 0.0)
+        assertEquals(0.0, confidence.probabilityBy(100), 0.0)
+        assertEquals(0.5, confidence.probabilityBy(101), 1e-9)
+        assertEquals(0.8, confidence.probabilityBy(102), 1e-9)
+        assertEquals(0.95, confidence.probabilityBy(103), 1e-9)
+        assertEquals(1.0, confidence.probabilityBy(104), 0.0)
+        assertEquals(1.0, confidence.probabilityBy(1_000), 0.0)
+    }
+
+    // ===== Simulation =====
+
+    @Test
+    fun percentilesOfSimulatedQueueAreOrdered() {
+        val confidence = simulate(busyQueue())
+
+        assertEquals(RUNS, confidence.runs)
+        assertTrue(today <= confidence.p50Day)
+        assertTrue(confidence.p50Day <= confidence.p80Day)
+        assertTrue(confidence.p80Day <= confidence.p95Day)
+
+        // Each percentile day is the first day reaching its share of runs
+        for ((p, day) in listOf(0.5 to confidence.p50Day, 0.8 to confidence.p80Day, 0.95 to confidence.p95Day)) {
+            assertTrue("P${(p * 100).toInt()} reached", confidence.probabilityBy(day) >= p)
+            assertTrue("P${(p * 100).toInt()} not reached a day earlier", confidence.probabilityBy(day - 1) < p)
+        }
+    }
+
+    @Test
+    fun probabilityByIsMonotonic() {
+        val confidence = simulate(busyQueue())
+
+        var previous = 0.0
+        for (day in today - 1..calendar.endEpochDay + 1) {
+            val probability = confidence.probabilityBy(day)
+            assertTrue("probability fell on day ${day - today}", probability >= previous)
+            assertTrue(probability in 0.0..1.0)
+            previous = probability
+        }
+        assertEquals(0.0, confidence.probabilityBy(today - 1), 0.0)
+        assertEquals(1.0, previous, 0.0)
+    }
+
+    @Test
+    fun finishDaysStayWithinShortestAndLongestQueue() {
+        val queue = busyQueue()
+        val confidence = simulate(queue)
+
+        // Every stage at its minimum, or at its maximum
+        val shortest = queue.fixedHours + queue.slots.sumOf { queue.quantiles[it * TABLE_SIZE] }
+        val longest = queue.fixedHours + queue.slots.sumOf { queue.quantiles[it * TABLE_SIZE + TABLE_SIZE - 1] }
+        val earliest = calendar.firstDayWithHours(shortest, today, realistic = true)
+        val latest = calendar.firstDayWithHours(longest, today, realistic = true)
+
+        assertEquals(0.0, confidence.probabilityBy(earliest - 1), 0.0)
+        assertEquals(1.0, confidence.probabilityBy(latest), 0.0)
+        assertTrue(confidence.p50Day in earliest..latest)
+    }
+
+    @Test
+    fun fixedHoursOnlyFinishOnOneDay() {
+        // Nothing learned yet: every stage is a single fixed duration
+        val confidence = simulate(Queue(DoubleArray(0), IntArray(0), 30.0))
+        val finishDay = calendar.firstDayWithHours(30.0, today, realistic = true)
+
+        assertEquals(finishDay, confidence.p50Day)
+        assertEquals(finishDay, confidence.p80Day)
+        assertEquals(finishDay, confidence.p95Day)
+        assertEquals(0.0, confidence.probabilityBy(finishDay - 1), 0.0)
+        assertEquals(1.0, confidence.probabilityBy(finishDay), 0.0)
+    }
+
+    @Test
+    fun sameSeedGivesSameDistribution() {
+        val queue = busyQueue()
+        val first = simulate(queue)
+        val second = simulate(queue)
+
+        for (day in today..calendar.endEpochDay) {
+            assertEquals(first.probabilityBy(day), second.probabilityBy(day), 0.0)
+        }
+    }
+
+    // ===== Helpers =====
+
+    private fun simulate(queue: Queue): DeliveryConfidence =
+        DeliveryConfidenceEstimator.simulate(queue, calendar, today, RUNS, SplittableRandom(SEED))
+
+    companion object {
+        private const val RUNS = 10_000
+        private const val SEED = 42L
+        private val TABLE_SIZE = EffortModel.QUANTILE_PROBABILITIES.size
+
+        /**
+         * Queue of a busy shop: [orders] open orders with three learned work
+         * stages each (three order types), plus some stages with fixed hours.
+         * Shared with [DeliveryConfidenceBenchmark].
+         */
+        internal fun busyQueue(orders: Int = 30): Queue {
+            val tables = listOf(
+                doubleArrayOf(0.5, 1.0, 1.5, 2.0, 4.0),   // Cutting
+                doubleArrayOf(2.0, 3.0, 4.0, 5.5, 10.0),  // Stitching
+                doubleArrayOf(0.5, 0.8, 1.0, 1.5, 3.0)    // Finishing
+            )
+            val types = 3
+            val quantiles = DoubleArray(types * tables.size * TABLE_SIZE)
+            for (type in 0 until types) {
+                tables.forEachIndexed { stage, table ->
+                    val scaled = DoubleArray(TABLE_SIZE) { table[it] * (1 + 0.25 * type) }
+                    scaled.copyInto(quantiles, (type * tables.size + stage) * TABLE_SIZE)
+                }
+            }
+            val slots = IntArray(orders * tables.size) { (it / tables.size % types) * tables.size + it % tables.size }
+            return Queue(quantiles, slots, fixedHours = 6.0)
+        }
+    }
+}
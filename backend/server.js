@@ -2,6 +2,12 @@ const express = require('express');
 const { MongoClient, ObjectId } = require('mongodb');
 const cors = require('cors');
 const bodyParser = require('body-parser');
+const crypto = require('crypto');
+const fs = require('fs');
+const path = require('path');
+const zlib = require('zlib');
+const { once } = require('events');
+const { pipeline } = require('stream/promises');
 require('dotenv').config();
 
 const app = express();
@@ -19,10 +25,41 @@ app.use(bodyParser.urlencoded({ extended: true }));
 const MONGODB_URI = process.env.MONGODB_URI || 'mongodb://localhost:27017';
 const DB_NAME = 'perfectfit_db';
 
+// Image blobs are stored on local disk, addressed by their SHA-256 hash.
+// Partial uploads live next to them as <hash>.part until complete.
+const UPLOADS_DIR = process.env.UPLOADS_DIR || path.join(__dirname, 'uploads');
+const MAX_CHUNK_SIZE = '2mb';
+
+// Largest page of stage events a client can pull at once
+const MAX_STAGE_EVENT_PAGE = 500;
+
+// Bootstrap snapshots: gzipped NDJSON of all records, rebuilt when older than
+// SNAPSHOT_MAX_AGE_MS. Bump SNAPSHOT_FORMAT when the line layout changes.
+const SNAPSHOT_DIR = path.resolve(UPLOADS_DIR, 'snapshots');
+const SNAPSHOT_FORMAT = 1;
+const SNAPSHOT_MAX_AGE_MS = 10 * 60 * 1000;
+
+// Record list pages (/api/<entity>/page)
+const DEFAULT_PAGE_SIZE = 100;
+const MAX_PAGE_SIZE = 500;
+
 let db;
 let customersCollection;
 let ordersCollection;
 let measurementsCollection;
+let orderImagesCollection;
+let stageEventsCollection;
+
+// Sync sequence: every customer, order and measurement write takes the next
+// number, and clients pull "changed after sequence N" instead of a wall-clock
+// range. Numbers are handed out in this process; blocks whose write hasn't
+// finished are tracked so the cursor given to clients never passes them.
+let highestSyncSeq = 0;
+const pendingSyncSeqs = new Set();
+
+// Latest snapshot metadata, and the build in progress (shared by concurrent requests)
+let currentSnapshot = null;
+let snapshotBuild = null;
 
 // Connect to MongoDB
 async function connectToDatabase() {
@@ -33,13 +70,11 @@ async function connectToDatabase() {
     });
     
     console.log('✅ Connected to MongoDB');
-    db = client.db(DB_NAME);
-    customersCollection = db.collection('customers');
-    ordersCollection = db.collection('orders');
-    measurementsCollection = db.collection('measurements');
+    useDatabase(client.db(DB_NAME));
     
     // Create indexes for better performance
     await customersCollection.createIndex({ lastModified: -1 });
+    await customersCollection.createIndex({ syncSeq: 1 }); // Delta sync cursor
     await customersCollection.createIndex({ mobile: 1 }); // Index for faster queries
     // Composite unique key: firstName + lastName + mobile
     await customersCollection.createIndex(
@@ -47,9 +82,19 @@ async function connectToDatabase() {
       { unique: true }
     );
     await ordersCollection.createIndex({ lastModified: -1 });
+    await ordersCollection.createIndex({ syncSeq: 1 });
     await ordersCollection.createIndex({ customerId: 1 });
     await measurementsCollection.createIndex({ lastModified: -1 });
+    await measurementsCollection.createIndex({ syncSeq: 1 });
     await measurementsCollection.createIndex({ customerId: 1 });
+    await orderImagesCollection.createIndex({ orderServerId: 1, contentHash: 1 }, { unique: true });
+    await stageEventsCollection.createIndex({ eventId: 1 }, { unique: true }); // Idempotent pushes
+    await stageEventsCollection.createIndex({ receivedAt: 1, eventId: 1 }); // Pull cursor
+    
+    await fs.promises.mkdir(UPLOADS_DIR, { recursive: true });
+    await fs.promises.mkdir(SNAPSHOT_DIR, { recursive: true });
+    
+    await loadSyncSeq();
     
     console.log('✅ Database indexes created');
   } catch (error) {
@@ -58,6 +103,16 @@ async function connectToDatabase() {
   }
 }
 
+// Points the handlers at a database's collections (a real one, or a fake in tests)
+function useDatabase(database) {
+  db = database;
+  customersCollection = db.collection('customers');
+  ordersCollection = db.collection('orders');
+  measurementsCollection = db.collection('measurements');
+  orderImagesCollection = db.collection('order_images');
+  stageEventsCollection = db.collection('stage_events');
+}
+
 // ============= HEALTH CHECK =============
 app.get('/api/health', (req, res) => {
   res.json({
@@ -68,70 +123,23 @@ app.get('/api/health', (req, res) => {
 });
 
 // ============= BATCH SYNC ENDPOINT =============
+// Each entity type is written with one bulkWrite and read back with one
+// $in query, so a batch costs a few round trips however many records it has.
+// Changes are read after the client's lastSyncSeq; clients that predate
+// sequence numbers send only lastSyncTimestamp. serverSeq is the next cursor.
 app.post('/api/sync/batch', async (req, res) => {
   try {
-    const { customers = [], orders = [], measurements = [], lastSyncTimestamp = 0 } = req.body;
+    const { customers = [], orders = [], measurements = [] } = req.body;
     const serverTimestamp = Date.now();
+    const serverSeq = stableSyncSeq();
     
     console.log(`Batch sync request: ${customers.length} customers, ${orders.length} orders, ${measurements.length} measurements`);
     
-    // Track processed IDs to avoid duplicates
-    const processedCustomerIds = new Set();
-    const processedOrderIds = new Set();
-    const processedMeasurementIds = new Set();
-    
-    // Process customers
-    const processedCustomers = [];
-    for (const customer of customers) {
-      const result = await upsertCustomer(customer);
-      processedCustomers.push(result);
-      processedCustomerIds.add(result._id.toString());
-    }
-    
-    // Get new/updated customers from server (excluding just processed ones)
-    const updatedCustomers = await customersCollection
-      .find({ 
-        lastModified: { $gt: lastSyncTimestamp },
-        _id: { $nin: Array.from(processedCustomerIds).map(id => new ObjectId(id)) }
-      })
-      .toArray();
-    
-    // Process orders
-    const processedOrders = [];
-    for (const order of orders) {
-      const result = await upsertOrder(order);
-      processedOrders.push(result);
-      processedOrderIds.add(result._id.toString());
-    }
-    
-    // Get new/updated orders from server (excluding just processed ones)
-    const updatedOrders = await ordersCollection
-      .find({ 
-        lastModified: { $gt: lastSyncTimestamp },
-        _id: { $nin: Array.from(processedOrderIds).map(id => new ObjectId(id)) }
-      })
-      .toArray();
-    
-    // Process measurements
-    const processedMeasurements = [];
-    for (const measurement of measurements) {
-      const result = await upsertMeasurement(measurement);
-      processedMeasurements.push(result);
-      processedMeasurementIds.add(result._id.toString());
-    }
-    
-    // Get new/updated measurements from server (excluding just processed ones)
-    const updatedMeasurements = await measurementsCollection
-      .find({ 
-        lastModified: { $gt: lastSyncTimestamp },
-        _id: { $nin: Array.from(processedMeasurementIds).map(id => new ObjectId(id)) }
-      })
-      .toArray();
-    
-    // Merge processed and updated data (no duplicates now)
-    const allCustomers = [...processedCustomers, ...updatedCustomers];
-    const allOrders = [...processedOrders, ...updatedOrders];
-    const allMeasurements = [...processedMeasurements, ...updatedMeasurements];
+    const [allCustomers, allOrders, allMeasurements] = await Promise.all([
+      syncCollection(customersCollection, customers, req.body, serverTimestamp),
+      syncCollection(ordersCollection, orders, req.body, serverTimestamp),
+      syncCollection(measurementsCollection, measurements, req.body, serverTimestamp)
+    ]);
     
     console.log(`Sync response: ${allCustomers.length} customers, ${allOrders.length} orders, ${allMeasurements.length} measurements`);
     
@@ -140,7 +148,8 @@ app.post('/api/sync/batch', async (req, res) => {
       customers: allCustomers.map(formatCustomer),
       orders: allOrders.map(formatOrder),
       measurements: allMeasurements.map(formatMeasurement),
-      serverTimestamp
+      serverTimestamp,
+      serverSeq
     });
     
   } catch (error) {
@@ -154,6 +163,15 @@ app.post('/api/sync/batch', async (req, res) => {
 });
 
 // ============= CUSTOMER ENDPOINTS =============
+// Keyset-paged list: ?after=<last _id>&limit=&since=&fields=a,b
+app.get('/api/customers/page', async (req, res) => {
+  try {
+    res.json(await findPage(customersCollection, req.query, formatCustomer));
+  } catch (error) {
+    res.status(error.status || 500).json({ error: error.message });
+  }
+});
+
 app.get('/api/customers', async (req, res) => {
   try {
     const customers = await customersCollection.find({}).toArray();
@@ -177,8 +195,7 @@ app.get('/api/customers/modified', async (req, res) => {
 
 app.post('/api/customers', async (req, res) => {
   try {
-    const customer = req.body;
-    const result = await upsertCustomer(customer);
+    const result = await upsertRecord(customersCollection, req.body);
     res.json(formatCustomer(result));
   } catch (error) {
     res.status(500).json({ error: error.message });
@@ -187,30 +204,17 @@ app.post('/api/customers', async (req, res) => {
 
 app.post('/api/customers/batch', async (req, res) => {
   try {
-    const { data, lastSyncTimestamp = 0 } = req.body;
-    const processed = [];
-    const processedIds = new Set();
-    
-    for (const customer of data) {
-      const result = await upsertCustomer(customer);
-      processed.push(result);
-      processedIds.add(result._id.toString());
-    }
-    
-    // Exclude just processed records to avoid duplicates
-    const updated = await customersCollection
-      .find({ 
-        lastModified: { $gt: lastSyncTimestamp },
-        _id: { $nin: Array.from(processedIds).map(id => new ObjectId(id)) }
-      })
-      .toArray();
+    const { data = [] } = req.body;
+    const serverTimestamp = Date.now();
+    const serverSeq = stableSyncSeq();
     
-    const all = [...processed, ...updated];
+    const all = await syncCollection(customersCollection, data, req.body, serverTimestamp);
     
     res.json({
       success: true,
       data: all.map(formatCustomer),
-      serverTimestamp: Date.now()
+      serverTimestamp,
+      serverSeq
     });
   } catch (error) {
     res.status(500).json({
@@ -222,6 +226,15 @@ app.post('/api/customers/batch', async (req, res) => {
 });
 
 // ============= ORDER ENDPOINTS =============
+// Keyset-paged list: ?after=<last _id>&limit=&since=&fields=a,b
+app.get('/api/orders/page', async (req, res) => {
+  try {
+    res.json(await findPage(ordersCollection, req.query, formatOrder));
+  } catch (error) {
+    res.status(error.status || 500).json({ error: error.message });
+  }
+});
+
 app.get('/api/orders', async (req, res) => {
   try {
     const orders = await ordersCollection.find({}).toArray();
@@ -245,8 +258,7 @@ app.get('/api/orders/modified', async (req, res) => {
 
 app.post('/api/orders', async (req, res) => {
   try {
-    const order = req.body;
-    const result = await upsertOrder(order);
+    const result = await upsertRecord(ordersCollection, req.body);
     res.json(formatOrder(result));
   } catch (error) {
     res.status(500).json({ error: error.message });
@@ -255,30 +267,17 @@ app.post('/api/orders', async (req, res) => {
 
 app.post('/api/orders/batch', async (req, res) => {
   try {
-    const { data, lastSyncTimestamp = 0 } = req.body;
-    const processed = [];
-    const processedIds = new Set();
-    
-    for (const order of data) {
-      const result = await upsertOrder(order);
-      processed.push(result);
-      processedIds.add(result._id.toString());
-    }
-    
-    // Exclude just processed records to avoid duplicates
-    const updated = await ordersCollection
-      .find({ 
-        lastModified: { $gt: lastSyncTimestamp },
-        _id: { $nin: Array.from(processedIds).map(id => new ObjectId(id)) }
-      })
-      .toArray();
+    const { data = [] } = req.body;
+    const serverTimestamp = Date.now();
+    const serverSeq = stableSyncSeq();
     
-    const all = [...processed, ...updated];
+    const all = await syncCollection(ordersCollection, data, req.body, serverTimestamp);
     
     res.json({
       success: true,
       data: all.map(formatOrder),
-      serverTimestamp: Date.now()
+      serverTimestamp,
+      serverSeq
     });
   } catch (error) {
     res.status(500).json({
@@ -290,6 +289,15 @@ app.post('/api/orders/batch', async (req, res) => {
 });
 
 // ============= MEASUREMENT ENDPOINTS =============
+// Keyset-paged list: ?after=<last _id>&limit=&since=&fields=a,b
+app.get('/api/measurements/page', async (req, res) => {
+  try {
+    res.json(await findPage(measurementsCollection, req.query, formatMeasurement));
+  } catch (error) {
+    res.status(error.status || 500).json({ error: error.message });
+  }
+});
+
 app.get('/api/measurements', async (req, res) => {
   try {
     const measurements = await measurementsCollection.find({}).toArray();
@@ -301,32 +309,66 @@ app.get('/api/measurements', async (req, res) => {
 
 app.post('/api/measurements/batch', async (req, res) => {
   try {
-    const { data, lastSyncTimestamp = 0 } = req.body;
-    const processed = [];
-    const processedIds = new Set();
-    
-    for (const measurement of data) {
-      const result = await upsertMeasurement(measurement);
-      processed.push(result);
-      processedIds.add(result._id.toString());
-    }
-    
-    // Exclude just processed records to avoid duplicates
-    const updated = await measurementsCollection
-      .find({ 
-        lastModified: { $gt: lastSyncTimestamp },
-        _id: { $nin: Array.from(processedIds).map(id => new ObjectId(id)) }
-      })
-      .toArray();
+    const { data = [] } = req.body;
+    const serverTimestamp = Date.now();
+    const serverSeq = stableSyncSeq();
     
-    const all = [...processed, ...updated];
+    const all = await syncCollection(measurementsCollection, data, req.body, serverTimestamp);
     
     res.json({
       success: true,
       data: all.map(formatMeasurement),
+      serverTimestamp,
+      serverSeq
+    });
+  } catch (error) {
+    res.status(500).json({
+      success: false,
+      message: error.message,
+      serverTimestamp: Date.now()
+    });
+  }
+});
+
+// ============= PRODUCTION ENDPOINTS =============
+// Stage transitions are an append-only log keyed by a client-generated
+// eventId, so a batch that is retried or sent twice is stored once. Each
+// device rebuilds an order's current stage from its newest event.
+app.post('/api/stage-events/batch', async (req, res) => {
+  try {
+    const { events = [] } = req.body;
+    const receivedAt = Date.now();
+    
+    const docs = events
+      .filter(isValidStageEvent)
+      .map(event => ({
+        eventId: event.eventId,
+        orderServerId: event.orderServerId,
+        fromStage: event.fromStage || null,
+        toStage: event.toStage,
+        occurredAt: event.occurredAt,
+        fromStageDurationMs: event.fromStageDurationMs ?? null,
+        receivedAt
+      }));
+    
+    if (docs.length > 0) {
+      try {
+        await stageEventsCollection.insertMany(docs, { ordered: false });
+      } catch (error) {
+        // Events already stored are skipped; anything else is a real failure
+        if (!isDuplicateKeyOnly(error)) throw error;
+      }
+    }
+    
+    console.log(`Stage event sync: ${docs.length} of ${events.length} events accepted`);
+    
+    res.json({
+      success: true,
+      accepted: docs.length,
       serverTimestamp: Date.now()
     });
   } catch (error) {
+    console.error('Stage event sync error:', error);
     res.status(500).json({
       success: false,
       message: error.message,
@@ -335,54 +377,492 @@ app.post('/api/measurements/batch', async (req, res) => {
   }
 });
 
-// ============= HELPER FUNCTIONS =============
-async function upsertCustomer(customer) {
-  const { _id, localId, ...customerData } = customer;
-  customerData.lastModified = Date.now();
+// Events after a (receivedAt, eventId) cursor, oldest first
+app.get('/api/stage-events', async (req, res) => {
+  try {
+    const afterTs = parseInt(req.query.afterTs) || 0;
+    const afterId = req.query.afterId || '';
+    const limit = Math.min(parseInt(req.query.limit) || MAX_STAGE_EVENT_PAGE, MAX_STAGE_EVENT_PAGE);
+    
+    // One extra row tells whether another page follows
+    const events = await stageEventsCollection
+      .find({
+        $or: [
+          { receivedAt: { $gt: afterTs } },
+          { receivedAt: afterTs, eventId: { $gt: afterId } }
+        ]
+      })
+      .sort({ receivedAt: 1, eventId: 1 })
+      .limit(limit + 1)
+      .toArray();
+    
+    res.json({
+      events: events.slice(0, limit).map(formatStageEvent),
+      hasMore: events.length > limit
+    });
+  } catch (error) {
+    res.status(500).json({ error: error.message });
+  }
+});
+
+// ============= SNAPSHOT ENDPOINTS =============
+// A new device downloads one snapshot file instead of syncing record by
+// record, then catches up with a normal sync from its serverTimestamp.
+// The file is gzipped NDJSON: a header line, then customers, orders and
+// measurements one per line, each sorted by _id. Downloads honour HTTP Range
+// requests, so an interrupted transfer resumes where it stopped.
+app.get('/api/snapshot', async (req, res) => {
+  try {
+    res.json(await getSnapshot());
+  } catch (error) {
+    console.error('Snapshot error:', error);
+    res.status(500).json({ error: error.message });
+  }
+});
+
+app.get('/api/snapshot/:id', (req, res) => {
+  const { id } = req.params;
+  if (!/^[a-z0-9-]+$/.test(id)) {
+    return res.status(400).json({ error: 'Invalid snapshot id' });
+  }
   
-  if (_id) {
-    // Update existing
-    await customersCollection.updateOne(
-      { _id: new ObjectId(_id) },
-      { $set: customerData }
+  res.sendFile(snapshotPath(id), { headers: { 'Content-Type': 'application/gzip' } }, error => {
+    if (error && !res.headersSent) {
+      res.status(error.statusCode || 404).json({ error: 'Snapshot not found' });
+    }
+  });
+});
+
+// ============= IMAGE ENDPOINTS =============
+// Blobs are content-addressed: the client asks how much of a hash the server
+// has, uploads the rest in chunks from that offset, then links it to an order.
+app.get('/api/images/blobs/:hash', async (req, res) => {
+  try {
+    const { hash } = req.params;
+    if (!isValidHash(hash)) {
+      return res.status(400).json({ error: 'Invalid content hash' });
+    }
+    
+    res.json(await getBlobStatus(hash, parseInt(req.query.size) || 0));
+  } catch (error) {
+    res.status(500).json({ error: error.message });
+  }
+});
+
+app.put('/api/images/blobs/:hash', express.raw({ type: 'application/octet-stream', limit: MAX_CHUNK_SIZE }), async (req, res) => {
+  try {
+    const { hash } = req.params;
+    const offset = parseInt(req.query.offset);
+    const size = parseInt(req.query.size);
+    
+    if (!isValidHash(hash) || isNaN(offset) || isNaN(size) || !Buffer.isBuffer(req.body)) {
+      return res.status(400).json({ error: 'Invalid chunk upload' });
+    }
+    
+    const status = await getBlobStatus(hash, size);
+    if (status.complete) {
+      return res.json(status);
+    }
+    
+    // Chunks must be appended in order; tell the client where to resume
+    if (offset !== status.receivedBytes || offset + req.body.length > size) {
+      return res.status(409).json(status);
+    }
+    
+    const partPath = blobPath(hash) + '.part';
+    await fs.promises.appendFile(partPath, req.body);
+    const receivedBytes = offset + req.body.length;
+    
+    if (receivedBytes < size) {
+      return res.json({ hash, size, receivedBytes, complete: false });
+    }
+    
+    // Last chunk: only publish the blob if its bytes match the hash
+    if (await hashFile(partPath) !== hash) {
+      await fs.promises.unlink(partPath);
+      return res.status(422).json({ error: 'Content hash mismatch' });
+    }
+    
+    await fs.promises.rename(partPath, blobPath(hash));
+    res.json({ hash, size, receivedBytes, complete: true });
+  } catch (error) {
+    res.status(500).json({ error: error.message });
+  }
+});
+
+app.post('/api/images', async (req, res) => {
+  try {
+    const { _id, localId, ...imageData } = req.body;
+    
+    if (!isValidHash(imageData.contentHash) || !imageData.orderServerId) {
+      return res.status(400).json({ error: 'contentHash and orderServerId are required' });
+    }
+    if (!(await getBlobStatus(imageData.contentHash, imageData.size)).complete) {
+      return res.status(409).json({ error: 'Image blob not uploaded' });
+    }
+    
+    imageData.lastModified = Date.now();
+    await orderImagesCollection.updateOne(
+      { orderServerId: imageData.orderServerId, contentHash: imageData.contentHash },
+      { $set: imageData },
+      { upsert: true }
     );
-    return await customersCollection.findOne({ _id: new ObjectId(_id) });
-  } else {
-    // Insert new
-    const result = await customersCollection.insertOne(customerData);
-    return await customersCollection.findOne({ _id: result.insertedId });
+    
+    const saved = await orderImagesCollection.findOne({
+      orderServerId: imageData.orderServerId,
+      contentHash: imageData.contentHash
+    });
+    res.json({ ...saved, _id: saved._id.toString(), localId });
+  } catch (error) {
+    res.status(500).json({ error: error.message });
   }
+});
+
+// ============= HELPER FUNCTIONS =============
+function isValidHash(hash) {
+  return typeof hash === 'string' && /^[a-f0-9]{64}$/.test(hash);
+}
+
+function blobPath(hash) {
+  return path.join(UPLOADS_DIR, hash);
 }
 
-async function upsertOrder(order) {
-  const { _id, localId, ...orderData } = order;
-  orderData.lastModified = Date.now();
+async function fileSize(filePath) {
+  try {
+    return (await fs.promises.stat(filePath)).size;
+  } catch (error) {
+    if (error.code === 'ENOENT') return -1;
+    throw error;
+  }
+}
+
+async function getBlobStatus(hash, size) {
+  const completeSize = await fileSize(blobPath(hash));
+  if (completeSize >= 0) {
+    return { hash, size: completeSize, receivedBytes: completeSize, complete: true };
+  }
   
-  if (_id) {
-    await ordersCollection.updateOne(
-      { _id: new ObjectId(_id) },
-      { $set: orderData }
-    );
-    return await ordersCollection.findOne({ _id: new ObjectId(_id) });
-  } else {
-    const result = await ordersCollection.insertOne(orderData);
-    return await ordersCollection.findOne({ _id: result.insertedId });
+  const partialSize = await fileSize(blobPath(hash) + '.part');
+  return { hash, size, receivedBytes: Math.max(partialSize, 0), complete: false };
+}
+
+function hashFile(filePath) {
+  return new Promise((resolve, reject) => {
+    const digest = crypto.createHash('sha256');
+    fs.createReadStream(filePath)
+      .on('data', chunk => digest.update(chunk))
+      .on('end', () => resolve(digest.digest('hex')))
+      .on('error', reject);
+  });
+}
+
+function isValidStageEvent(event) {
+  return event &&
+    typeof event.eventId === 'string' && event.eventId.length > 0 &&
+    typeof event.orderServerId === 'string' && event.orderServerId.length > 0 &&
+    typeof event.toStage === 'string' &&
+    typeof event.occurredAt === 'number';
+}
+
+function isDuplicateKeyOnly(error) {
+  const writeErrors = [].concat(error.writeErrors || []);
+  return writeErrors.length > 0 && writeErrors.every(writeError => writeError.code === 11000);
+}
+
+// Writes a client batch and collects what else changed since the client's
+// last sync. Returns the batch's stored records followed by the others.
+async function syncCollection(collection, records, cursor, serverTimestamp) {
+  // Read other changes first (a syncSeq range), so the batch's own writes
+  // don't show up in them; stale copies of batch records are dropped in
+  // memory instead of with a $nin list.
+  const changed = await collection
+    .find(changedSince(cursor))
+    .sort(Number.isInteger(cursor.lastSyncSeq) ? { syncSeq: 1 } : { lastModified: 1 })
+    .toArray();
+  
+  const saved = await bulkUpsert(collection, records, serverTimestamp);
+  const savedIds = new Set(saved.map(doc => doc._id.toString()));
+  
+  return [...saved, ...changed.filter(doc => !savedIds.has(doc._id.toString()))];
+}
+
+// Changes after the client's cursor: a syncSeq range, or a lastModified
+// range for clients that predate sequence numbers
+function changedSince({ lastSyncSeq, lastSyncTimestamp = 0 }) {
+  return Number.isInteger(lastSyncSeq)
+    ? { syncSeq: { $gt: lastSyncSeq } }
+    : { lastModified: { $gt: lastSyncTimestamp } };
+}
+
+// Upserts records with one unordered bulkWrite and reads them back with one
+// $in query. New records get their ObjectId here so results can be matched
+// to requests. Records whose write failed are logged and left out, and the
+// client keeps them pending for the next sync.
+//
+// version is the device's hybrid logical clock stamp for the edit, stored as
+// sent. An update only applies if the stored version isn't newer, so the
+// order of arrival and device clocks don't decide which edit wins; a stale
+// update is skipped and the stored record is returned for the client to take.
+//
+// An update whose _id isn't stored at all (deleted here, or a server that
+// lost its data) also matches nothing. Those records are inserted under the
+// client's _id, so the client's copy is kept and it stops re-sending it.
+async function bulkUpsert(collection, records, timestamp) {
+  if (records.length === 0) return [];
+  
+  const firstSeq = reserveSyncSeqs(records.length);
+  const ids = [];
+  const documents = [];
+  const operations = records.map((record, index) => {
+    const { _id, localId, ...data } = record;
+    data.version = data.version || '';
+    data.lastModified = timestamp;
+    data.syncSeq = firstSeq + index;
+    
+    if (_id) {
+      const id = new ObjectId(_id);
+      ids.push(id);
+      documents.push({ _id: id, ...data });
+      return {
+        updateOne: {
+          filter: { _id: id, version: { $not: { $gt: data.version } } },
+          update: { $set: data }
+        }
+      };
+    }
+    const id = new ObjectId();
+    ids.push(id);
+    documents.push({ _id: id, ...data });
+    return { insertOne: { document: documents[index] } };
+  });
+  
+  const failedIndexes = new Set();
+  let docsById;
+  try {
+    await writeRecords(collection, operations, records.map((record, index) => index), failedIndexes);
+    docsById = await findByIds(collection, ids.filter((id, index) => !failedIndexes.has(index)));
+    
+    // Written before the sequence numbers are released, so no cursor passes them unwritten
+    const missing = operations
+      .map((operation, index) => index)
+      .filter(index => operations[index].updateOne && !failedIndexes.has(index) && !docsById.has(ids[index].toString()));
+    if (missing.length > 0) {
+      console.warn(`${collection.collectionName}: ${missing.length} updates for unknown _id, inserting client copies`);
+      await writeRecords(
+        collection,
+        missing.map(index => ({ insertOne: { document: documents[index] } })),
+        missing,
+        failedIndexes
+      );
+      const inserted = await findByIds(collection, missing.filter(index => !failedIndexes.has(index)).map(index => ids[index]));
+      inserted.forEach((doc, key) => docsById.set(key, doc));
+    }
+  } finally {
+    releaseSyncSeqs(firstSeq);
   }
+  
+  // Request order, with the client's localId so it can match its rows
+  const saved = [];
+  records.forEach((record, index) => {
+    const doc = !failedIndexes.has(index) && docsById.get(ids[index].toString());
+    if (doc) saved.push({ ...doc, localId: record.localId });
+  });
+  return saved;
 }
 
-async function upsertMeasurement(measurement) {
-  const { _id, localId, ...measurementData } = measurement;
-  measurementData.lastModified = Date.now();
+// Runs an unordered bulkWrite and records which records failed.
+// recordIndexes maps each operation to its record's index in the request.
+async function writeRecords(collection, operations, recordIndexes, failedIndexes) {
+  try {
+    await collection.bulkWrite(operations, { ordered: false });
+  } catch (error) {
+    if (!error.writeErrors) throw error;
+    [].concat(error.writeErrors).forEach(writeError => {
+      failedIndexes.add(recordIndexes[writeError.index]);
+      console.error(`${collection.collectionName} write failed:`, writeError.errmsg);
+    });
+  }
+}
+
+// Stored documents by _id string
+async function findByIds(collection, ids) {
+  if (ids.length === 0) return new Map();
+  const docs = await collection.find({ _id: { $in: ids } }).toArray();
+  return new Map(docs.map(doc => [doc._id.toString(), doc]));
+}
+
+// Writes one record through bulkUpsert, for the single-record endpoints
+async function upsertRecord(collection, record) {
+  const [saved] = await bulkUpsert(collection, [record], Date.now());
+  if (!saved) throw new Error(`${collection.collectionName} write failed`);
+  return saved;
+}
+
+// Starts numbering after the highest syncSeq already stored
+async function loadSyncSeq() {
+  for (const collection of [customersCollection, ordersCollection, measurementsCollection]) {
+    const [latest] = await collection
+      .find({ syncSeq: { $exists: true } }, { projection: { syncSeq: 1 } })
+      .sort({ syncSeq: -1 })
+      .limit(1)
+      .toArray();
+    if (latest) highestSyncSeq = Math.max(highestSyncSeq, latest.syncSeq);
+  }
+}
+
+// Hands out count consecutive sequence numbers and returns the first
+function reserveSyncSeqs(count) {
+  const first = highestSyncSeq + 1;
+  highestSyncSeq += count;
+  pendingSyncSeqs.add(first);
+  return first;
+}
+
+function releaseSyncSeqs(first) {
+  pendingSyncSeqs.delete(first);
+}
+
+// Highest sequence number below every write still in flight. Taken before
+// reading changes, so a client cursor never skips a write that commits late.
+function stableSyncSeq() {
+  return pendingSyncSeqs.size > 0 ? Math.min(...pendingSyncSeqs) - 1 : highestSyncSeq;
+}
+
+// Reads one page of a collection in _id order, starting after the cursor.
+// Each page is a range read on the _id index, so neither the server nor the
+// client holds more than a page however large the collection is.
+// - after: _id of the last record of the previous page (omit for the first)
+// - since: only records modified after this timestamp
+// - fields: comma-separated fields to return instead of the full record
+async function findPage(collection, params, format) {
+  const serverTimestamp = Date.now();
+  const serverSeq = stableSyncSeq();
+  const limit = Math.min(parseInt(params.limit) || DEFAULT_PAGE_SIZE, MAX_PAGE_SIZE);
+  const since = parseInt(params.since) || 0;
   
-  if (_id) {
-    await measurementsCollection.updateOne(
-      { _id: new ObjectId(_id) },
-      { $set: measurementData }
-    );
-    return await measurementsCollection.findOne({ _id: new ObjectId(_id) });
-  } else {
-    const result = await measurementsCollection.insertOne(measurementData);
-    return await measurementsCollection.findOne({ _id: result.insertedId });
+  const query = {};
+  if (params.after) {
+    if (!ObjectId.isValid(params.after)) {
+      throw Object.assign(new Error('Invalid page cursor'), { status: 400 });
+    }
+    query._id = { $gt: new ObjectId(params.after) };
+  }
+  if (since > 0) {
+    query.lastModified = { $gt: since };
+  }
+  
+  const projection = parseFields(params.fields);
+  
+  // One extra record tells whether another page follows
+  const docs = await collection
+    .find(query, { projection })
+    .sort({ _id: 1 })
+    .limit(limit + 1)
+    .toArray();
+  const page = docs.slice(0, limit);
+  
+  return {
+    data: projection ? page.map(formatProjected) : page.map(format),
+    nextCursor: docs.length > limit ? page[page.length - 1]._id.toString() : null,
+    serverTimestamp,
+    serverSeq
+  };
+}
+
+function parseFields(fields) {
+  if (!fields) return undefined;
+  
+  const projection = { lastModified: 1, version: 1 };
+  fields.split(',')
+    .map(field => field.trim())
+    .filter(field => /^[A-Za-z][A-Za-z0-9]*$/.test(field))
+    .forEach(field => { projection[field] = 1; });
+  return projection;
+}
+
+function formatProjected(doc) {
+  return { ...doc, _id: doc._id.toString() };
+}
+
+function snapshotPath(id) {
+  return path.join(SNAPSHOT_DIR, `${id}.ndjson.gz`);
+}
+
+// Returns a snapshot no older than SNAPSHOT_MAX_AGE_MS, building one if needed
+async function getSnapshot() {
+  if (currentSnapshot && Date.now() - currentSnapshot.serverTimestamp < SNAPSHOT_MAX_AGE_MS) {
+    return currentSnapshot;
+  }
+  
+  if (!snapshotBuild) {
+    snapshotBuild = buildSnapshot()
+      .then(async snapshot => {
+        // Keep the previous file so downloads already under way can finish
+        const keep = [snapshot.id, currentSnapshot && currentSnapshot.id].filter(Boolean);
+        currentSnapshot = snapshot;
+        await pruneSnapshots(keep);
+        return snapshot;
+      })
+      .finally(() => { snapshotBuild = null; });
+  }
+  return snapshotBuild;
+}
+
+// Streams every collection through gzip to disk, so memory use doesn't grow
+// with the shop's size. Records changed while it runs are picked up by the
+// client's catch-up sync, which starts from serverTimestamp.
+async function buildSnapshot() {
+  const serverTimestamp = Date.now();
+  const serverSeq = stableSyncSeq();
+  const id = `${serverTimestamp}-${crypto.randomBytes(4).toString('hex')}`;
+  const filePath = snapshotPath(id);
+  const partPath = filePath + '.part';
+  
+  const gzip = zlib.createGzip();
+  const written = pipeline(gzip, fs.createWriteStream(partPath));
+  const writeLine = async record => {
+    if (!gzip.write(JSON.stringify(record) + '\n')) await once(gzip, 'drain');
+  };
+  
+  const counts = {};
+  try {
+    await writeLine({ type: 'header', format: SNAPSHOT_FORMAT, serverTimestamp, serverSeq });
+    
+    const sources = [
+      ['customer', customersCollection, formatCustomer],
+      ['order', ordersCollection, formatOrder],
+      ['measurement', measurementsCollection, formatMeasurement]
+    ];
+    for (const [type, collection, format] of sources) {
+      counts[type] = 0;
+      for await (const doc of collection.find({}).sort({ _id: 1 })) {
+        // localId belongs to the device that created the record
+        const { localId, ...record } = format(doc);
+        await writeLine({ ...record, type });
+        counts[type]++;
+      }
+    }
+    gzip.end();
+    await written;
+  } catch (error) {
+    gzip.destroy();
+    await fs.promises.rm(partPath, { force: true });
+    throw error;
+  }
+  
+  await fs.promises.rename(partPath, filePath);
+  const { size } = await fs.promises.stat(filePath);
+  
+  console.log(`Built snapshot ${id}: ${JSON.stringify(counts)}, ${size} bytes`);
+  return { id, format: SNAPSHOT_FORMAT, serverTimestamp, serverSeq, size, sha256: await hashFile(filePath), counts };
+}
+
+async function pruneSnapshots(keepIds) {
+  const keep = new Set(keepIds.map(id => path.basename(snapshotPath(id))));
+  for (const name of await fs.promises.readdir(SNAPSHOT_DIR)) {
+    if (!keep.has(name) && !name.endsWith('.part')) {
+      await fs.promises.rm(path.join(SNAPSHOT_DIR, name), { force: true });
+    }
   }
 }
 
@@ -396,10 +876,14 @@ function formatCustomer(customer) {
     mobile: customer.mobile,
     alternateMobile: customer.alternateMobile || '',
     birthDate: customer.birthDate,
+    version: customer.version || '',
     lastModified: customer.lastModified
   };
 }
 
+// Orders carry the full app Order model. Payment fields were added in order
+// schema 2; orders only ever written by schema 1 clients return them as null,
+// and clients keep their local values for null fields.
 function formatOrder(order) {
   return {
     _id: order._id.toString(),
@@ -412,6 +896,12 @@ function formatOrder(order) {
     instructions: order.instructions || '',
     amount: order.amount,
     status: order.status,
+    advancePayment: order.advancePayment ?? null,
+    balancePayment: order.balancePayment ?? null,
+    paymentStatus: order.paymentStatus ?? null,
+    paymentDate: order.paymentDate ?? null,
+    schemaVersion: order.schemaVersion || 1,
+    version: order.version || '',
     lastModified: order.lastModified
   };
 }
@@ -426,6 +916,18 @@ function formatMeasurement(measurement) {
   };
 }
 
+function formatStageEvent(event) {
+  return {
+    eventId: event.eventId,
+    orderServerId: event.orderServerId,
+    fromStage: event.fromStage,
+    toStage: event.toStage,
+    occurredAt: event.occurredAt,
+    fromStageDurationMs: event.fromStageDurationMs,
+    receivedAt: event.receivedAt
+  };
+}
+
 // Start server after database connection
 async function startServer() {
   await connectToDatabase();
@@ -438,5 +940,10 @@ async function startServer() {
   });
 }
 
-startServer();
+// Started directly (npm start); tests require the module and drive app themselves
+if (require.main === module) {
+  startServer();
+}
+
+module.exports = { app, useDatabase, loadSyncSeq, formatOrder };
 
@@ -0,0 +1,160 @@
+// In-memory stand-in for the parts of the MongoDB driver server.js uses in
+// the sync paths: find (filter, sort, limit, projection), bulkWrite with
+// insertOne/updateOne, insertMany and createIndex. Documents are kept in
+// insertion order and copied on the way in and out, like a real round trip.
+//
+// Filters support field equality (ObjectIds by value), $or, and the
+// operators $gt, $gte, $lt, $lte, $in, $not and $exists. Only _id is unique.
+
+const { ObjectId } = require('mongodb');
+
+function isEqual(a, b) {
+  if (a instanceof ObjectId || b instanceof ObjectId) {
+    return a != null && b != null && a.toString() === b.toString();
+  }
+  return a === b;
+}
+
+function compare(a, b) {
+  if (a instanceof ObjectId && b instanceof ObjectId) return a.toString().localeCompare(b.toString());
+  if (a < b) return -1;
+  if (a > b) return 1;
+  return 0;
+}
+
+function matchesOperators(value, operators) {
+  return Object.entries(operators).every(([operator, operand]) => {
+    switch (operator) {
+      case '$gt': return value !== undefined && compare(value, operand) > 0;
+      case '$gte': return value !== undefined && compare(value, operand) >= 0;
+      case '$lt': return value !== undefined && compare(value, operand) < 0;
+      case '$lte': return value !== undefined && compare(value, operand) <= 0;
+      case '$in': return operand.some(candidate => isEqual(value, candidate));
+      case '$not': return !matchesOperators(value, operand);
+      case '$exists': return (value !== undefined) === operand;
+      default: throw new Error(`Fake collection doesn't support ${operator}`);
+    }
+  });
+}
+
+function matches(doc, filter) {
+  return Object.entries(filter).every(([key, condition]) => {
+    if (key === '$or') return condition.some(branch => matches(doc, branch));
+    const isOperator = condition && typeof condition === 'object' && !(condition instanceof ObjectId) &&
+      Object.keys(condition).every(name => name.startsWith('$'));
+    return isOperator ? matchesOperators(doc[key], condition) : isEqual(doc[key], condition);
+  });
+}
+
+function project(doc, projection) {
+  if (!projection) return { ...doc };
+  const projected = { _id: doc._id };
+  Object.keys(projection).forEach(key => {
+    if (projection[key] && key in doc) projected[key] = doc[key];
+  });
+  return projected;
+}
+
+class FakeCursor {
+  constructor(docs, projection) {
+    this.docs = docs;
+    this.projection = projection;
+  }
+
+  sort(spec) {
+    const keys = Object.entries(spec);
+    this.docs.sort((a, b) => {
+      for (const [key, direction] of keys) {
+        const order = compare(a[key], b[key]) * direction;
+        if (order !== 0) return order;
+      }
+      return 0;
+    });
+    return this;
+  }
+
+  limit(count) {
+    this.docs = this.docs.slice(0, count);
+    return this;
+  }
+
+  project(projection) {
+    this.projection = projection;
+    return this;
+  }
+
+  async toArray() {
+    return this.docs.map(doc => project(doc, this.projection));
+  }
+
+  async *[Symbol.asyncIterator]() {
+    for (const doc of await this.toArray()) yield doc;
+  }
+}
+
+class FakeCollection {
+  constructor(name) {
+    this.collectionName = name;
+    this.docs = [];
+  }
+
+  find(filter = {}, options = {}) {
+    return new FakeCursor(this.docs.filter(doc => matches(doc, filter)), options.projection);
+  }
+
+  async findOne(filter = {}) {
+    const doc = this.docs.find(candidate => matches(candidate, filter));
+    return doc ? { ...doc } : null;
+  }
+
+  async createIndex() {}
+
+  async insertMany(documents, options) {
+    return this.bulkWrite(documents.map(document => ({ insertOne: { document } })), options);
+  }
+
+  // Unordered: every operation is tried, then failures are thrown together
+  async bulkWrite(operations) {
+    const writeErrors = [];
+    let insertedCount = 0;
+    let matchedCount = 0;
+    operations.forEach((operation, index) => {
+      if (operation.insertOne) {
+        const document = { _id: new ObjectId(), ...operation.insertOne.document };
+        if (this.docs.some(doc => isEqual(doc._id, document._id))) {
+          writeErrors.push({ index, code: 11000, errmsg: `E11000 duplicate key error _id: ${document._id}` });
+          return;
+        }
+        this.docs.push(document);
+        insertedCount++;
+      } else if (operation.updateOne) {
+        const { filter, update } = operation.updateOne;
+        const doc = this.docs.find(candidate => matches(candidate, filter));
+        if (!doc) return;
+        Object.assign(doc, update.$set);
+        matchedCount++;
+      } else {
+        throw new Error(`Fake collection doesn't support ${Object.keys(operation)[0]}`);
+      }
+    });
+    if (writeErrors.length > 0) {
+      const error = new Error(`${writeErrors.length} write errors`);
+      error.writeErrors = writeErrors;
+      throw error;
+    }
+    return { insertedCount, matchedCount };
+  }
+}
+
+class FakeDb {
+  constructor() {
+    this.collections = new Map();
+  }
+
+  collection(name) {
+    if (!this.collections.has(name)) this.collections.set(name, new FakeCollection(name));
+    return this.collections.get(name);
+  }
+}
+
+module.exports = { FakeDb };
@@ -0,0 +1,170 @@
+// Order sync through POST /api/sync/batch against an in-memory database.
+//
+// The fixtures are the wire format formatOrder produces for an order with
+// payments (schema version 2) and for one stored before payments were
+// synced (schema version 1). The app's OrderMapperTest reads the same files
+// into ApiOrder, so both sides are checked against one contract.
+
+const { describe, it, before, after, beforeEach } = require('node:test');
+const assert = require('node:assert/strict');
+const { ObjectId } = require('mongodb');
+
+const { app, useDatabase, loadSyncSeq, formatOrder } = require('../server');
+const { FakeDb } = require('./fake-db');
+const orderV2 = require('./fixtures/order-schema-v2.json');
+const orderV1 = require('./fixtures/order-schema-v1.json');
+
+const PAYMENT_FIELDS = ['advancePayment', 'balancePayment', 'paymentStatus', 'paymentDate'];
+
+let server;
+let baseUrl;
+let db;
+
+before(async () => {
+  server = app.listen(0);
+  await new Promise(resolve => server.once('listening', resolve));
+  baseUrl = `http://127.0.0.1:${server.address().port}`;
+});
+
+after(() => new Promise(resolve => server.close(resolve)));
+
+beforeEach(() => {
+  db = new FakeDb();
+  useDatabase(db);
+});
+
+async function syncBatch(body) {
+  const response = await fetch(`${baseUrl}/api/sync/batch`, {
+    method: 'POST',
+    headers: { 'Content-Type': 'application/json' },
+    body: JSON.stringify({ customers: [], orders: [], measurements: [], ...body })
+  });
+  assert.equal(response.status, 200);
+  const result = await response.json();
+  assert.equal(result.success, true);
+  return result;
+}
+
+// An order as the app pushes it: no _id yet, its local row ID as localId
+function newOrderFrom(fixture, localId) {
+  const { _id, lastModified, ...order } = fixture;
+  return { ...order, localId };
+}
+
+// The fixture as it sits in MongoDB
+function storedFrom(fixture, extra = {}) {
+  return { ...fixture, _id: new ObjectId(fixture._id), ...extra };
+}
+
+// What goes over the wire: undefined fields dropped
+function wire(order) {
+  return JSON.parse(JSON.stringify(order));
+}
+
+function pick(object, keys) {
+  return Object.fromEntries(keys.map(key => [key, object[key]]));
+}
+
+describe('order sync', () => {
+  it('stores and returns payments pushed with a new order', async () => {
+    const result = await syncBatch({ orders: [newOrderFrom(orderV2, 7)], lastSyncSeq: 0 });
+
+    assert.equal(result.orders.length, 1);
+    const [returned] = result.orders;
+    assert.equal(returned.localId, 7);
+    assert.ok(ObjectId.isValid(returned._id));
+    assert.deepEqual(pick(returned, PAYMENT_FIELDS), pick(orderV2, PAYMENT_FIELDS));
+    assert.equal(returned.schemaVersion, 2);
+    assert.equal(returned.version, orderV2.version);
+
+    const [stored] = await db.collection('orders').find({}).toArray();
+    assert.deepEqual(pick(stored, PAYMENT_FIELDS), pick(orderV2, PAYMENT_FIELDS));
+    assert.equal(stored.localId, undefined, 'localId is per device and never stored');
+  });
+
+  it('formats a stored schema 2 order as the shared fixture', () => {
+    assert.deepEqual(wire(formatOrder(storedFrom(orderV2, { syncSeq: 3 }))), orderV2);
+  });
+
+  it('sends schema 1 orders with null payments and schemaVersion 1', async () => {
+    const legacy = storedFrom(orderV1, { syncSeq: 1 });
+    PAYMENT_FIELDS.forEach(field => delete legacy[field]);
+    delete legacy.schemaVersion;
+    await db.collection('orders').insertMany([legacy]);
+    await loadSyncSeq();
+
+    const result = await syncBatch({ lastSyncSeq: 0 });
+
+    assert.deepEqual(result.orders, [orderV1]);
+  });
+
+  it('applies a newer edit and keeps the payments it carries', async () => {
+    await db.collection('orders').insertMany([storedFrom(orderV2, { syncSeq: 1 })]);
+    await loadSyncSeq();
+    const edit = {
+      ...newOrderFrom(orderV2, 7),
+      _id: orderV2._id,
+      status: 'Completed',
+      version: '0001749900000001-00000-9f2c4e1a7b3d5f60'
+    };
+
+    const result = await syncBatch({ orders: [edit] });
+
+    const [returned] = result.orders;
+    assert.equal(returned._id, orderV2._id);
+    assert.equal(returned.status, 'Completed');
+    assert.equal(returned.version, edit.version);
+    assert.deepEqual(pick(returned, PAYMENT_FIELDS), pick(orderV2, PAYMENT_FIELDS));
+  });
+
+  it('returns the stored order when a pushed edit is older', async () => {
+    await db.collection('orders').insertMany([storedFrom(orderV2, { syncSeq: 1 })]);
+    await loadSyncSeq();
+    const stale = {
+      ...newOrderFrom(orderV2, 7),
+      _id: orderV2._id,
+      status: 'Pending',
+      paymentStatus: 'Unpaid',
+      version: '0001749800000000-00000-0b7e2a9c4d1f3e58'
+    };
+
+    const result = await syncBatch({ orders: [stale] });
+
+    const [returned] = result.orders;
+    assert.equal(returned.localId, 7);
+    assert.equal(returned.status, orderV2.status);
+    assert.equal(returned.paymentStatus, orderV2.paymentStatus);
+    assert.equal(returned.version, orderV2.version);
+  });
+
+  it('stores an update for an unknown _id instead of dropping it', async () => {
+    const orphan = { ...newOrderFrom(orderV2, 9), _id: orderV2._id };
+
+    const result = await syncBatch({ orders: [orphan] });
+
+    assert.equal(result.orders.length, 1);
+    assert.equal(result.orders[0]._id, orderV2._id);
+    assert.equal(result.orders[0].localId, 9);
+    const stored = await db.collection('orders').findOne({ _id: new ObjectId(orderV2._id) });
+    assert.equal(stored.version, orderV2.version);
+  });
+
+  it('returns orders changed after the cursor but not the batch twice', async () => {
+    await db.collection('orders').insertMany([
+      storedFrom(orderV1, { syncSeq: 1 }),
+      storedFrom(orderV2, { syncSeq: 2 })
+    ]);
+    await loadSyncSeq();
+    const edit = {
+      ...newOrderFrom(orderV2, 7),
+      _id: orderV2._id,
+      version: '0001749900000001-00000-9f2c4e1a7b3d5f60'
+    };
+
+    const result = await syncBatch({ orders: [edit], lastSyncSeq: 1 });
+
+    assert.deepEqual(result.orders.map(order => order._id), [orderV2._id]);
+    assert.equal(result.orders[0].version, edit.version);
+    assert.ok(result.serverSeq >= 2);
+  });
+});